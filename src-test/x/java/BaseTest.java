@@ -11,9 +11,13 @@ package x.java;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.Serializable;
+import java.util.function.IntSupplier;
+
+import org.junit.Assume;
 
 import x.java.io.IOUtils;
 
@@ -86,4 +90,36 @@ public class BaseTest {
         }
     }
     
+    /**
+     * Tests if the specified operation is allocation-free.
+     * 
+     * <p>
+     * The operation is run a number of times (interpreted and compiled by the JIT), and the bytes allocated
+     * by the current thread are measured. The test is skipped if the JVM does not support measuring
+     * allocation.
+     * </p>
+     * 
+     * @param name name of the operation to be included in the failure message
+     * @param op operation to be tested; it should return a value computed from its work so the JIT cannot
+     *            eliminate it as dead code
+     */
+    public void testAllocationFree(final String name, final IntSupplier op) {
+        Assume.assumeTrue(MicroBenchmark.allocatedBytes() >= 0);
+        
+        final int iterations = 100_000;
+        int sink = 0;
+        // Warmup, also loads everything the operation might need
+        for (int i = 0; i < iterations; i++)
+            sink += op.getAsInt();
+        
+        final long start = MicroBenchmark.allocatedBytes();
+        for (int i = 0; i < iterations; i++)
+            sink += op.getAsInt();
+        final long allocated = MicroBenchmark.allocatedBytes() - start;
+        
+        // Measuring itself might allocate a few bytes, so only require less than 1 byte per iteration
+        assertTrue(name + " allocated " + allocated + " bytes in " + iterations + " iterations (sink: " + sink
+                + ")", allocated < iterations);
+    }
+    
 }
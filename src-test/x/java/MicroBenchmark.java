@@ -0,0 +1,131 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * A minimal micro benchmark harness for the benchmark programs of the test sources.
+ * 
+ * <p>
+ * Each benchmark is run in a number of warmup rounds (to let the JIT compile it) followed by measured rounds;
+ * the best measured round is reported. Operations must return a value computed from their work which is
+ * consumed by the harness, so the JIT cannot eliminate the work as dead code.
+ * </p>
+ * 
+ * <p>
+ * This is not a replacement for a full-blown benchmark framework, results are only indicative and should be
+ * compared relative to each other within the same run.
+ * </p>
+ * 
+ * <p>
+ * If the JVM supports it, the bytes allocated by the current thread are also measured and reported per
+ * iteration (allocations of other threads started by the operation are not included).
+ * </p>
+ * 
+ * @author Andras Belicza
+ */
+public final class MicroBenchmark {
+    
+    /**
+     * A benchmarked operation.
+     * 
+     * @author Andras Belicza
+     */
+    @FunctionalInterface
+    public interface Op {
+        
+        /**
+         * Runs the operation the specified times.
+         * 
+         * @param iterations number of times to run the operation
+         * @return a value computed from the work performed
+         */
+        long run(int iterations);
+    
+    }
+    
+    
+    /** Number of warmup rounds. */
+    private static final int WARMUP_ROUNDS = 5;
+    
+    /** Number of measured rounds. */
+    private static final int MEASURED_ROUNDS = 5;
+    
+    /** Thread MX bean capable of measuring allocated bytes, <code>null</code> if not supported. */
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN;
+    static {
+        com.sun.management.ThreadMXBean bean = null;
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+                bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+                if (bean.isThreadAllocatedMemorySupported())
+                    bean.setThreadAllocatedMemoryEnabled(true);
+                else
+                    bean = null;
+            }
+        } catch (final LinkageError | UnsupportedOperationException e) {
+            // Not a HotSpot-like JVM, allocation is not measured
+            bean = null;
+        }
+        THREAD_MX_BEAN = bean;
+    }
+    
+    /** Sink of the operation results. */
+    private static volatile long sink;
+    
+    /**
+     * No instantiation.
+     */
+    private MicroBenchmark() {
+    }
+    
+    /**
+     * Runs and measures an operation, and prints the result to the standard output.
+     * 
+     * @param name name of the benchmark
+     * @param iterations number of iterations per round
+     * @param op operation to be measured
+     * @return the best measured time of an iteration in nanoseconds
+     */
+    public static double run(final String name, final int iterations, final Op op) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++)
+            sink += op.run(iterations);
+        
+        long best = Long.MAX_VALUE;
+        final long startAllocated = allocatedBytes();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            final long start = System.nanoTime();
+            sink += op.run(iterations);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        final long allocated = allocatedBytes() - startAllocated;
+        
+        final double nsPerOp = (double) best / iterations;
+        if (startAllocated < 0)
+            System.out.printf("%-50s %12.2f ns/op%n", name, nsPerOp);
+        else
+            System.out.printf("%-50s %12.2f ns/op %10.2f B/op%n", name, nsPerOp,
+                    (double) allocated / MEASURED_ROUNDS / iterations);
+        return nsPerOp;
+    }
+    
+    /**
+     * Returns the number of bytes allocated by the current thread so far.
+     * 
+     * @return the number of bytes allocated by the current thread so far; <code>-1</code> if measuring
+     *         allocation is not supported by the JVM
+     */
+    public static long allocatedBytes() {
+        return THREAD_MX_BEAN == null ? -1
+                : THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    
+}
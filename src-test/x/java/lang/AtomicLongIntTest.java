@@ -0,0 +1,96 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import x.java.BaseTest;
+import x.java.io.IOUtils;
+
+/**
+ * JUnit test of {@link AtomicLongInt}, {@link AtomicInt} and {@link StripedLongInt}.
+ * 
+ * @author Andras Belicza
+ */
+public class AtomicLongIntTest extends BaseTest {
+    
+    /** */
+    @Test
+    public void testGeneral() {
+        AtomicLongInt li = new AtomicLongInt(10);
+        assertEquals(11, li.incAndGet());
+        assertEquals(16, li.addAndGet(5));
+        assertTrue(li.compareAndSet(16, 1));
+        assertFalse(li.compareAndSet(16, 2));
+        li.set(-1);
+        assertEquals(-1, li.get());
+        assertEquals("-1", li.toString());
+        
+        AtomicInt i = new AtomicInt(10);
+        assertEquals(11, i.incAndGet());
+        assertEquals(16, i.addAndGet(5));
+        assertTrue(i.compareAndSet(16, 1));
+        assertEquals(1, i.get());
+        
+        StripedLongInt s = new StripedLongInt(10);
+        s.inc();
+        s.add(5);
+        assertEquals(16, s.get());
+        assertEquals(16, s.getAndReset());
+        assertEquals(0, s.get());
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testConcurrent() throws Exception {
+        final int threads = 8, increments = 100_000;
+        
+        final AtomicLongInt li = new AtomicLongInt();
+        final AtomicInt i = new AtomicInt();
+        final StripedLongInt s = new StripedLongInt();
+        
+        ExecutorService es = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++)
+            es.execute(() -> {
+                for (int j = 0; j < increments; j++) {
+                    li.incAndGet();
+                    i.addAndGet(2);
+                    s.inc();
+                }
+            });
+        es.shutdown();
+        assertTrue(es.awaitTermination(1, TimeUnit.MINUTES));
+        
+        assertEquals(threads * increments, li.get());
+        assertEquals(2 * threads * increments, i.get());
+        assertEquals(threads * increments, s.get());
+    }
+    
+    /** */
+    @Test
+    public void testSerialization() {
+        AtomicLongInt li = IOUtils.deserialize(IOUtils.serialize(new AtomicLongInt(7)));
+        assertEquals(7, li.get());
+        
+        StripedLongInt s = IOUtils.deserialize(IOUtils.serialize(new StripedLongInt(7)));
+        assertEquals(7, s.get());
+    }
+    
+}
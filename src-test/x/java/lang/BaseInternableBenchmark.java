@@ -0,0 +1,123 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import x.java.MicroBenchmark;
+
+/**
+ * Benchmark of the equality fast paths of {@link BaseInternable}: interned vs non-interned comparisons,
+ * {@link HashMap} usage and intern pool growth.
+ * 
+ * <p>
+ * Run it as a Java application. Pass <code>-Dx.java.lang.BaseInternable.stats=true</code> to also print
+ * the equality statistics (which has an overhead of its own).
+ * </p>
+ * 
+ * @author Andras Belicza
+ */
+public class BaseInternableBenchmark {
+    
+    /** Number of different values. */
+    private static final int VALUES = 1024;
+    
+    /**
+     * Entry point of the benchmark.
+     * 
+     * @param arguments not used
+     */
+    public static void main(final String[] arguments) {
+        final InternPool<TestInternable> pool = new InternPool<>(VALUES);
+        
+        final TestInternable[] interned = new TestInternable[VALUES];
+        final TestInternable[] plain = new TestInternable[VALUES];
+        final TestInternable[] plain2 = new TestInternable[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            interned[i] = pool.intern(new TestInternable(i));
+            plain[i] = new TestInternable(i);
+            plain2[i] = new TestInternable(i);
+        }
+        
+        // Equality of different values: interned state decides vs hash codes decide
+        MicroBenchmark.run("equals, different, both interned", 10_000_000, n -> {
+            long c = 0;
+            for (int i = 0; i < n; i++)
+                if (interned[i & (VALUES - 1)].equals(interned[(i + 1) & (VALUES - 1)]))
+                    c++;
+            return c;
+        });
+        MicroBenchmark.run("equals, different, not interned", 10_000_000, n -> {
+            long c = 0;
+            for (int i = 0; i < n; i++)
+                if (plain[i & (VALUES - 1)].equals(plain[(i + 1) & (VALUES - 1)]))
+                    c++;
+            return c;
+        });
+        
+        // Equality of equal values: customEquals() is called unless it's the same (interned) instance
+        MicroBenchmark.run("equals, equal, interned (same instance)", 10_000_000, n -> {
+            long c = 0;
+            for (int i = 0; i < n; i++)
+                if (interned[i & (VALUES - 1)].equals(interned[i & (VALUES - 1)]))
+                    c++;
+            return c;
+        });
+        MicroBenchmark.run("equals, equal, not interned (customEquals)", 10_000_000, n -> {
+            long c = 0;
+            for (int i = 0; i < n; i++)
+                if (plain[i & (VALUES - 1)].equals(plain2[i & (VALUES - 1)]))
+                    c++;
+            return c;
+        });
+        
+        // HashMap lookups
+        final Map<TestInternable, Integer> internedMap = new HashMap<>();
+        final Map<TestInternable, Integer> plainMap = new HashMap<>();
+        for (int i = 0; i < VALUES; i++) {
+            internedMap.put(interned[i], i);
+            plainMap.put(plain[i], i);
+        }
+        MicroBenchmark.run("HashMap.get, interned keys", 10_000_000, n -> {
+            long c = 0;
+            for (int i = 0; i < n; i++)
+                c += internedMap.get(interned[i & (VALUES - 1)]);
+            return c;
+        });
+        MicroBenchmark.run("HashMap.get, not interned keys", 10_000_000, n -> {
+            long c = 0;
+            for (int i = 0; i < n; i++)
+                c += plainMap.get(plain2[i & (VALUES - 1)]);
+            return c;
+        });
+        
+        // Pool growth
+        MicroBenchmark.run("InternPool growth, 100k new values", 10, n -> {
+            long c = 0;
+            for (int r = 0; r < n; r++) {
+                final InternPool<TestInternable> p = new InternPool<>();
+                for (int i = 0; i < 100_000; i++)
+                    c += p.intern(new TestInternable(i)).hashCode();
+            }
+            return c;
+        });
+        MicroBenchmark.run("InternPool hits", 10_000_000, n -> {
+            long c = 0;
+            for (int i = 0; i < n; i++)
+                c += pool.intern(plain2[i & (VALUES - 1)]).hashCode();
+            return c;
+        });
+        
+        if (BaseInternable.isStatsEnabled())
+            System.out.println(InternableStats.of(TestInternable.class));
+    }
+    
+}
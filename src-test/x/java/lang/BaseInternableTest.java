@@ -12,6 +12,7 @@ package x.java.lang;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Before;
@@ -115,4 +116,70 @@ public class BaseInternableTest extends BaseTest {
         assertFalse(ti.isInterned()); // ti should not be marked as interned
     }
     
+    
+    /** */
+    @Test
+    public void testStats() {
+        InternableStats stats = InternableStats.of(TestInternable.class);
+        assertSame(TestInternable.class, stats.getStatsClass());
+        
+        BaseInternable.setStatsEnabled(true);
+        try {
+            TestInternable i0 = new TestInternable(0).intern(), i1 = new TestInternable(1).intern();
+            // Interning performs equality checks too
+            stats.reset();
+            
+            assertFalse(i0.equals(i1)); // Interned state decides
+            assertFalse(ti.equals(new TestInternable(1))); // Hash codes decide
+            assertTrue(ti.equals(new TestInternable(0))); // customEquals() decides
+            assertTrue(ti.equals(ti)); // Same instance, not counted
+            
+            assertEquals(1, stats.getInternedCount());
+            assertEquals(1, stats.getHashMismatchCount());
+            assertEquals(1, stats.getCustomEqualsCount());
+            assertTrue(stats.getInternHitCount() + stats.getInternMissCount() >= 2);
+        } finally {
+            BaseInternable.setStatsEnabled(false);
+        }
+        
+        ti.equals(new TestInternable(0));
+        assertEquals(1, stats.getCustomEqualsCount()); // Disabled, not counted
+    }
+    
+    /** */
+    @Test
+    public void testStatsOfUnusedPool() {
+        InternableStats stats = InternableStats.of(UnpooledInternable.class);
+        assertEquals(0, stats.getInternHitCount());
+        assertEquals(0, stats.getInternMissCount());
+        assertTrue(stats.toString().contains("internMisses=0"));
+        
+        // Querying the stats must not create the class intern pool
+        InternPool<UnpooledInternable> pool = InternPool.newWeakPool(16);
+        InternPool.setClassInternPool(UnpooledInternable.class, pool);
+        assertSame(pool, InternPool.getClassInternPool(UnpooledInternable.class));
+        
+        new UnpooledInternable().intern();
+        assertEquals(1, stats.getInternMissCount());
+    }
+    
+    /**
+     * Internable whose class intern pool is not used by other tests.
+     * 
+     * @author Andras Belicza
+     */
+    private static class UnpooledInternable extends BaseInternable<UnpooledInternable> {
+        
+        @Override
+        protected int customHashCode() {
+            return 0;
+        }
+        
+        @Override
+        protected boolean customEquals(final UnpooledInternable obj) {
+            return true;
+        }
+    
+    }
+    
 }
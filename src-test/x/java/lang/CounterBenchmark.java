@@ -0,0 +1,107 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import x.java.MicroBenchmark;
+
+/**
+ * Benchmark of the counters: {@link LongInt} with external synchronization vs {@link AtomicLong} vs
+ * {@link AtomicLongInt} vs {@link StripedLongInt}, under 1 to 64 threads.
+ * 
+ * <p>
+ * Two scenarios are measured: all threads incrementing a shared counter (contention), and each thread
+ * incrementing its own counter allocated next to the others (false sharing).
+ * </p>
+ * 
+ * <p>
+ * Run it as a Java application.
+ * </p>
+ * 
+ * @author Andras Belicza
+ */
+public class CounterBenchmark {
+    
+    /** Number of increments per round. */
+    private static final int INCREMENTS = 4_000_000;
+    
+    /**
+     * Entry point of the benchmark.
+     * 
+     * @param arguments not used
+     */
+    public static void main(final String[] arguments) {
+        for (int threads = 1; threads <= 64; threads *= 4) {
+            System.out.println("Threads: " + threads);
+            
+            // Shared counter
+            final LongInt longInt = new LongInt();
+            run("shared LongInt (synchronized)", threads, t -> () -> {
+                synchronized (longInt) {
+                    longInt.incAndGet();
+                }
+            });
+            final AtomicLong atomicLong = new AtomicLong();
+            run("shared AtomicLong", threads, t -> atomicLong::incrementAndGet);
+            final AtomicLongInt atomicLongInt = new AtomicLongInt();
+            run("shared AtomicLongInt", threads, t -> atomicLongInt::incAndGet);
+            final StripedLongInt stripedLongInt = new StripedLongInt();
+            run("shared StripedLongInt", threads, t -> stripedLongInt::inc);
+            
+            // Counter per thread, allocated next to each other
+            final AtomicLong[] atomicLongs = new AtomicLong[threads];
+            final AtomicLongInt[] atomicLongInts = new AtomicLongInt[threads];
+            for (int i = 0; i < threads; i++) {
+                atomicLongs[i] = new AtomicLong();
+                atomicLongInts[i] = new AtomicLongInt();
+            }
+            run("per-thread AtomicLong (unpadded)", threads, t -> atomicLongs[t]::incrementAndGet);
+            run("per-thread AtomicLongInt (padded)", threads, t -> atomicLongInts[t]::incAndGet);
+        }
+    }
+    
+    /**
+     * Runs a benchmark of increments distributed among the specified number of threads.
+     * 
+     * @param name name of the benchmark
+     * @param threads number of threads
+     * @param incrementer provides the increment operation for each thread index
+     */
+    private static void run(final String name, final int threads, final IntFunction<Runnable> incrementer) {
+        MicroBenchmark.run(name, INCREMENTS, n -> {
+            final CyclicBarrier barrier = new CyclicBarrier(threads);
+            final Thread[] ts = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                final Runnable inc = incrementer.apply(t);
+                ts[t] = new Thread(() -> {
+                    try {
+                        barrier.await();
+                    } catch (final Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                    for (int i = n / threads; i > 0; i--)
+                        inc.run();
+                });
+                ts[t].start();
+            }
+            for (final Thread t : ts)
+                try {
+                    t.join();
+                } catch (final InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            return threads;
+        });
+    }
+    
+}
@@ -0,0 +1,278 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import x.java.BaseTest;
+
+/**
+ * JUnit test of {@link CtrlExecutor}, {@link CtrlTask} and {@link CtrlGroup}.
+ * 
+ * @author Andras Belicza
+ */
+public class CtrlExecutorTest extends BaseTest {
+    
+    /**
+     * A task which works until cancelled, counting its work units.
+     * 
+     * @author Andras Belicza
+     */
+    private static class Worker extends CtrlTask {
+        
+        /** Number of work units done. */
+        final AtomicInteger units = new AtomicInteger();
+        
+        /**
+         * Creates a new {@link Worker}.
+         * 
+         * @param name name of the task
+         */
+        Worker(final String name) {
+            super(name);
+        }
+        
+        @Override
+        public void customRun() {
+            while (mayContinue()) {
+                units.incrementAndGet();
+                try {
+                    Thread.sleep(1);
+                } catch (final InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    
+    }
+    
+    /**
+     * Waits until all the specified tasks reach the specified state.
+     * 
+     * @param tasks tasks to wait for
+     * @param state state to wait for
+     * @throws Exception a
+     */
+    private static void awaitState(final List<? extends CtrlTask> tasks, final CtrlState state)
+            throws Exception {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        for (final CtrlTask task : tasks)
+            while (task.getCtrlState() != state) {
+                assertTrue("State not reached: " + state, System.nanoTime() < deadline);
+                Thread.sleep(1);
+            }
+    }
+    
+    /** */
+    @Test
+    public void testManyTasks() {
+        final CtrlExecutor executor = new CtrlExecutor("Test", 4);
+        final AtomicInteger done = new AtomicInteger();
+        
+        final List<CtrlTask> tasks = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            tasks.add(executor.submit(new CtrlTask("Task " + i) {
+                @Override
+                public void customRun() {
+                    if (mayContinue())
+                        done.incrementAndGet();
+                }
+            }));
+        
+        for (final CtrlTask task : tasks) {
+            assertTrue(task.waitToFinish());
+            assertEquals(CtrlState.ENDED, task.getCtrlState());
+        }
+        assertEquals(1000, done.get());
+        assertTrue(executor.getTasks().isEmpty());
+        
+        executor.close();
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testGroups() throws Exception {
+        final CtrlExecutor executor = new CtrlExecutor("Test", 8);
+        final CtrlGroup group1 = new CtrlGroup("Group 1");
+        final CtrlGroup group2 = new CtrlGroup("Group 2");
+        
+        final List<Worker> workers1 = new ArrayList<>(), workers2 = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            workers1.add(executor.submit(new Worker("1-" + i), group1));
+            workers2.add(executor.submit(new Worker("2-" + i), group2));
+        }
+        awaitState(workers1, CtrlState.EXECUTING);
+        awaitState(workers2, CtrlState.EXECUTING);
+        
+        // Pausing a group leaves the other running
+        group1.requestPause();
+        awaitState(workers1, CtrlState.PAUSED);
+        final int units = workers2.get(0).units.get();
+        Thread.sleep(50);
+        assertTrue(workers2.get(0).units.get() > units);
+        assertEquals(CtrlState.EXECUTING, workers2.get(0).getCtrlState());
+        
+        group1.requestUnpause();
+        awaitState(workers1, CtrlState.EXECUTING);
+        
+        // Cancelling a group
+        group1.requestCancel();
+        assertTrue(group1.waitToFinish());
+        awaitState(workers1, CtrlState.ENDED);
+        assertTrue(group1.getTasks().isEmpty());
+        assertEquals(4, group2.getTasks().size());
+        
+        // Tasks submitted to a cancelled group are not executed
+        final Worker late = executor.submit(new Worker("late"), group1);
+        assertTrue(late.waitToFinish());
+        assertEquals(0, late.units.get());
+        
+        // Pause all
+        executor.requestPauseAll();
+        awaitState(workers2, CtrlState.PAUSED);
+        
+        executor.close();
+        awaitState(workers2, CtrlState.ENDED);
+        assertTrue(executor.awaitTermination(0, TimeUnit.SECONDS));
+    }
+    
+    /** */
+    @Test
+    public void testQueuedCancel() {
+        final CtrlExecutor executor = new CtrlExecutor("Test", 1);
+        final Worker running = executor.submit(new Worker("running"));
+        final Worker queued = executor.submit(new Worker("queued"));
+        
+        queued.requestCancel();
+        assertEquals(CtrlState.NEW, queued.getCtrlState());
+        assertFalse(queued.isPauseRequested());
+        running.requestCancel();
+        
+        assertTrue(queued.waitToFinish());
+        assertEquals(0, queued.units.get());
+        
+        executor.close();
+    }
+    
+    /** */
+    @Test(expected = IllegalStateException.class)
+    public void testResubmitQueued() {
+        final CtrlExecutor executor = new CtrlExecutor("Test", 1);
+        final CtrlGroup group = new CtrlGroup("Group");
+        try {
+            executor.submit(new Worker("running"));
+            final Worker queued = executor.submit(new Worker("queued"));
+            
+            try {
+                executor.submit(queued, group);
+            } finally {
+                // Rejected task must not be added to the group
+                assertTrue(group.getTasks().isEmpty());
+            }
+        } finally {
+            executor.close();
+        }
+    }
+    
+    /** */
+    @Test(expected = IllegalStateException.class)
+    public void testResubmitFinished() {
+        final CtrlExecutor executor = new CtrlExecutor("Test", 1);
+        try {
+            final Worker task = executor.submit(new Worker("finished"));
+            task.requestCancel();
+            assertTrue(task.waitToFinish());
+            
+            executor.submit(task);
+        } finally {
+            executor.close();
+        }
+    }
+    
+    /** */
+    @Test(expected = IllegalStateException.class)
+    public void testSubmitExecuted() {
+        final Worker task = new Worker("executed");
+        task.requestCancel();
+        task.run();
+        
+        final CtrlExecutor executor = new CtrlExecutor("Test", 1);
+        try {
+            executor.submit(task);
+        } finally {
+            executor.close();
+        }
+    }
+    
+    /** */
+    @Test
+    public void testWaitToFinishUnsubmitted() {
+        final Worker task = new Worker("unsubmitted");
+        task.requestCancel();
+        assertFalse(task.waitToFinish()); // Must not hang
+        
+        task.run();
+        assertEquals(CtrlState.ENDED, task.getCtrlState());
+        assertTrue(task.waitToFinish());
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testInterruptOnCancel() throws Exception {
+        final CtrlExecutor executor = new CtrlExecutor("Test", 1);
+        
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        final CtrlTask sleeper = new CtrlTask("sleeper") {
+            @Override
+            public void customRun() {
+                try {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                } catch (final InterruptedException ie) {
+                    interrupted.set(true);
+                }
+            }
+        };
+        sleeper.setInterruptOnCancel(true);
+        executor.submit(sleeper);
+        while (sleeper.getCtrlState() == CtrlState.NEW)
+            Thread.sleep(1);
+        sleeper.requestCancel();
+        assertTrue(sleeper.waitToFinish());
+        assertTrue(interrupted.get());
+        
+        // The interrupted status of the worker thread must not leak into the next task
+        interrupted.set(true);
+        final CtrlTask checker = executor.submit(new CtrlTask("checker") {
+            @Override
+            public void customRun() {
+                interrupted.set(Thread.currentThread().isInterrupted());
+            }
+        });
+        assertTrue(checker.waitToFinish());
+        assertFalse(interrupted.get());
+        
+        executor.close();
+    }
+    
+}
@@ -0,0 +1,252 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import x.java.BaseTest;
+
+/**
+ * JUnit test of {@link CtrlRecursiveTask}.
+ * 
+ * @author Andras Belicza
+ */
+public class CtrlRecursiveTaskTest extends BaseTest {
+    
+    /**
+     * A task summing a range of numbers, slowly (sleeping 1 ms for each leaf).
+     * 
+     * @author Andras Belicza
+     */
+    private static class SumTask extends CtrlRecursiveTask<Long> {
+        
+        /** */
+        private static final long serialVersionUID = 1L;
+        
+        /** Size of the range to be summed without splitting. */
+        private static final long THRESHOLD = 100;
+        
+        /** Start of the range, inclusive. */
+        private final long from;
+        
+        /** End of the range, exclusive. */
+        private final long to;
+        
+        /**
+         * Creates a new root {@link SumTask}.
+         * 
+         * @param from start of the range, inclusive
+         * @param to end of the range, exclusive
+         */
+        SumTask(final long from, final long to) {
+            super("Sum");
+            this.from = from;
+            this.to = to;
+        }
+        
+        /**
+         * Creates a new sub {@link SumTask}.
+         * 
+         * @param parent parent task
+         * @param from start of the range, inclusive
+         * @param to end of the range, exclusive
+         */
+        SumTask(final SumTask parent, final long from, final long to) {
+            super(parent);
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected Long customCompute() {
+            long sum = 0;
+            if (to - from <= THRESHOLD) {
+                if (!mayContinue())
+                    return 0L;
+                try {
+                    Thread.sleep(1);
+                } catch (final InterruptedException ie) {
+                    return 0L;
+                }
+                for (long i = from; i < to; i++)
+                    sum += i;
+                progress.advance(to - from);
+            } else if (mayContinue()) {
+                final long mid = (from + to) >>> 1;
+                final SumTask left = new SumTask(this, from, mid);
+                left.fork();
+                sum = new SumTask(this, mid, to).invoke() + joinSubtask(left);
+            }
+            return sum;
+        }
+    
+    }
+    
+    /**
+     * A task which forks a subtask sleeping 200 ms, and joins it after another worker started executing it.
+     * 
+     * @author Andras Belicza
+     */
+    private static class JoinTask extends CtrlRecursiveTask<Void> {
+        
+        /** */
+        private static final long serialVersionUID = 1L;
+        
+        /** Counted down when the subtask starts. */
+        private final CountDownLatch started;
+        
+        /**
+         * Creates a new root {@link JoinTask}.
+         * 
+         * @param started counted down when the subtask starts
+         */
+        JoinTask(final CountDownLatch started) {
+            super("Join");
+            this.started = started;
+        }
+        
+        /**
+         * Creates a new sub {@link JoinTask}.
+         * 
+         * @param parent parent task
+         */
+        JoinTask(final JoinTask parent) {
+            super(parent);
+            started = parent.started;
+        }
+        
+        @Override
+        protected Void customCompute() {
+            try {
+                if (getRoot() == this) {
+                    final JoinTask sub = new JoinTask(this);
+                    sub.fork();
+                    // Joining must wait for the subtask, not execute it in this thread
+                    started.await();
+                    joinSubtask(sub);
+                } else {
+                    started.countDown();
+                    Thread.sleep(200);
+                }
+            } catch (final InterruptedException ie) {
+                throw new RuntimeException(ie);
+            }
+            return null;
+        }
+    
+    }
+    
+    /**
+     * Waits until the specified task reaches the specified state.
+     * 
+     * @param task task to wait for
+     * @param state state to wait for
+     * @throws Exception a
+     */
+    private static void awaitState(final CtrlRecursiveTask<?> task, final CtrlState state) throws Exception {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (task.getCtrlState() != state) {
+            assertTrue("State not reached: " + state, System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+    }
+    
+    /** */
+    @Test
+    public void testCompute() {
+        final SumTask task = new SumTask(0, 10_000);
+        assertEquals(CtrlState.NEW, task.getCtrlState());
+        
+        final SumTask sub = new SumTask(task, 0, 1);
+        assertSame(task, sub.getRoot());
+        assertEquals("Sum", sub.getName());
+        assertSame(task.getProgress(), sub.getProgress());
+        
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        assertEquals(10_000L * 9_999 / 2, (long) pool.invoke(task));
+        assertEquals(CtrlState.ENDED, task.getCtrlState());
+        assertEquals(10_000, task.getProgress().getDone());
+        // 100 leaves, each sleeping at least 1 ms
+        assertTrue(task.getExecTimeMs() >= 100);
+        pool.shutdown();
+    }
+    
+    /** */
+    @Test
+    public void testJoinExcluded() {
+        final ForkJoinPool pool = new ForkJoinPool(2);
+        final JoinTask task = new JoinTask(new CountDownLatch(1));
+        pool.invoke(task);
+        
+        // Only the subtask sleeps, time waited for it by the root is excluded
+        final long execTimeMs = task.getExecTimeMs();
+        assertTrue("Execution time: " + execTimeMs, execTimeMs >= 200 && execTimeMs < 300);
+        pool.shutdown();
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testPauseUnpause() throws Exception {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        final SumTask task = new SumTask(0, 100_000);
+        final SumTask sub = new SumTask(task, 0, 1);
+        
+        // Requests made on a subtask apply to the whole tree
+        sub.requestPause();
+        assertTrue(task.isPauseRequested());
+        final ForkJoinTask<Long> future = pool.submit(task);
+        awaitState(task, CtrlState.PAUSED);
+        
+        final long done = task.getProgress().getDone();
+        Thread.sleep(50);
+        assertEquals(done, task.getProgress().getDone());
+        assertFalse(future.isDone());
+        
+        task.requestUnpause();
+        assertEquals(100_000L * 99_999 / 2, (long) future.get(10, TimeUnit.SECONDS));
+        assertEquals(CtrlState.ENDED, task.getCtrlState());
+        assertTrue(task.getPausedTimeMs() >= 50);
+        pool.shutdown();
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testCancel() throws Exception {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        final SumTask task = new SumTask(0, 100_000_000);
+        final ForkJoinTask<Long> future = pool.submit(task);
+        awaitState(task, CtrlState.EXECUTING);
+        
+        // Cancel must wake up paused subtasks too
+        task.requestPause();
+        awaitState(task, CtrlState.PAUSED);
+        new SumTask(task, 0, 1).requestCancel();
+        assertTrue(task.isCancelRequested());
+        
+        assertTrue(future.get(10, TimeUnit.SECONDS) < 100_000_000L * 99_999_999 / 2);
+        assertEquals(CtrlState.ENDED, task.getCtrlState());
+        pool.shutdown();
+    }
+    
+}
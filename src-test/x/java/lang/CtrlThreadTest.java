@@ -0,0 +1,320 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InterruptedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import x.java.BaseTest;
+import x.java.io.IOUtils;
+
+/**
+ * JUnit test of {@link CtrlThread}.
+ * 
+ * @author Andras Belicza
+ */
+public class CtrlThreadTest extends BaseTest {
+    
+    /**
+     * A worker which records when it resumes from the paused state.
+     * 
+     * @author Andras Belicza
+     */
+    private static class Worker extends CtrlThread {
+        
+        /** Time when the worker last resumed from the paused state, in nanoseconds. */
+        volatile long resumedNanos;
+        
+        /**
+         * Creates a new {@link Worker}.
+         */
+        Worker() {
+            super("Worker");
+        }
+        
+        @Override
+        public void customRun() {
+            while (!cancelRequested)
+                if (waitIfPaused())
+                    resumedNanos = System.nanoTime();
+                else
+                    checkedSleep(1);
+        }
+    
+    }
+    
+    /**
+     * Waits until the specified thread reaches the specified state.
+     * 
+     * @param t thread to wait for
+     * @param state state to wait for
+     * @throws Exception a
+     */
+    private static void awaitState(final CtrlThread t, final CtrlState state) throws Exception {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (t.getCtrlState() != state) {
+            assertTrue("State not reached: " + state, System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testPauseUnpause() throws Exception {
+        final Worker w = new Worker();
+        assertEquals(CtrlState.NEW, w.getCtrlState());
+        w.start();
+        awaitState(w, CtrlState.EXECUTING);
+        
+        w.requestPause();
+        assertTrue(w.isPauseRequested());
+        assertFalse(w.isCancelRequested());
+        awaitState(w, CtrlState.PAUSED);
+        
+        Thread.sleep(50);
+        final long resumed = w.resumedNanos;
+        w.requestUnpause();
+        assertFalse(w.isPauseRequested());
+        assertEquals(CtrlState.EXECUTING, w.getCtrlState());
+        while (w.resumedNanos == resumed)
+            Thread.yield();
+        assertTrue(w.getPausedTimeMs() >= 50);
+        
+        // Cancel must wake up a paused thread too
+        w.requestPause();
+        awaitState(w, CtrlState.PAUSED);
+        w.requestCancel();
+        w.join(TimeUnit.SECONDS.toMillis(10));
+        assertEquals(CtrlState.ENDED, w.getCtrlState());
+    }
+    
+    /** */
+    @Test
+    public void testRequestMirrors() {
+        final Worker w = new Worker();
+        
+        w.requestPause();
+        assertTrue(w.pauseRequested);
+        w.pauseRequested = false; // Direct writes are ignored
+        assertTrue(w.isPauseRequested());
+        w.requestUnpause();
+        assertFalse(w.pauseRequested);
+        assertFalse(w.isPauseRequested());
+        
+        w.cancelRequested = true; // Direct writes are ignored
+        assertFalse(w.isCancelRequested());
+        assertTrue(w.mayContinue());
+        w.requestCancel();
+        assertTrue(w.cancelRequested);
+        assertTrue(w.isCancelRequested());
+        assertFalse(w.mayContinue());
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testQuickRepause() throws Exception {
+        final Worker w = new Worker();
+        w.start();
+        
+        for (int i = 0; i < 10; i++) {
+            w.requestPause();
+            awaitState(w, CtrlState.PAUSED);
+            
+            // Pause again before the paused thread wakes up
+            w.requestUnpause();
+            w.requestPause();
+            awaitState(w, CtrlState.PAUSED);
+            
+            w.requestUnpause();
+            awaitState(w, CtrlState.EXECUTING);
+        }
+        w.close();
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testResumeLatency() throws Exception {
+        final Worker w = new Worker();
+        w.start();
+        
+        final long[] latencies = new long[21];
+        for (int i = 0; i < latencies.length; i++) {
+            w.requestPause();
+            awaitState(w, CtrlState.PAUSED);
+            
+            final long resumed = w.resumedNanos;
+            final long start = System.nanoTime();
+            w.requestUnpause();
+            while (w.resumedNanos == resumed)
+                Thread.yield();
+            latencies[i] = w.resumedNanos - start;
+        }
+        w.close();
+        
+        // Paused threads are notified (no polling), so the median latency must stay below 10 ms (with a
+        // margin for slow or loaded machines)
+        Arrays.sort(latencies);
+        final long median = latencies[latencies.length / 2];
+        assertTrue("Median resume latency: " + median + " ns",
+                median < TimeUnit.MILLISECONDS.toNanos(10));
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testGuestWait() throws Exception {
+        final Worker w = new Worker();
+        w.start();
+        w.requestPause();
+        
+        final AtomicInteger state = new AtomicInteger();
+        final Thread guest = new Thread(() -> {
+            state.set(1);
+            state.set(w.guestMayContinue() ? 2 : 3);
+        });
+        guest.start();
+        
+        awaitState(w, CtrlState.PAUSED);
+        Thread.sleep(20);
+        assertEquals(1, state.get());
+        
+        w.requestCancel();
+        guest.join(TimeUnit.SECONDS.toMillis(10));
+        assertEquals(3, state.get());
+        w.waitToFinish();
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testInterruptOnCancel() throws Exception {
+        // Default mode: cancel does not interrupt
+        final Worker w = new Worker();
+        assertFalse(w.isInterruptOnCancel());
+        w.start();
+        awaitState(w, CtrlState.EXECUTING);
+        w.requestCancel();
+        w.join(TimeUnit.SECONDS.toMillis(10));
+        assertEquals(CtrlState.ENDED, w.getCtrlState());
+        
+        // Interrupt mode: a sleeping thread is interrupted
+        final AtomicReference<Throwable> result = new AtomicReference<>();
+        final CtrlThread sleeper = new CtrlThread("Sleeper") {
+            @Override
+            public void customRun() {
+                try {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                } catch (final InterruptedException ie) {
+                    result.set(ie);
+                }
+            }
+        };
+        sleeper.setInterruptOnCancel(true);
+        sleeper.start();
+        awaitState(sleeper, CtrlState.EXECUTING);
+        sleeper.requestCancel();
+        sleeper.join(TimeUnit.SECONDS.toMillis(10));
+        assertEquals(CtrlState.ENDED, sleeper.getCtrlState());
+        assertTrue(result.get() instanceof InterruptedException);
+        
+        // Interrupt mode: a thread blocked in reading a socket stream is unblocked
+        try (final ServerSocket server = new ServerSocket(0);
+                final Socket client = new Socket("localhost", server.getLocalPort());
+                final Socket accepted = server.accept()) {
+            result.set(null);
+            final CtrlThread reader = new CtrlThread("Reader") {
+                @Override
+                public void customRun() {
+                    try {
+                        IOUtils.readAllBytes(client.getInputStream());
+                    } catch (final Exception e) {
+                        result.set(e);
+                    }
+                }
+            };
+            reader.setInterruptOnCancel(true);
+            reader.start();
+            awaitState(reader, CtrlState.EXECUTING);
+            Thread.sleep(20);
+            reader.requestCancel();
+            reader.join(TimeUnit.SECONDS.toMillis(10));
+            assertEquals(CtrlState.ENDED, reader.getCtrlState());
+            assertTrue(String.valueOf(result.get()), result.get() instanceof InterruptedIOException);
+            // The stream (and so the client socket) was closed on cancel
+            assertEquals(-1, accepted.getInputStream().read());
+            
+            // Closeables registered after cancel are closed right away
+            final AtomicInteger closed = new AtomicInteger();
+            assertFalse(reader.registerCloseable(closed::incrementAndGet));
+            assertEquals(1, closed.get());
+        }
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testNestedJobs() throws Exception {
+        final AtomicReference<CancelRegistry> outer = new AtomicReference<>();
+        final AtomicReference<CancelRegistry> inner = new AtomicReference<>();
+        final AtomicReference<CancelRegistry> afterInner = new AtomicReference<>();
+        
+        final CtrlThread thread = new CtrlThread("Outer") {
+            @Override
+            public void customRun() {
+                outer.set(CancelRegistry.current());
+                
+                // A task run inline by the thread is a nested job
+                final CtrlTask task = new CtrlTask("Inner") {
+                    @Override
+                    public void customRun() {
+                        inner.set(CancelRegistry.current());
+                    }
+                };
+                task.setInterruptOnCancel(true);
+                task.run();
+                
+                afterInner.set(CancelRegistry.current());
+            }
+        };
+        thread.setInterruptOnCancel(true);
+        thread.start();
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+        assertEquals(CtrlState.ENDED, thread.getCtrlState());
+        
+        assertNotNull(outer.get());
+        assertNotNull(inner.get());
+        assertNotSame(outer.get(), inner.get());
+        assertSame(outer.get(), afterInner.get()); // Registry of the outer job is restored
+    }
+    
+}
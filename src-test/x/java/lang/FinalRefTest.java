@@ -12,6 +12,8 @@ package x.java.lang;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 
+import java.util.Objects;
+
 import org.junit.Test;
 
 import x.java.BaseTest;
@@ -31,10 +33,29 @@ public class FinalRefTest extends BaseTest {
         assertNotEquals(new FinalRef<>("1"), new FinalRef<>("2"));
     }
     
+    /** */
+    @Test
+    public void testHashCode() {
+        assertEquals(Objects.hash("1"), new FinalRef<>("1").hashCode());
+        assertEquals(Objects.hash((Object) null), new FinalRef<>(null).hashCode());
+        
+        final FinalRef<String> cached = FinalRef.ofImmutable("1");
+        assertEquals(new FinalRef<>("1"), cached);
+        assertEquals(new FinalRef<>("1").hashCode(), cached.hashCode());
+        
+        final FinalRef<String> r = new FinalRef<>("1");
+        testAllocationFree("FinalRef.hashCode()", r::hashCode);
+        final Ref<String> r2 = new Ref<>("1");
+        testAllocationFree("Ref.hashCode()", r2::hashCode);
+        final NullAwareComparable<String> nac = new NullAwareComparable<>("1");
+        testAllocationFree("NullAwareComparable.hashCode()", nac::hashCode);
+    }
+    
     /** */
     @Test
     public void testSerialization() {
         testSerialization(new FinalRef<>("1"));
+        testSerialization(FinalRef.ofImmutable("1"));
     }
     
 }
@@ -9,11 +9,22 @@
  */
 package x.java.lang;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -111,4 +122,149 @@ public class InternPoolTest extends BaseTest {
         assertNotSame(pool1, pool2);
     }
     
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testConcurrentIntern() throws Exception {
+        final int threads = 8, values = 1000;
+        
+        ExecutorService es = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            
+            List<Future<TestInternable[]>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++)
+                futures.add(es.submit(new Callable<TestInternable[]>() {
+                    @Override
+                    public TestInternable[] call() throws Exception {
+                        start.await();
+                        TestInternable[] result = new TestInternable[values];
+                        for (int i = 0; i < values; i++)
+                            result[i] = pool.intern(new TestInternable(i));
+                        return result;
+                    }
+                }));
+            
+            start.countDown();
+            
+            TestInternable[] first = futures.get(0).get();
+            for (Future<TestInternable[]> f : futures) {
+                TestInternable[] result = f.get();
+                for (int i = 0; i < values; i++) {
+                    // All threads must receive the same instance
+                    assertSame(first[i], result[i]);
+                    assertTrue(result[i].isInterned());
+                }
+            }
+            
+            assertEquals(values, pool.size());
+        } finally {
+            es.shutdown();
+        }
+    }
+    
+    /** */
+    @Test
+    public void testStats() {
+        assertEquals(0, pool.getHitRate(), 0);
+        
+        TestInternable ti = pool.intern(new TestInternable(0));
+        pool.intern(new TestInternable(0));
+        pool.intern(new TestInternable(0));
+        pool.intern(new TestInternable(1));
+        pool.intern(ti); // Already interned, no lookup
+        
+        assertEquals(2, pool.size());
+        assertEquals(2, pool.getHitCount());
+        assertEquals(2, pool.getMissCount());
+        assertEquals(0.5, pool.getHitRate(), 0);
+    }
+    
+    /** */
+    @Test
+    public void testWeakPool() {
+        pool = InternPool.newWeakPool(16);
+        
+        testInternedState();
+        testExisting();
+        
+        TestInternable ti = pool.intern(new TestInternable(100));
+        assertSame(ti, pool.intern(new TestInternable(100)));
+        
+        // Unused instances must be collectible
+        WeakReference<TestInternable> ref = new WeakReference<>(ti);
+        ti = null;
+        for (int i = 0; i < 100 && ref.get() != null; i++) {
+            System.gc();
+            pool.intern(new TestInternable(-i)); // Give the pool a chance to expunge
+        }
+        if (ref.get() != null)
+            fail("Weak pool prevented garbage collection!");
+        
+        TestInternable ti2 = new TestInternable(100);
+        assertSame(ti2, pool.intern(ti2));
+        assertTrue(ti2.isInterned());
+    }
+    
+    /** */
+    @Test
+    public void testSoftPool() {
+        pool = InternPool.newSoftPool(16);
+        
+        testInternedState();
+        testExisting();
+        testDifferent();
+    }
+    
+    /** */
+    @Test
+    public void testLruPool() {
+        pool = InternPool.newLruPool(3);
+        
+        TestInternable ti0 = pool.intern(new TestInternable(0));
+        // Bounded pools do not mark interned
+        assertFalse(ti0.isInterned());
+        
+        pool.intern(new TestInternable(1));
+        pool.intern(new TestInternable(2));
+        
+        // Access 0 so it becomes the most recently used
+        assertSame(ti0, pool.intern(new TestInternable(0)));
+        
+        pool.intern(new TestInternable(3)); // Evicts 1
+        assertEquals(3, pool.size());
+        
+        assertSame(ti0, pool.intern(new TestInternable(0)));
+        TestInternable ti1 = new TestInternable(1);
+        assertSame(ti1, pool.intern(ti1));
+    }
+    
+    /** */
+    @Test(expected = IllegalArgumentException.class)
+    public void testLruPoolInvalidSize() {
+        InternPool.newLruPool(0);
+    }
+    
+    /** */
+    @Test
+    public void testSetClassInternPool() {
+        class TestInternable3 extends TestInternable {
+            public TestInternable3(int value) {
+                super(value);
+            }
+        }
+        
+        InternPool<TestInternable3> weakPool = InternPool.newWeakPool(16);
+        InternPool.setClassInternPool(TestInternable3.class, weakPool);
+        assertSame(weakPool, InternPool.getClassInternPool(TestInternable3.class));
+        
+        try {
+            InternPool.setClassInternPool(TestInternable3.class, InternPool.newWeakPool(16));
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException ise) {
+            // Expected
+        }
+    }
+    
 }
@@ -16,6 +16,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.Random;
+import java.util.SplittableRandom;
 
 import org.junit.Test;
 
@@ -57,7 +58,7 @@ public class MathUtilsTest extends BaseTest {
     public void testIRandomValue() {
         assertNull(MathUtils.randomValue(new String[0], new double[0]));
         
-        // We cannot control the private Random inside the java.lang.Math.
+        // We cannot control the ThreadLocalRandom used.
         
         String[] in = { "0", "1", "2" };
         double[] weights = { 0.2, 0.8, 0 };
@@ -123,6 +124,24 @@ public class MathUtilsTest extends BaseTest {
         }
     }
     
+    /** */
+    @Test
+    public void testIRandomValueSource() {
+        // Random seed so we have reproducible random test results
+        final RandomSource source = RandomSource.of(new SplittableRandom(4327));
+        
+        Integer[] in = { 0, 1, 2 };
+        double[] weights = { 0.2, 0.8, 0 };
+        
+        int[] counts = new int[in.length];
+        for (int i = 0; i < 1000; i++)
+            counts[MathUtils.randomValue(in, weights, source)]++;
+        assertEquals(0, counts[2]);
+        assertEquals(200, counts[0], 50);
+        
+        assertNull(MathUtils.randomValue(in, new double[] { 0 }, source));
+    }
+    
     /** */
     @Test(expected = IllegalArgumentException.class)
     public void testIRandomValueException() {
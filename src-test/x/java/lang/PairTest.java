@@ -12,6 +12,8 @@ package x.java.lang;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 
+import java.util.Objects;
+
 import org.junit.Test;
 
 import x.java.BaseTest;
@@ -37,6 +39,24 @@ public class PairTest extends BaseTest {
         assertNotEquals(new Pair<>(null, null), new Pair<>("one", 1));
     }
     
+    /** */
+    @Test
+    public void testHashCode() {
+        assertEquals(Objects.hash("one", 1), new Pair<>("one", 1).hashCode());
+        assertEquals(Objects.hash(null, null), new Pair<>(null, null).hashCode());
+        
+        final Pair<String, Integer> cached = Pair.ofImmutable("one", 1);
+        assertEquals(new Pair<>("one", 1), cached);
+        assertEquals(cached, new Pair<>("one", 1));
+        assertEquals(new Pair<>("one", 1).hashCode(), cached.hashCode());
+        assertEquals(new Pair<>("one", 1).hashCode(), cached.hashCode());
+        assertEquals(cached.hashCode(), testSerialization(cached).hashCode());
+        
+        final Pair<String, Integer> p = new Pair<>("one", 1);
+        testAllocationFree("Pair.hashCode()", p::hashCode);
+        testAllocationFree("Pair.ofImmutable().hashCode()", cached::hashCode);
+    }
+    
     /** */
     @Test
     public void testClone() {
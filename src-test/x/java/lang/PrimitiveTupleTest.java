@@ -0,0 +1,77 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import x.java.BaseTest;
+
+/**
+ * JUnit test of the primitive tuples: {@link IntPair}, {@link LongPair}, {@link IntLongPair},
+ * {@link DoublePair} and {@link DoubleRef}.
+ * 
+ * @author Andras Belicza
+ */
+public class PrimitiveTupleTest extends BaseTest {
+    
+    /** */
+    @Test
+    public void testPairs() {
+        IntPair ip = new IntPair(1, 2);
+        assertEquals(1, ip.getValue1());
+        assertEquals(2, ip.getValue2());
+        assertEquals(new IntPair(1, 2), ip);
+        assertEquals(new IntPair(1, 2).hashCode(), ip.hashCode());
+        assertNotEquals(new IntPair(2, 1), ip);
+        assertNotEquals(new IntPair(2, 1).hashCode(), ip.hashCode());
+        assertEquals("(1, 2)", ip.toString());
+        testSerialization(ip);
+        
+        LongPair lp = new LongPair(1L << 40, -1);
+        assertEquals(new LongPair(1L << 40, -1), lp);
+        assertEquals(new LongPair(1L << 40, -1).hashCode(), lp.hashCode());
+        assertNotEquals(new LongPair(1L << 41, -1), lp);
+        testSerialization(lp);
+        
+        IntLongPair ilp = new IntLongPair(3, 1L << 40);
+        assertEquals(new IntLongPair(3, 1L << 40), ilp);
+        assertNotEquals(new IntLongPair(3, 1L << 41), ilp);
+        testSerialization(ilp);
+        
+        DoublePair dp = new DoublePair(Double.NaN, 0.0);
+        assertEquals(new DoublePair(Double.NaN, 0.0), dp);
+        assertEquals(new DoublePair(Double.NaN, 0.0).hashCode(), dp.hashCode());
+        assertNotEquals(new DoublePair(Double.NaN, -0.0), dp);
+        testSerialization(dp);
+        
+        // Different pair types are never equal
+        assertNotEquals(new LongPair(1, 2), new IntPair(1, 2));
+        assertNotEquals(new Pair<>(1, 2), new IntPair(1, 2));
+    }
+    
+    /** */
+    @Test
+    public void testDoubleRef() {
+        DoubleRef r = new DoubleRef(1.5);
+        assertEquals(4.0, r.addAndGet(2.5), 0);
+        r.setValue(Double.NaN);
+        assertEquals(new DoubleRef(Double.NaN), r);
+        assertEquals(new DoubleRef(Double.NaN).hashCode(), r.hashCode());
+        assertNotEquals(new DoubleRef(-0.0), new DoubleRef(0.0));
+        assertTrue(new DoubleRef(1).compareTo(new DoubleRef(2)) < 0);
+        testClone(new DoubleRef(3));
+        testSerialization(new DoubleRef(3));
+    }
+    
+}
@@ -0,0 +1,148 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import x.java.BaseTest;
+
+/**
+ * JUnit test of {@link Progress} and {@link ProgressPoller}.
+ * 
+ * @author Andras Belicza
+ */
+public class ProgressTest extends BaseTest {
+    
+    /** One second in nanoseconds. */
+    private static final long SEC = TimeUnit.SECONDS.toNanos(1);
+    
+    /** */
+    @Test
+    public void testRateEta() {
+        final AtomicLong clock = new AtomicLong(-5 * SEC); // Negative time must work too
+        final Progress p = new Progress(clock::get);
+        assertEquals(0, p.getRate(), 0);
+        assertEquals(-1, p.getEtaMs());
+        
+        p.setTotal(1000);
+        p.start();
+        
+        // 10 units/s for 10 seconds
+        for (int i = 0; i < 10; i++) {
+            clock.addAndGet(SEC);
+            p.advance(10);
+            assertEquals(10, p.getRate(), 1e-9);
+        }
+        assertEquals(10_000, p.getActiveTimeMs());
+        assertEquals(90_000, p.getEtaMs());
+        
+        // Paused time is excluded
+        p.pause();
+        clock.addAndGet(100 * SEC);
+        Progress.Snapshot s = p.snapshot();
+        assertTrue(s.paused);
+        assertEquals(10_000, s.activeTimeMs);
+        assertEquals(10, s.rate, 1e-9);
+        assertEquals(90_000, s.etaMs);
+        p.resume();
+        
+        // Rate follows the change of throughput: 20 units/s
+        for (int i = 0; i < 30; i++) {
+            clock.addAndGet(SEC);
+            p.advance(20);
+        }
+        s = p.snapshot();
+        assertFalse(s.paused);
+        assertEquals(40_000, s.activeTimeMs);
+        assertEquals(700, s.done);
+        assertEquals(0.7, s.getFraction(), 1e-9);
+        assertTrue(s.rate > 19.9 && s.rate < 20);
+        assertEquals(15_000, s.etaMs, 100);
+        
+        // Stopped: frozen
+        p.advance(300);
+        p.stop();
+        clock.addAndGet(SEC);
+        assertEquals(0, p.getEtaMs());
+        assertEquals(40_000, p.getActiveTimeMs());
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testCtrlThread() throws Exception {
+        final AtomicInteger step = new AtomicInteger();
+        final CtrlThread t = new CtrlThread("Worker") {
+            @Override
+            public void customRun() {
+                progress.setTotal(2);
+                progress.advance();
+                step.set(1);
+                while (mayContinue() && step.get() < 2)
+                    checkedSleep(1);
+                progress.advance();
+            }
+        };
+        t.start();
+        while (step.get() < 1)
+            Thread.sleep(1);
+        
+        t.requestPause();
+        while (t.getCtrlState() != CtrlState.PAUSED)
+            Thread.sleep(1);
+        assertTrue(t.getProgress().snapshot().paused);
+        
+        step.set(2);
+        t.requestUnpause();
+        t.join(TimeUnit.SECONDS.toMillis(10));
+        
+        final Progress.Snapshot s = t.getProgress().snapshot();
+        assertEquals(2, s.done);
+        assertEquals(1, s.getFraction(), 0);
+        assertEquals(0, s.etaMs);
+        assertFalse(s.paused);
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testPoller() throws Exception {
+        final Progress p = new Progress();
+        p.start();
+        p.advance(5);
+        
+        final AtomicReference<Progress.Snapshot> ref = new AtomicReference<>();
+        final ProgressPoller poller = new ProgressPoller(10, TimeUnit.MILLISECONDS);
+        poller.add(p, ref::set);
+        
+        final long deadline = System.nanoTime() + 10 * SEC;
+        while (ref.get() == null && System.nanoTime() < deadline)
+            Thread.sleep(1);
+        assertEquals(5, ref.get().done);
+        
+        poller.remove(p);
+        ref.set(null);
+        poller.poll();
+        assertEquals(null, ref.get());
+        poller.close();
+    }
+    
+}
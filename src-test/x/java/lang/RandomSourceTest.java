@@ -0,0 +1,71 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+import x.java.BaseTest;
+
+/**
+ * JUnit test of {@link RandomSource}.
+ * 
+ * @author Andras Belicza
+ */
+public class RandomSourceTest extends BaseTest {
+    
+    /** */
+    @Test
+    public void testSources() {
+        final RandomSource[] sources = { RandomSource.threadLocal(), RandomSource.secure(),
+                RandomSource.of(new Random()), RandomSource.of(new SplittableRandom()) };
+        
+        for (final RandomSource source : sources) {
+            for (int i = 0; i < 100; i++) {
+                final int n = source.nextInt(10);
+                assertTrue(n >= 0 && n < 10);
+                final double d = source.nextDouble();
+                assertTrue(d >= 0 && d < 1);
+            }
+            
+            final byte[] bytes = new byte[64];
+            source.nextBytes(bytes);
+            assertNotEquals(0, bytes[0] | bytes[21] | bytes[42] | bytes[63]);
+        }
+    }
+    
+    /** */
+    @Test
+    public void testNextBytes() {
+        // Random seed so we have reproducible random test results
+        final SplittableRandom r = new SplittableRandom(4327);
+        final long l1 = r.nextLong(), l2 = r.nextLong();
+        
+        final byte[] bytes = new byte[11];
+        RandomSource.of(new SplittableRandom(4327)).nextBytes(bytes);
+        
+        final byte[] expected = new byte[11];
+        for (int i = 0; i < 8; i++)
+            expected[i] = (byte) (l1 >>> 8 * i);
+        for (int i = 8; i < 11; i++)
+            expected[i] = (byte) (l2 >>> 8 * (i - 8));
+        assertArrayEquals(expected, bytes);
+        
+        // Must not fail
+        RandomSource.of(new SplittableRandom()).nextBytes(new byte[0]);
+    }
+    
+}
@@ -0,0 +1,176 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import x.java.BaseTest;
+import x.java.io.IOUtils;
+import x.java.lang.StructBatch.ColumnType;
+
+/**
+ * JUnit test of {@link StructBatch}.
+ * 
+ * @author Andras Belicza
+ */
+public class StructBatchTest extends BaseTest {
+    
+    /** */
+    private static final int ROWS = 1000;
+    
+    /** */
+    private List<Map<String, Object>> structs;
+    
+    /** */
+    private StructBatch batch;
+    
+    /**
+     * @throws Exception a
+     */
+    @Before
+    public void setUp() throws Exception {
+        structs = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Map<String, Object> m = new HashMap<>();
+            m.put("id", i);
+            m.put("big", i % 2 == 0 ? (Object) (long) i : (Object) i); // Mixed int and long
+            if (i % 10 != 0)
+                m.put("price", i / 4.0); // Every 10th is missing
+            m.put("name", "n" + i % 3);
+            
+            Map<String, Object> m2 = new HashMap<>();
+            m2.put("flag", i % 2 == 0);
+            m.put("sub", m2);
+            
+            structs.add(m);
+        }
+        
+        batch = StructBatch.of(structs, "id", "big", "price", "name", "sub.flag", "none");
+    }
+    
+    /** */
+    @Test
+    public void testTypes() {
+        assertEquals(ROWS, batch.size());
+        assertEquals(ColumnType.INT, batch.getType(0));
+        assertEquals(ColumnType.LONG, batch.getType(1));
+        assertEquals(ColumnType.DOUBLE, batch.getType(2));
+        assertEquals(ColumnType.STRING, batch.getType(3));
+        assertEquals(ColumnType.OBJECT, batch.getType(4));
+        assertEquals(ColumnType.OBJECT, batch.getType(5));
+        assertEquals(3, batch.getColumn(StructView.compile("name")));
+    }
+    
+    /** */
+    @Test
+    public void testValues() {
+        for (int i = 0; i < ROWS; i++) {
+            StructView sv = new StructView(structs.get(i));
+            
+            assertEquals(i, batch.getInt(0, i));
+            assertEquals(i, batch.getLong(1, i));
+            assertEquals(((Number) structs.get(i).get("big")).longValue(), (long) batch.<Long> get(1, i));
+            assertEquals(sv.<Double> get("price"), batch.get(2, i));
+            assertEquals(i % 10 == 0, batch.isNull(2, i));
+            assertEquals(sv.<String> get("name"), batch.getString(3, i));
+            assertEquals(sv.<Boolean> get("sub", "flag"), batch.get(4, i));
+            assertNull(batch.get(5, i));
+        }
+        
+        assertArrayEquals(new String[] { "n0", "n1", "n2" }, batch.getDictionary(3));
+        assertEquals(2, batch.getStringCode(3, 2));
+    }
+    
+    /** */
+    @Test(expected = IllegalStateException.class)
+    public void testWrongType() {
+        batch.getInt(3, 0);
+    }
+    
+    /** */
+    @Test
+    public void testAggregate() {
+        assertEquals(ROWS * (ROWS - 1) / 2, batch.sum(0), 0);
+        assertEquals(ROWS * (ROWS - 1) / 2, batch.sum(1), 0);
+        assertEquals(ROWS, batch.count(0));
+        assertEquals(ROWS - ROWS / 10, batch.count(2));
+        assertEquals(0, batch.count(5));
+        
+        double sum = 0;
+        for (int i = 0; i < ROWS; i++)
+            if (i % 10 != 0)
+                sum += i / 4.0;
+        assertEquals(sum, batch.sum(2), 1e-9);
+        assertEquals(sum, batch.doubles(2).parallel().sum(), 1e-9);
+        assertEquals(ROWS - 1, batch.doubles(0).max().getAsDouble(), 0);
+    }
+    
+    /** */
+    @Test
+    public void testFilter() {
+        assertEquals(100, batch.filterInt(0, v -> v < 100).count());
+        assertEquals(100, batch.filterLong(1, v -> v >= 900).parallel().count());
+        // Nulls are not matched
+        assertEquals(10 - 1, batch.filterDouble(2, v -> v < 10 / 4.0).count());
+        assertEquals(334, batch.filterString(3, "n0"::equals).parallel().count());
+        
+        // Combine filters on rows
+        assertEquals(34,
+                batch.filterString(3, "n0"::equals).filter(row -> batch.getInt(0, row) < 100).count());
+    }
+    
+    /** */
+    @Test
+    public void testCursor() {
+        StructBatch.Cursor c = batch.cursor();
+        int count = 0;
+        while (c.next()) {
+            assertEquals(count, c.getRow());
+            assertEquals(count, c.getInt(0));
+            assertEquals(count % 2 == 0, c.get("sub", "flag"));
+            assertEquals("n" + count % 3, c.get(StructView.compile("name")));
+            count++;
+        }
+        assertEquals(ROWS, count);
+        
+        c.moveTo(10);
+        assertTrue(c.isNull(2));
+        assertFalse(c.isNull(0));
+        
+        StructView sv = c.toStructView();
+        assertEquals((Integer) 10, sv.get("id"));
+        assertEquals(Boolean.TRUE, sv.get("sub", "flag"));
+        assertNull(sv.get("price"));
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testSerialization() throws Exception {
+        StructBatch batch2 = IOUtils.deserialize(IOUtils.serialize(batch));
+        assertEquals(batch.size(), batch2.size());
+        assertEquals(batch.getString(3, 5), batch2.getString(3, 5));
+        assertEquals(batch.sum(2), batch2.sum(2), 0);
+    }
+    
+}
@@ -0,0 +1,128 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import x.java.BaseTest;
+
+/**
+ * JUnit test of {@link StructCodec}.
+ * 
+ * @author Andras Belicza
+ */
+public class StructCodecTest extends BaseTest {
+    
+    /** */
+    private Map<String, Object> source;
+    
+    /**
+     * @throws Exception a
+     */
+    @Before
+    public void setUp() throws Exception {
+        Map<String, Object> m = source = new HashMap<>();
+        
+        m.put("int", -1);
+        m.put("long", Long.MAX_VALUE);
+        m.put("double", 3.5);
+        m.put("true", true);
+        m.put("false", false);
+        m.put("null", null);
+        m.put("string", "\u00e1rv\u00edzt\u0171r\u0151");
+        m.put("bytes", new byte[] { 1, 2, 3 });
+        m.put("decimal", new BigDecimal("1.25"));
+        
+        Map<String, Object> m2 = new HashMap<>();
+        m2.put("31", 31);
+        m2.put("32", Arrays.asList("a", 1, null));
+        m.put("three", m2);
+    }
+    
+    /** */
+    @Test
+    public void testDecode() {
+        Map<String, Object> m = StructCodec.decode(StructCodec.encode(source));
+        
+        assertEquals(source.size(), m.size());
+        assertEquals(-1, m.get("int"));
+        assertEquals(Long.MAX_VALUE, m.get("long"));
+        assertEquals(3.5, m.get("double"));
+        assertEquals(true, m.get("true"));
+        assertEquals(false, m.get("false"));
+        assertNull(m.get("null"));
+        assertTrue(m.containsKey("null"));
+        assertFalse(m.containsKey("none"));
+        assertEquals("\u00e1rv\u00edzt\u0171r\u0151", m.get("string"));
+        assertArrayEquals(new byte[] { 1, 2, 3 }, (byte[]) m.get("bytes"));
+        assertEquals(new BigDecimal("1.25"), m.get("decimal"));
+        
+        // Decoded values are cached
+        assertSame(m.get("string"), m.get("string"));
+        
+        // byte[] does not implement equals(), compare the rest
+        source.remove("bytes");
+        m = StructCodec.decode(StructCodec.encode(source));
+        assertEquals(source, m);
+        assertEquals(source.hashCode(), m.hashCode());
+    }
+    
+    /** */
+    @Test
+    public void testView() {
+        StructView sv = StructCodec.view(StructCodec.encode(source));
+        
+        assertEquals((Integer) 31, sv.get("three", "31"));
+        assertEquals(Arrays.asList("a", 1, null), sv.get("three", "32"));
+        assertEquals((Integer) 31, sv.get(StructView.compile("three", "31")));
+        assertNull(sv.get("none", "31"));
+        
+        source.remove("bytes");
+        assertEquals(new StructView(source), StructCodec.view(StructCodec.encode(source)));
+    }
+    
+    /** */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testUnmodifiable() {
+        StructCodec.decode(StructCodec.encode(source)).put("x", 1);
+    }
+    
+    /** */
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupported() {
+        source.put("object", new Object());
+        StructCodec.encode(source);
+    }
+    
+    /** */
+    @Test
+    public void testSerialization() {
+        source.remove("bytes");
+        StructView sv = StructCodec.view(StructCodec.encode(source));
+        // Nested structure only serializes its own bytes
+        testSerialization((Serializable) sv.get("three"));
+        testSerialization(sv);
+    }
+    
+}
@@ -0,0 +1,108 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import x.java.BaseTest;
+
+/**
+ * JUnit test of {@link StructShape}.
+ * 
+ * @author Andras Belicza
+ */
+public class StructShapeTest extends BaseTest {
+    
+    /** */
+    private Map<String, Object> source;
+    
+    /** */
+    private StructShape shape;
+    
+    /**
+     * @throws Exception a
+     */
+    @Before
+    public void setUp() throws Exception {
+        source = new HashMap<>();
+        source.put("one", 1);
+        
+        Map<String, Object> m2 = new HashMap<>();
+        m2.put("31", 31);
+        m2.put("32", "-32-");
+        source.put("three", m2);
+        
+        shape = StructShape.of("one", "three.31", "three.32", "three", "four.41");
+    }
+    
+    /** */
+    @Test
+    public void testSlots() {
+        assertEquals(5, shape.size());
+        assertEquals(0, shape.getSlot("one"));
+        assertEquals(2, shape.getSlot(StructView.compile("three", "32")));
+        assertEquals(-1, shape.getSlot("two"));
+        assertEquals(StructView.compile("four", "41"), shape.getPath(4));
+    }
+    
+    /** */
+    @Test
+    public void testFlatten() {
+        Object[] slots = shape.flatten(source);
+        assertArrayEquals(new Object[] { 1, 31, "-32-", source.get("three"), null }, slots);
+        
+        // Must be consistent with the path lookups
+        for (int i = 0; i < shape.size(); i++)
+            assertEquals(shape.getPath(i).get(source), slots[i]);
+    }
+    
+    /** */
+    @Test
+    public void testRow() {
+        List<StructShape.Row> rows = shape.toRows(Arrays.asList(source, new HashMap<String, Object>()));
+        assertEquals(2, rows.size());
+        
+        StructShape.Row row = rows.get(0);
+        assertSame(shape, row.getShape());
+        assertEquals((Integer) 31, row.get(1));
+        assertEquals("-32-", row.get(StructView.compile("three", "32")));
+        assertNull(rows.get(1).get(0));
+    }
+    
+    /** */
+    @Test(expected = IllegalArgumentException.class)
+    public void testRowUnknownPath() {
+        shape.toRow(source).get(StructView.compile("two"));
+    }
+    
+    /** */
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicatePath() {
+        StructShape.of("a.b", "a.b");
+    }
+    
+    /** */
+    @Test
+    public void testSerialization() {
+        testSerialization(shape);
+    }
+    
+}
@@ -68,6 +68,30 @@ public class StructViewTest extends BaseTest {
         assertSame(source, sv.getStruct());
     }
     
+    /** */
+    @Test
+    public void testCompile() {
+        StructPath p = StructView.compile("three", "32");
+        assertEquals("-32-", sv.get(p));
+        assertEquals("-32-", p.get(source));
+        assertEquals((Integer) 1, sv.get(StructView.compile("one")));
+        assertNull(sv.get(StructView.compile("four", "32")));
+        
+        assertEquals(2, p.length());
+        assertEquals("three.32", p.toString());
+        assertEquals(p, StructView.compile("three", "32"));
+        assertEquals(p.hashCode(), StructView.compile("three", "32").hashCode());
+        assertNotEquals(p, StructView.compile("three", "31"));
+        
+        testSerialization(p);
+    }
+    
+    /** */
+    @Test(expected = IllegalArgumentException.class)
+    public void testCompileEmpty() {
+        StructView.compile();
+    }
+    
     /** */
     @Test
     public void testEquals() {
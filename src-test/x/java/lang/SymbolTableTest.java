@@ -0,0 +1,182 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import x.java.BaseTest;
+
+/**
+ * JUnit test of {@link SymbolTable} and {@link Symbol}.
+ * 
+ * @author Andras Belicza
+ */
+public class SymbolTableTest extends BaseTest {
+    
+    /** */
+    @Test
+    public void testIntern() {
+        SymbolTable st = new SymbolTable();
+        
+        int a = st.intern("alpha");
+        int b = st.intern("beta");
+        assertNotEquals(a, b);
+        assertEquals(a, st.intern(new String("alpha")));
+        assertEquals(b, st.intern("beta".getBytes(StandardCharsets.UTF_8), 0, 4));
+        assertEquals(2, st.size());
+        
+        assertEquals("alpha", st.getString(a));
+        assertArrayEquals("beta".getBytes(StandardCharsets.UTF_8), st.getBytes(b));
+        assertEquals(4, st.getLength(b));
+        
+        assertEquals(a, st.getId("alpha"));
+        assertEquals(-1, st.getId("gamma"));
+        
+        // Non-ASCII and empty
+        int u = st.intern("\u00e1rv\u00edzt\u0171r\u0151");
+        assertEquals("\u00e1rv\u00edzt\u0171r\u0151", st.getString(u));
+        int e = st.intern("");
+        assertEquals("", st.getString(e));
+        assertEquals(e, st.intern(""));
+    }
+    
+    /** */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testInvalidId() {
+        new SymbolTable().getString(0);
+    }
+    
+    /**
+     * Tests growing: many symbols spanning multiple slabs, index chunks and rehashes, and symbols bigger than a
+     * slab.
+     */
+    @Test
+    public void testGrow() {
+        SymbolTable st = new SymbolTable(4);
+        
+        final int count = 50_000;
+        for (int i = 0; i < count; i++)
+            assertEquals(i, st.intern("symbol-" + i));
+        
+        char[] big = new char[100_000];
+        Arrays.fill(big, 'x');
+        int bigId = st.intern(new String(big));
+        int after = st.intern("after");
+        
+        assertEquals(count + 2, st.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, st.intern("symbol-" + i));
+            assertEquals("symbol-" + i, st.getString(i));
+        }
+        assertEquals(new String(big), st.getString(bigId));
+        assertEquals(bigId, st.intern(new String(big)));
+        assertEquals("after", st.getString(after));
+    }
+    
+    /**
+     * Tests an empty symbol added when the current slab is exactly full.
+     */
+    @Test
+    public void testFullSlab() {
+        SymbolTable st = new SymbolTable();
+        
+        char[] full = new char[64 * 1024];
+        Arrays.fill(full, 'x');
+        int fullId = st.intern(new String(full));
+        int e = st.intern("");
+        assertEquals("", st.getString(e));
+        assertEquals(0, st.getLength(e));
+        assertEquals(e, st.getId(""));
+        
+        int after = st.intern("after");
+        assertEquals("after", st.getString(after));
+        assertEquals("", st.getString(e));
+        assertEquals(new String(full), st.getString(fullId));
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testConcurrentIntern() throws Exception {
+        final int threads = 8, values = 5000;
+        final SymbolTable st = new SymbolTable(16);
+        
+        ExecutorService es = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            
+            List<Future<int[]>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++)
+                futures.add(es.submit(new Callable<int[]>() {
+                    @Override
+                    public int[] call() throws Exception {
+                        start.await();
+                        int[] result = new int[values];
+                        for (int i = 0; i < values; i++) {
+                            result[i] = st.intern("s" + i);
+                            // Lock-free read back
+                            assertEquals("s" + i, st.getString(result[i]));
+                        }
+                        return result;
+                    }
+                }));
+            
+            start.countDown();
+            
+            int[] first = futures.get(0).get();
+            for (Future<int[]> f : futures)
+                assertArrayEquals(first, f.get());
+            
+            assertEquals(values, st.size());
+        } finally {
+            es.shutdown();
+        }
+    }
+    
+    /** */
+    @Test
+    public void testSymbol() {
+        SymbolTable st = new SymbolTable();
+        
+        Symbol s = st.symbol("alpha");
+        Symbol s2 = st.symbol("alpha");
+        assertEquals(s, s2);
+        assertEquals(s.hashCode(), s2.hashCode());
+        assertNotEquals(s, st.symbol("beta"));
+        // Same id in another table
+        assertNotEquals(s, new SymbolTable().symbol("alpha"));
+        
+        assertEquals("alpha", s.toString());
+        assertEquals(s.getId(), st.getId("alpha"));
+        assertSame(st, s.getTable());
+        
+        // Symbols are always interned, pools return them as-is
+        assertTrue(s.isInterned());
+        assertSame(s2, new InternPool<Symbol>().intern(s2));
+    }
+    
+}
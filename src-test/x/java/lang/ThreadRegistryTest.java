@@ -0,0 +1,195 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.After;
+import org.junit.Test;
+
+import x.java.BaseTest;
+import x.java.lang.ThreadRegistry.ThreadStats;
+
+/**
+ * JUnit test of {@link ThreadRegistry}.
+ * 
+ * @author Andras Belicza
+ */
+public class ThreadRegistryTest extends BaseTest {
+    
+    /**
+     * A worker burning CPU and allocating memory until cancelled.
+     * 
+     * @author Andras Belicza
+     */
+    private static class Burner extends CtrlThread {
+        
+        /** Sink of the computed values so the work is not optimized away. */
+        volatile Object sink;
+        
+        /**
+         * Creates a new {@link Burner}.
+         */
+        Burner() {
+            super("Burner");
+        }
+        
+        @Override
+        public void customRun() {
+            while (mayContinue())
+                for (int i = 0; i < 1000; i++)
+                    sink = new long[16];
+        }
+    
+    }
+    
+    /** */
+    @After
+    public void tearDown() {
+        ThreadRegistry.setEnabled(false);
+    }
+    
+    /**
+     * Returns the statistics of the specified thread.
+     * 
+     * @param thread thread whose statistics to return
+     * @return the statistics of the specified thread; <code>null</code> if not in the snapshot
+     */
+    private static ThreadStats statsOf(final Thread thread) {
+        for (final ThreadStats stats : ThreadRegistry.snapshot())
+            if (stats.getId() == thread.getId())
+                return stats;
+        
+        return null;
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testSnapshot() throws Exception {
+        // Disabled by default, threads are not registered
+        assertFalse(ThreadRegistry.isEnabled());
+        final NormalThread untracked = new NormalThread("Untracked") {
+            @Override
+            public void run() {
+                checkedSleep(100);
+            }
+        };
+        untracked.start();
+        
+        ThreadRegistry.setEnabled(true);
+        assertNull(statsOf(untracked));
+        
+        final Burner burner = new Burner();
+        burner.start();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final NormalThread waiter = new NormalThread("Waiter") {
+            @Override
+            public void run() {
+                try {
+                    latch.await();
+                } catch (final InterruptedException ie) {
+                    // Test will fail
+                }
+            }
+        };
+        waiter.start();
+        
+        Thread.sleep(50);
+        final ThreadStats burnerStats = statsOf(burner);
+        assertNotNull(burnerStats);
+        assertEquals("Burner", burnerStats.getName());
+        assertEquals(CtrlState.EXECUTING, burnerStats.getCtrlState());
+        assertTrue(burnerStats.getExecTimeMs() >= 0);
+        assertEquals(0, burnerStats.getPausedTimeMs());
+        assertTrue(burnerStats.getCpuTimeMs() != 0);
+        assertTrue(burnerStats.getAllocatedBytes() != 0);
+        
+        final ThreadStats waiterStats = statsOf(waiter);
+        assertNotNull(waiterStats);
+        assertNull(waiterStats.getCtrlState());
+        assertEquals(-1, waiterStats.getExecTimeMs());
+        assertEquals(Thread.State.WAITING, waiterStats.getState());
+        
+        // Ended threads are dropped
+        burner.close();
+        assertNull(statsOf(burner));
+        latch.countDown();
+        waiter.waitToFinish();
+        assertNull(statsOf(waiter));
+    }
+    
+    /** */
+    @Test
+    public void testDeregister() {
+        ThreadRegistry.setEnabled(true);
+        
+        // Terminated threads are deregistered right away, not only when statistics are queried
+        final NormalThread t = new NormalThread(() -> {}, "Short");
+        t.start();
+        t.waitToFinish();
+        assertFalse(ThreadRegistry.isRegistered(t));
+        
+        final Burner burner = new Burner();
+        burner.start();
+        assertTrue(ThreadRegistry.isRegistered(burner));
+        burner.close();
+        assertFalse(ThreadRegistry.isRegistered(burner));
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testJmx() throws Exception {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName objectName = new ObjectName(ThreadRegistry.OBJECT_NAME);
+        assertFalse(server.isRegistered(objectName));
+        
+        ThreadRegistry.setEnabled(true);
+        assertTrue(server.isRegistered(objectName));
+        
+        final Burner burner = new Burner();
+        burner.start();
+        try {
+            // Started threads only report executing state once they are running
+            while (burner.getCtrlState() == CtrlState.NEW)
+                Thread.sleep(1);
+            assertTrue((Integer) server.getAttribute(objectName, "ThreadCount") >= 1);
+            
+            boolean found = false;
+            for (final CompositeData cd : (CompositeData[]) server.getAttribute(objectName, "Threads"))
+                if ((Long) cd.get("id") == burner.getId()) {
+                    found = true;
+                    assertEquals("Burner", cd.get("name"));
+                    assertEquals(CtrlState.EXECUTING.name(), cd.get("ctrlState"));
+                }
+            assertTrue(found);
+        } finally {
+            burner.close();
+        }
+        
+        ThreadRegistry.setEnabled(false);
+        assertFalse(server.isRegistered(objectName));
+    }
+    
+}
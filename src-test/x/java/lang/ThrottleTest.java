@@ -0,0 +1,241 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import org.junit.Test;
+
+import x.java.BaseTest;
+
+/**
+ * JUnit test of {@link Throttle}, {@link TokenBucket} and {@link ConcurrencyLimit}.
+ * 
+ * @author Andras Belicza
+ */
+public class ThrottleTest extends BaseTest {
+    
+    /**
+     * A worker which acquires permits until cancelled, counting the acquired permits.
+     * 
+     * @author Andras Belicza
+     */
+    private static class Worker extends CtrlThread {
+        
+        /** Throttle to acquire permits from. */
+        final Throttle throttle;
+        
+        /** Number of acquired permits. */
+        final AtomicInteger permits = new AtomicInteger();
+        
+        /**
+         * Creates a new {@link Worker}.
+         * 
+         * @param throttle throttle to acquire permits from
+         */
+        Worker(final Throttle throttle) {
+            super("Worker");
+            this.throttle = throttle;
+        }
+        
+        @Override
+        public void customRun() {
+            while (acquire(throttle))
+                permits.incrementAndGet();
+        }
+    
+    }
+    
+    /**
+     * Waits until the specified condition holds.
+     * 
+     * @param message message of the assertion error if the condition doesn't hold in time
+     * @param condition condition to wait for
+     * @throws Exception a
+     */
+    private static void await(final String message, final BooleanSupplier condition)
+            throws Exception {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(message, System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+    }
+    
+    /** */
+    @Test
+    public void testTokenBucket() {
+        final AtomicLong clock = new AtomicLong();
+        final TokenBucket tb = new TokenBucket(10, 2, clock::get);
+        
+        assertTrue(tb.tryAcquire());
+        assertTrue(tb.tryAcquire());
+        assertFalse(tb.tryAcquire());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), tb.tryAcquireNanos());
+        
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(tb.tryAcquire());
+        assertFalse(tb.tryAcquire());
+        
+        // Unused permits accumulate up to the capacity only
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertEquals(2, tb.getAvailable(), 0);
+        
+        // Runtime adjustment
+        tb.setCapacity(1);
+        assertEquals(1, tb.getAvailable(), 0);
+        assertTrue(tb.tryAcquire());
+        tb.setRate(1000);
+        assertEquals(1000, tb.getRate(), 0);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1), tb.tryAcquireNanos());
+        
+        try {
+            tb.setRate(0);
+            throw new AssertionError("Expected IllegalArgumentException!");
+        } catch (final IllegalArgumentException iae) {
+            // Expected
+        }
+        try {
+            new TokenBucket(1, 0.5);
+            throw new AssertionError("Expected IllegalArgumentException!");
+        } catch (final IllegalArgumentException iae) {
+            // Expected
+        }
+    }
+    
+    /** */
+    @Test
+    public void testConcurrencyLimit() {
+        final ConcurrencyLimit cl = new ConcurrencyLimit(2);
+        
+        assertTrue(cl.tryAcquire());
+        assertTrue(cl.tryAcquire());
+        assertFalse(cl.tryAcquire());
+        assertEquals(2, cl.getInUse());
+        
+        cl.release();
+        assertTrue(cl.tryAcquire());
+        
+        // Lowering the limit below the permits in use
+        cl.setLimit(1);
+        cl.release();
+        assertFalse(cl.tryAcquire());
+        cl.release();
+        assertTrue(cl.tryAcquire());
+        cl.release();
+        assertEquals(0, cl.getInUse());
+        
+        try {
+            cl.release();
+            throw new AssertionError("Expected IllegalStateException!");
+        } catch (final IllegalStateException ise) {
+            // Expected
+        }
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testBlockedCtrlThread() throws Exception {
+        final ConcurrencyLimit cl = new ConcurrencyLimit(1);
+        assertTrue(cl.tryAcquire());
+        
+        final Worker w = new Worker(cl);
+        w.start();
+        await("Not blocked", () -> w.getCtrlState() == CtrlState.BLOCKED);
+        Thread.sleep(50);
+        assertEquals(0, w.permits.get());
+        
+        // Pause is respected while blocked
+        w.requestPause();
+        await("Not paused", () -> w.getCtrlState() == CtrlState.PAUSED);
+        cl.release();
+        Thread.sleep(20);
+        assertEquals(0, w.permits.get());
+        
+        // Raising the limit at runtime wakes up the blocked thread
+        w.requestUnpause();
+        await("No permit", () -> w.permits.get() == 1);
+        await("Not blocked", () -> w.getCtrlState() == CtrlState.BLOCKED);
+        cl.setLimit(3);
+        await("No permits", () -> w.permits.get() == 3);
+        
+        // Cancel wakes up the blocked thread
+        await("Not blocked", () -> w.getCtrlState() == CtrlState.BLOCKED);
+        w.requestCancel();
+        w.join(TimeUnit.SECONDS.toMillis(10));
+        assertEquals(CtrlState.ENDED, w.getCtrlState());
+        assertEquals(3, w.permits.get());
+        
+        assertTrue(w.getBlockedTimeMs() >= 50);
+        assertTrue(w.getExecTimeMs() < w.getBlockedTimeMs());
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testRateLimitedCtrlTask() throws Exception {
+        final TokenBucket tb = new TokenBucket(200, 1);
+        final CtrlExecutor executor = new CtrlExecutor("Test", 1);
+        
+        final CtrlTask task = executor.submit(new CtrlTask("Task") {
+            @Override
+            public void customRun() {
+                for (int i = 0; i < 21 && acquire(tb); i++)
+                    progress.advance();
+            }
+        });
+        assertTrue(task.waitToFinish());
+        executor.close();
+        
+        // 20 permits after the initial one at 200/s: 100 ms
+        assertEquals(21, task.getProgress().getDone());
+        assertTrue(task.getBlockedTimeMs() >= 80);
+        assertTrue(task.getExecTimeMs() < task.getBlockedTimeMs());
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testAcquire() throws Exception {
+        final ConcurrencyLimit cl = new ConcurrencyLimit(1);
+        cl.acquire();
+        
+        final AtomicBoolean acquired = new AtomicBoolean();
+        final Thread t = new Thread(() -> {
+            try {
+                cl.acquire();
+                acquired.set(true);
+            } catch (final InterruptedException ie) {
+                // Test will fail
+            }
+        });
+        t.start();
+        Thread.sleep(20);
+        assertFalse(acquired.get());
+        
+        cl.release();
+        t.join(TimeUnit.SECONDS.toMillis(10));
+        assertTrue(acquired.get());
+        assertEquals(1, cl.getInUse());
+    }
+    
+}
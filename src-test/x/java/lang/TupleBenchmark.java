@@ -0,0 +1,83 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import x.java.MicroBenchmark;
+
+/**
+ * Benchmark of the boxing {@link Pair} and {@link Ref} vs the primitive {@link IntPair}, {@link LongPair}
+ * and {@link DoubleRef}.
+ * 
+ * <p>
+ * Each operation creates a short-lived tuple and consumes its hash code. The reported allocation per
+ * operation shows whether the JIT could eliminate the allocation of the tuple (scalar replacement): the
+ * primitive tuples are expected to allocate nothing, the boxing ones allocate the boxes and the varargs
+ * array of {@link java.util.Objects#hash(Object...)}.
+ * </p>
+ * 
+ * <p>
+ * Run it as a Java application.
+ * </p>
+ * 
+ * @author Andras Belicza
+ */
+public class TupleBenchmark {
+    
+    /** Number of operations per round. */
+    private static final int OPERATIONS = 10_000_000;
+    
+    /**
+     * Entry point of the benchmark.
+     * 
+     * @param arguments not used
+     */
+    public static void main(final String[] arguments) {
+        // Values are offset to be out of the Integer and Long caches
+        MicroBenchmark.run("Pair<Integer, Integer>", OPERATIONS, n -> {
+            long sum = 0;
+            for (int i = 0; i < n; i++)
+                sum += new Pair<>(i + 1000, i + 2000).hashCode();
+            return sum;
+        });
+        MicroBenchmark.run("IntPair", OPERATIONS, n -> {
+            long sum = 0;
+            for (int i = 0; i < n; i++)
+                sum += new IntPair(i + 1000, i + 2000).hashCode();
+            return sum;
+        });
+        
+        MicroBenchmark.run("Pair<Long, Long>", OPERATIONS, n -> {
+            long sum = 0;
+            for (long i = 0; i < n; i++)
+                sum += new Pair<>(i + 1000, i + 2000).hashCode();
+            return sum;
+        });
+        MicroBenchmark.run("LongPair", OPERATIONS, n -> {
+            long sum = 0;
+            for (long i = 0; i < n; i++)
+                sum += new LongPair(i + 1000, i + 2000).hashCode();
+            return sum;
+        });
+        
+        MicroBenchmark.run("Ref<Double> accumulator", OPERATIONS, n -> {
+            final Ref<Double> r = new Ref<>(0.0);
+            for (int i = 0; i < n; i++)
+                r.value += i;
+            return r.value.longValue();
+        });
+        MicroBenchmark.run("DoubleRef accumulator", OPERATIONS, n -> {
+            final DoubleRef r = new DoubleRef();
+            for (int i = 0; i < n; i++)
+                r.value += i;
+            return (long) r.value;
+        });
+    }
+    
+}
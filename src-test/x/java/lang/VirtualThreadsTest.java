@@ -0,0 +1,103 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import x.java.BaseTest;
+
+/**
+ * JUnit test of {@link VirtualThreads}.
+ * 
+ * <p>
+ * Passes both with and without virtual thread support.
+ * </p>
+ * 
+ * @author Andras Belicza
+ */
+public class VirtualThreadsTest extends BaseTest {
+    
+    /** */
+    @Test
+    public void testThreads() {
+        final AtomicInteger counter = new AtomicInteger();
+        final Thread t = VirtualThreads.newThread(counter::incrementAndGet, "Worker");
+        assertEquals("Worker", t.getName());
+        assertSame(NormalThread.UNCAUGHT_EXCEPTION_HANDLER, t.getUncaughtExceptionHandler());
+        assertEquals(VirtualThreads.isSupported(), VirtualThreads.isVirtual(t));
+        
+        t.start();
+        assertTrue(VirtualThreads.waitToFinish(t));
+        assertEquals(1, counter.get());
+        
+        assertTrue(VirtualThreads.waitToFinish(VirtualThreads.start(counter::incrementAndGet, "Worker2")));
+        assertEquals(2, counter.get());
+        
+        assertNull(VirtualThreads.checkedSleep(1));
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testFactoryExecutor() throws Exception {
+        final ThreadFactory factory = VirtualThreads.newFactory("Pool");
+        assertEquals("Pool-1", factory.newThread(() -> {}).getName());
+        assertEquals("Pool-2", factory.newThread(() -> {}).getName());
+        
+        final ExecutorService executor = VirtualThreads.newExecutor("Exec");
+        final AtomicInteger counter = new AtomicInteger();
+        for (int i = 0; i < 1000; i++)
+            executor.execute(counter::incrementAndGet);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(1000, counter.get());
+    }
+    
+    /** */
+    @Test
+    public void testCtrlExecutor() {
+        final CtrlExecutor executor = VirtualThreads.newCtrlExecutor("Ctrl");
+        final CtrlGroup group = new CtrlGroup("Group");
+        group.requestPause();
+        
+        // Many tasks paused at once: virtual threads (or an unbounded pool) run them all
+        final List<CtrlTask> tasks = new ArrayList<>();
+        final AtomicInteger done = new AtomicInteger();
+        for (int i = 0; i < 200; i++)
+            tasks.add(executor.submit(new CtrlTask("Task " + i) {
+                @Override
+                public void customRun() {
+                    if (mayContinue())
+                        done.incrementAndGet();
+                }
+            }, group));
+        
+        group.requestUnpause();
+        for (final CtrlTask task : tasks)
+            assertTrue(task.waitToFinish());
+        assertEquals(200, done.get());
+        
+        executor.close();
+    }
+    
+}
@@ -0,0 +1,84 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import x.java.MicroBenchmark;
+
+/**
+ * Benchmark of weighted random sampling: {@link MathUtils#randomValue(Object[], int[], Random)} vs
+ * {@link WeightedSampler} (alias method) vs {@link DynamicWeightedSampler} (binary search), with 10 to 10,000
+ * outcomes.
+ * 
+ * <p>
+ * Run it as a Java application.
+ * </p>
+ * 
+ * @author Andras Belicza
+ */
+public class WeightedSamplerBenchmark {
+    
+    /** Number of samples per round. */
+    private static final int SAMPLES = 1_000_000;
+    
+    /**
+     * Entry point of the benchmark.
+     * 
+     * @param arguments not used
+     */
+    public static void main(final String[] arguments) {
+        final Random random = new Random(4327);
+        
+        for (int n = 10; n <= 10_000; n *= 10) {
+            System.out.println("Outcomes: " + n);
+            
+            final Integer[] values = new Integer[n];
+            final int[] weights = new int[n];
+            final double[] dweights = new double[n];
+            for (int i = 0; i < n; i++) {
+                values[i] = i;
+                dweights[i] = weights[i] = 1 + random.nextInt(1000);
+            }
+            
+            MicroBenchmark.run("MathUtils.randomValue()", SAMPLES / n * 10, iterations -> {
+                long sum = 0;
+                for (int i = 0; i < iterations; i++)
+                    sum += MathUtils.randomValue(values, weights, random);
+                return sum;
+            });
+            
+            final int[] out = new int[SAMPLES];
+            final WeightedSampler alias = WeightedSampler.of(weights);
+            final DynamicWeightedSampler dynamic = new DynamicWeightedSampler(dweights);
+            final SplittableRandom sr = new SplittableRandom(4327);
+            MicroBenchmark.run("WeightedSampler.sample()", SAMPLES, iterations -> {
+                long sum = 0;
+                for (int i = 0; i < iterations; i++)
+                    sum += alias.sample(sr);
+                return sum;
+            });
+            MicroBenchmark.run("WeightedSampler.sample(count)", SAMPLES, iterations -> {
+                alias.sample(iterations, out, sr);
+                return out[iterations - 1];
+            });
+            MicroBenchmark.run("WeightedSampler.parallelSample(count)", SAMPLES, iterations -> {
+                alias.parallelSample(iterations, out, sr);
+                return out[iterations - 1];
+            });
+            MicroBenchmark.run("DynamicWeightedSampler.sample(count)", SAMPLES, iterations -> {
+                dynamic.sample(iterations, out, sr);
+                return out[iterations - 1];
+            });
+        }
+    }
+    
+}
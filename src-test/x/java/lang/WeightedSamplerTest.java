@@ -0,0 +1,147 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+import x.java.BaseTest;
+
+/**
+ * JUnit test of {@link WeightedSampler} and {@link DynamicWeightedSampler}.
+ * 
+ * @author Andras Belicza
+ */
+public class WeightedSamplerTest extends BaseTest {
+    
+    /**
+     * Asserts that the frequencies of the specified samples match the probabilities of the sampler.
+     * 
+     * @param sampler sampler the samples were generated with
+     * @param samples samples to check
+     */
+    private static void assertDistribution(final WeightedSampler sampler, final int[] samples) {
+        final int[] counts = new int[sampler.size()];
+        for (final int s : samples)
+            counts[s]++;
+        
+        for (int i = 0; i < counts.length; i++) {
+            final double p = sampler.getProbability(i);
+            if (p == 0)
+                assertEquals(0, counts[i]);
+            else
+                // Allow 5 standard deviations
+                assertEquals(p * samples.length, counts[i], 5 * Math.sqrt(samples.length * p * (1 - p)) + 1);
+        }
+    }
+    
+    /** */
+    @Test
+    public void testAlias() {
+        final WeightedSampler sampler = WeightedSampler.of(2, 8, 0, 5, 1);
+        assertEquals(5, sampler.size());
+        assertEquals(0.5, sampler.getProbability(1), 1e-12);
+        assertEquals(0, sampler.getProbability(2), 0);
+        
+        final SplittableRandom sr = new SplittableRandom(4327);
+        final int[] samples = new int[100_000];
+        sampler.sample(samples.length, samples, sr);
+        assertDistribution(sampler, samples);
+        
+        final Random r = new Random(4327);
+        for (int i = 0; i < samples.length; i++)
+            samples[i] = sampler.sample(r);
+        assertDistribution(sampler, samples);
+        
+        // Single outcome and extreme weights
+        assertEquals(0, WeightedSampler.of(3.5).select(0.99));
+        final WeightedSampler extreme = WeightedSampler.of(1e-300, 1, 1e300);
+        for (int i = 0; i < 1000; i++)
+            assertEquals(2, extreme.sample(sr));
+        assertTrue(WeightedSampler.of(1, 1).select(Math.nextDown(1.0)) < 2);
+    }
+    
+    /** */
+    @Test
+    public void testDynamic() {
+        final DynamicWeightedSampler sampler = new DynamicWeightedSampler(4);
+        sampler.setWeight(1, 3);
+        sampler.setWeight(3, 1);
+        assertEquals(4, sampler.getTotalWeight(), 0);
+        assertEquals(0.75, sampler.getProbability(1), 0);
+        
+        final SplittableRandom sr = new SplittableRandom(4327);
+        final int[] samples = new int[100_000];
+        sampler.sample(samples.length, samples, sr);
+        assertDistribution(sampler, samples);
+        
+        sampler.setWeight(0, 2);
+        sampler.setWeight(1, 0);
+        assertEquals(3, sampler.getTotalWeight(), 0);
+        for (int i = 0; i < samples.length; i++)
+            samples[i] = sampler.sample(sr);
+        assertDistribution(sampler, samples);
+        
+        // Zero-weight outcomes must not be selected at the edges
+        assertEquals(0, sampler.select(0));
+        assertEquals(3, sampler.select(Math.nextDown(1.0)));
+        sampler.setWeight(3, 0);
+        assertEquals(0, sampler.select(Math.nextDown(1.0)));
+    }
+    
+    /** */
+    @Test
+    public void testParallelSample() {
+        final WeightedSampler[] samplers = { WeightedSampler.of(1, 2, 3, 4),
+                new DynamicWeightedSampler(1, 2, 3, 4) };
+        
+        for (final WeightedSampler sampler : samplers) {
+            final int[] samples = new int[1_000_000];
+            sampler.parallelSample(samples.length, samples, new SplittableRandom(4327));
+            assertDistribution(sampler, samples);
+            
+            // Reproducible
+            final int[] samples2 = new int[samples.length];
+            sampler.parallelSample(samples.length, samples2, new SplittableRandom(4327));
+            assertArrayEquals(samples, samples2);
+        }
+    }
+    
+    /** */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeWeight() {
+        WeightedSampler.of(1, -1);
+    }
+    
+    /** */
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroSum() {
+        WeightedSampler.of(0, 0);
+    }
+    
+    /** */
+    @Test(expected = IllegalStateException.class)
+    public void testDynamicZeroSum() {
+        new DynamicWeightedSampler(3).sample(new SplittableRandom());
+    }
+    
+    /** */
+    @Test(expected = IllegalArgumentException.class)
+    public void testCount() {
+        WeightedSampler.of(1).sample(2, new int[1], new SplittableRandom());
+    }
+    
+}
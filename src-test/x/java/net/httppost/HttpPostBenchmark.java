@@ -0,0 +1,136 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.net.httppost;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import com.sun.net.httpserver.HttpServer;
+
+import x.java.MicroBenchmark;
+
+/**
+ * Benchmark of plain {@link HttpPost}s vs {@link HttpPostClient} (keep-alive mode) against a local HTTP
+ * server stand-in, reported in requests per second.
+ * 
+ * <p>
+ * Two scenarios are measured: reading the whole response, and only checking the response code (closing the
+ * post with unread response). Asynchronous fan-out of the posts is also measured.
+ * </p>
+ * 
+ * <p>
+ * Run it as a Java application.
+ * </p>
+ * 
+ * @author Andras Belicza
+ */
+public class HttpPostBenchmark {
+    
+    /** Number of requests per round. */
+    private static final int REQUESTS = 500;
+    
+    /** Response body sent by the server. */
+    private static final byte[] BODY = new byte[1024];
+    
+    /**
+     * Entry point of the benchmark.
+     * 
+     * @param arguments not used
+     * @throws IOException if the server cannot be started
+     */
+    public static void main(final String[] arguments) throws IOException {
+        // Else Nagle's algorithm delays responses on reused connections by the delayed ACK time (~40 ms)
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        
+        final InetAddress address = InetAddress.getLoopbackAddress();
+        final HttpServer server = HttpServer.create(new InetSocketAddress(address, 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().close();
+            exchange.sendResponseHeaders(200, BODY.length);
+            try (final OutputStream out = exchange.getResponseBody()) {
+                out.write(BODY);
+            }
+        });
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+        
+        try {
+            final URL url = new URL("http://" + address.getHostAddress() + ":" + server.getAddress().getPort()
+                    + "/");
+            final HttpPostClient client = new HttpPostClient();
+            
+            run("HttpPost, response read", url, u -> new HttpPost(u, params()), true);
+            run("HttpPostClient, response read", url, u -> client.newPost(u, params()), true);
+            run("HttpPost, response code only", url, u -> new HttpPost(u, params()), false);
+            run("HttpPostClient, response code only", url, u -> client.newPost(u, params()), false);
+            
+            final double nsPerOp = MicroBenchmark.run("HttpPostClient async", REQUESTS, n -> {
+                final List<CompletableFuture<Response>> futureList = new ArrayList<>(n);
+                for (int i = n; i > 0; i--)
+                    futureList.add(client.postAsync(url, params()));
+                long sum = 0;
+                for (final CompletableFuture<Response> future : futureList)
+                    sum += future.join().getBody().length;
+                return sum;
+            });
+            System.out.printf("%-40s %,12.0f requests/s%n", "HttpPostClient async (" + client.getMaxInFlight()
+                    + " in flight)", 1e9 / nsPerOp);
+        } finally {
+            server.stop(0);
+            executor.shutdown();
+        }
+    }
+    
+    /**
+     * Returns the parameters to be posted.
+     * 
+     * @return the parameters to be posted
+     */
+    private static Map<String, String> params() {
+        return Collections.singletonMap("id", "42");
+    }
+    
+    /**
+     * Runs a benchmark of posts and prints the requests per second.
+     * 
+     * @param name name of the benchmark
+     * @param url {@link URL} to post to
+     * @param postFactory creates the posts
+     * @param readResponse tells if the whole response is to be read
+     */
+    private static void run(final String name, final URL url, final Function<URL, HttpPost> postFactory,
+            final boolean readResponse) {
+        final double nsPerOp = MicroBenchmark.run(name, REQUESTS, n -> {
+            long sum = 0;
+            for (int i = n; i > 0; i--)
+                try (final HttpPost httpPost = postFactory.apply(url)) {
+                    if (!httpPost.connect() || !httpPost.doPost())
+                        throw new RuntimeException("Post failed!");
+                    sum += readResponse ? httpPost.getResponse().length() : httpPost.getServerResponseCode();
+                }
+            return sum;
+        });
+        
+        System.out.printf("%-40s %,12.0f requests/s%n", name, 1e9 / nsPerOp);
+    }
+    
+}
@@ -0,0 +1,352 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.net.httppost;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import x.java.BaseTest;
+import x.java.io.IOUtils;
+
+/**
+ * JUnit test of {@link HttpPostClient} and the keep-alive mode of {@link HttpPost}.
+ * 
+ * @author Andras Belicza
+ */
+public class HttpPostClientTest extends BaseTest {
+    
+    /** Saved logging level of class {@link HttpPost} to be restored after tests. */
+    private static Level savedLoggingLevel;
+    
+    /**
+     * @throws Exception a
+     */
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+        // Disable logging to not pollute console
+        savedLoggingLevel = Logger.getLogger(HttpPost.class.getName()).getLevel();
+        Logger.getLogger(HttpPost.class.getName()).setLevel(Level.OFF);
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+        Logger.getLogger(HttpPost.class.getName()).setLevel(savedLoggingLevel);
+    }
+    
+    
+    /** Local HTTP server stand-in. */
+    private HttpServer server;
+    
+    /** Executor of the server. */
+    private ExecutorService executor;
+    
+    /** Remote (client) ports the server received requests from. */
+    private final Set<Integer> clientPortSet = ConcurrentHashMap.newKeySet();
+    
+    /** Number of requests being served by the <code>/concurrent</code> context. */
+    private final AtomicInteger concurrent = new AtomicInteger();
+    
+    /** Maximum number of requests served concurrently by the <code>/concurrent</code> context. */
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+    
+    /** Number of requests received by the <code>/slow</code> context. */
+    private final AtomicInteger slowCount = new AtomicInteger();
+    
+    /** Base URL of the server. */
+    private String baseUrl;
+    
+    /**
+     * @throws Exception a
+     */
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/echo", exchange -> respond(exchange, 200, IOUtils.readAllBytes(exchange
+                .getRequestBody())));
+        server.createContext("/error", exchange -> respond(exchange, 404, "Not here".getBytes()));
+        server.createContext("/concurrent", exchange -> {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+            } catch (final InterruptedException ie) {
+                // Server is stopping
+            }
+            concurrent.decrementAndGet();
+            exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=UTF-16");
+            respond(exchange, 200, "ok".getBytes(StandardCharsets.UTF_16));
+        });
+        server.createContext("/slow", exchange -> {
+            slowCount.incrementAndGet();
+            try {
+                Thread.sleep(1000);
+            } catch (final InterruptedException ie) {
+                // Server is stopping
+            }
+            respond(exchange, 200, new byte[0]);
+        });
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+        
+        baseUrl = "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":"
+                + server.getAddress().getPort();
+    }
+    
+    /** */
+    @After
+    public void tearDown() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+    
+    /**
+     * Sends a response and records the client port.
+     * 
+     * @param exchange exchange to respond to
+     * @param code response code to be sent
+     * @param body response body to be sent
+     * @throws IOException if sending the response fails
+     */
+    private void respond(final HttpExchange exchange, final int code, final byte[] body) throws IOException {
+        clientPortSet.add(exchange.getRemoteAddress().getPort());
+        
+        exchange.sendResponseHeaders(code, body.length == 0 ? -1 : body.length);
+        try (final OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testConnectionReuse() throws Exception {
+        final URL url = new URL(baseUrl + "/echo");
+        final Map<String, String> paramsMap = Collections.singletonMap("a", "b c");
+        
+        final HttpPostClient client = new HttpPostClient();
+        for (int i = 0; i < 3; i++)
+            assertEquals("a=b+c", client.post(url, paramsMap));
+        assertEquals(1, clientPortSet.size());
+        
+        // Unread response and error response are drained, connection is still reused
+        for (int i = 0; i < 3; i++)
+            try (final HttpPost httpPost = client.newPost(url, paramsMap)) {
+                assertTrue(httpPost.isKeepAlive());
+                assertTrue(httpPost.connect());
+                assertTrue(httpPost.doPost());
+                assertTrue(httpPost.isServerResponseOk());
+            }
+        try (final HttpPost httpPost = client.newPost(new URL(baseUrl + "/error"), paramsMap)) {
+            assertTrue(httpPost.connect());
+            assertTrue(httpPost.doPost());
+            assertEquals(404, httpPost.getServerResponseCode());
+        }
+        assertEquals("a=b+c", client.post(url, paramsMap));
+        assertEquals(1, clientPortSet.size());
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testSaveAttachmentToFile() throws Exception {
+        final Path file = Files.createTempFile("xjava", ".tmp");
+        try {
+            final HttpPostClient client = new HttpPostClient();
+            client.setRequestCharset("UTF-8");
+            assertTrue(client.saveAttachmentToFile(new URL(baseUrl + "/echo"), Collections.singletonMap("x",
+                    "\u00e1"), new SimpleFileProvider(file, 1000L)));
+            assertArrayEquals("x=%C3%A1".getBytes(StandardCharsets.UTF_8), Files.readAllBytes(file));
+            assertEquals(1000L, Files.getLastModifiedTime(file).toMillis());
+            
+            assertFalse(client.saveAttachmentToFile(new URL(baseUrl + "/error"), Collections
+                    .<String, String> emptyMap(), new SimpleFileProvider(file, null)));
+        } finally {
+            Files.delete(file);
+        }
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testReadTimeout() throws Exception {
+        final HttpPostClient client = new HttpPostClient();
+        client.setReadTimeout(100);
+        assertEquals(100, client.getReadTimeout());
+        
+        final long start = System.nanoTime();
+        assertNull(client.post(new URL(baseUrl + "/slow"), Collections.<String, String> emptyMap()));
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 900);
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testCloseWithoutResponse() throws Exception {
+        final HttpPostClient client = new HttpPostClient();
+        
+        // Closing a post whose response was not requested must not wait for the response
+        final long start = System.nanoTime();
+        try (final HttpPost httpPost = client.newPost(new URL(baseUrl + "/slow"), Collections
+                .<String, String> emptyMap())) {
+            assertTrue(httpPost.connect());
+            assertTrue(httpPost.doPost());
+        }
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 900);
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testPostAsync() throws Exception {
+        final HttpPostClient client = new HttpPostClient();
+        client.setMaxInFlight(4);
+        
+        final List<CompletableFuture<Response>> futureList = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+            futureList.add(client.postAsync(new URL(baseUrl + "/concurrent"), Collections
+                    .<String, String> emptyMap()));
+        for (final CompletableFuture<Response> future : futureList) {
+            final Response response = future.get();
+            assertTrue(response.isOk());
+            assertEquals("ok", response.getBodyAsString());
+            assertEquals("text/plain; charset=UTF-16", response.getHeader("content-type"));
+        }
+        assertTrue(maxConcurrent.get() <= 4);
+        assertTrue(maxConcurrent.get() > 1);
+        
+        // Error response is a response
+        final Response response = client.postAsync(new URL(baseUrl + "/error"),
+                Collections.<String, String> emptyMap()).get();
+        assertEquals(404, response.getCode());
+        assertFalse(response.isOk());
+        assertEquals("Not here", response.getBodyAsString());
+        response.getBody()[0] = 'X'; // Response is immutable
+        assertEquals("Not here", response.getBodyAsString());
+        
+        // Failed post
+        try {
+            client.postAsync(new URL("http://localhost:1/"), Collections.<String, String> emptyMap()).get();
+            fail();
+        } catch (final ExecutionException ee) {
+            assertTrue(ee.getCause() instanceof IOException);
+        }
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testPostAsyncTimeoutAndCancel() throws Exception {
+        final HttpPostClient client = new HttpPostClient();
+        client.setMaxInFlight(1);
+        
+        final long start = System.nanoTime();
+        final CompletableFuture<Response> slow = client.postAsync(new URL(baseUrl + "/slow"), Collections
+                .<String, String> emptyMap(), 100);
+        final CompletableFuture<Response> queued = client.postAsync(new URL(baseUrl + "/slow"), Collections
+                .<String, String> emptyMap());
+        assertTrue(queued.cancel(true));
+        try {
+            slow.get();
+            fail();
+        } catch (final ExecutionException ee) {
+            assertTrue(ee.getCause() instanceof TimeoutException);
+        }
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 900);
+        
+        // Aborted post releases its slot promptly, cancelled queued post is never sent
+        while (client.getInFlight() > 0)
+            Thread.sleep(1);
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 900);
+        assertEquals(1, slowCount.get());
+        
+        final CompletableFuture<Response> cancelled = client.postAsync(new URL(baseUrl + "/slow"), Collections
+                .<String, String> emptyMap());
+        while (slowCount.get() < 2)
+            Thread.sleep(1);
+        cancelled.cancel(true);
+        try {
+            cancelled.get();
+            fail();
+        } catch (final CancellationException ce) {
+            // Expected
+        }
+        while (client.getInFlight() > 0)
+            Thread.sleep(1);
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 900);
+    }
+    
+    /**
+     * @throws Exception a
+     */
+    @Test
+    public void testAbortWhileConnecting() throws Exception {
+        try (final HttpPost httpPost = new HttpPostClient().newPost(new URL(baseUrl + "/echo"), Collections
+                .<String, String> emptyMap())) {
+            // Abort after the connection is opened but before it is connected
+            assertFalse(httpPost.connect(httpPost::abort));
+        }
+        assertTrue(clientPortSet.isEmpty());
+    }
+    
+    /** */
+    @Test(expected = IllegalStateException.class)
+    public void testSetKeepAliveAfterClose() {
+        final HttpPost httpPost = new HttpPostClient().newPost(null, null);
+        httpPost.close();
+        httpPost.setKeepAlive(false);
+    }
+    
+}
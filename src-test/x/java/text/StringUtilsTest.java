@@ -16,11 +16,18 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
 
 import org.junit.Test;
 
 import x.java.BaseTest;
+import x.java.lang.RandomSource;
 
 /**
  * JUnit test of {@link StringUtils}.
@@ -115,4 +122,30 @@ public class StringUtilsTest extends BaseTest {
             assertEquals(out[i], StringUtils.randomString(i, r));
     }
     
+    /** */
+    @Test
+    public void testRandomStrings() {
+        assertEquals(0, StringUtils.randomStrings(0, 10).length);
+        assertArrayEquals(new String[] { "", "" }, StringUtils.randomStrings(2, 0));
+        
+        // Multiple buffers, last one partial
+        final String[] out = StringUtils.randomStrings(10_000, 22);
+        assertEquals(out.length, new HashSet<>(Arrays.asList(out)).size());
+        for (final String s : out)
+            assertTrue(s.matches("[0-9A-Za-z_\\-]{22}"));
+        
+        // Strings are slices of the same random data a single long string is generated from
+        final String[] out2 = StringUtils.randomStrings(100, 32, RandomSource.of(new SplittableRandom(4327)));
+        final String all = StringUtils.randomString(100 * 32, RandomSource.of(new SplittableRandom(4327)));
+        assertEquals(all, String.join("", out2));
+    }
+    
+    /** */
+    @Test
+    public void testRandomStringConcurrent() {
+        final Set<String> set = ConcurrentHashMap.newKeySet();
+        IntStream.range(0, 10_000).parallel().forEach(i -> set.add(StringUtils.randomString(22)));
+        assertEquals(10_000, set.size());
+    }
+    
 }
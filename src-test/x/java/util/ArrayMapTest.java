@@ -9,17 +9,28 @@
  */
 package x.java.util;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map.Entry;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import x.java.BaseTest;
+import x.java.io.IOUtils;
+import x.java.lang.Int;
 
 /**
  * JUnit test of {@link ArrayMap}.
@@ -116,6 +127,22 @@ public class ArrayMapTest extends BaseTest {
         assertEquals(in.length, counter);
     }
     
+    /** */
+    @Test
+    public void testHashCode() {
+        final HashMap<String, Integer> hm = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            map.put(Integer.toString(i), i);
+            hm.put(Integer.toString(i), i);
+        }
+        map.put(null, null);
+        hm.put(null, null);
+        
+        assertEquals(hm.hashCode(), map.hashCode());
+        
+        testAllocationFree("ArrayMap.hashCode()", map::hashCode);
+    }
+    
     /** */
     @Test
     public void testClone() {
@@ -135,4 +162,200 @@ public class ArrayMapTest extends BaseTest {
         testSerialization(map);
     }
     
+    /** */
+    @Test
+    public void testSerializationTrimmed() {
+        testSerialization(map);
+        
+        for (int i = 0; i < 100; i++)
+            map.put(Integer.toString(i), i);
+        for (int i = 0; i < 100; i += 2)
+            map.remove(Integer.toString(i));
+        
+        ArrayMap<String, Integer> map2 = testSerialization(map);
+        
+        // Iteration order is preserved
+        assertArrayEquals(map.keySet().toArray(), map2.keySet().toArray());
+        
+        // Deserialized map (with trimmed capacity) must remain usable
+        map2.put("new", -1);
+        assertEquals(51, map2.size());
+        assertEquals((Integer) (-1), map2.get("new"));
+        
+        // Removed capacity is not serialized
+        ArrayMap<String, Integer> big = new ArrayMap<>(1000);
+        big.put("1", 1);
+        ArrayMap<String, Integer> small = new ArrayMap<>(1);
+        small.put("1", 1);
+        assertEquals(IOUtils.serialize(small).length, IOUtils.serialize(big).length);
+    }
+    
+    /** */
+    @Test
+    public void testDeserializationFormerForm() {
+        // {"1"=1, "2"=null, null=3} with a capacity of 10, serialized in the former form (entry array field)
+        final byte[] data = Base64.getDecoder().decode(
+                "rO0ABXNyABR4LmphdmEudXRpbC5BcnJheU1hcAAAAAAAAAABAgACSQAEc2l6ZVsAB2VudHJpZXN0ACBb"
+                + "THgvamF2YS91dGlsL0FycmF5TWFwJEFyckVudHJ5O3hwAAAAA3VyACBbTHguamF2YS51dGlsLkFycmF5"
+                + "TWFwJEFyckVudHJ5O30S8UaR20xtAgAAeHAAAAAKc3IAHXguamF2YS51dGlsLkFycmF5TWFwJEFyckVu"
+                + "dHJ5AAAAAAAAAAECAAJMAANrZXl0ABJMamF2YS9sYW5nL09iamVjdDtMAAV2YWx1ZXEAfgAGeHB0AAEx"
+                + "c3IAEWphdmEubGFuZy5JbnRlZ2VyEuKgpPeBhzgCAAFJAAV2YWx1ZXhyABBqYXZhLmxhbmcuTnVtYmVy"
+                + "hqyVHQuU4IsCAAB4cAAAAAFzcQB+AAV0AAEycHNxAH4ABXBzcQB+AAkAAAADcHBwcHBwcA==");
+        
+        final ArrayMap<String, Integer> map2 = IOUtils.deserialize(data);
+        
+        assertEquals(3, map2.size());
+        assertArrayEquals(new Object[] { "1", "2", null }, map2.keySet().toArray());
+        assertEquals((Integer) 1, map2.get("1"));
+        assertTrue(map2.containsKey("2"));
+        assertNull(map2.get("2"));
+        assertEquals((Integer) 3, map2.get(null));
+        
+        // Deserialized map (with trimmed capacity) must remain usable
+        map2.put("4", 4);
+        assertEquals(4, map2.size());
+        
+        testSerialization(map2);
+    }
+    
+    /** */
+    @Test
+    public void testPutAll() {
+        // Small input (sequential searches) and big input (hash index), both with overlapping keys
+        for (int count : new int[] { 5, 1000 }) {
+            map.clear();
+            map.put("0", -1);
+            map.put("x", -2);
+            
+            HashMap<String, Integer> m = new HashMap<>();
+            for (int i = 0; i < count; i++)
+                m.put(Integer.toString(i), i);
+            
+            map.putAll(m);
+            
+            assertEquals(count + 1, map.size());
+            assertEquals((Integer) 0, map.get("0"));
+            assertEquals((Integer) (-2), map.get("x"));
+            assertEquals((Integer) (count - 1), map.get(Integer.toString(count - 1)));
+            
+            m.put("x", -2);
+            assertEquals(m, map);
+            
+            // Map must remain usable after bulk merge
+            map.put("y", 1);
+            assertEquals(count + 2, map.size());
+        }
+    }
+    
+    /** */
+    @Test
+    public void testForEachReplaceAll() {
+        for (int i = 0; i < 5; i++)
+            map.put(Integer.toString(i), i);
+        
+        // forEach preserves insertion order
+        Int counter = new Int();
+        map.forEach((k, v) -> {
+            assertEquals(Integer.toString(counter.value), k);
+            assertEquals((Integer) counter.value, v);
+            counter.value++;
+        });
+        assertEquals(5, counter.value);
+        
+        map.replaceAll((k, v) -> v * 10);
+        assertEquals((Integer) 40, map.get("4"));
+    }
+    
+    /** */
+    @Test
+    public void testCompute() {
+        assertEquals((Integer) 1, map.computeIfAbsent("1", k -> 1));
+        assertEquals((Integer) 1, map.computeIfAbsent("1", k -> 2));
+        assertNull(map.computeIfAbsent("2", k -> null));
+        assertFalse(map.containsKey("2"));
+        
+        assertEquals((Integer) 2, map.computeIfPresent("1", (k, v) -> v + 1));
+        assertNull(map.computeIfPresent("2", (k, v) -> 1));
+        assertFalse(map.containsKey("2"));
+        
+        assertEquals((Integer) 3, map.compute("1", (k, v) -> v + 1));
+        assertEquals((Integer) 5, map.compute("5", (k, v) -> v == null ? 5 : v));
+        assertNull(map.compute("1", (k, v) -> null));
+        assertFalse(map.containsKey("1"));
+        assertEquals(1, map.size());
+        
+        assertEquals((Integer) 1, map.merge("1", 1, Integer::sum));
+        assertEquals((Integer) 2, map.merge("1", 1, Integer::sum));
+        assertNull(map.merge("1", 1, (v1, v2) -> null));
+        assertFalse(map.containsKey("1"));
+        
+        assertNull(map.putIfAbsent("1", 1));
+        assertEquals((Integer) 1, map.putIfAbsent("1", 2));
+        assertEquals((Integer) 1, map.getOrDefault("1", 3));
+        assertEquals((Integer) 3, map.getOrDefault("2", 3));
+    }
+    
+    /** */
+    @Test(expected = ConcurrentModificationException.class)
+    public void testComputeModifying() {
+        map.put("1", 1);
+        map.put("2", 2);
+        
+        // Same size, but "1" is moved to another index
+        map.compute("1", (k, v) -> {
+            map.remove("1");
+            map.put("3", 3);
+            return v;
+        });
+    }
+    
+    /** */
+    @Test(expected = ConcurrentModificationException.class)
+    public void testComputeIfAbsentModifying() {
+        map.computeIfAbsent("1", k -> map.put("2", 2));
+    }
+    
+    /** */
+    @Test
+    public void testSpliterator() {
+        for (int i = 0; i < 1000; i++)
+            map.put(Integer.toString(i), i);
+        
+        Spliterator<String> s = map.keySet().spliterator();
+        assertTrue(s.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED
+                | Spliterator.DISTINCT));
+        assertEquals(1000, s.estimateSize());
+        
+        Spliterator<String> s2 = s.trySplit();
+        assertEquals(500, s.estimateSize());
+        assertEquals(500, s2.estimateSize());
+        
+        assertEquals(999 * 1000 / 2, map.values().parallelStream().mapToInt(Integer::intValue).sum());
+        assertEquals(1000, map.keySet().parallelStream().distinct().count());
+        assertEquals(map.keySet().stream().collect(Collectors.toList()),
+                map.entrySet().parallelStream().map(Entry::getKey).collect(Collectors.toList()));
+    }
+    
+    /** */
+    @Test
+    public void testSpliteratorSplitBinding() {
+        map = new ArrayMap<>(4);
+        for (int i = 0; i < 4; i++)
+            map.put(Integer.toString(i), i);
+        
+        final List<String> keys = new ArrayList<>();
+        final Spliterator<String> s = map.keySet().spliterator();
+        assertTrue(s.tryAdvance(keys::add)); // Binds the entry array
+        
+        // Replaces the entry array, and moves "4" to the index of "1" in the new array
+        map.put("4", 4);
+        map.remove("1");
+        
+        // Split part must iterate the entry array bound by its parent
+        final Spliterator<String> s2 = s.trySplit();
+        s2.forEachRemaining(keys::add);
+        s.forEachRemaining(keys::add);
+        assertEquals(Arrays.asList("0", "1", "2", "3"), keys);
+    }
+    
 }
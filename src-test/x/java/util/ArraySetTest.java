@@ -0,0 +1,122 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import x.java.BaseTest;
+
+/**
+ * JUnit test of {@link ArraySet}.
+ * 
+ * @author Andras Belicza
+ */
+public class ArraySetTest extends BaseTest {
+    
+    /** */
+    private ArraySet<String> set;
+    
+    /**
+     * @throws Exception a
+     */
+    @Before
+    public void setUp() throws Exception {
+        set = new ArraySet<>("1", "2", "3", "2", "4", "5", "1");
+    }
+    
+    /** */
+    @Test
+    public void testGeneral() {
+        assertFalse(set.isEmpty());
+        assertEquals(5, set.size());
+        
+        assertTrue(set.contains("1"));
+        assertTrue(set.contains(new String("5")));
+        assertFalse(set.contains("6"));
+        assertFalse(set.contains(null));
+        assertTrue(set.containsAll(Arrays.asList("1", "5")));
+        assertFalse(set.containsAll(Arrays.asList("1", "6")));
+        
+        assertTrue(new ArraySet<String>().isEmpty());
+    }
+    
+    /** */
+    @Test
+    public void testIterator() {
+        // Order of first occurrences
+        assertArrayEquals(new Object[] { "1", "2", "3", "4", "5" }, set.toArray());
+        assertArrayEquals(new String[] { "1", "2", "3", "4", "5", null },
+                set.toArray(new String[] { "a", "a", "a", "a", "a", "a" }));
+        assertEquals("[1, 2, 3, 4, 5]", set.toString());
+        
+        Iterator<String> it = set.iterator();
+        for (int i = 0; i < 5; i++)
+            it.next();
+        assertFalse(it.hasNext());
+        try {
+            it.next();
+            throw new AssertionError("NoSuchElementException expected");
+        } catch (NoSuchElementException nsee) {
+            // Expected
+        }
+    }
+    
+    /** */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullElement() {
+        new ArraySet<>("1", null);
+    }
+    
+    /** */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAdd() {
+        set.add("6");
+    }
+    
+    /** */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testClear() {
+        set.clear();
+    }
+    
+    /** */
+    @Test
+    public void testEquals() {
+        HashSet<String> hs = new HashSet<>(Arrays.asList("5", "4", "3", "2", "1"));
+        
+        assertEquals(hs, set);
+        assertEquals(set, hs);
+        assertEquals(hs.hashCode(), set.hashCode());
+        assertEquals(set, new ArraySet<>(hs));
+        
+        assertNotEquals(set, new ArraySet<>("1", "2", "3", "4", "6"));
+    }
+    
+    /** */
+    @Test
+    public void testSerialization() {
+        ArraySet<String> set2 = testSerialization(set);
+        assertEquals(set.hashCode(), set2.hashCode());
+        assertTrue(set2.contains("3"));
+    }
+    
+}
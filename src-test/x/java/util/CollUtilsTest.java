@@ -10,9 +10,18 @@
 package x.java.util;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
+import java.io.Serializable;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import org.junit.Test;
 
@@ -38,4 +47,59 @@ public class CollUtilsTest extends BaseTest {
         assertArrayEquals(out, in);
     }
     
+    /** */
+    @Test
+    public void testSmallSet() {
+        assertSame(Collections.emptySet(), CollUtils.smallSet());
+        
+        Class<?>[] expectedClasses = { OneValueSet.class, TwoValueSet.class, ThreeValueSet.class,
+                FourValueSet.class, ArraySet.class };
+        
+        for (int size = 1; size <= 20; size++) {
+            String[] in = new String[size * 2];
+            for (int i = 0; i < in.length; i++)
+                in[i] = Integer.toString(i % size); // Every element twice
+            
+            Set<String> set = CollUtils.smallSet(in);
+            if (size <= 5)
+                assertSame(expectedClasses[size - 1], set.getClass());
+            
+            assertEquals(size, set.size());
+            HashSet<String> hs = new HashSet<>(Arrays.asList(in));
+            assertEquals(hs, set);
+            assertEquals(set, hs);
+            assertEquals(hs.hashCode(), set.hashCode());
+            assertEquals(set, CollUtils.toSmallSet(hs));
+            
+            // Iteration order is the order of first occurrences
+            assertArrayEquals(Arrays.copyOf(in, size), set.toArray());
+            
+            for (int i = 0; i < size; i++)
+                assertTrue(set.contains(new String(in[i])));
+            assertFalse(set.contains("-1"));
+            
+            if (size <= ArraySet.MAX_RECOMMENDED_SIZE)
+                testSerialization((Serializable) set);
+        }
+    }
+    
+    /** */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSmallSetNull() {
+        CollUtils.smallSet("1", null);
+    }
+    
+    /** */
+    @Test(expected = IllegalArgumentException.class)
+    public void testTwoValueSetDuplicates() {
+        new TwoValueSet<>("1", new String("1"));
+    }
+    
+    /** */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSmallSetUnmodifiable() {
+        List<String> in = Arrays.asList("1", "2", "3");
+        CollUtils.toSmallSet(in).add("4");
+    }
+    
 }
@@ -0,0 +1,84 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import x.java.BaseTest;
+
+/**
+ * JUnit test of {@link IntArraySet}.
+ * 
+ * @author Andras Belicza
+ */
+public class IntArraySetTest extends BaseTest {
+    
+    /** */
+    @Test
+    public void testGeneral() {
+        IntArraySet set = new IntArraySet(5, 3, -1, 3, 5);
+        
+        assertEquals(3, set.size());
+        assertFalse(set.isEmpty());
+        assertTrue(new IntArraySet().isEmpty());
+        
+        assertArrayEquals(new int[] { -1, 3, 5 }, set.toArray());
+        assertEquals(3, set.get(1));
+        assertEquals(7, set.stream().sum());
+        assertEquals("[-1, 3, 5]", set.toString());
+        
+        for (int i = -3; i < 8; i++)
+            assertEquals(i == -1 || i == 3 || i == 5, set.contains(i));
+    }
+    
+    /** */
+    @Test
+    public void testBinarySearch() {
+        int[] values = new int[100];
+        for (int i = 0; i < values.length; i++)
+            values[i] = i * 3;
+        
+        IntArraySet set = new IntArraySet(values);
+        
+        for (int i = -1; i < 300; i++)
+            assertEquals(i % 3 == 0 && i >= 0, set.contains(i));
+    }
+    
+    /** */
+    @Test
+    public void testEquals() {
+        IntArraySet set = new IntArraySet(1, 2, 3);
+        
+        assertEquals(set, new IntArraySet(3, 2, 1, 1));
+        assertNotEquals(set, new IntArraySet(1, 2, 4));
+        
+        // Hash code is compatible with Set<Integer>
+        assertEquals(new HashSet<>(Arrays.asList(1, 2, 3)).hashCode(), set.hashCode());
+        assertEquals(Arrays.asList(1, 2, 3), set.stream().boxed().collect(Collectors.toList()));
+    }
+    
+    /** */
+    @Test
+    public void testSerialization() {
+        IntArraySet set = testSerialization(new IntArraySet(1, 2, 3));
+        assertEquals(6, set.hashCode());
+    }
+    
+}
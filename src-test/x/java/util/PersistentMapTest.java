@@ -22,11 +22,15 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.junit.AfterClass;
 import org.junit.Test;
 
 import x.java.BaseTest;
+import x.java.lang.StructView;
 
 /**
  * JUnit test of {@link PersistentMap}.
@@ -86,6 +90,25 @@ public class PersistentMapTest extends BaseTest {
         }
     }
     
+    /**
+     * @throws IOException a
+     */
+    @Test
+    public void testStruct() throws IOException {
+        Map<String, Object> struct = new HashMap<>();
+        struct.put("one", 1);
+        struct.put("two", Collections.singletonMap("21", "-21-"));
+        
+        try (PersistentMap map = new PersistentMap(ROOT_FOLDER, "1")) {
+            map.putStruct("struct", struct);
+            
+            StructView sv = map.getStruct("struct");
+            assertEquals("-21-", sv.get("two", "21"));
+            assertEquals(new StructView(struct), sv);
+            assertNull(map.getStruct("none"));
+        }
+    }
+    
     /**
      * @throws IOException a
      */
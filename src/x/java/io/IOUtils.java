@@ -14,6 +14,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
@@ -22,6 +23,8 @@ import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import x.java.lang.CancelRegistry;
+
 /**
  * I/O utilities.
  * 
@@ -148,16 +151,59 @@ public class IOUtils {
     /**
      * Reads all bytes from the specified input stream until end of stream is reached.
      * 
+     * <p>
+     * If called from a controlled job ({@link x.java.lang.CtrlThread CtrlThread} or
+     * {@link x.java.lang.CtrlTask CtrlTask}) in interrupt-on-cancel mode, the input stream is closed when the
+     * job is cancelled, and this method promptly throws an {@link InterruptedIOException}.
+     * </p>
+     * 
      * @param is input stream to read from
      * 
      * @return the read bytes
      * 
+     * @throws InterruptedIOException if the controlled job executing in the current thread is cancelled
      * @throws IOException if reading from the stream throws {@link IOException}
      * 
      * @see #tryReadFully(InputStream, byte[])
      * @see #readFully(InputStream, byte[])
+     * @see CancelRegistry
      */
     public static byte[] readAllBytes(final InputStream is) throws IOException {
+        final CancelRegistry cancelRegistry = CancelRegistry.current();
+        if (cancelRegistry == null)
+            return readAllBytes(is, null);
+        
+        if (!cancelRegistry.register(is))
+            throw new InterruptedIOException("Reading cancelled!");
+        try {
+            return readAllBytes(is, cancelRegistry);
+        } catch (final InterruptedIOException iie) {
+            throw iie;
+        } catch (final IOException ie) {
+            if (!cancelRegistry.isCancelled())
+                throw ie;
+            // Failure is the result of closing the stream on cancel
+            final InterruptedIOException iie = new InterruptedIOException("Reading cancelled!");
+            iie.initCause(ie);
+            throw iie;
+        } finally {
+            cancelRegistry.unregister(is);
+        }
+    }
+    
+    /**
+     * Reads all bytes from the specified input stream until end of stream is reached.
+     * 
+     * @param is input stream to read from
+     * @param cancelRegistry optional cancel registry to check for cancel between chunks
+     * 
+     * @return the read bytes
+     * 
+     * @throws InterruptedIOException if the controlled job of <code>cancelRegistry</code> is cancelled
+     * @throws IOException if reading from the stream throws {@link IOException}
+     */
+    private static byte[] readAllBytes(final InputStream is, final CancelRegistry cancelRegistry)
+            throws IOException {
         final List<byte[]> chunkList = new ArrayList<>();
         
         final int CHUNK_SIZE = 16 * 1024;
@@ -166,6 +212,9 @@ public class IOUtils {
         int read;
         
         while (true) {
+            if (cancelRegistry != null && cancelRegistry.isCancelled())
+                throw new InterruptedIOException("Reading cancelled!");
+            
             buffer = new byte[CHUNK_SIZE];
             read = tryReadFully(is, buffer);
             
@@ -0,0 +1,117 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A thread-safe, padded <code>int</code> counter, the concurrent sibling of {@link Int}.
+ * 
+ * <p>
+ * The value is padded on both sides to occupy a cache line of its own, so counters updated by different
+ * threads do not suffer from false sharing. The padding is achieved by storing the value in the middle of an
+ * atomic array (field layout of objects is up to the JVM, so padding fields would not be reliable).
+ * </p>
+ * 
+ * <p>
+ * Unlike {@link Int}, this class does not override {@link Object#equals(Object)} and
+ * {@link Object#hashCode()}: the value is subject to concurrent change.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see Int
+ * @see AtomicLongInt
+ * @see StripedLongInt
+ */
+public class AtomicInt implements Serializable {
+    
+    /** */
+    private static final long serialVersionUID = 1L;
+    
+    /** Number of padding <code>int</code>s on each side of the value (64 bytes). */
+    private static final int PAD = 16;
+    
+    
+    /** Cells holding the value at index {@link #PAD}, the rest is padding. */
+    private final AtomicIntegerArray cells = new AtomicIntegerArray(2 * PAD + 1);
+    
+    /**
+     * Creates a new {@link AtomicInt}.
+     */
+    public AtomicInt() {
+    }
+    
+    /**
+     * Creates a new {@link AtomicInt}.
+     * 
+     * @param value initial value
+     */
+    public AtomicInt(final int value) {
+        cells.set(PAD, value);
+    }
+    
+    /**
+     * Returns the current value.
+     * 
+     * @return the current value
+     */
+    public int get() {
+        return cells.get(PAD);
+    }
+    
+    /**
+     * Sets the value.
+     * 
+     * @param value the value to be set
+     */
+    public void set(final int value) {
+        cells.set(PAD, value);
+    }
+    
+    /**
+     * Atomically increments the value by <code>1</code> and returns the new value.
+     * 
+     * @return the new value after the increment
+     */
+    public int incAndGet() {
+        return cells.incrementAndGet(PAD);
+    }
+    
+    /**
+     * Atomically adds the specified amount to the value and returns the new value.
+     * 
+     * @param amount to be added to the value
+     * 
+     * @return the new value after adding the specified amount
+     */
+    public int addAndGet(final int amount) {
+        return cells.addAndGet(PAD, amount);
+    }
+    
+    /**
+     * Atomically sets the value to the specified new value if the current value equals to the expected
+     * value.
+     * 
+     * @param expect the expected value
+     * @param update the new value
+     * @return true if successful; false if the current value was not equal to the expected value
+     */
+    public boolean compareAndSet(final int expect, final int update) {
+        return cells.compareAndSet(PAD, expect, update);
+    }
+    
+    @Override
+    public String toString() {
+        return Integer.toString(get());
+    }
+    
+}
@@ -0,0 +1,111 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe, padded <code>long</code> counter, the concurrent sibling of {@link LongInt}.
+ * 
+ * <p>
+ * The value is padded on both sides to occupy a cache line of its own, see {@link AtomicInt} for details.
+ * Under high contention of increments from many threads, {@link StripedLongInt} scales better.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see LongInt
+ * @see AtomicInt
+ * @see StripedLongInt
+ */
+public class AtomicLongInt implements Serializable {
+    
+    /** */
+    private static final long serialVersionUID = 1L;
+    
+    /** Number of padding <code>long</code>s on each side of the value (64 bytes). */
+    private static final int PAD = 8;
+    
+    
+    /** Cells holding the value at index {@link #PAD}, the rest is padding. */
+    private final AtomicLongArray cells = new AtomicLongArray(2 * PAD + 1);
+    
+    /**
+     * Creates a new {@link AtomicLongInt}.
+     */
+    public AtomicLongInt() {
+    }
+    
+    /**
+     * Creates a new {@link AtomicLongInt}.
+     * 
+     * @param value initial value
+     */
+    public AtomicLongInt(final long value) {
+        cells.set(PAD, value);
+    }
+    
+    /**
+     * Returns the current value.
+     * 
+     * @return the current value
+     */
+    public long get() {
+        return cells.get(PAD);
+    }
+    
+    /**
+     * Sets the value.
+     * 
+     * @param value the value to be set
+     */
+    public void set(final long value) {
+        cells.set(PAD, value);
+    }
+    
+    /**
+     * Atomically increments the value by <code>1</code> and returns the new value.
+     * 
+     * @return the new value after the increment
+     */
+    public long incAndGet() {
+        return cells.incrementAndGet(PAD);
+    }
+    
+    /**
+     * Atomically adds the specified amount to the value and returns the new value.
+     * 
+     * @param amount to be added to the value
+     * 
+     * @return the new value after adding the specified amount
+     */
+    public long addAndGet(final long amount) {
+        return cells.addAndGet(PAD, amount);
+    }
+    
+    /**
+     * Atomically sets the value to the specified new value if the current value equals to the expected
+     * value.
+     * 
+     * @param expect the expected value
+     * @param update the new value
+     * @return true if successful; false if the current value was not equal to the expected value
+     */
+    public boolean compareAndSet(final long expect, final long update) {
+        return cells.compareAndSet(PAD, expect, update);
+    }
+    
+    @Override
+    public String toString() {
+        return Long.toString(get());
+    }
+    
+}
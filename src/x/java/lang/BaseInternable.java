@@ -18,6 +18,11 @@ package x.java.lang;
  * {@link #customHashCode()} are provided for the functionality.
  * </p>
  * 
+ * <p>
+ * Optional per-class statistics of the equality checks can be collected, see
+ * {@link #setStatsEnabled(boolean)} and {@link InternableStats}.
+ * </p>
+ * 
  * @param <T> the dynamic type of object
  * 
  * @author Andras Belicza
@@ -27,6 +32,37 @@ package x.java.lang;
  */
 public abstract class BaseInternable<T extends BaseInternable<T>> implements Internable {
     
+    /** Name of the system property to enable the equality statistics at startup. */
+    public static final String STATS_PROPERTY = "x.java.lang.BaseInternable.stats";
+    
+    /** Tells if equality statistics are collected. */
+    private static volatile boolean statsEnabled = Boolean.getBoolean(STATS_PROPERTY);
+    
+    /**
+     * Enables or disables collecting the per-class equality statistics.
+     * 
+     * <p>
+     * Disabled by default, unless the <code>{@value #STATS_PROPERTY}</code> system property is set to
+     * <code>true</code>.
+     * </p>
+     * 
+     * @param enabled tells if equality statistics are to be collected
+     * 
+     * @see InternableStats
+     */
+    public static void setStatsEnabled(final boolean enabled) {
+        statsEnabled = enabled;
+    }
+    
+    /**
+     * Tells if the per-class equality statistics are collected.
+     * 
+     * @return true if the per-class equality statistics are collected; false otherwise
+     */
+    public static boolean isStatsEnabled() {
+        return statsEnabled;
+    }
+    
     /**
      * Returns an interned/cached version of this {@link BaseInternable}.
      * 
@@ -83,18 +119,27 @@ public abstract class BaseInternable<T extends BaseInternable<T>> implements Int
         if (obj == null || getClass() != obj.getClass())
             return false;
         
+        final InternableStats stats = statsEnabled ? InternableStats.get(getClass()) : null;
+        
         final BaseInternable<?> other = (BaseInternable<?>) obj;
         if (interned && other.interned) {
             // Both interned, and this != obj => not equal
+            if (stats != null)
+                stats.internedCount.increment();
             return false;
         }
         
         // At least one of them is not interned.
         // First do a fast check on hash codes (which is/will be cached).
-        if (hashCode() != other.hashCode())
+        if (hashCode() != other.hashCode()) {
+            if (stats != null)
+                stats.hashMismatchCount.increment();
             return false;
+        }
         
         // At this point we have to perform a "full" equality check:
+        if (stats != null)
+            stats.customEqualsCount.increment();
         @SuppressWarnings("unchecked")
         final T otherKey = (T) other;
         return customEquals(otherKey);
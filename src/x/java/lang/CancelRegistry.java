@@ -0,0 +1,257 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Interrupt-aware cancellation support of a controlled job ({@link CtrlThread} or {@link CtrlTask}).
+ * 
+ * <p>
+ * By default cancellation is cooperative: a cancel request only sets a flag which the job checks
+ * periodically, so a job blocked in an I/O operation does not notice the cancel until the operation returns.
+ * If the interrupt-on-cancel mode of the job is enabled, a cancel also interrupts the thread executing the
+ * job, and closes the {@link Closeable}s (streams, channels, connections) registered in the registry of the
+ * job, which promptly unblocks most blocking operations.
+ * </p>
+ * 
+ * <p>
+ * The blocking utilities of the library (e.g. <code>IOUtils.readAllBytes()</code>, <code>HttpPost</code>)
+ * register their resources in the registry of the job executing in the current thread (see
+ * {@link #current()}), and translate the failures caused by the cancel into clean cancellation.
+ * </p>
+ * 
+ * <p>
+ * The implementation is thread-safe.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see CtrlThread#setInterruptOnCancel(boolean)
+ * @see CtrlTask#setInterruptOnCancel(boolean)
+ */
+public final class CancelRegistry {
+    
+    /** {@link Logger} used for logging. */
+    private static final Logger LOGGER = Logger.getLogger(CancelRegistry.class.getName());
+    
+    /** Registry of the job executing in the current thread. */
+    private static final ThreadLocal<CancelRegistry> CURRENT = new ThreadLocal<>();
+    
+    
+    /**
+     * Returns the registry of the controlled job executing in the current thread if its interrupt-on-cancel
+     * mode is enabled.
+     * 
+     * @return the registry of the controlled job executing in the current thread; or <code>null</code> if
+     *         the current thread is not executing a controlled job or its interrupt-on-cancel mode is
+     *         disabled
+     */
+    public static CancelRegistry current() {
+        final CancelRegistry registry = CURRENT.get();
+        
+        return registry != null && registry.interruptOnCancel ? registry : null;
+    }
+    
+    
+    /** Name of the job, used in log messages. */
+    private final String name;
+    
+    /** Set of the registered closeables. */
+    private final Set<Closeable> closeableSet = ConcurrentHashMap.newKeySet();
+    
+    /** Tells if cancel should interrupt the executing thread and close the registered closeables. */
+    private volatile boolean interruptOnCancel;
+    
+    /** Tells if the job has been cancelled. */
+    private volatile boolean cancelled;
+    
+    /** Thread executing the job, guarded by <code>this</code>. */
+    private Thread runner;
+    
+    /** Tells if the runner has been interrupted by this registry, guarded by <code>this</code>. */
+    private boolean runnerInterrupted;
+    
+    /**
+     * Creates a new {@link CancelRegistry}.
+     * 
+     * @param name name of the job, used in log messages
+     */
+    CancelRegistry(final String name) {
+        this.name = name;
+    }
+    
+    /**
+     * Sets the interrupt-on-cancel mode.
+     * 
+     * @param interruptOnCancel the interrupt-on-cancel mode to be set
+     */
+    void setInterruptOnCancel(final boolean interruptOnCancel) {
+        this.interruptOnCancel = interruptOnCancel;
+        
+        if (interruptOnCancel && cancelled)
+            interruptAndClose();
+    }
+    
+    /**
+     * Tells if the interrupt-on-cancel mode is enabled.
+     * 
+     * @return true if the interrupt-on-cancel mode is enabled; false otherwise
+     */
+    boolean isInterruptOnCancel() {
+        return interruptOnCancel;
+    }
+    
+    /**
+     * Tells if the job has been cancelled.
+     * 
+     * @return true if the job has been cancelled; false otherwise
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    
+    /**
+     * Registers a closeable to be closed when the job is cancelled.
+     * 
+     * <p>
+     * Closeables should be unregistered by {@link #unregister(Closeable)} when the blocking operation using
+     * them returns.
+     * </p>
+     * 
+     * @param closeable closeable to be registered
+     * @return true if the closeable was registered; false if the job has already been cancelled (in which
+     *         case the closeable is closed right away if the interrupt-on-cancel mode is enabled)
+     * 
+     * @throws IllegalArgumentException if <code>closeable</code> is <code>null</code>
+     */
+    public boolean register(final Closeable closeable) {
+        if (closeable == null)
+            throw new IllegalArgumentException("closeable cannot be null!");
+        
+        closeableSet.add(closeable);
+        
+        // Cancel might have happened before adding, in which case it might have missed the closeable
+        if (cancelled) {
+            if (interruptOnCancel && closeableSet.remove(closeable))
+                close(closeable);
+            return false;
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Unregisters a closeable.
+     * 
+     * @param closeable closeable to be unregistered
+     */
+    public void unregister(final Closeable closeable) {
+        closeableSet.remove(closeable);
+    }
+    
+    /**
+     * Called by the thread which starts executing the job.
+     * 
+     * <p>
+     * Jobs may be nested (e.g. a {@link CtrlTask} run inline by a {@link CtrlThread}), so the registry of the
+     * outer job is returned, to be restored by {@link #exit(CancelRegistry)}.
+     * </p>
+     * 
+     * @return the registry of the job executing in the current thread before this one; may be
+     *         <code>null</code>
+     */
+    CancelRegistry enter() {
+        final CancelRegistry outer = CURRENT.get();
+        CURRENT.set(this);
+        
+        synchronized (this) {
+            runner = Thread.currentThread();
+            runnerInterrupted = false;
+        }
+        
+        if (interruptOnCancel && cancelled)
+            interruptAndClose();
+        
+        return outer;
+    }
+    
+    /**
+     * Called by the thread which executed the job when the execution ends.
+     * 
+     * <p>
+     * Clears the interrupted status of the thread if it was set by this registry, so a thread reused by an
+     * executor is not affected by the cancel of a previous job.
+     * </p>
+     * 
+     * @param outer registry of the outer job returned by {@link #enter()} to be restored; may be
+     *            <code>null</code>
+     */
+    void exit(final CancelRegistry outer) {
+        if (outer == null)
+            CURRENT.remove();
+        else
+            CURRENT.set(outer);
+        
+        synchronized (this) {
+            runner = null;
+            if (runnerInterrupted)
+                Thread.interrupted();
+        }
+        
+        closeableSet.clear();
+    }
+    
+    /**
+     * Marks the job cancelled, and if the interrupt-on-cancel mode is enabled, interrupts the executing
+     * thread and closes the registered closeables.
+     */
+    void cancel() {
+        cancelled = true;
+        
+        if (interruptOnCancel)
+            interruptAndClose();
+    }
+    
+    /**
+     * Interrupts the executing thread (once) and closes the registered closeables.
+     */
+    private void interruptAndClose() {
+        synchronized (this) {
+            if (runner != null && !runnerInterrupted) {
+                runnerInterrupted = true;
+                runner.interrupt();
+            }
+        }
+        
+        for (final Closeable closeable : closeableSet)
+            if (closeableSet.remove(closeable))
+                close(closeable);
+    }
+    
+    /**
+     * Closes the specified closeable, failure is only logged.
+     * 
+     * @param closeable closeable to be closed
+     */
+    private void close(final Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (final IOException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Failed to close resource on cancel of: " + name, e);
+        }
+    }
+    
+}
@@ -0,0 +1,124 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+/**
+ * A concurrency limit: at most a given number of permits can be acquired (in use) at the same time, permits
+ * have to be released by {@link #release()}.
+ * 
+ * <p>
+ * The limit can be lowered at runtime below the number of permits in use: no new permits are handed out until
+ * enough permits are released.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see TokenBucket
+ */
+public class ConcurrencyLimit extends Throttle {
+    
+    /** Maximum number of permits in use. */
+    private int limit;
+    
+    /** Number of permits in use. */
+    private int inUse;
+    
+    /**
+     * Creates a new {@link ConcurrencyLimit}.
+     * 
+     * @param limit maximum number of permits in use
+     * 
+     * @throws IllegalArgumentException if <code>limit</code> is less than <code>1</code>
+     */
+    public ConcurrencyLimit(final int limit) {
+        checkLimit(limit);
+        
+        this.limit = limit;
+    }
+    
+    /**
+     * Checks the specified limit.
+     * 
+     * @param limit limit to be checked
+     * 
+     * @throws IllegalArgumentException if <code>limit</code> is less than <code>1</code>
+     */
+    private static void checkLimit(final int limit) {
+        if (limit < 1)
+            throw new IllegalArgumentException("limit must be at least 1: " + limit);
+    }
+    
+    @Override
+    synchronized long tryAcquireNanos() {
+        if (inUse < limit) {
+            inUse++;
+            return 0;
+        }
+        
+        return Long.MAX_VALUE;
+    }
+    
+    /**
+     * Releases a permit acquired earlier.
+     * 
+     * @throws IllegalStateException if no permit is in use
+     */
+    @Override
+    public void release() {
+        synchronized (this) {
+            if (inUse == 0)
+                throw new IllegalStateException("No permit is in use!");
+            inUse--;
+        }
+        
+        wakeWaiters();
+    }
+    
+    /**
+     * Returns the maximum number of permits in use.
+     * 
+     * @return the maximum number of permits in use
+     */
+    public synchronized int getLimit() {
+        return limit;
+    }
+    
+    /**
+     * Sets the maximum number of permits in use.
+     * 
+     * @param limit maximum number of permits in use to be set
+     * 
+     * @throws IllegalArgumentException if <code>limit</code> is less than <code>1</code>
+     */
+    public void setLimit(final int limit) {
+        checkLimit(limit);
+        
+        synchronized (this) {
+            this.limit = limit;
+        }
+        
+        wakeWaiters();
+    }
+    
+    /**
+     * Returns the number of permits in use.
+     * 
+     * @return the number of permits in use
+     */
+    public synchronized int getInUse() {
+        return inUse;
+    }
+    
+    @Override
+    public String toString() {
+        return "ConcurrencyLimit(" + getInUse() + "/" + getLimit() + ")";
+    }
+    
+}
@@ -0,0 +1,454 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Control state machine of a controlled job: pause, unpause and cancel requests, the controlled state,
+ * waiting in paused state and for throttle permits, and the execution timing.
+ * 
+ * <p>
+ * Shared by {@link CtrlThread}, {@link CtrlTask} and {@link CtrlRecursiveTask} which delegate to it. Multiple
+ * threads may wait in paused state at the same time (e.g. the subtasks of a {@link CtrlRecursiveTask}): the
+ * job is {@link CtrlState#PAUSED} while at least one of them is waiting.
+ * </p>
+ * 
+ * <p>
+ * A {@link ReentrantLock} is used instead of an object monitor, so paused jobs executed by virtual threads do
+ * not pin their carrier threads.
+ * </p>
+ * 
+ * @author Andras Belicza
+ */
+final class CtrlController {
+    
+    /** {@link Logger} used for logging. */
+    private static final Logger LOGGER = Logger.getLogger(CtrlController.class.getName());
+    
+    
+    /** Name of the job. */
+    private final String name;
+    
+    /** Progress of the job, its clock is managed by the controller. */
+    private final Progress progress;
+    
+    /** Called while owning the state lock when the requests change, may be <code>null</code>. */
+    private final Runnable requestListener;
+    
+    /** Tells if a request has been made to cancel the execution of the job. */
+    volatile boolean cancelRequested;
+    
+    /** Tells if a request has been made to pause the execution of the job. */
+    volatile boolean pauseRequested;
+    
+    /** Controlled state of the job. */
+    private volatile CtrlState ctrlState = CtrlState.NEW;
+    
+    /** Lock to be owned for changing the controlled state. */
+    private final ReentrantLock stateLock = new ReentrantLock();
+    
+    /** Signalled when the controlled state is updated; paused, blocked and awaiting threads wait on it. */
+    private final Condition stateChanged = stateLock.newCondition();
+    
+    /** Number of threads waiting in paused state, guarded by {@link #stateLock}. */
+    private int waitingCount;
+    
+    /** Execution start time, <code>0</code> if not yet started. */
+    volatile long execStartTime;
+    
+    /** Execution end time, <code>0</code> if not yet ended. */
+    volatile long execEndTime;
+    
+    /** Start time of the current pause, <code>0</code> if not paused; guarded by {@link #stateLock}. */
+    private long pauseStartTime;
+    
+    /** Time spent waiting in paused state (aggregated over the waiting threads) in nanoseconds. */
+    private volatile long pausedTimeNanos;
+    
+    /** Time spent blocked waiting for permits of throttles, in nanoseconds. */
+    private volatile long blockedTimeNanos;
+    
+    /** Wakes up the threads blocked waiting for a permit, registered in throttles. */
+    private final Runnable throttleWaker = this::signalStateChanged;
+    
+    /**
+     * Creates a new {@link CtrlController}.
+     * 
+     * @param name name of the job
+     * @param progress progress of the job, its clock is to be managed by the controller
+     * @param requestListener called while owning the state lock when the requests change (e.g. to update
+     *            fields mirroring them); may be <code>null</code>
+     */
+    CtrlController(final String name, final Progress progress, final Runnable requestListener) {
+        this.name = name;
+        this.progress = progress;
+        this.requestListener = requestListener;
+    }
+    
+    /**
+     * Marks the start of the execution.
+     * 
+     * @return true if the execution was started; false if it has already been started before
+     */
+    boolean start() {
+        stateLock.lock();
+        try {
+            if (ctrlState != CtrlState.NEW)
+                return false;
+            ctrlState = executingState();
+        } finally {
+            stateLock.unlock();
+        }
+        
+        execStartTime = System.currentTimeMillis();
+        progress.start();
+        
+        return true;
+    }
+    
+    /**
+     * Marks the end of the execution, and wakes up the threads waiting for it.
+     */
+    void end() {
+        progress.stop();
+        execEndTime = System.currentTimeMillis();
+        
+        stateLock.lock();
+        try {
+            ctrlState = CtrlState.ENDED;
+            stateChanged.signalAll();
+        } finally {
+            stateLock.unlock();
+        }
+    }
+    
+    /**
+     * Requests canceling of the execution.
+     */
+    void requestCancel() {
+        stateLock.lock();
+        try {
+            cancelRequested = true;
+            
+            updateCtrlState();
+        } finally {
+            stateLock.unlock();
+        }
+    }
+    
+    /**
+     * Requests pausing of the execution.
+     */
+    void requestPause() {
+        stateLock.lock();
+        try {
+            if (pauseRequested)
+                return; // Pause already requested
+            
+            pauseRequested = true;
+            
+            updateCtrlState();
+        } finally {
+            stateLock.unlock();
+        }
+    }
+    
+    /**
+     * Requests unpausing of the execution from a paused state.
+     */
+    void requestUnpause() {
+        stateLock.lock();
+        try {
+            if (!pauseRequested)
+                return; // Pause not requested currently
+            
+            pauseRequested = false;
+            
+            updateCtrlState();
+        } finally {
+            stateLock.unlock();
+        }
+    }
+    
+    /**
+     * Notifies the request listener, updates the controlled state, and wakes up the threads waiting in paused
+     * state so they can re-check the pause and cancel requests. Must be called while owning the lock.
+     */
+    private void updateCtrlState() {
+        if (requestListener != null)
+            requestListener.run();
+        
+        stateChanged.signalAll();
+        
+        if (ctrlState == CtrlState.ENDED || ctrlState == CtrlState.NEW)
+            return;
+        
+        if (cancelRequested) {
+            ctrlState = CtrlState.EXECUTING_CANCEL_REQUESTED;
+            return;
+        }
+        
+        if (pauseRequested) {
+            // Threads still waiting (e.g. not yet woken up by a preceding unpause) keep the job paused
+            ctrlState = waitingCount > 0 ? CtrlState.PAUSED : CtrlState.EXECUTING_PAUSE_REQUESTED;
+            return;
+        }
+        
+        ctrlState = CtrlState.EXECUTING;
+    }
+    
+    /**
+     * Returns the controlled state in which the job is executing (not waiting) according to the requests.
+     * Must be called while owning the lock.
+     * 
+     * @return the controlled state in which the job is executing
+     */
+    private CtrlState executingState() {
+        return cancelRequested ? CtrlState.EXECUTING_CANCEL_REQUESTED
+                : pauseRequested ? CtrlState.EXECUTING_PAUSE_REQUESTED : CtrlState.EXECUTING;
+    }
+    
+    /**
+     * Wakes up the threads waiting on the state lock.
+     */
+    private void signalStateChanged() {
+        stateLock.lock();
+        try {
+            stateChanged.signalAll();
+        } finally {
+            stateLock.unlock();
+        }
+    }
+    
+    /**
+     * Returns the controlled state.
+     * 
+     * @return the controlled state
+     */
+    CtrlState getCtrlState() {
+        return ctrlState;
+    }
+    
+    /**
+     * If execution is paused, blocks the executing thread until the execution is unpaused or cancelled.
+     * 
+     * @return true if the execution was paused and thread was blocked for some period of time; false
+     *         otherwise
+     * 
+     * @see CtrlThread#waitIfPaused()
+     */
+    boolean waitIfPaused() {
+        if (!pauseRequested)
+            return false;
+        
+        final long start = System.nanoTime();
+        
+        stateLock.lock();
+        try {
+            if (waitingCount++ == 0) {
+                ctrlState = CtrlState.PAUSED;
+                pauseStartTime = System.currentTimeMillis();
+                progress.pause();
+            }
+            
+            awaitUnpause();
+            
+            pausedTimeNanos += System.nanoTime() - start;
+            if (--waitingCount == 0) {
+                progress.resume();
+                pauseStartTime = 0;
+                ctrlState = executingState();
+            }
+        } finally {
+            stateLock.unlock();
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Returns true if the job is allowed to continue, waiting if pause is requested.
+     * 
+     * @return true if the job is allowed to continue; false if the job must terminate execution.
+     * 
+     * @see CtrlThread#mayContinue()
+     */
+    boolean mayContinue() {
+        // Cycle to wait out pause but abort if cancelled:
+        while (!cancelRequested && waitIfPaused())
+            ;
+        
+        return !cancelRequested;
+    }
+    
+    /**
+     * If execution is paused, blocks the caller (guest) thread until the execution is unpaused or cancelled,
+     * without affecting the controlled state and timing of the job.
+     * 
+     * @return true if the execution was paused and the caller thread was blocked for some period of time;
+     *         false otherwise
+     * 
+     * @see CtrlThread#guestWaitIfPaused()
+     */
+    boolean guestWaitIfPaused() {
+        if (!pauseRequested)
+            return false;
+        
+        stateLock.lock();
+        try {
+            awaitUnpause();
+        } finally {
+            stateLock.unlock();
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Returns true if the job is allowed to continue, waiting as a guest thread if pause is requested.
+     * 
+     * @return true if the job is allowed to continue; false if the job must terminate execution.
+     * 
+     * @see CtrlThread#guestMayContinue()
+     */
+    boolean guestMayContinue() {
+        // Cycle to wait out pause but abort if cancelled:
+        while (!cancelRequested && guestWaitIfPaused())
+            ;
+        
+        return !cancelRequested;
+    }
+    
+    /**
+     * Blocks the caller thread while pause is requested and cancel is not. Must be called while owning the
+     * lock.
+     * 
+     * <p>
+     * If the caller thread is interrupted, this method returns early (the interrupt is logged and cleared).
+     * </p>
+     */
+    private void awaitUnpause() {
+        try {
+            while (!cancelRequested && pauseRequested)
+                stateChanged.await();
+        } catch (final InterruptedException ie) {
+            // Interrupts due to cancel in interrupt-on-cancel mode are expected
+            if (!cancelRequested)
+                LOGGER.log(Level.WARNING, "Job interrupted: " + name, ie);
+        }
+    }
+    
+    /**
+     * Acquires a permit from the specified throttle, blocking while no permit is available.
+     * 
+     * @param throttle throttle to acquire a permit from
+     * @return true if a permit was acquired; false if the job must terminate execution (no permit was
+     *         acquired)
+     * 
+     * @see CtrlThread#acquire(Throttle)
+     */
+    boolean acquire(final Throttle throttle) {
+        throttle.addWaiter(throttleWaker);
+        try {
+            while (mayContinue()) {
+                stateLock.lock();
+                try {
+                    final long delay = throttle.tryAcquireNanos();
+                    if (delay == 0)
+                        return true;
+                    if (cancelRequested || pauseRequested)
+                        continue; // Let mayContinue() handle it
+                    
+                    ctrlState = CtrlState.BLOCKED;
+                    final long start = System.nanoTime();
+                    try {
+                        stateChanged.awaitNanos(delay);
+                    } catch (final InterruptedException ie) {
+                        // Interrupts due to cancel in interrupt-on-cancel mode are expected
+                        if (!cancelRequested)
+                            LOGGER.log(Level.WARNING, "Job interrupted: " + name, ie);
+                    }
+                    blockedTimeNanos += System.nanoTime() - start;
+                    ctrlState = executingState();
+                } finally {
+                    stateLock.unlock();
+                }
+            }
+            return false;
+        } finally {
+            throttle.removeWaiter(throttleWaker);
+        }
+    }
+    
+    /**
+     * Waits for the job to end (to reach the {@link CtrlState#ENDED} state).
+     * 
+     * @return true if the job ended; false if waiting was interrupted
+     */
+    boolean awaitEnd() {
+        stateLock.lock();
+        try {
+            while (ctrlState != CtrlState.ENDED)
+                stateChanged.await();
+            return true;
+        } catch (final InterruptedException ie) {
+            LOGGER.log(Level.WARNING, "Waiting for job interrupted: " + name, ie);
+            return false;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+    
+    /**
+     * Returns the time spent waiting in paused state.
+     * 
+     * @return the time spent waiting in paused state
+     */
+    long getPausedTimeMs() {
+        return pausedTimeNanos / 1_000_000;
+    }
+    
+    /**
+     * Returns the time spent blocked waiting for permits of throttles.
+     * 
+     * @return the time spent blocked waiting for permits of throttles
+     */
+    long getBlockedTimeMs() {
+        return blockedTimeNanos / 1_000_000;
+    }
+    
+    /**
+     * Returns the execution time in ms, time spent in paused state and blocked waiting for permits excluded.
+     * 
+     * @return the execution time in ms; <code>0</code> if execution has not yet started
+     */
+    long getExecTimeMs() {
+        if (execStartTime == 0)
+            return 0;
+        
+        long end = execEndTime;
+        if (end == 0) {
+            stateLock.lock();
+            try {
+                // Time of the current pause is only added to the paused time when the pause ends
+                end = pauseStartTime == 0 ? System.currentTimeMillis() : pauseStartTime;
+            } finally {
+                stateLock.unlock();
+            }
+        }
+        
+        return end - execStartTime - getPausedTimeMs() - getBlockedTimeMs();
+    }
+    
+}
@@ -0,0 +1,233 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An executor of {@link CtrlTask}s, so controlled jobs do not need a dedicated thread each (unlike
+ * {@link CtrlThread}s).
+ * 
+ * <p>
+ * Tasks are executed by an {@link ExecutorService}: by default a bounded pool of {@link NormalThread}s, but
+ * any executor service can be used. Submitted tasks may be added to a {@link CtrlGroup} to pause or cancel
+ * them together; all tasks of the executor can also be paused or cancelled at once.
+ * </p>
+ * 
+ * <p>
+ * Note that paused tasks block their worker thread, so with a bounded pool paused tasks occupy workers, and
+ * queued tasks only start when running ones finish.
+ * </p>
+ * 
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see CtrlTask
+ * @see CtrlGroup
+ */
+public class CtrlExecutor {
+    
+    /** {@link Logger} used for logging. */
+    private static final Logger LOGGER = Logger.getLogger(CtrlExecutor.class.getName());
+    
+    
+    /** Executor service executing the tasks. */
+    private final ExecutorService executor;
+    
+    /** Submitted, not yet finished tasks. */
+    private final Set<CtrlTask> tasks = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * Creates a new {@link CtrlExecutor} with a bounded pool of {@link NormalThread}s.
+     * 
+     * @param name name of the executor, used as the prefix of the worker thread names
+     * @param threads number of worker threads
+     * 
+     * @throws IllegalArgumentException if <code>threads</code> is not positive
+     */
+    public CtrlExecutor(final String name, final int threads) {
+        if (threads <= 0)
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        
+        final AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads,
+                r -> new NormalThread(r, name + "-" + counter.incrementAndGet()));
+    }
+    
+    /**
+     * Creates a new {@link CtrlExecutor} using the specified executor service.
+     * 
+     * @param executor executor service to execute the tasks; it is shut down when this executor is
+     * 
+     * @throws IllegalArgumentException if <code>executor</code> is <code>null</code>
+     */
+    public CtrlExecutor(final ExecutorService executor) {
+        if (executor == null)
+            throw new IllegalArgumentException("executor cannot be null!");
+        
+        this.executor = executor;
+    }
+    
+    /**
+     * Submits a task for execution.
+     * 
+     * @param <T> type of the task
+     * @param task task to be executed
+     * @return the submitted task
+     * 
+     * @throws IllegalStateException if <code>task</code> has already been submitted or its execution has
+     *             already started
+     * @throws RejectedExecutionException if the executor has been shut down
+     */
+    public <T extends CtrlTask> T submit(final T task) {
+        return submit(task, null);
+    }
+    
+    /**
+     * Submits a task for execution as a member of the specified group.
+     * 
+     * <p>
+     * Pause and cancel requests of the group apply to the task right away.
+     * </p>
+     * 
+     * @param <T> type of the task
+     * @param task task to be executed
+     * @param group group to add the task to; may be <code>null</code>
+     * @return the submitted task
+     * 
+     * @throws IllegalStateException if <code>task</code> has already been submitted or its execution has
+     *             already started
+     * @throws IllegalArgumentException if <code>task</code> is already member of a group
+     * @throws RejectedExecutionException if the executor has been shut down
+     */
+    public <T extends CtrlTask> T submit(final T task, final CtrlGroup group) {
+        if (!task.bindExecutor(this))
+            throw new IllegalStateException("Task has already been submitted or executed: " + task.getName());
+        if (group != null) {
+            try {
+                group.add(task);
+            } catch (final IllegalArgumentException iae) {
+                task.executor = null;
+                throw iae;
+            }
+        }
+        tasks.add(task);
+        
+        try {
+            executor.execute(task);
+        } catch (final RejectedExecutionException ree) {
+            tasks.remove(task);
+            task.executor = null;
+            if (group != null) {
+                group.remove(task);
+                task.group = null;
+            }
+            throw ree;
+        }
+        
+        return task;
+    }
+    
+    /**
+     * Removes a (finished) task.
+     * 
+     * @param task task to be removed
+     */
+    void remove(final CtrlTask task) {
+        tasks.remove(task);
+    }
+    
+    /**
+     * Returns a snapshot of the submitted, not yet finished tasks.
+     * 
+     * @return a snapshot of the submitted, not yet finished tasks
+     */
+    public List<CtrlTask> getTasks() {
+        return new ArrayList<>(tasks);
+    }
+    
+    /**
+     * Requests pausing of all submitted, not yet finished tasks.
+     */
+    public void requestPauseAll() {
+        for (final CtrlTask task : tasks)
+            task.requestPause();
+    }
+    
+    /**
+     * Requests unpausing of all submitted, not yet finished tasks.
+     */
+    public void requestUnpauseAll() {
+        for (final CtrlTask task : tasks)
+            task.requestUnpause();
+    }
+    
+    /**
+     * Requests canceling of all submitted, not yet finished tasks.
+     */
+    public void requestCancelAll() {
+        for (final CtrlTask task : tasks)
+            task.requestCancel();
+    }
+    
+    /**
+     * Initiates an orderly shutdown: submitted tasks are executed, but no new tasks are accepted.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+    
+    /**
+     * Blocks until all tasks have finished after a shutdown, or the timeout occurs, or the current thread is
+     * interrupted, whichever happens first.
+     * 
+     * @param timeout the maximum time to wait
+     * @param unit the time unit of the timeout argument
+     * @return true if the executor terminated; false if the timeout elapsed before termination
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+    
+    /**
+     * Properly closes this executor: cancels all tasks, shuts down the executor and waits for the tasks to
+     * finish.
+     * 
+     * <p>
+     * Queued tasks which have not yet started are also "executed", but being cancelled they end right away.
+     * </p>
+     */
+    public void close() {
+        shutdown();
+        requestCancelAll();
+        
+        try {
+            while (!awaitTermination(1, TimeUnit.MINUTES))
+                LOGGER.warning("Waiting for tasks to finish...");
+        } catch (final InterruptedException ie) {
+            LOGGER.log(Level.WARNING, "Waiting for tasks interrupted!", ie);
+        }
+    }
+    
+}
@@ -0,0 +1,171 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A group of {@link CtrlTask}s which can be paused, unpaused and cancelled together.
+ * 
+ * <p>
+ * Tasks join a group when submitted to a {@link CtrlExecutor} with the group, and leave it when they finish.
+ * Pause and cancel requests of the group also apply to tasks joining the group later, so a paused group
+ * starts its new tasks in paused state, and a cancelled group does not execute new tasks.
+ * </p>
+ * 
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see CtrlExecutor#submit(CtrlTask, CtrlGroup)
+ */
+public class CtrlGroup {
+    
+    /** Name of the group. */
+    private final String name;
+    
+    /** Active (not yet finished) tasks of the group. */
+    private final Set<CtrlTask> tasks = ConcurrentHashMap.newKeySet();
+    
+    /** Tells if a request has been made to cancel the group. */
+    private volatile boolean cancelRequested;
+    
+    /** Tells if a request has been made to pause the group. */
+    private volatile boolean pauseRequested;
+    
+    /**
+     * Creates a new {@link CtrlGroup}.
+     * 
+     * @param name name of the group
+     */
+    public CtrlGroup(final String name) {
+        this.name = name;
+    }
+    
+    /**
+     * Returns the name of the group.
+     * 
+     * @return the name of the group
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Adds a task to the group, and applies the pause and cancel requests of the group to it.
+     * 
+     * @param task task to be added
+     * 
+     * @throws IllegalArgumentException if <code>task</code> is already member of a group
+     */
+    void add(final CtrlTask task) {
+        if (task.group != null)
+            throw new IllegalArgumentException("Task is already member of a group: " + task.getName());
+        
+        task.group = this;
+        tasks.add(task);
+        
+        // Check flags after adding, so concurrent requests either see the task or the task sees the flags
+        if (pauseRequested)
+            task.requestPause();
+        if (cancelRequested)
+            task.requestCancel();
+    }
+    
+    /**
+     * Removes a (finished) task from the group.
+     * 
+     * @param task task to be removed
+     */
+    void remove(final CtrlTask task) {
+        tasks.remove(task);
+    }
+    
+    /**
+     * Requests canceling of all tasks of the group, including tasks added later.
+     */
+    public void requestCancel() {
+        cancelRequested = true;
+        
+        for (final CtrlTask task : tasks)
+            task.requestCancel();
+    }
+    
+    /**
+     * Requests pausing of all tasks of the group, including tasks added later (until unpaused).
+     */
+    public void requestPause() {
+        pauseRequested = true;
+        
+        for (final CtrlTask task : tasks)
+            task.requestPause();
+    }
+    
+    /**
+     * Requests unpausing of all tasks of the group.
+     */
+    public void requestUnpause() {
+        pauseRequested = false;
+        
+        for (final CtrlTask task : tasks)
+            task.requestUnpause();
+    }
+    
+    /**
+     * Tells whether a cancel has been requested for the group.
+     * 
+     * @return true if a cancel has been requested for the group; false otherwise
+     */
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+    
+    /**
+     * Tells whether a pause has been requested for the group.
+     * 
+     * @return true if a pause has been requested for the group; false otherwise
+     */
+    public boolean isPauseRequested() {
+        return pauseRequested;
+    }
+    
+    /**
+     * Returns a snapshot of the active (not yet finished) tasks of the group.
+     * 
+     * @return a snapshot of the active tasks of the group
+     */
+    public List<CtrlTask> getTasks() {
+        return new ArrayList<>(tasks);
+    }
+    
+    /**
+     * Waits for all active tasks of the group to finish.
+     * 
+     * @return true if all tasks finished properly; false otherwise (interrupted)
+     */
+    public boolean waitToFinish() {
+        for (final CtrlTask task : tasks)
+            if (!task.waitToFinish())
+                return false;
+        
+        return true;
+    }
+    
+    @Override
+    public String toString() {
+        return name + " (" + tasks.size() + " active tasks)";
+    }
+    
+}
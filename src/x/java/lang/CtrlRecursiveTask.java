@@ -0,0 +1,372 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A controlled fork-join task: a tree of {@link RecursiveTask}s which can be paused/unpaused or cancelled
+ * as a whole, just like a {@link CtrlThread}.
+ * 
+ * <p>
+ * The task created by {@link #CtrlRecursiveTask(String)} is the root of the job, subtasks are created by
+ * {@link #CtrlRecursiveTask(CtrlRecursiveTask)} passing their parent. Subtasks share the control state of the
+ * root: pause and cancel requests (made on any task of the tree) apply to the whole tree, and the execution
+ * and paused times of the subtasks roll up to the root.
+ * </p>
+ * 
+ * <p>
+ * Subclasses implement {@link #customCompute()}, and call {@link #mayContinue()} at split points (before
+ * forking subtasks) and periodically while doing work at the leaves. Forked subtasks are to be joined by
+ * {@link #joinSubtask(ForkJoinTask)}, so the time waited for them is not counted as execution time. Example
+ * summing a range of numbers:
+ * 
+ * <pre>
+ * <blockquote style='border:1px solid black'>
+ * class SumTask extends CtrlRecursiveTask&lt;Long&gt; {
+ *     final long from, to;
+ * 
+ *     protected Long customCompute() {
+ *         long sum = 0;
+ *         if (to - from &lt;= THRESHOLD) {
+ *             for (long i = from; i &lt; to &amp;&amp; mayContinue(); i++)
+ *                 sum += i;
+ *         } else if (mayContinue()) {
+ *             final long mid = (from + to) &gt;&gt;&gt; 1;
+ *             final SumTask left = new SumTask(this, from, mid);
+ *             left.fork();
+ *             sum = new SumTask(this, mid, to).invoke() + joinSubtask(left);
+ *         }
+ *         return sum;
+ *     }
+ * }
+ * 
+ * ForkJoinPool.commonPool().invoke(new SumTask(&quot;Sum&quot;, 0, 1_000_000_000));
+ * </blockquote>
+ * </pre>
+ * 
+ * </p>
+ * 
+ * <p>
+ * Paused subtasks block the worker threads executing them (they are not managed blockers, so the pool does
+ * not create compensating threads to run more subtasks which would also block).
+ * </p>
+ * 
+ * @param <V> type of the result of the task
+ * 
+ * @author Andras Belicza
+ * 
+ * @see CtrlThread
+ * @see CtrlTask
+ */
+public abstract class CtrlRecursiveTask<V> extends RecursiveTask<V> {
+    
+    /** */
+    private static final long serialVersionUID = 1L;
+    
+    /** Task executing in the current thread, used to exclude nested computes from the outer task. */
+    private static final ThreadLocal<CtrlRecursiveTask<?>> CURRENT = new ThreadLocal<>();
+    
+    
+    /** Root of the task tree, holding the control state; <code>this</code> if this is the root. */
+    private final CtrlRecursiveTask<?> root;
+    
+    /** Name of the job. */
+    private final String name;
+    
+    /** Progress of the job, shared by the tree. */
+    protected final Progress progress;
+    
+    /** Controller of the job, shared by the tree. */
+    private final CtrlController controller;
+    
+    /** Aggregated execution time of the tree in nanoseconds, only used in the root. */
+    private final LongAdder execTimeNanos;
+    
+    /**
+     * Time spent by this task in paused state, in nested computes of other tasks executed by the same thread
+     * and waiting in {@link #joinSubtask(ForkJoinTask)}, to be excluded from the execution time of this task.
+     * Only accessed by the executing thread.
+     */
+    private long excludedNanos;
+    
+    /**
+     * Creates a new root {@link CtrlRecursiveTask}.
+     * 
+     * @param name name of the job
+     */
+    public CtrlRecursiveTask(final String name) {
+        root = this;
+        this.name = name;
+        progress = new Progress();
+        controller = new CtrlController(name, progress, null);
+        execTimeNanos = new LongAdder();
+    }
+    
+    /**
+     * Creates a new subtask {@link CtrlRecursiveTask}, sharing the control state of the root of the specified
+     * parent.
+     * 
+     * @param parent parent task
+     * 
+     * @throws IllegalArgumentException if <code>parent</code> is <code>null</code>
+     */
+    public CtrlRecursiveTask(final CtrlRecursiveTask<?> parent) {
+        if (parent == null)
+            throw new IllegalArgumentException("parent cannot be null!");
+        
+        root = parent.root;
+        name = root.name;
+        progress = root.progress;
+        controller = root.controller;
+        execTimeNanos = null;
+    }
+    
+    /**
+     * Returns the name of the job.
+     * 
+     * @return the name of the job
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Returns the root of the task tree.
+     * 
+     * @return the root of the task tree
+     */
+    public CtrlRecursiveTask<?> getRoot() {
+        return root;
+    }
+    
+    /**
+     * Computes the result by calling {@link #customCompute()}, and rolls up the execution time to the root.
+     */
+    @Override
+    protected final V compute() {
+        final boolean isRoot = root == this;
+        if (isRoot)
+            controller.start();
+        
+        final CtrlRecursiveTask<?> outer = CURRENT.get();
+        CURRENT.set(this);
+        final long start = System.nanoTime();
+        
+        try {
+            return customCompute();
+        } finally {
+            final long elapsed = System.nanoTime() - start;
+            root.execTimeNanos.add(elapsed - excludedNanos);
+            if (outer == null)
+                CURRENT.remove();
+            else {
+                CURRENT.set(outer);
+                outer.excludedNanos += elapsed;
+            }
+            
+            if (isRoot)
+                controller.end();
+        }
+    }
+    
+    /**
+     * Custom compute method to do the work.
+     * 
+     * <p>
+     * Exceptions are propagated to the joining task as with any {@link RecursiveTask}.
+     * </p>
+     * 
+     * @return the result of the computation
+     */
+    protected abstract V customCompute();
+    
+    /**
+     * Requests canceling of the execution of the job (the whole task tree).
+     */
+    public void requestCancel() {
+        controller.requestCancel();
+    }
+    
+    /**
+     * Requests pausing of the execution of the job (the whole task tree).
+     */
+    public void requestPause() {
+        controller.requestPause();
+    }
+    
+    /**
+     * Requests unpausing of the execution of the job (the whole task tree) from a paused state.
+     */
+    public void requestUnpause() {
+        controller.requestUnpause();
+    }
+    
+    /**
+     * Tells whether a cancel has been requested.
+     * 
+     * @return true if a cancel has been requested; false otherwise
+     */
+    public boolean isCancelRequested() {
+        return controller.cancelRequested;
+    }
+    
+    /**
+     * Tells whether a pause has been requested.
+     * 
+     * @return true if a pause has been requested; false otherwise
+     */
+    public boolean isPauseRequested() {
+        return controller.pauseRequested;
+    }
+    
+    /**
+     * Returns the controlled state of the job.
+     * 
+     * <p>
+     * The job is {@link CtrlState#PAUSED} if pause is requested and at least one of its subtasks is waiting
+     * in paused state.
+     * </p>
+     * 
+     * @return the controlled state of the job
+     */
+    public CtrlState getCtrlState() {
+        return controller.getCtrlState();
+    }
+    
+    /**
+     * If execution is paused, this method will block the executing thread until the execution is unpaused or
+     * cancelled.
+     * 
+     * <p>
+     * Time waited inside this method is excluded from the execution time and is included in the paused time
+     * of the job. The clock of the progress is paused while any subtask is waiting.
+     * </p>
+     * 
+     * <p>
+     * WARNING! This method can only be called from the task's executing thread!
+     * </p>
+     * 
+     * @return true if the execution was paused and thread was blocked for some period of time; false
+     *         otherwise
+     * 
+     * @see CtrlThread#waitIfPaused()
+     */
+    public boolean waitIfPaused() {
+        final long start = System.nanoTime();
+        if (!controller.waitIfPaused())
+            return false;
+        
+        excludedNanos += System.nanoTime() - start;
+        return true;
+    }
+    
+    /**
+     * Returns true if the task is allowed to continue.
+     * 
+     * <p>
+     * Besides checking whether cancel is requested this method also waits if pause is requested (but returns
+     * false if cancel is requested while in the paused state). Should be called at split points and
+     * periodically while doing work.
+     * </p>
+     * 
+     * <p>
+     * WARNING! This method can only be called from the task's executing thread!
+     * </p>
+     * 
+     * @return true if the task is allowed to continue; false if the task must terminate execution.
+     * 
+     * @see CtrlThread#mayContinue()
+     */
+    public boolean mayContinue() {
+        // Cycle to wait out pause but abort if cancelled:
+        while (!controller.cancelRequested && waitIfPaused())
+            ;
+        
+        return !controller.cancelRequested;
+    }
+    
+    /**
+     * Joins the specified (forked) subtask, and returns its result.
+     * 
+     * <p>
+     * Unlike calling {@link ForkJoinTask#join()} directly, the time spent joining (waiting for the subtask
+     * executed by another thread, or executing other tasks meanwhile) is excluded from the execution time of
+     * this task.
+     * </p>
+     * 
+     * <p>
+     * WARNING! This method can only be called from the task's executing thread!
+     * </p>
+     * 
+     * @param <T> type of the result of the subtask
+     * @param subtask subtask to be joined
+     * @return the result of the subtask
+     */
+    public <T> T joinSubtask(final ForkJoinTask<T> subtask) {
+        final long excludedBefore = excludedNanos;
+        final long start = System.nanoTime();
+        try {
+            return subtask.join();
+        } finally {
+            // Nested computes executed while joining are part of the joining time, replace their exclusion
+            excludedNanos = excludedBefore + System.nanoTime() - start;
+        }
+    }
+    
+    /**
+     * Returns the progress of the job, shared by the task tree.
+     * 
+     * @return the progress of the job
+     * 
+     * @see ProgressPoller
+     */
+    public Progress getProgress() {
+        return progress;
+    }
+    
+    /**
+     * Returns the aggregated time spent waiting in paused state by the tasks of the job.
+     * 
+     * <p>
+     * Paused time of subtasks waiting in parallel add up, so this may be greater than the wall-clock time the
+     * job was paused for.
+     * </p>
+     * 
+     * @return the aggregated time spent waiting in paused state
+     */
+    public long getPausedTimeMs() {
+        return controller.getPausedTimeMs();
+    }
+    
+    /**
+     * Returns the aggregated execution time of the finished tasks of the job in ms.
+     * 
+     * <p>
+     * Execution times of subtasks running in parallel add up, so this may be greater than the wall-clock time
+     * of the job. Time spent in paused state and joining subtasks by {@link #joinSubtask(ForkJoinTask)} is
+     * excluded; time spent waiting in {@link ForkJoinTask#join()} (or in other waiting methods of
+     * {@link ForkJoinTask} such as <code>invokeAll()</code>) called directly is included.
+     * </p>
+     * 
+     * @return the aggregated execution time of the finished tasks of the job in ms
+     */
+    public long getExecTimeMs() {
+        return root.execTimeNanos.sum() / 1_000_000;
+    }
+    
+    @Override
+    public String toString() {
+        return name + " (" + getCtrlState() + ")";
+    }
+    
+}
@@ -31,6 +31,9 @@ public enum CtrlState {
     /** Paused. */
     PAUSED("Paused"),
     
+    /** Blocked waiting for a permit of a {@link Throttle}. */
+    BLOCKED("Blocked"),
+    
     /** Ended. */
     ENDED("Ended");
     
@@ -0,0 +1,446 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A controlled task with helper methods to pause/unpause or stop it, the counterpart of {@link CtrlThread}
+ * which does not require a dedicated thread: tasks are executed by a {@link CtrlExecutor}.
+ * 
+ * <p>
+ * The control contract is the same as that of {@link CtrlThread}: subclasses implement {@link #customRun()}
+ * and periodically call {@link #mayContinue()} (or check {@link #cancelRequested} and call
+ * {@link #waitIfPaused()}):
+ * 
+ * <pre>
+ * <blockquote style='border:1px solid black'>
+ * public void customRun() {
+ *     while (mayContinue() &amp;&amp; !done())
+ *         doSomeWork();
+ * }
+ * </blockquote>
+ * </pre>
+ * 
+ * </p>
+ * 
+ * <p>
+ * A paused task blocks the thread executing it, so with a bounded worker pool paused tasks occupy workers.
+ * Tasks may be members of a {@link CtrlGroup} to be paused or cancelled together.
+ * </p>
+ * 
+ * <p>
+ * The interrupt-on-cancel mode can be enabled by {@link #setInterruptOnCancel(boolean)}, see
+ * {@link CtrlThread} for details. The interrupted status of the executing thread is cleared when the task
+ * ends, so pooled worker threads are not affected by the cancel of a previous task.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see CtrlExecutor
+ * @see CtrlGroup
+ * @see CtrlThread
+ * @see CtrlRecursiveTask
+ */
+public abstract class CtrlTask implements Runnable {
+    
+    /** {@link Logger} used for logging. */
+    private static final Logger LOGGER = Logger.getLogger(CtrlTask.class.getName());
+    
+    /** Updater of {@link #executor}, so a task can only be submitted once. */
+    private static final AtomicReferenceFieldUpdater<CtrlTask, CtrlExecutor> EXECUTOR_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(CtrlTask.class, CtrlExecutor.class, "executor");
+    
+    
+    /** Name of the task. */
+    private final String name;
+    
+    /**
+     * Tells if a request has been made to cancel the execution of the task.
+     * 
+     * <p>
+     * Mirrors the request made by {@link #requestCancel()}. Writing it directly does not request a cancel:
+     * the written value is ignored by {@link #mayContinue()} and {@link #waitIfPaused()}, and is overwritten
+     * by the next request.
+     * </p>
+     * 
+     * @see CtrlThread#cancelRequested
+     */
+    protected volatile boolean cancelRequested;
+    
+    /**
+     * Tells if a request has been made to pause the execution of the task.
+     * 
+     * <p>
+     * Mirrors the requests made by {@link #requestPause()} and {@link #requestUnpause()}. Writing it directly
+     * does not request a pause or an unpause: the written value is ignored by {@link #mayContinue()} and
+     * {@link #waitIfPaused()}, and is overwritten by the next request.
+     * </p>
+     * 
+     * @see CtrlThread#pauseRequested
+     */
+    protected volatile boolean pauseRequested;
+    
+    /** Controller of the task: the control state machine; the protected fields above mirror its state. */
+    private final CtrlController controller;
+    
+    /** Registry of the resources to be closed on cancel in interrupt-on-cancel mode. */
+    private final CancelRegistry cancelRegistry;
+    
+    /** Group of the task, may be <code>null</code>. */
+    volatile CtrlGroup group;
+    
+    /** Executor the task is submitted to, may be <code>null</code>. */
+    volatile CtrlExecutor executor;
+    
+    /**
+     * Progress of the job; units are to be reported by subclasses, its clock is managed by the task
+     * (paused time is excluded).
+     */
+    protected final Progress progress = new Progress();
+    
+    /**
+     * Creates a new {@link CtrlTask}.
+     * 
+     * @param name name of the task
+     */
+    public CtrlTask(final String name) {
+        this.name = name;
+        
+        controller = new CtrlController(name, progress, this::mirrorRequests);
+        cancelRegistry = new CancelRegistry(name);
+    }
+    
+    /**
+     * Returns the name of the task.
+     * 
+     * @return the name of the task
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Binds the task to the executor it is being submitted to.
+     * 
+     * @param executor executor the task is being submitted to
+     * @return true if the task was bound; false if the task has already been submitted or its execution has
+     *         already started
+     */
+    boolean bindExecutor(final CtrlExecutor executor) {
+        return controller.getCtrlState() == CtrlState.NEW
+                && EXECUTOR_UPDATER.compareAndSet(this, null, executor);
+    }
+    
+    /**
+     * Executes the task: calls {@link #customRun()} unless cancel has been requested before the execution
+     * started.
+     * 
+     * <p>
+     * Normally called by the {@link CtrlExecutor} the task is submitted to.
+     * </p>
+     */
+    @Override
+    public final void run() {
+        if (!controller.start())
+            throw new IllegalStateException("Task has already been executed: " + name);
+        final CancelRegistry outerCancelRegistry = cancelRegistry.enter();
+        
+        try {
+            if (!controller.cancelRequested)
+                customRun();
+        } catch (final Throwable t) {
+            LOGGER.log(Level.SEVERE, "Uncaught exception, prematurely ended task: " + name, t);
+        }
+        
+        cancelRegistry.exit(outerCancelRegistry);
+        
+        // Leave group and executor before ending, so they don't list the task after waitToFinish() returns
+        final CtrlGroup group = this.group;
+        if (group != null)
+            group.remove(this);
+        final CtrlExecutor executor = this.executor;
+        if (executor != null)
+            executor.remove(this);
+        
+        controller.end();
+    }
+    
+    /**
+     * Custom run method to do the work.
+     */
+    public abstract void customRun();
+    
+    /**
+     * Requests canceling of the execution of the task.
+     * 
+     * <p>
+     * If the interrupt-on-cancel mode is enabled, also interrupts the executing thread and closes the
+     * registered closeables.
+     * </p>
+     * 
+     * @see #setInterruptOnCancel(boolean)
+     */
+    public void requestCancel() {
+        controller.requestCancel();
+        
+        cancelRegistry.cancel();
+    }
+    
+    /**
+     * Sets the interrupt-on-cancel mode.
+     * 
+     * @param interruptOnCancel the interrupt-on-cancel mode to be set
+     * 
+     * @see CtrlThread#setInterruptOnCancel(boolean)
+     */
+    public void setInterruptOnCancel(final boolean interruptOnCancel) {
+        cancelRegistry.setInterruptOnCancel(interruptOnCancel);
+    }
+    
+    /**
+     * Tells if the interrupt-on-cancel mode is enabled.
+     * 
+     * @return true if the interrupt-on-cancel mode is enabled; false otherwise
+     */
+    public boolean isInterruptOnCancel() {
+        return cancelRegistry.isInterruptOnCancel();
+    }
+    
+    /**
+     * Registers a closeable (e.g. a stream or a channel the task blocks on) to be closed on cancel in
+     * interrupt-on-cancel mode.
+     * 
+     * @param closeable closeable to be registered
+     * @return true if the closeable was registered; false if cancel has already been requested
+     * 
+     * @throws IllegalArgumentException if <code>closeable</code> is <code>null</code>
+     * 
+     * @see #unregisterCloseable(Closeable)
+     */
+    public boolean registerCloseable(final Closeable closeable) {
+        return cancelRegistry.register(closeable);
+    }
+    
+    /**
+     * Unregisters a closeable registered by {@link #registerCloseable(Closeable)}.
+     * 
+     * @param closeable closeable to be unregistered
+     */
+    public void unregisterCloseable(final Closeable closeable) {
+        cancelRegistry.unregister(closeable);
+    }
+    
+    /**
+     * Requests pausing of the execution of the task.
+     */
+    public void requestPause() {
+        controller.requestPause();
+    }
+    
+    /**
+     * Requests unpausing of the execution of the task from a paused state.
+     */
+    public void requestUnpause() {
+        controller.requestUnpause();
+    }
+    
+    /**
+     * Updates the protected request fields to mirror the requests of the controller. Called by the controller
+     * while owning its state lock, so the fields are updated in the order of the requests.
+     */
+    private void mirrorRequests() {
+        cancelRequested = controller.cancelRequested;
+        pauseRequested = controller.pauseRequested;
+    }
+    
+    /**
+     * Tells whether a cancel has been requested.
+     * 
+     * @return true if a cancel has been requested; false otherwise
+     */
+    public boolean isCancelRequested() {
+        return controller.cancelRequested;
+    }
+    
+    /**
+     * Tells whether a pause has been requested.
+     * 
+     * @return true if a pause has been requested; false otherwise
+     */
+    public boolean isPauseRequested() {
+        return controller.pauseRequested;
+    }
+    
+    /**
+     * Returns the controlled state of the task.
+     * 
+     * <p>
+     * The state of a task waiting to be executed is {@link CtrlState#NEW}.
+     * </p>
+     * 
+     * @return the controlled state of the task
+     */
+    public CtrlState getCtrlState() {
+        return controller.getCtrlState();
+    }
+    
+    /**
+     * If execution is paused, this method will block the executing thread until the execution is unpaused or
+     * cancelled.
+     * 
+     * <p>
+     * Time waited inside this method is excluded from execution time and is included in the paused time (
+     * {@link #getPausedTimeMs()}).
+     * </p>
+     * 
+     * <p>
+     * WARNING! This method can only be called from the task's executing thread!
+     * </p>
+     * 
+     * @return true if the execution was paused and thread was blocked for some period of time; false
+     *         otherwise
+     * 
+     * @see CtrlThread#waitIfPaused()
+     */
+    public boolean waitIfPaused() {
+        return controller.waitIfPaused();
+    }
+    
+    /**
+     * Returns true if the task is allowed to continue.
+     * 
+     * <p>
+     * Besides checking and returning the inversion of {@link #cancelRequested} property this method also
+     * waits if pause is requested (but returns false if cancel is requested while in the paused state).
+     * </p>
+     * 
+     * <p>
+     * WARNING! This method can only be called from the task's executing thread!
+     * </p>
+     * 
+     * @return true if the task is allowed to continue; false if the task must terminate execution.
+     * 
+     * @see CtrlThread#mayContinue()
+     */
+    public boolean mayContinue() {
+        return controller.mayContinue();
+    }
+    
+    /**
+     * Acquires a permit from the specified throttle, blocking while no permit is available.
+     * 
+     * <p>
+     * Time waited for a permit is excluded from execution time and is included in the blocked time (
+     * {@link #getBlockedTimeMs()}).
+     * </p>
+     * 
+     * <p>
+     * WARNING! This method can only be called from the task's executing thread!
+     * </p>
+     * 
+     * @param throttle throttle to acquire a permit from
+     * @return true if a permit was acquired; false if the task must terminate execution (no permit was
+     *         acquired)
+     * 
+     * @see CtrlThread#acquire(Throttle)
+     */
+    public boolean acquire(final Throttle throttle) {
+        return controller.acquire(throttle);
+    }
+    
+    /**
+     * Returns the progress of the job.
+     * 
+     * <p>
+     * Units done (and the total if known) are reported by the job, the clock of the progress is managed by
+     * this task: it is started and stopped with the execution, and paused while waiting in paused state.
+     * </p>
+     * 
+     * @return the progress of the job
+     * 
+     * @see ProgressPoller
+     */
+    public Progress getProgress() {
+        return progress;
+    }
+    
+    /**
+     * Returns the time spent waiting in paused state.
+     * 
+     * @return the time spent waiting in paused state
+     */
+    public long getPausedTimeMs() {
+        return controller.getPausedTimeMs();
+    }
+    
+    /**
+     * Returns the execution time in ms.
+     * 
+     * <p>
+     * Time spent in paused state and blocked waiting for permits is excluded.
+     * </p>
+     * 
+     * @return the execution time in ms; <code>0</code> if execution has not yet started
+     */
+    public long getExecTimeMs() {
+        return controller.getExecTimeMs();
+    }
+    
+    /**
+     * Returns the time spent blocked waiting for permits of throttles.
+     * 
+     * @return the time spent blocked waiting for permits of throttles
+     * 
+     * @see #acquire(Throttle)
+     */
+    public long getBlockedTimeMs() {
+        return controller.getBlockedTimeMs();
+    }
+    
+    /**
+     * Waits for this task to finish (to reach the {@link CtrlState#ENDED} state).
+     * 
+     * <p>
+     * Returns right away if the task has not been submitted to a {@link CtrlExecutor} and its execution has
+     * not yet started, as then nothing guarantees the task will ever be executed.
+     * </p>
+     * 
+     * @return true if the task finished properly; false otherwise (not submitted or interrupted)
+     */
+    public boolean waitToFinish() {
+        if (executor == null && controller.getCtrlState() == CtrlState.NEW)
+            return false;
+        
+        return controller.awaitEnd();
+    }
+    
+    /**
+     * Properly closes this task and waits for it to finish.
+     * 
+     * <p>
+     * First calls {@link #requestCancel()} and then waits for this task to finish by calling
+     * {@link #waitToFinish()}.
+     * </p>
+     */
+    public void close() {
+        requestCancel();
+        waitToFinish();
+    }
+    
+    @Override
+    public String toString() {
+        return name + " (" + controller.getCtrlState() + ")";
+    }
+    
+}
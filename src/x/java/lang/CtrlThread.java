@@ -9,6 +9,7 @@
  */
 package x.java.lang;
 
+import java.io.Closeable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -70,7 +71,18 @@ import java.util.logging.Logger;
  * 
  * </p>
  * 
+ * <p>
+ * Cancellation is cooperative by default. If the thread may block in I/O operations, the interrupt-on-cancel
+ * mode can be enabled by {@link #setInterruptOnCancel(boolean)}: cancel then also interrupts the thread and
+ * closes the {@link Closeable}s registered by {@link #registerCloseable(Closeable)} (and those registered by
+ * the blocking utilities of the library, see {@link CancelRegistry}).
+ * </p>
+ * 
  * @author Andras Belicza
+ * 
+ * @see CtrlTask
+ * @see CtrlRecursiveTask
+ * @see VirtualThreads
  */
 public abstract class CtrlThread extends NormalThread {
     
@@ -85,6 +97,12 @@ public abstract class CtrlThread extends NormalThread {
      * The subclasses are responsible to periodically check this variable in their {@link #customRun()} method
      * whether they are allowed to continue their work or they have to return in order to end the thread.
      * </p>
+     * 
+     * <p>
+     * Mirrors the request made by {@link #requestCancel()}. Writing it directly does not request a cancel:
+     * the written value is ignored by {@link #mayContinue()} and {@link #waitIfPaused()}, and is overwritten
+     * by the next request.
+     * </p>
      */
     protected volatile boolean cancelRequested;
     
@@ -96,15 +114,15 @@ public abstract class CtrlThread extends NormalThread {
      * whether they are allowed to continue their work or they have to wait for either an unpause or cancel
      * request.
      * </p>
+     * 
+     * <p>
+     * Mirrors the requests made by {@link #requestPause()} and {@link #requestUnpause()}. Writing it directly
+     * does not request a pause or an unpause: the written value is ignored by {@link #mayContinue()} and
+     * {@link #waitIfPaused()}, and is overwritten by the next request.
+     * </p>
      */
     protected volatile boolean pauseRequested;
     
-    /** Controlled state of the thread. */
-    private volatile CtrlState ctrlState;
-    
-    /** Lock object to be owned for changing the controlled state. */
-    private final Object STATE_LOCK = new Object();
-    
     /** Execution start time. */
     protected long execStartTime;
     
@@ -114,6 +132,18 @@ public abstract class CtrlThread extends NormalThread {
     /** Time spent waiting in paused state. */
     protected long pausedTimeMs;
     
+    /**
+     * Progress of the job; units are to be reported by subclasses, its clock is managed by the thread
+     * (paused time is excluded).
+     */
+    protected final Progress progress = new Progress();
+    
+    /** Controller of the thread: the control state machine; the protected fields above mirror its state. */
+    private final CtrlController controller;
+    
+    /** Registry of the resources to be closed on cancel in interrupt-on-cancel mode. */
+    private final CancelRegistry cancelRegistry;
+    
     /**
      * Creates a new {@link CtrlThread}.
      * 
@@ -122,15 +152,15 @@ public abstract class CtrlThread extends NormalThread {
     public CtrlThread(final String name) {
         super(name);
         
-        ctrlState = CtrlState.NEW;
+        controller = new CtrlController(name, progress, this::mirrorRequests);
+        cancelRegistry = new CancelRegistry(name);
     }
     
     @Override
     public final void run() {
-        synchronized (STATE_LOCK) {
-            ctrlState = CtrlState.EXECUTING;
-        }
-        execStartTime = System.currentTimeMillis();
+        controller.start();
+        execStartTime = controller.execStartTime;
+        final CancelRegistry outerCancelRegistry = cancelRegistry.enter();
         
         try {
             customRun();
@@ -138,10 +168,11 @@ public abstract class CtrlThread extends NormalThread {
             LOGGER.log(Level.SEVERE, "Uncaught exception, prematurely ended thread: " + getName(), t);
         }
         
-        execEndTime = System.currentTimeMillis();
-        synchronized (STATE_LOCK) {
-            ctrlState = CtrlState.ENDED;
-        }
+        cancelRegistry.exit(outerCancelRegistry);
+        controller.end();
+        execEndTime = controller.execEndTime;
+        
+        ThreadRegistry.deregister(this);
     }
     
     /**
@@ -151,60 +182,92 @@ public abstract class CtrlThread extends NormalThread {
     
     /**
      * Requests canceling of the execution of the thread.
+     * 
+     * <p>
+     * If the interrupt-on-cancel mode is enabled, also interrupts the thread and closes the registered
+     * closeables.
+     * </p>
+     * 
+     * @see #setInterruptOnCancel(boolean)
      */
     public void requestCancel() {
-        // Volatile variables are synchronized internally, so no need external synchronization here.
-        cancelRequested = true;
+        controller.requestCancel();
         
-        updateCtrlState();
+        cancelRegistry.cancel();
+    }
+    
+    /**
+     * Sets the interrupt-on-cancel mode.
+     * 
+     * <p>
+     * If enabled, {@link #requestCancel()} also interrupts the thread and closes the registered closeables,
+     * so the thread does not have to wait for blocking operations to return in order to notice the cancel.
+     * Disabled by default.
+     * </p>
+     * 
+     * @param interruptOnCancel the interrupt-on-cancel mode to be set
+     * 
+     * @see #registerCloseable(Closeable)
+     * @see CancelRegistry
+     */
+    public void setInterruptOnCancel(final boolean interruptOnCancel) {
+        cancelRegistry.setInterruptOnCancel(interruptOnCancel);
+    }
+    
+    /**
+     * Tells if the interrupt-on-cancel mode is enabled.
+     * 
+     * @return true if the interrupt-on-cancel mode is enabled; false otherwise
+     */
+    public boolean isInterruptOnCancel() {
+        return cancelRegistry.isInterruptOnCancel();
+    }
+    
+    /**
+     * Registers a closeable (e.g. a stream or a channel the thread blocks on) to be closed on cancel in
+     * interrupt-on-cancel mode.
+     * 
+     * @param closeable closeable to be registered
+     * @return true if the closeable was registered; false if cancel has already been requested
+     * 
+     * @throws IllegalArgumentException if <code>closeable</code> is <code>null</code>
+     * 
+     * @see #unregisterCloseable(Closeable)
+     */
+    public boolean registerCloseable(final Closeable closeable) {
+        return cancelRegistry.register(closeable);
+    }
+    
+    /**
+     * Unregisters a closeable registered by {@link #registerCloseable(Closeable)}.
+     * 
+     * @param closeable closeable to be unregistered
+     */
+    public void unregisterCloseable(final Closeable closeable) {
+        cancelRegistry.unregister(closeable);
     }
     
     /**
      * Requests pausing of the execution of the thread.
      */
     public void requestPause() {
-        if (pauseRequested)
-            return; // Pause already requested
-            
-        // Volatile variables are synchronized internally, so no need external synchronization here.
-        pauseRequested = true;
-        
-        updateCtrlState();
+        controller.requestPause();
     }
     
     /**
      * Requests unpausing of the execution of the thread from a paused state.
      */
     public void requestUnpause() {
-        if (!pauseRequested)
-            return; // Pause not requested currently
-            
-        // Volatile variables are synchronized internally, so no need external synchronization here.
-        pauseRequested = false;
-        
-        updateCtrlState();
+        controller.requestUnpause();
     }
     
     /**
-     * Updates the controlled state.
+     * Updates the protected request fields to mirror the requests of the controller. Called by the controller
+     * while owning its state lock, so the fields are updated in the order of the requests.
      */
-    private void updateCtrlState() {
-        synchronized (STATE_LOCK) {
-            if (ctrlState == CtrlState.ENDED)
-                return;
-            
-            if (cancelRequested) {
-                ctrlState = CtrlState.EXECUTING_CANCEL_REQUESTED;
-                return;
-            }
-            
-            if (ctrlState != CtrlState.PAUSED && pauseRequested) {
-                ctrlState = CtrlState.EXECUTING_PAUSE_REQUESTED;
-                return;
-            }
-            
-            ctrlState = CtrlState.EXECUTING;
-        }
+    private void mirrorRequests() {
+        cancelRequested = controller.cancelRequested;
+        pauseRequested = controller.pauseRequested;
     }
     
     /**
@@ -218,7 +281,7 @@ public abstract class CtrlThread extends NormalThread {
      * @return true if a cancel has been requested; false otherwise
      */
     public boolean isCancelRequested() {
-        return cancelRequested;
+        return controller.cancelRequested;
     }
     
     /**
@@ -232,7 +295,7 @@ public abstract class CtrlThread extends NormalThread {
      * @return true if a pause has been requested; false otherwise
      */
     public boolean isPauseRequested() {
-        return cancelRequested;
+        return controller.pauseRequested;
     }
     
     /**
@@ -241,7 +304,7 @@ public abstract class CtrlThread extends NormalThread {
      * @return the controlled state of the thread
      */
     public CtrlState getCtrlState() {
-        return ctrlState;
+        return controller.getCtrlState();
     }
     
     /**
@@ -268,30 +331,10 @@ public abstract class CtrlThread extends NormalThread {
      * @see #guestMayContinue()
      */
     public boolean waitIfPaused() {
-        if (!pauseRequested)
+        if (!controller.waitIfPaused())
             return false;
         
-        synchronized (STATE_LOCK) {
-            ctrlState = CtrlState.PAUSED;
-        }
-        
-        // Store waiting start time which will cause the execution time calculated properly,
-        // because the time we wait here is only added at the end to the paused time,
-        // but due to this it will properly be excluded from the execution time.
-        execEndTime = System.currentTimeMillis();
-        
-        while (!cancelRequested && pauseRequested && checkedSleep(10) == null)
-            ;
-        
-        pausedTimeMs += System.currentTimeMillis() - execEndTime;
-        
-        // Restore that execution has not yet been ended
-        execEndTime = 0;
-        
-        synchronized (STATE_LOCK) {
-            ctrlState = cancelRequested ? CtrlState.EXECUTING_CANCEL_REQUESTED : CtrlState.EXECUTING;
-        }
-        
+        pausedTimeMs = controller.getPausedTimeMs();
         return true;
     }
     
@@ -314,10 +357,10 @@ public abstract class CtrlThread extends NormalThread {
      */
     public boolean mayContinue() {
         // Cycle to wait out pause but abort if cancelled:
-        while (!cancelRequested && waitIfPaused())
+        while (!controller.cancelRequested && waitIfPaused())
             ;
         
-        return !cancelRequested;
+        return !controller.cancelRequested;
     }
     
     /**
@@ -344,13 +387,7 @@ public abstract class CtrlThread extends NormalThread {
      * @see #guestMayContinue()
      */
     public boolean guestWaitIfPaused() {
-        if (!pauseRequested)
-            return false;
-        
-        while (!cancelRequested && pauseRequested && checkedSleep(10) == null)
-            ;
-        
-        return true;
+        return controller.guestWaitIfPaused();
     }
     
     /**
@@ -375,11 +412,49 @@ public abstract class CtrlThread extends NormalThread {
      * @see #guestWaitIfPaused()
      */
     public boolean guestMayContinue() {
-        // Cycle to wait out pause but abort if cancelled:
-        while (!cancelRequested && guestWaitIfPaused())
-            ;
+        return controller.guestMayContinue();
+    }
+    
+    /**
+     * Acquires a permit from the specified throttle, blocking while no permit is available.
+     * 
+     * <p>
+     * Pause and cancel requests are respected while blocked (just like in {@link #mayContinue()}), and the
+     * controlled state is {@link CtrlState#BLOCKED} while waiting for a permit. Time waited for a permit is
+     * excluded from execution time and is included in the blocked time ({@link #getBlockedTimeMs()}).
+     * </p>
+     * 
+     * <p>
+     * WARNING! This method can only be called from the job's executing thread!
+     * </p>
+     * 
+     * @param throttle throttle to acquire a permit from
+     * @return true if a permit was acquired; false if the thread must terminate execution (no permit was
+     *         acquired)
+     * 
+     * @see Throttle
+     */
+    public boolean acquire(final Throttle throttle) {
+        final boolean acquired = controller.acquire(throttle);
         
-        return !cancelRequested;
+        pausedTimeMs = controller.getPausedTimeMs();
+        return acquired;
+    }
+    
+    /**
+     * Returns the progress of the job.
+     * 
+     * <p>
+     * Units done (and the total if known) are reported by the job, the clock of the progress is managed by
+     * this thread: it is started and stopped with the execution, and paused while waiting in paused state.
+     * </p>
+     * 
+     * @return the progress of the job
+     * 
+     * @see ProgressPoller
+     */
+    public Progress getProgress() {
+        return progress;
     }
     
     /**
@@ -388,17 +463,31 @@ public abstract class CtrlThread extends NormalThread {
      * @return the time spent waiting in paused state
      */
     public long getPausedTimeMs() {
-        return pausedTimeMs;
+        return controller.getPausedTimeMs();
+    }
+    
+    /**
+     * Returns the time spent blocked waiting for permits of throttles.
+     * 
+     * @return the time spent blocked waiting for permits of throttles
+     * 
+     * @see #acquire(Throttle)
+     */
+    public long getBlockedTimeMs() {
+        return controller.getBlockedTimeMs();
     }
     
     /**
      * Returns the execution time in ms.
      * 
-     * @return the execution time in ms
+     * <p>
+     * Time spent in paused state and blocked waiting for permits is excluded.
+     * </p>
+     * 
+     * @return the execution time in ms; <code>0</code> if execution has not yet started
      */
     public long getExecTimeMs() {
-        final long end = execEndTime == 0 ? System.currentTimeMillis() : execEndTime;
-        return end - execStartTime - pausedTimeMs;
+        return controller.getExecTimeMs();
     }
     
     /**
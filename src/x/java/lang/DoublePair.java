@@ -0,0 +1,98 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.io.Serializable;
+
+/**
+ * A pair of <code>double</code> values.
+ * 
+ * <p>
+ * A primitive specialization of {@link Pair}: no boxing is involved, and the class is final and immutable
+ * with allocation-free {@link #equals(Object)} and {@link #hashCode()}, so short-lived instances can be
+ * scalar-replaced by the JIT (escape analysis).
+ * </p>
+ * 
+ * <p>
+ * Values are compared like {@link Double#equals(Object)} does: <code>NaN</code>s are equal to each other,
+ * <code>0.0</code> and <code>-0.0</code> are not.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see Pair
+ */
+public final class DoublePair implements Serializable {
+    
+    /** */
+    private static final long serialVersionUID = 1L;
+    
+    /** The first value. */
+    public final double value1;
+    
+    /** The second value. */
+    public final double value2;
+    
+    /**
+     * Creates a new {@link DoublePair}.
+     * 
+     * @param value1 the first value
+     * @param value2 the second value
+     */
+    public DoublePair(final double value1, final double value2) {
+        this.value1 = value1;
+        this.value2 = value2;
+    }
+    
+    /**
+     * Returns the first value.
+     * 
+     * @return the first value
+     */
+    public double getValue1() {
+        return value1;
+    }
+    
+    /**
+     * Returns the second value.
+     * 
+     * @return the second value
+     */
+    public double getValue2() {
+        return value2;
+    }
+    
+    /**
+     * Returns <code>true</code> if both values of the pairs are equal.
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof DoublePair))
+            return false;
+        
+        final DoublePair pair2 = (DoublePair) o;
+        
+        return Double.doubleToLongBits(value1) == Double.doubleToLongBits(pair2.value1)
+                && Double.doubleToLongBits(value2) == Double.doubleToLongBits(pair2.value2);
+    }
+    
+    @Override
+    public int hashCode() {
+        return 31 * Double.hashCode(value1) + Double.hashCode(value2);
+    }
+    
+    @Override
+    public String toString() {
+        return "(" + value1 + ", " + value2 + ")";
+    }
+    
+}
@@ -0,0 +1,122 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.io.Serializable;
+
+/**
+ * A simple modifiable wrapper of a <code>double</code> value, a primitive specialization of {@link Ref}.
+ * 
+ * <p>
+ * For modifiable <code>int</code> and <code>long</code> wrappers see {@link Int} and {@link LongInt}.
+ * </p>
+ * 
+ * <p>
+ * Values are compared like {@link Double#equals(Object)} does: <code>NaN</code>s are equal to each other,
+ * <code>0.0</code> and <code>-0.0</code> are not.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see Ref
+ */
+public final class DoubleRef implements Comparable<DoubleRef>, Cloneable, Serializable {
+    
+    /** */
+    private static final long serialVersionUID = 1L;
+    
+    /** The wrapped value. */
+    public double value;
+    
+    /**
+     * Creates a new {@link DoubleRef}. Default no-arg constructor.
+     */
+    public DoubleRef() {
+    }
+    
+    /**
+     * Creates a new {@link DoubleRef} with the specified initial value.
+     * 
+     * @param value initial value
+     */
+    public DoubleRef(final double value) {
+        this.value = value;
+    }
+    
+    /**
+     * Returns the wrapped value.
+     * 
+     * @return the wrapped value
+     */
+    public double getValue() {
+        return value;
+    }
+    
+    /**
+     * Sets the wrapped value.
+     * 
+     * @param value the wrapped value to be set
+     */
+    public void setValue(final double value) {
+        this.value = value;
+    }
+    
+    /**
+     * Adds the specified amount to the value and returns the new value.
+     * 
+     * @param amount to be added to the value
+     * @return the new value after adding the specified amount
+     */
+    public double addAndGet(final double amount) {
+        return value += amount;
+    }
+    
+    @Override
+    public int compareTo(final DoubleRef r) {
+        return Double.compare(value, r.value);
+    }
+    
+    /**
+     * Returns <code>true</code> if both wrappers have the same value.
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof DoubleRef))
+            return false;
+        
+        return Double.doubleToLongBits(value) == Double.doubleToLongBits(((DoubleRef) o).value);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Double.hashCode(value);
+    }
+    
+    /**
+     * Returns a clone with the same value.
+     */
+    @Override
+    public DoubleRef clone() {
+        try {
+            return (DoubleRef) super.clone();
+        } catch (CloneNotSupportedException e) {
+            // Never to happen as we implement Cloneable
+            throw new InternalError(e);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return Double.toString(value);
+    }
+    
+}
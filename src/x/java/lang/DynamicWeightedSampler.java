@@ -0,0 +1,213 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A weighted random sampler whose weights can be changed, using a cumulative weight array and binary search.
+ * 
+ * <p>
+ * Sampling is O(log N). Changing weights is O(1), the cumulative array is rebuilt lazily at the next sample,
+ * starting from the lowest changed index; so it is cheaper to change multiple weights in a batch and it is
+ * cheaper to change weights at the end.
+ * </p>
+ * 
+ * <p>
+ * Sampling with a fixed total weight of <code>0</code> is not possible, sampling methods throw
+ * {@link IllegalStateException} in this case.
+ * </p>
+ * 
+ * <p>
+ * This implementation is not thread-safe. Sampling from multiple threads is safe only if weights are not
+ * changed, and {@link #getTotalWeight()} is called (or a sample is taken) after the last change.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see WeightedSampler
+ */
+public class DynamicWeightedSampler extends WeightedSampler {
+    
+    /** Weights of the outcomes. */
+    private final double[] weights;
+    
+    /** Cumulative weights, element <code>i</code> is the sum of the weights <code>0..i</code>. */
+    private final double[] cumulative;
+    
+    /** Lowest index of the cumulative array which is not up-to-date. */
+    private int dirtyFrom;
+    
+    /**
+     * Creates a new {@link DynamicWeightedSampler} with all weights being <code>0</code>.
+     * 
+     * @param size number of outcomes
+     * 
+     * @throws IllegalArgumentException if <code>size</code> is not positive
+     */
+    public DynamicWeightedSampler(final int size) {
+        if (size <= 0)
+            throw new IllegalArgumentException("size must be positive: " + size);
+        
+        weights = new double[size];
+        cumulative = new double[size];
+    }
+    
+    /**
+     * Creates a new {@link DynamicWeightedSampler}.
+     * 
+     * @param weights initial weights of the outcomes; the array is not referenced by the sampler
+     * 
+     * @throws IllegalArgumentException if <code>weights</code> is empty, or if it contains negative or
+     *             non-finite values
+     */
+    public DynamicWeightedSampler(final double... weights) {
+        this(weights.length);
+        
+        for (final double weight : weights)
+            checkWeight(weight);
+        System.arraycopy(weights, 0, this.weights, 0, weights.length);
+    }
+    
+    /**
+     * Returns the weight of the specified outcome.
+     * 
+     * @param index index of the outcome
+     * @return the weight of the specified outcome
+     */
+    public double getWeight(final int index) {
+        return weights[index];
+    }
+    
+    /**
+     * Sets the weight of the specified outcome.
+     * 
+     * @param index index of the outcome
+     * @param weight the weight to be set
+     * 
+     * @throws IllegalArgumentException if <code>weight</code> is negative or not finite
+     */
+    public void setWeight(final int index, final double weight) {
+        checkWeight(weight);
+        
+        weights[index] = weight;
+        if (index < dirtyFrom)
+            dirtyFrom = index;
+    }
+    
+    /**
+     * Returns the sum of the weights.
+     * 
+     * @return the sum of the weights
+     */
+    public double getTotalWeight() {
+        prepare();
+        
+        return cumulative[cumulative.length - 1];
+    }
+    
+    /**
+     * Brings the cumulative array up-to-date.
+     */
+    @Override
+    void prepare() {
+        final int n = weights.length;
+        if (dirtyFrom == n)
+            return;
+        
+        // Local references for performance
+        final double[] weights = this.weights;
+        final double[] cumulative = this.cumulative;
+        
+        double sum = dirtyFrom == 0 ? 0 : cumulative[dirtyFrom - 1];
+        for (int i = dirtyFrom; i < n; i++)
+            cumulative[i] = sum += weights[i];
+        
+        dirtyFrom = n;
+    }
+    
+    @Override
+    public int size() {
+        return weights.length;
+    }
+    
+    @Override
+    public double getProbability(final int index) {
+        final double total = getTotalWeight();
+        return total == 0 ? 0 : weights[index] / total;
+    }
+    
+    /**
+     * {@inheritDoc}
+     * 
+     * @throws IllegalStateException if the sum of the weights is <code>0</code>
+     */
+    @Override
+    public int select(final double u) {
+        final double total = getTotalWeight();
+        if (total == 0)
+            throw new IllegalStateException("Cannot sample, sum of weights is 0!");
+        
+        return search(u * total);
+    }
+    
+    /**
+     * Returns the index of the first outcome whose cumulative weight is greater than the specified target.
+     * 
+     * @param target target cumulative weight, in the range of <code>[0..total)</code>
+     * @return the index of the outcome containing the target
+     */
+    private int search(final double target) {
+        // Local reference for performance
+        final double[] cumulative = this.cumulative;
+        
+        int low = 0, high = cumulative.length - 1;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (cumulative[mid] > target)
+                high = mid;
+            else
+                low = mid + 1;
+        }
+        
+        // Due to rounding, target might reach the total: return the last outcome with non-zero weight then
+        while (weights[low] == 0)
+            low--;
+        
+        return low;
+    }
+    
+    /**
+     * Samples random outcomes into the specified range of the output array.
+     * 
+     * @param out array to store the indices of the sampled outcomes in
+     * @param from index of the first sample (inclusive)
+     * @param to index of the last sample (exclusive)
+     * @param random {@link SplittableRandom} to be used for random number generation
+     * 
+     * @throws IllegalStateException if the sum of the weights is <code>0</code>
+     */
+    @Override
+    void sample(final int[] out, final int from, final int to, final SplittableRandom random) {
+        final double total = cumulative[cumulative.length - 1];
+        if (total == 0)
+            throw new IllegalStateException("Cannot sample, sum of weights is 0!");
+        
+        for (int i = from; i < to; i++)
+            out[i] = search(random.nextDouble() * total);
+    }
+    
+    @Override
+    public String toString() {
+        return Arrays.toString(weights);
+    }
+    
+}
@@ -15,6 +15,11 @@ import java.util.Objects;
 /**
  * This is a simple non-modifiable wrapper class for a generic type.
  * 
+ * <p>
+ * If the wrapped value is immutable, use {@link #ofImmutable(Object)} to get an instance which caches its
+ * hash code.
+ * </p>
+ * 
  * @author Andras Belicza
  *
  * @param <T> type of the wrapped value
@@ -26,6 +31,41 @@ public class FinalRef<T> implements Serializable {
     /** */
     private static final long serialVersionUID = 1L;
     
+    /**
+     * {@link FinalRef} which caches its hash code on first use, see {@link FinalRef#ofImmutable(Object)}.
+     * 
+     * @param <T> type of the wrapped value
+     * 
+     * @author Andras Belicza
+     */
+    private static final class CachedHashRef<T> extends FinalRef<T> {
+        
+        /** */
+        private static final long serialVersionUID = 1L;
+        
+        /** Cached hash code, <code>0</code> if not yet computed. */
+        private transient int hash;
+        
+        /**
+         * Creates a new {@link FinalRef.CachedHashRef}.
+         * 
+         * @param value immutable value to be wrapped
+         */
+        public CachedHashRef(final T value) {
+            super(value);
+        }
+        
+        @Override
+        public int hashCode() {
+            // Racy single-check idiom: worst case the hash is computed by multiple threads
+            int h = hash;
+            if (h == 0)
+                hash = h = super.hashCode();
+            return h;
+        }
+    
+    }
+    
     /** Reference to the wrapped value. */
     public final T value;
     
@@ -60,9 +100,29 @@ public class FinalRef<T> implements Serializable {
         return Objects.equals(value, ((FinalRef<?>) o).value);
     }
     
+    /**
+     * Returns the same hash code as <code>Objects.hash(value)</code> would, but without allocating a varargs
+     * array.
+     */
     @Override
     public int hashCode() {
-        return Objects.hash(value);
+        return 31 + Objects.hashCode(value);
+    }
+    
+    /**
+     * Returns a {@link FinalRef} which caches its hash code on first use.
+     * 
+     * <p>
+     * Only use it if the wrapped value is immutable (or at least its hash code never changes), else the
+     * cached hash code becomes stale.
+     * </p>
+     * 
+     * @param <T> type of the wrapped value
+     * @param value immutable value to be wrapped
+     * @return a {@link FinalRef} which caches its hash code
+     */
+    public static <T> FinalRef<T> ofImmutable(final T value) {
+        return new CachedHashRef<>(value);
     }
     
 }
@@ -26,9 +26,14 @@ import java.util.Map;
  * counting files with {@link Files#walkFileTree(java.nio.file.Path, java.nio.file.FileVisitor)}).
  * </ul>
  * 
+ * <p>
+ * This class is not thread-safe; see {@link AtomicInt} for a thread-safe counter.
+ * </p>
+ * 
  * @author Andras Belicza
  * 
  * @see LongInt
+ * @see AtomicInt
  */
 public class Int implements Comparable<Int>, Cloneable, Serializable {
     
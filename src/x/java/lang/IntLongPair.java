@@ -0,0 +1,92 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.io.Serializable;
+
+/**
+ * A pair of <code>int</code> and <code>long</code> values.
+ * 
+ * <p>
+ * A primitive specialization of {@link Pair}: no boxing is involved, and the class is final and immutable
+ * with allocation-free {@link #equals(Object)} and {@link #hashCode()}, so short-lived instances can be
+ * scalar-replaced by the JIT (escape analysis).
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see Pair
+ */
+public final class IntLongPair implements Serializable {
+    
+    /** */
+    private static final long serialVersionUID = 1L;
+    
+    /** The first value. */
+    public final int value1;
+    
+    /** The second value. */
+    public final long value2;
+    
+    /**
+     * Creates a new {@link IntLongPair}.
+     * 
+     * @param value1 the first value
+     * @param value2 the second value
+     */
+    public IntLongPair(final int value1, final long value2) {
+        this.value1 = value1;
+        this.value2 = value2;
+    }
+    
+    /**
+     * Returns the first value.
+     * 
+     * @return the first value
+     */
+    public int getValue1() {
+        return value1;
+    }
+    
+    /**
+     * Returns the second value.
+     * 
+     * @return the second value
+     */
+    public long getValue2() {
+        return value2;
+    }
+    
+    /**
+     * Returns <code>true</code> if both values of the pairs are equal.
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof IntLongPair))
+            return false;
+        
+        final IntLongPair pair2 = (IntLongPair) o;
+        
+        return value1 == pair2.value1 && value2 == pair2.value2;
+    }
+    
+    @Override
+    public int hashCode() {
+        return 31 * value1 + Long.hashCode(value2);
+    }
+    
+    @Override
+    public String toString() {
+        return "(" + value1 + ", " + value2 + ")";
+    }
+    
+}
@@ -9,12 +9,35 @@
  */
 package x.java.lang;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Implementation of an intern pool for a specific {@link Internable} type.
  * 
+ * <p>
+ * The implementation is thread-safe. The pool is backed by a {@link ConcurrentHashMap}, so lookups are
+ * lock-free and insertions only lock a small part of the pool. The shared pools of the different classes
+ * (see {@link #getClassInternPool(Class)}) are also looked up without locking.
+ * </p>
+ * 
+ * <p>
+ * Pools created by the constructors hold strong references to the interned instances, so they are never
+ * released. Other kinds of pools can be created by:
+ * </p>
+ * <ul>
+ * <li>{@link #newWeakPool(int)}: instances can be garbage collected once they are not used anymore
+ * <li>{@link #newSoftPool(int)}: instances are only garbage collected in response to memory demand
+ * <li>{@link #newLruPool(int)}: bounded pool which evicts the least recently used instances
+ * </ul>
+ * 
+ * <p>
+ * A pool also keeps lookup statistics, see {@link #getHitCount()}, {@link #getMissCount()} and
+ * {@link #getHitRate()}.
+ * </p>
+ * 
  * @author Andras Belicza
  *
  * @param <T> type of the pool objects
@@ -24,8 +47,73 @@ import java.util.Map;
  */
 public class InternPool<T extends Internable> {
     
-    /** Internal map to store the interned/cached instances. */
-    private final Map<T, T> map;
+    /**
+     * Creates a new {@link InternPool} which only holds weak references to the interned instances, so they
+     * can be garbage collected once they are not used anymore.
+     * 
+     * @param <T2> type of the pool objects
+     * @param sizeHint size hint for the number of different objects to be interned
+     * 
+     * @return a new weak {@link InternPool}
+     * 
+     * @see #newSoftPool(int)
+     */
+    public static <T2 extends Internable> InternPool<T2> newWeakPool(final int sizeHint) {
+        return new InternPool<>(new InternStore.RefStore<T2>(sizeHint, false));
+    }
+    
+    /**
+     * Creates a new {@link InternPool} which only holds soft references to the interned instances, so they
+     * can be garbage collected in response to memory demand once they are not used anymore.
+     * 
+     * @param <T2> type of the pool objects
+     * @param sizeHint size hint for the number of different objects to be interned
+     * 
+     * @return a new soft {@link InternPool}
+     * 
+     * @see #newWeakPool(int)
+     */
+    public static <T2 extends Internable> InternPool<T2> newSoftPool(final int sizeHint) {
+        return new InternPool<>(new InternStore.RefStore<T2>(sizeHint, true));
+    }
+    
+    /**
+     * Creates a new bounded {@link InternPool} which evicts the (approximately) least recently used instances
+     * when it's full.
+     * 
+     * <p>
+     * Since evicted instances might still be in use when an equal gets interned, a bounded pool works as a
+     * deduplicating cache: it does not mark the instances interned (the equality shortcut of
+     * {@link BaseInternable} will not be taken for them).
+     * </p>
+     * 
+     * @param <T2> type of the pool objects
+     * @param maxSize max number of instances to hold
+     * 
+     * @return a new bounded {@link InternPool}
+     * 
+     * @throws IllegalArgumentException if <code>maxSize</code> is not positive
+     */
+    public static <T2 extends Internable> InternPool<T2> newLruPool(final int maxSize)
+            throws IllegalArgumentException {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("maxSize must be positive!");
+        
+        return new InternPool<>(new InternStore.LruStore<T2>(maxSize));
+    }
+    
+    
+    /** Storage of the interned/cached instances. */
+    private final InternStore<T> store;
+    
+    /** Tells if stored instances are returned for all equal entities (so they may be marked interned). */
+    private final boolean stable;
+    
+    /** Number of lookups which found an equal instance in the pool. */
+    private final LongAdder hitCount = new LongAdder();
+    
+    /** Number of lookups which did not find an equal instance in the pool. */
+    private final LongAdder missCount = new LongAdder();
     
     /**
      * Creates a new {@link InternPool} with a default size hint.
@@ -40,9 +128,17 @@ public class InternPool<T extends Internable> {
      * @param sizeHint size hint for the number of different objects to be interned
      */
     public InternPool(final int sizeHint) {
-        // Calculate initial capacity based on the default load factor
-        // which is 0.75 = 3/4
-        map = new HashMap<>(sizeHint / 3 * 4 + 2);
+        this(new InternStore.StrongStore<T>(sizeHint));
+    }
+    
+    /**
+     * Creates a new {@link InternPool}.
+     * 
+     * @param store storage of the interned/cached instances
+     */
+    private InternPool(final InternStore<T> store) {
+        this.store = store;
+        stable = store.isStable();
     }
     
     /**
@@ -53,6 +149,11 @@ public class InternPool<T extends Internable> {
      * be put into the internal pool, marked interned and then be returned.
      * </p>
      * 
+     * <p>
+     * If multiple threads intern equal entities concurrently, all of them receive the same instance, and only
+     * that instance is marked interned.
+     * </p>
+     * 
      * @param entity entity to be interned
      * 
      * @return an interned/cached version of the specified entity
@@ -61,22 +162,115 @@ public class InternPool<T extends Internable> {
         if (entity.isInterned())
             return entity;
         
-        final T cached = map.get(entity);
-        if (cached != null)
-            return cached;
+        // Fast path: a plain get does not lock
+        T cached = store.get(entity);
+        if (cached == null) {
+            // Only mark the entity interned if it made it into the pool: an interned entity must be the only
+            // interned instance among its equals, the equality check of BaseInternable relies on this.
+            if ((cached = store.putIfAbsent(entity)) == null) {
+                missCount.increment();
+                if (stable)
+                    entity.markInterned();
+                return entity;
+            }
+        }
         
-        entity.markInterned();
-        map.put(entity, entity);
+        // The winner might not have marked it yet, marking is idempotent
+        if (stable && !cached.isInterned())
+            cached.markInterned();
         
-        return entity;
+        hitCount.increment();
+        return cached;
     }
     
-    /** A map of shared internal pools for each different {@link Class}es. */
-    private static final Map<Class<? extends Internable>, InternPool<?>> CLASS_INTERN_POOL_MAP = new HashMap<>();
+    /**
+     * Returns the number of interned instances in the pool.
+     * 
+     * <p>
+     * Instances already garbage collected might be included in the count of weak and soft pools.
+     * </p>
+     * 
+     * @return the number of interned instances in the pool
+     */
+    public int size() {
+        return store.size();
+    }
+    
+    /**
+     * Returns the number of {@link #intern(Internable)} calls which found an equal instance in the pool.
+     * 
+     * <p>
+     * Calls with an entity already marked interned are not counted as they do not involve a lookup.
+     * </p>
+     * 
+     * @return the number of {@link #intern(Internable)} calls which found an equal instance in the pool
+     * 
+     * @see #getMissCount()
+     * @see #getHitRate()
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+    
+    /**
+     * Returns the number of {@link #intern(Internable)} calls which did not find an equal instance in the
+     * pool (and so added the entity to the pool).
+     * 
+     * @return the number of {@link #intern(Internable)} calls which did not find an equal instance in the
+     *         pool
+     * 
+     * @see #getHitCount()
+     * @see #getHitRate()
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+    
+    /**
+     * Returns the hit rate, the ratio of the lookups which found an equal instance in the pool.
+     * 
+     * @return the hit rate in the range of <code>0..1</code>; <code>0</code> if there were no lookups yet
+     * 
+     * @see #getHitCount()
+     * @see #getMissCount()
+     */
+    public double getHitRate() {
+        final long hits = hitCount.sum();
+        final long total = hits + missCount.sum();
+        
+        return total == 0 ? 0 : (double) hits / total;
+    }
+    
+    /** Shared pools registered for classes to be used instead of a default pool. */
+    private static final ConcurrentMap<Class<?>, InternPool<?>> REGISTERED_CLASS_INTERN_POOLS =
+            new ConcurrentHashMap<>();
+    
+    /** Tells for each {@link Class} if its shared pool has been created. */
+    private static final ClassValue<AtomicBoolean> CLASS_POOL_CREATED = new ClassValue<AtomicBoolean>() {
+        @Override
+        protected AtomicBoolean computeValue(final Class<?> type) {
+            return new AtomicBoolean();
+        }
+    };
+    
+    /** Shared internal pools for each different {@link Class}es. */
+    private static final ClassValue<InternPool<?>> CLASS_INTERN_POOLS = new ClassValue<InternPool<?>>() {
+        @Override
+        protected InternPool<?> computeValue(final Class<?> type) {
+            CLASS_POOL_CREATED.get(type).set(true);
+            final InternPool<?> p = REGISTERED_CLASS_INTERN_POOLS.remove(type);
+            return p == null ? new InternPool<>() : p;
+        }
+    };
     
     /**
      * Returns the shared {@link InternPool} for the specified {@link Class}.
      * 
+     * <p>
+     * By default the shared pools hold strong references, see {@link #setClassInternPool(Class, InternPool)}
+     * to use a different kind of pool for a class.
+     * </p>
+     * 
      * @param <T2> type whose intern pool to return
      * 
      * @param c {@link Class} to return the shared {@link InternPool} for
@@ -84,15 +278,54 @@ public class InternPool<T extends Internable> {
      * @return the shared {@link InternPool} for the specified {@link Class}
      */
     public static <T2 extends Internable> InternPool<T2> getClassInternPool(final Class<T2> c) {
-        
-        // Safe to suppress warning as this is the only method that adds entries to the map:
+        // Safe to suppress warning as the pool is only ever accessed through this method with its class:
         @SuppressWarnings("unchecked")
-        InternPool<T2> p = (InternPool<T2>) CLASS_INTERN_POOL_MAP.get(c);
-        
-        if (p == null)
-            CLASS_INTERN_POOL_MAP.put(c, p = new InternPool<T2>());
+        final InternPool<T2> p = (InternPool<T2>) CLASS_INTERN_POOLS.get(c);
         
         return p;
     }
     
+    /**
+     * Returns the shared {@link InternPool} for the specified {@link Class} if it has already been created.
+     * Unlike {@link #getClassInternPool(Class)} this method does not create the pool, so a pool can still be
+     * set with {@link #setClassInternPool(Class, InternPool)} afterwards.
+     * 
+     * @param c {@link Class} to return the shared {@link InternPool} for
+     * 
+     * @return the shared {@link InternPool} for the specified {@link Class}; <code>null</code> if it has not
+     *         been created yet
+     */
+    static InternPool<?> findClassInternPool(final Class<?> c) {
+        return CLASS_POOL_CREATED.get(c).get() ? CLASS_INTERN_POOLS.get(c) : null;
+    }
+    
+    /**
+     * Sets the shared {@link InternPool} to be used for the specified {@link Class}.
+     * 
+     * <p>
+     * Must be called before the shared pool of the class is first used (e.g. in a static initializer of the
+     * class), for example to use a weak pool:
+     * </p>
+     * 
+     * <pre>
+     * InternPool.setClassInternPool(Symbol.class, InternPool.newWeakPool(1024));
+     * </pre>
+     * 
+     * @param <T2> type whose intern pool to set
+     * 
+     * @param c {@link Class} to set the shared {@link InternPool} for
+     * @param pool the shared {@link InternPool} to be used for the class
+     * 
+     * @throws IllegalStateException if the shared pool of the class has already been used
+     */
+    public static <T2 extends Internable> void setClassInternPool(final Class<T2> c,
+            final InternPool<T2> pool) throws IllegalStateException {
+        REGISTERED_CLASS_INTERN_POOLS.put(c, pool);
+        
+        if (CLASS_INTERN_POOLS.get(c) != pool) {
+            REGISTERED_CLASS_INTERN_POOLS.remove(c, pool);
+            throw new IllegalStateException("Shared intern pool of class already in use: " + c.getName());
+        }
+    }
+    
 }
@@ -0,0 +1,441 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Storage of the instances of an {@link InternPool}.
+ * 
+ * <p>
+ * Implementations must be thread-safe.
+ * </p>
+ * 
+ * @param <T> type of the stored objects
+ * 
+ * @author Andras Belicza
+ * 
+ * @see InternPool
+ */
+abstract class InternStore<T> {
+    
+    /**
+     * Returns the stored instance equal to the specified entity.
+     * 
+     * @param entity entity whose stored equal to return
+     * @return the stored instance equal to the specified entity; or <code>null</code> if there is none
+     */
+    abstract T get(T entity);
+    
+    /**
+     * Stores the specified entity if there is no equal stored.
+     * 
+     * @param entity entity to be stored
+     * @return the stored instance equal to the specified entity; or <code>null</code> if there was none and
+     *         the specified entity was stored
+     */
+    abstract T putIfAbsent(T entity);
+    
+    /**
+     * Returns the number of stored instances.
+     * 
+     * @return the number of stored instances
+     */
+    abstract int size();
+    
+    /**
+     * Tells if an instance once stored is guaranteed to be returned for all equal entities as long as it is
+     * reachable (and so it may be marked interned).
+     * 
+     * @return true if an instance once stored is guaranteed to be returned for all equal entities as long as
+     *         it is reachable
+     */
+    abstract boolean isStable();
+    
+    
+    /**
+     * Store holding strong references.
+     * 
+     * @param <T> type of the stored objects
+     * 
+     * @author Andras Belicza
+     */
+    static class StrongStore<T> extends InternStore<T> {
+        
+        /** Internal map to store the interned/cached instances. */
+        private final ConcurrentMap<T, T> map;
+        
+        /**
+         * Creates a new {@link InternStore.StrongStore}.
+         * 
+         * @param sizeHint size hint for the number of different objects to be stored
+         */
+        StrongStore(final int sizeHint) {
+            // Calculate initial capacity based on the default load factor
+            // which is 0.75 = 3/4
+            map = new ConcurrentHashMap<>(sizeHint / 3 * 4 + 2);
+        }
+        
+        @Override
+        T get(final T entity) {
+            return map.get(entity);
+        }
+        
+        @Override
+        T putIfAbsent(final T entity) {
+            return map.putIfAbsent(entity, entity);
+        }
+        
+        @Override
+        int size() {
+            return map.size();
+        }
+        
+        @Override
+        boolean isStable() {
+            return true;
+        }
+    
+    }
+    
+    
+    /**
+     * A reference-like object to be used as a key in a {@link RefStore}.
+     * 
+     * <p>
+     * Keys are equal if their referents are equal (and not <code>null</code>), or if they are the same.
+     * </p>
+     * 
+     * @param <T> type of the referent
+     * 
+     * @author Andras Belicza
+     */
+    private interface Key<T> {
+        
+        /**
+         * Returns the referent.
+         * 
+         * @return the referent; may be <code>null</code> if it has been cleared
+         */
+        T get();
+    
+    }
+    
+    /**
+     * Tells if the specified key object is equal to the specified other object.
+     * 
+     * @param key key object
+     * @param o object to compare to
+     * @return true if the specified key object is equal to the specified other object
+     */
+    private static boolean keyEquals(final Key<?> key, final Object o) {
+        if (key == o)
+            return true;
+        if (!(o instanceof Key))
+            return false;
+        
+        final Object referent = key.get();
+        return referent != null && referent.equals(((Key<?>) o).get());
+    }
+    
+    /**
+     * Lookup key holding a strong reference.
+     * 
+     * @param <T> type of the referent
+     * 
+     * @author Andras Belicza
+     */
+    private static final class LookupKey<T> implements Key<T> {
+        
+        /** The referent. */
+        private final T referent;
+        
+        /**
+         * Creates a new {@link InternStore.LookupKey}.
+         * 
+         * @param referent the referent
+         */
+        LookupKey(final T referent) {
+            this.referent = referent;
+        }
+        
+        @Override
+        public T get() {
+            return referent;
+        }
+        
+        @Override
+        public boolean equals(final Object o) {
+            return keyEquals(this, o);
+        }
+        
+        @Override
+        public int hashCode() {
+            return referent.hashCode();
+        }
+    
+    }
+    
+    /**
+     * Key holding a weak reference.
+     * 
+     * @param <T> type of the referent
+     * 
+     * @author Andras Belicza
+     */
+    private static final class WeakKey<T> extends WeakReference<T> implements Key<T> {
+        
+        /** Cached hash code of the referent. */
+        private final int hash;
+        
+        /**
+         * Creates a new {@link InternStore.WeakKey}.
+         * 
+         * @param referent the referent
+         * @param queue queue to register the key with
+         */
+        WeakKey(final T referent, final ReferenceQueue<? super T> queue) {
+            super(referent, queue);
+            hash = referent.hashCode();
+        }
+        
+        @Override
+        public boolean equals(final Object o) {
+            return keyEquals(this, o);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    
+    }
+    
+    /**
+     * Key holding a soft reference.
+     * 
+     * @param <T> type of the referent
+     * 
+     * @author Andras Belicza
+     */
+    private static final class SoftKey<T> extends SoftReference<T> implements Key<T> {
+        
+        /** Cached hash code of the referent. */
+        private final int hash;
+        
+        /**
+         * Creates a new {@link InternStore.SoftKey}.
+         * 
+         * @param referent the referent
+         * @param queue queue to register the key with
+         */
+        SoftKey(final T referent, final ReferenceQueue<? super T> queue) {
+            super(referent, queue);
+            hash = referent.hashCode();
+        }
+        
+        @Override
+        public boolean equals(final Object o) {
+            return keyEquals(this, o);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    
+    }
+    
+    /**
+     * Store holding weak or soft references, so stored instances can be garbage collected once they are not
+     * used anymore.
+     * 
+     * <p>
+     * Keys of the collected instances are removed from the store during subsequent operations (amortized).
+     * </p>
+     * 
+     * @param <T> type of the stored objects
+     * 
+     * @author Andras Belicza
+     */
+    static class RefStore<T> extends InternStore<T> {
+        
+        /** Internal map to store the keys of the interned/cached instances. */
+        private final ConcurrentMap<Key<T>, Key<T>> map;
+        
+        /** Queue of the keys whose referents have been collected. */
+        private final ReferenceQueue<T> queue = new ReferenceQueue<>();
+        
+        /** Tells if soft references are to be used instead of weak references. */
+        private final boolean soft;
+        
+        /**
+         * Creates a new {@link InternStore.RefStore}.
+         * 
+         * @param sizeHint size hint for the number of different objects to be stored
+         * @param soft tells if soft references are to be used instead of weak references
+         */
+        RefStore(final int sizeHint, final boolean soft) {
+            map = new ConcurrentHashMap<>(sizeHint / 3 * 4 + 2);
+            this.soft = soft;
+        }
+        
+        /**
+         * Removes the keys of the collected instances.
+         */
+        private void expunge() {
+            Reference<? extends T> ref;
+            while ((ref = queue.poll()) != null)
+                map.remove(ref);
+        }
+        
+        @Override
+        T get(final T entity) {
+            expunge();
+            
+            final Key<T> key = map.get(new LookupKey<>(entity));
+            return key == null ? null : key.get();
+        }
+        
+        @Override
+        T putIfAbsent(final T entity) {
+            expunge();
+            
+            final Key<T> newKey = soft ? new SoftKey<>(entity, queue) : new WeakKey<>(entity, queue);
+            while (true) {
+                final Key<T> key = map.putIfAbsent(newKey, newKey);
+                if (key == null)
+                    return null;
+                
+                final T cached = key.get();
+                if (cached != null)
+                    return cached;
+                
+                // Collected in the meantime, remove it and retry
+                map.remove(key, key);
+            }
+        }
+        
+        @Override
+        int size() {
+            expunge();
+            
+            return map.size();
+        }
+        
+        @Override
+        boolean isStable() {
+            return true;
+        }
+    
+    }
+    
+    
+    /**
+     * Bounded store which evicts the least recently used instances when it's full.
+     * 
+     * <p>
+     * The store is split into lock-striped segments by hash code, each segment being an access-ordered
+     * {@link LinkedHashMap}; so eviction order is only approximately LRU across the whole store.
+     * </p>
+     * 
+     * @param <T> type of the stored objects
+     * 
+     * @author Andras Belicza
+     */
+    static class LruStore<T> extends InternStore<T> {
+        
+        /** The segments. */
+        private final Map<T, T>[] segments;
+        
+        /**
+         * Creates a new {@link InternStore.LruStore}.
+         * 
+         * @param maxSize max number of instances to store
+         */
+        LruStore(final int maxSize) {
+            // Only split if segments are not too small
+            int count = 1;
+            while (count < 16 && maxSize / (count * 2) >= 64)
+                count *= 2;
+            
+            final int segmentMaxSize = (maxSize + count - 1) / count;
+            
+            @SuppressWarnings("unchecked")
+            final Map<T, T>[] segments = (Map<T, T>[]) new Map<?, ?>[count];
+            for (int i = 0; i < count; i++)
+                segments[i] = new LinkedHashMap<T, T>(16, 0.75f, true) {
+                    /** */
+                    private static final long serialVersionUID = 1L;
+                    
+                    @Override
+                    protected boolean removeEldestEntry(final Map.Entry<T, T> eldest) {
+                        return size() > segmentMaxSize;
+                    }
+                };
+            
+            this.segments = segments;
+        }
+        
+        /**
+         * Returns the segment of the specified entity.
+         * 
+         * @param entity entity whose segment to return
+         * @return the segment of the specified entity
+         */
+        private Map<T, T> segmentFor(final T entity) {
+            final int h = entity.hashCode();
+            return segments[(h ^ (h >>> 16)) & (segments.length - 1)];
+        }
+        
+        @Override
+        T get(final T entity) {
+            final Map<T, T> segment = segmentFor(entity);
+            synchronized (segment) {
+                return segment.get(entity);
+            }
+        }
+        
+        @Override
+        T putIfAbsent(final T entity) {
+            final Map<T, T> segment = segmentFor(entity);
+            synchronized (segment) {
+                return segment.putIfAbsent(entity, entity);
+            }
+        }
+        
+        @Override
+        int size() {
+            int size = 0;
+            for (final Map<T, T> segment : segments)
+                synchronized (segment) {
+                    size += segment.size();
+                }
+            return size;
+        }
+        
+        /**
+         * Returns false: evicted instances might still be in use while an equal gets stored.
+         */
+        @Override
+        boolean isStable() {
+            return false;
+        }
+    
+    }
+    
+}
@@ -0,0 +1,172 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-class statistics of {@link BaseInternable} equality checks, combined with the intern statistics of the
+ * class intern pool.
+ * 
+ * <p>
+ * Equality statistics are only collected if enabled with {@link BaseInternable#setStatsEnabled(boolean)}
+ * (or with the <code>{@value BaseInternable#STATS_PROPERTY}</code> system property). They tell how often
+ * equality could be decided by the interned state or by the cached hash codes, and how often
+ * {@link BaseInternable#customEquals(BaseInternable)} had to be called; which helps to decide which types
+ * deserve interning.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see BaseInternable
+ */
+public final class InternableStats {
+    
+    /** Statistics of the classes. */
+    private static final ClassValue<InternableStats> CLASS_STATS = new ClassValue<InternableStats>() {
+        @Override
+        protected InternableStats computeValue(final Class<?> type) {
+            return new InternableStats(type.asSubclass(Internable.class));
+        }
+    };
+    
+    /**
+     * Returns the statistics of the specified class.
+     * 
+     * @param cls class whose statistics to return
+     * @return the statistics of the specified class
+     */
+    public static InternableStats of(final Class<? extends BaseInternable<?>> cls) {
+        return CLASS_STATS.get(cls);
+    }
+    
+    /**
+     * Returns the statistics of the specified class (unchecked variant for internal use).
+     * 
+     * @param cls class whose statistics to return
+     * @return the statistics of the specified class
+     */
+    static InternableStats get(final Class<?> cls) {
+        return CLASS_STATS.get(cls);
+    }
+    
+    
+    /** The class of the statistics. */
+    private final Class<? extends Internable> cls;
+    
+    /** Number of equality checks decided by both instances being interned. */
+    final LongAdder internedCount = new LongAdder();
+    
+    /** Number of equality checks decided by different hash codes. */
+    final LongAdder hashMismatchCount = new LongAdder();
+    
+    /** Number of equality checks which fell back to calling <code>customEquals()</code>. */
+    final LongAdder customEqualsCount = new LongAdder();
+    
+    /**
+     * Creates a new {@link InternableStats}.
+     * 
+     * @param cls the class of the statistics
+     */
+    private InternableStats(final Class<? extends Internable> cls) {
+        this.cls = cls;
+    }
+    
+    /**
+     * Returns the class of the statistics.
+     * 
+     * @return the class of the statistics
+     */
+    public Class<? extends Internable> getStatsClass() {
+        return cls;
+    }
+    
+    /**
+     * Returns the number of equality checks decided by both instances being interned.
+     * 
+     * @return the number of equality checks decided by both instances being interned
+     */
+    public long getInternedCount() {
+        return internedCount.sum();
+    }
+    
+    /**
+     * Returns the number of equality checks decided by different hash codes.
+     * 
+     * @return the number of equality checks decided by different hash codes
+     */
+    public long getHashMismatchCount() {
+        return hashMismatchCount.sum();
+    }
+    
+    /**
+     * Returns the number of equality checks which fell back to calling <code>customEquals()</code>.
+     * 
+     * @return the number of equality checks which fell back to calling <code>customEquals()</code>
+     */
+    public long getCustomEqualsCount() {
+        return customEqualsCount.sum();
+    }
+    
+    /**
+     * Returns the number of intern hits of the class intern pool.
+     * 
+     * <p>
+     * The class intern pool is not created by this method, so it can still be set with
+     * {@link InternPool#setClassInternPool(Class, InternPool)}.
+     * </p>
+     * 
+     * @return the number of intern hits of the class intern pool; 0 if the class intern pool is not yet in
+     *         use
+     * 
+     * @see InternPool#getHitCount()
+     */
+    public long getInternHitCount() {
+        final InternPool<?> pool = InternPool.findClassInternPool(cls);
+        
+        return pool == null ? 0 : pool.getHitCount();
+    }
+    
+    /**
+     * Returns the number of intern misses of the class intern pool.
+     * 
+     * <p>
+     * The class intern pool is not created by this method, so it can still be set with
+     * {@link InternPool#setClassInternPool(Class, InternPool)}.
+     * </p>
+     * 
+     * @return the number of intern misses of the class intern pool; 0 if the class intern pool is not yet
+     *         in use
+     * 
+     * @see InternPool#getMissCount()
+     */
+    public long getInternMissCount() {
+        final InternPool<?> pool = InternPool.findClassInternPool(cls);
+        
+        return pool == null ? 0 : pool.getMissCount();
+    }
+    
+    /**
+     * Resets the equality counters.
+     */
+    public void reset() {
+        internedCount.reset();
+        hashMismatchCount.reset();
+        customEqualsCount.reset();
+    }
+    
+    @Override
+    public String toString() {
+        return cls.getName() + "[interned=" + getInternedCount() + ", hashMismatch=" + getHashMismatchCount()
+                + ", customEquals=" + getCustomEqualsCount() + ", internHits=" + getInternHitCount()
+                + ", internMisses=" + getInternMissCount() + "]";
+    }
+    
+}
@@ -27,9 +27,16 @@ import java.util.Map;
  * {@link Files#walkFileTree(java.nio.file.Path, java.nio.file.FileVisitor)}).
  * </ul>
  * 
+ * <p>
+ * This class is not thread-safe; see {@link AtomicLongInt} and {@link StripedLongInt} for thread-safe
+ * counters.
+ * </p>
+ * 
  * @author Andras Belicza
  * 
  * @see Int
+ * @see AtomicLongInt
+ * @see StripedLongInt
  */
 public class LongInt implements Comparable<LongInt>, Cloneable, Serializable {
     
@@ -66,13 +66,39 @@ public class MathUtils {
      * 
      * @throws IllegalArgumentException if <code>values.length < weights.length</code>
      * 
+     * @see #randomValue(Object[], double[], RandomSource)
      * @see #randomValue(Object[], int[], Random)
+     * @see WeightedSampler
      */
     public static <T> T randomValue(final T[] values, final double[] weights) {
+        // ThreadLocalRandom instead of Math.random() whose shared Random would be contended
+        return randomValue(values, weights, RandomSource.threadLocal());
+    }
+    
+    /**
+     * Chooses a random value from a specified array using the specified weights and source of random data.
+     * 
+     * <p>
+     * Same as {@link #randomValue(Object[], double[])} except that the specified source is used for random
+     * number generation.
+     * </p>
+     * 
+     * @param <T> type of the values
+     * 
+     * @param values values to choose from
+     * @param weights weights of the values to consider when choosing a random one; expected to sum up to
+     *            <code>1</code>
+     * @param source source of random data
+     * 
+     * @return a randomly chosen value; <code>null</code> is returned if input is empty array
+     * 
+     * @throws IllegalArgumentException if <code>values.length < weights.length</code>
+     */
+    public static <T> T randomValue(final T[] values, final double[] weights, final RandomSource source) {
         if (values.length < weights.length)
             throw new IllegalArgumentException("values.length cannot be less than weights.length!");
         
-        final double r = Math.random();
+        final double r = source.nextDouble();
         
         double sum = 0;
         for (int i = 0; i < weights.length; i++) {
@@ -117,6 +143,7 @@ public class MathUtils {
      *             <code>weights</code> contains negative values
      * 
      * @see #randomValue(Object[], double[])
+     * @see WeightedSampler
      */
     public static <T> T randomValue(final T[] values, final int[] weights, final Random random) {
         if (values.length < weights.length)
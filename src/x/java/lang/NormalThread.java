@@ -21,6 +21,11 @@ import java.util.logging.Logger;
  * </p>
  * 
  * <p>
+ * Started instances are registered in the {@link ThreadRegistry} if it is enabled, and are deregistered by
+ * {@link #run()} when they terminate.
+ * </p>
+ * 
+ * <p>
  * Example usage of {@link NormalThread}:
  * 
  * <pre>
@@ -46,6 +51,8 @@ import java.util.logging.Logger;
  * @author Andras Belicza
  * 
  * @see CtrlThread
+ * @see VirtualThreads
+ * @see ThreadRegistry
  */
 public class NormalThread extends Thread {
     
@@ -77,6 +84,48 @@ public class NormalThread extends Thread {
         setUncaughtExceptionHandler(UNCAUGHT_EXCEPTION_HANDLER);
     }
     
+    /**
+     * Creates a new {@link NormalThread} which runs the specified target.
+     * 
+     * @param target the object whose <code>run()</code> method is invoked when this thread is started
+     * @param name name of the thread
+     */
+    public NormalThread(final Runnable target, final String name) {
+        super(target, name);
+        
+        setPriority(NORM_PRIORITY);
+        
+        setUncaughtExceptionHandler(UNCAUGHT_EXCEPTION_HANDLER);
+    }
+    
+    /**
+     * Starts this thread, and registers it in the {@link ThreadRegistry} if it is enabled.
+     */
+    @Override
+    public void start() {
+        // Register first, so a quickly terminating thread cannot be registered after it deregistered
+        ThreadRegistry.register(this);
+        
+        super.start();
+    }
+    
+    /**
+     * Runs the target of this thread (if any), and deregisters this thread from the {@link ThreadRegistry}.
+     * 
+     * <p>
+     * Subclasses overriding this method should call <code>super.run()</code>, else the thread is only dropped
+     * from the registry when statistics are queried or when it becomes unreachable.
+     * </p>
+     */
+    @Override
+    public void run() {
+        try {
+            super.run();
+        } finally {
+            ThreadRegistry.deregister(this);
+        }
+    }
+    
     /**
      * Waits for this thread to finish.
      * 
@@ -69,9 +69,13 @@ public class NullAwareComparable<T extends Comparable<T>> implements Comparable<
         return Objects.equals(value, ((NullAwareComparable<?>) obj).value);
     }
     
+    /**
+     * Returns the same hash code as <code>Objects.hash(value)</code> would, but without allocating a varargs
+     * array.
+     */
     @Override
     public int hashCode() {
-        return Objects.hash(value);
+        return 31 + Objects.hashCode(value);
     }
     
     /**
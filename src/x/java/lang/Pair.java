@@ -16,7 +16,8 @@ import java.util.Objects;
  * A pair of generic-type objects.
  * 
  * <p>
- * Implementation is immutable if the type parameters are immutable.
+ * Implementation is immutable if the type parameters are immutable. In this case use
+ * {@link #ofImmutable(Object, Object)} to get an instance which caches its hash code.
  * </p>
  * 
  * @param <T1> type of the first object
@@ -29,6 +30,43 @@ public class Pair<T1, T2> implements Cloneable, Serializable {
     /** */
     private static final long serialVersionUID = 1L;
     
+    /**
+     * {@link Pair} which caches its hash code on first use, see {@link Pair#ofImmutable(Object, Object)}.
+     * 
+     * @param <T1> type of the first object
+     * @param <T2> type of the second object
+     * 
+     * @author Andras Belicza
+     */
+    private static final class CachedHashPair<T1, T2> extends Pair<T1, T2> {
+        
+        /** */
+        private static final long serialVersionUID = 1L;
+        
+        /** Cached hash code, <code>0</code> if not yet computed. */
+        private transient int hash;
+        
+        /**
+         * Creates a new {@link Pair.CachedHashPair}.
+         * 
+         * @param value1 the immutable first object
+         * @param value2 the immutable second object
+         */
+        public CachedHashPair(final T1 value1, final T2 value2) {
+            super(value1, value2);
+        }
+        
+        @Override
+        public int hashCode() {
+            // Racy single-check idiom: worst case the hash is computed by multiple threads
+            int h = hash;
+            if (h == 0)
+                hash = h = super.hashCode();
+            return h;
+        }
+    
+    }
+    
     /** The first object. */
     public final T1 value1;
     
@@ -84,9 +122,13 @@ public class Pair<T1, T2> implements Cloneable, Serializable {
         return Objects.equals(value1, pair2.value1) && Objects.equals(value2, pair2.value2);
     }
     
+    /**
+     * Returns the same hash code as <code>Objects.hash(value1, value2)</code> would, but without allocating a
+     * varargs array.
+     */
     @Override
     public int hashCode() {
-        return Objects.hash(value1, value2);
+        return 31 * (31 + Objects.hashCode(value1)) + Objects.hashCode(value2);
     }
     
     @Override
@@ -101,4 +143,22 @@ public class Pair<T1, T2> implements Cloneable, Serializable {
         }
     }
     
+    /**
+     * Returns a {@link Pair} which caches its hash code on first use.
+     * 
+     * <p>
+     * Only use it if the values are immutable (or at least their hash codes never change), else the cached
+     * hash code becomes stale.
+     * </p>
+     * 
+     * @param <T1> type of the first object
+     * @param <T2> type of the second object
+     * @param value1 the immutable first object
+     * @param value2 the immutable second object
+     * @return a {@link Pair} which caches its hash code
+     */
+    public static <T1, T2> Pair<T1, T2> ofImmutable(final T1 value1, final T2 value2) {
+        return new CachedHashPair<>(value1, value2);
+    }
+    
 }
@@ -0,0 +1,362 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Progress and throughput of a job: units done and total, rate and ETA.
+ * 
+ * <p>
+ * The rate (units per second) is an exponentially weighted moving average (EWMA) with a time constant of
+ * {@link #RATE_TIME_CONSTANT_MS}, so it follows changes of the throughput but is not too jumpy. It is updated
+ * lazily when queried, so {@link #advance(long)} is cheap.
+ * </p>
+ * 
+ * <p>
+ * Timing uses {@link System#nanoTime()} (monotonic), and time spent paused (between {@link #pause()} and
+ * {@link #resume()}) is excluded from the active time, from the rate and so from the ETA. {@link CtrlThread}s
+ * and {@link CtrlTask}s manage the clock of their progress automatically (start, pause, resume, stop), the
+ * job only has to report units.
+ * </p>
+ * 
+ * <p>
+ * This class is thread-safe: units can be reported from multiple threads.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see ProgressPoller
+ */
+public class Progress {
+    
+    /**
+     * An immutable snapshot of a {@link Progress}.
+     * 
+     * @author Andras Belicza
+     */
+    public static final class Snapshot {
+        
+        /** Number of units done. */
+        public final long done;
+        
+        /** Total number of units, <code>-1</code> if unknown. */
+        public final long total;
+        
+        /** Rate in units per second. */
+        public final double rate;
+        
+        /** Estimated remaining active time in ms, <code>-1</code> if unknown. */
+        public final long etaMs;
+        
+        /** Active (not paused) time in ms. */
+        public final long activeTimeMs;
+        
+        /** Tells if the clock is paused. */
+        public final boolean paused;
+        
+        /**
+         * Creates a new {@link Snapshot}.
+         * 
+         * @param done number of units done
+         * @param total total number of units, <code>-1</code> if unknown
+         * @param rate rate in units per second
+         * @param etaMs estimated remaining active time in ms, <code>-1</code> if unknown
+         * @param activeTimeMs active (not paused) time in ms
+         * @param paused tells if the clock is paused
+         */
+        Snapshot(final long done, final long total, final double rate, final long etaMs,
+                final long activeTimeMs, final boolean paused) {
+            this.done = done;
+            this.total = total;
+            this.rate = rate;
+            this.etaMs = etaMs;
+            this.activeTimeMs = activeTimeMs;
+            this.paused = paused;
+        }
+        
+        /**
+         * Returns the done fraction of the total.
+         * 
+         * @return the done fraction of the total in the range of <code>0..1</code>; <code>-1</code> if total
+         *         is unknown
+         */
+        public double getFraction() {
+            return total < 0 ? -1 : total == 0 ? 1 : Math.min(1, (double) done / total);
+        }
+        
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder();
+            sb.append(done);
+            if (total >= 0)
+                sb.append('/').append(total).append(String.format(" (%.1f%%)", 100 * getFraction()));
+            sb.append(String.format(", %.2f units/s", rate));
+            if (etaMs >= 0)
+                sb.append(", ETA: ").append(etaMs).append(" ms");
+            if (paused)
+                sb.append(", paused");
+            return sb.toString();
+        }
+    
+    }
+    
+    
+    /** Time constant of the EWMA rate in ms: weight of older rates decays by <code>1/e</code> per this. */
+    public static final long RATE_TIME_CONSTANT_MS = 5000;
+    
+    /** Min active time between rate updates in nanoseconds, shorter intervals would be too noisy. */
+    private static final long MIN_RATE_UPDATE_NS = TimeUnit.MILLISECONDS.toNanos(100);
+    
+    
+    /** Clock returning the current time in nanoseconds. */
+    private final LongSupplier clock;
+    
+    /** Number of units done. */
+    private final AtomicLong done = new AtomicLong();
+    
+    /** Total number of units, <code>-1</code> if unknown. */
+    private volatile long total = -1;
+    
+    // Clock state, guarded by this
+    
+    /** Tells if the clock has been started. */
+    private boolean started;
+    
+    /** Tells if the clock has been stopped. */
+    private boolean stopped;
+    
+    /** Tells if the clock is paused. */
+    private boolean paused;
+    
+    /** Start time. */
+    private long startNs;
+    
+    /** Stop time. */
+    private long stopNs;
+    
+    /** Start of the current pause. */
+    private long pauseStartNs;
+    
+    /** Total paused time (excluding the current pause). */
+    private long pausedNs;
+    
+    // Rate state, guarded by this
+    
+    /** Active time at the last rate update. */
+    private long lastRateActiveNs;
+    
+    /** Units done at the last rate update. */
+    private long lastRateDone;
+    
+    /** EWMA rate in units per nanosecond, <code>-1</code> if not yet computed. */
+    private double rate = -1;
+    
+    /**
+     * Creates a new {@link Progress} with unknown total.
+     */
+    public Progress() {
+        this(System::nanoTime);
+    }
+    
+    /**
+     * Creates a new {@link Progress} with the specified clock.
+     * 
+     * @param clock clock returning the current time in nanoseconds
+     */
+    Progress(final LongSupplier clock) {
+        this.clock = clock;
+    }
+    
+    /**
+     * Starts the clock. Has no effect if already started.
+     */
+    public synchronized void start() {
+        if (started)
+            return;
+        
+        startNs = clock.getAsLong();
+        started = true;
+    }
+    
+    /**
+     * Stops the clock: active time, rate and ETA are frozen. Has no effect if not started or already stopped.
+     */
+    public synchronized void stop() {
+        if (!started || stopped)
+            return;
+        
+        resume();
+        stopNs = clock.getAsLong();
+        stopped = true;
+    }
+    
+    /**
+     * Pauses the clock. Has no effect if not started, stopped or already paused.
+     */
+    public synchronized void pause() {
+        if (!started || stopped || paused)
+            return;
+        
+        pauseStartNs = clock.getAsLong();
+        paused = true;
+    }
+    
+    /**
+     * Resumes the clock. Has no effect if not paused.
+     */
+    public synchronized void resume() {
+        if (!paused)
+            return;
+        
+        pausedNs += clock.getAsLong() - pauseStartNs;
+        paused = false;
+    }
+    
+    /**
+     * Sets the total number of units.
+     * 
+     * @param total total number of units, <code>-1</code> if unknown
+     */
+    public void setTotal(final long total) {
+        this.total = total;
+    }
+    
+    /**
+     * Returns the total number of units.
+     * 
+     * @return the total number of units, <code>-1</code> if unknown
+     */
+    public long getTotal() {
+        return total;
+    }
+    
+    /**
+     * Reports 1 unit done.
+     */
+    public void advance() {
+        done.incrementAndGet();
+    }
+    
+    /**
+     * Reports the specified units done.
+     * 
+     * @param units number of units done
+     */
+    public void advance(final long units) {
+        done.addAndGet(units);
+    }
+    
+    /**
+     * Returns the number of units done.
+     * 
+     * @return the number of units done
+     */
+    public long getDone() {
+        return done.get();
+    }
+    
+    /**
+     * Returns the active (not paused) time in nanoseconds. Must be called while holding the lock of this.
+     * 
+     * @return the active time in nanoseconds
+     */
+    private long activeNs() {
+        if (!started)
+            return 0;
+        
+        final long now = stopped ? stopNs : paused ? pauseStartNs : clock.getAsLong();
+        return now - startNs - pausedNs;
+    }
+    
+    /**
+     * Returns the active (not paused) time in ms.
+     * 
+     * @return the active time in ms
+     */
+    public synchronized long getActiveTimeMs() {
+        return TimeUnit.NANOSECONDS.toMillis(activeNs());
+    }
+    
+    /**
+     * Updates and returns the rate in units per nanosecond. Must be called while holding the lock of this.
+     * 
+     * @param activeNs the current active time
+     * @param done the current number of units done
+     * @return the rate in units per nanosecond
+     */
+    private double updateRate(final long activeNs, final long done) {
+        final long dt = activeNs - lastRateActiveNs;
+        if (dt >= MIN_RATE_UPDATE_NS) {
+            final double current = (double) (done - lastRateDone) / dt;
+            if (rate < 0)
+                rate = current;
+            else
+                rate += (1 - Math.exp(-dt / (RATE_TIME_CONSTANT_MS * 1e6))) * (current - rate);
+            lastRateActiveNs = activeNs;
+            lastRateDone = done;
+        }
+        
+        if (rate >= 0)
+            return rate;
+        
+        // Not enough time for a proper update yet: use the average so far
+        return activeNs == 0 ? 0 : (double) done / activeNs;
+    }
+    
+    /**
+     * Returns the rate: the EWMA of units done per second of active time.
+     * 
+     * @return the rate in units per second
+     */
+    public synchronized double getRate() {
+        return updateRate(activeNs(), done.get()) * 1e9;
+    }
+    
+    /**
+     * Returns the estimated remaining active time (paused time not included) based on the rate.
+     * 
+     * @return the estimated remaining active time in ms; <code>-1</code> if unknown (total is unknown or the
+     *         rate is <code>0</code>)
+     */
+    public long getEtaMs() {
+        return snapshot().etaMs;
+    }
+    
+    /**
+     * Returns a consistent snapshot of the progress.
+     * 
+     * @return a consistent snapshot of the progress
+     */
+    public synchronized Snapshot snapshot() {
+        final long activeNs = activeNs();
+        final long done = this.done.get();
+        final long total = this.total;
+        final double rate = updateRate(activeNs, done);
+        
+        final long etaMs;
+        if (total < 0)
+            etaMs = -1;
+        else if (done >= total)
+            etaMs = 0;
+        else
+            etaMs = rate > 0 ? (long) ((total - done) / rate / 1e6) : -1;
+        
+        return new Snapshot(done, total, rate * 1e9, etaMs, TimeUnit.NANOSECONDS.toMillis(activeNs), paused);
+    }
+    
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+    
+}
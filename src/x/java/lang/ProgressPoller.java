@@ -0,0 +1,121 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Periodically polls registered {@link Progress}es and passes their snapshots to listeners, e.g. to update
+ * dashboards or log throughput.
+ * 
+ * <p>
+ * A single daemon thread does the polling for all registered progresses; listeners are called from this
+ * thread, so they should be quick. Jobs reporting progress are not affected by the polling.
+ * </p>
+ * 
+ * <p>
+ * Example usage:
+ * 
+ * <pre>
+ * <blockquote style='border:1px solid black'>
+ * final ProgressPoller poller = new ProgressPoller(1, TimeUnit.SECONDS);
+ * poller.add(job.getProgress(), s -&gt; System.out.println(job.getName() + &quot;: &quot; + s));
+ * </blockquote>
+ * </pre>
+ * 
+ * </p>
+ * 
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see Progress
+ */
+public class ProgressPoller {
+    
+    /** {@link Logger} used for logging. */
+    private static final Logger LOGGER = Logger.getLogger(ProgressPoller.class.getName());
+    
+    
+    /** Registered progresses and their listeners. */
+    private final Map<Progress, Consumer<Progress.Snapshot>> listeners = new ConcurrentHashMap<>();
+    
+    /** Executor service of the polling thread. */
+    private final ScheduledExecutorService scheduler;
+    
+    /**
+     * Creates a new {@link ProgressPoller} and starts polling.
+     * 
+     * @param period period of the polling
+     * @param unit time unit of the period
+     */
+    public ProgressPoller(final long period, final TimeUnit unit) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            final NormalThread t = new NormalThread(r, "Progress poller");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(this::poll, period, period, unit);
+    }
+    
+    /**
+     * Registers a progress to be polled.
+     * 
+     * @param progress progress to be polled
+     * @param listener listener to receive the snapshots of the progress
+     */
+    public void add(final Progress progress, final Consumer<Progress.Snapshot> listener) {
+        listeners.put(progress, listener);
+    }
+    
+    /**
+     * Unregisters a progress.
+     * 
+     * @param progress progress to be unregistered
+     */
+    public void remove(final Progress progress) {
+        listeners.remove(progress);
+    }
+    
+    /**
+     * Polls all registered progresses now, and passes their snapshots to their listeners.
+     * 
+     * <p>
+     * Called periodically by the polling thread, but may be called any time. Exceptions thrown by listeners
+     * are logged.
+     * </p>
+     */
+    public void poll() {
+        listeners.forEach((progress, listener) -> {
+            try {
+                listener.accept(progress.snapshot());
+            } catch (final RuntimeException re) {
+                LOGGER.log(Level.WARNING, "Progress listener failed!", re);
+            }
+        });
+    }
+    
+    /**
+     * Stops polling.
+     */
+    public void close() {
+        scheduler.shutdown();
+    }
+    
+}
@@ -0,0 +1,217 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A pluggable source of random data.
+ * 
+ * <p>
+ * Random number generators differ in thread-safety, contention and quality; this class allows utilities to
+ * be parameterized with the one that fits the use case:
+ * </p>
+ * <ul>
+ * <li>{@link #threadLocal()}: uses {@link ThreadLocalRandom}, thread-safe and contention-free; the default
+ * choice if the randomness does not have to be cryptographically strong
+ * <li>{@link #secure()}: uses a {@link SecureRandom} per thread, thread-safe and contention-free;
+ * cryptographically strong
+ * <li>{@link #of(SplittableRandom)}: uses a {@link SplittableRandom}, not thread-safe but fast and
+ * reproducible from a seed
+ * <li>{@link #of(Random)}: uses an arbitrary {@link Random}; thread-safe, but all threads contend on the
+ * same generator
+ * </ul>
+ * 
+ * @author Andras Belicza
+ */
+public abstract class RandomSource {
+    
+    /** Source using {@link ThreadLocalRandom}. */
+    private static final RandomSource THREAD_LOCAL = new RandomSource() {
+        @Override
+        public int nextInt(final int bound) {
+            return ThreadLocalRandom.current().nextInt(bound);
+        }
+        
+        @Override
+        public long nextLong() {
+            return ThreadLocalRandom.current().nextLong();
+        }
+        
+        @Override
+        public double nextDouble() {
+            return ThreadLocalRandom.current().nextDouble();
+        }
+        
+        @Override
+        public void nextBytes(final byte[] bytes) {
+            ThreadLocalRandom.current().nextBytes(bytes);
+        }
+    };
+    
+    /** {@link SecureRandom} is expensive to instantiate, so cache one per thread. */
+    private static final ThreadLocal<SecureRandom> THREAD_SECURE_RANDOM = ThreadLocal
+            .withInitial(SecureRandom::new);
+    
+    /** Source using a {@link SecureRandom} per thread. */
+    private static final RandomSource SECURE = new RandomSource() {
+        @Override
+        public int nextInt(final int bound) {
+            return THREAD_SECURE_RANDOM.get().nextInt(bound);
+        }
+        
+        @Override
+        public long nextLong() {
+            return THREAD_SECURE_RANDOM.get().nextLong();
+        }
+        
+        @Override
+        public double nextDouble() {
+            return THREAD_SECURE_RANDOM.get().nextDouble();
+        }
+        
+        @Override
+        public void nextBytes(final byte[] bytes) {
+            THREAD_SECURE_RANDOM.get().nextBytes(bytes);
+        }
+    };
+    
+    
+    /**
+     * Returns a thread-safe, contention-free source using {@link ThreadLocalRandom}.
+     * 
+     * @return a source using {@link ThreadLocalRandom}
+     */
+    public static RandomSource threadLocal() {
+        return THREAD_LOCAL;
+    }
+    
+    /**
+     * Returns a thread-safe, contention-free source of cryptographically strong random data, using a
+     * {@link SecureRandom} instance per thread.
+     * 
+     * @return a source using a {@link SecureRandom} per thread
+     */
+    public static RandomSource secure() {
+        return SECURE;
+    }
+    
+    /**
+     * Returns a source using the specified {@link Random}.
+     * 
+     * <p>
+     * The source is as thread-safe as the specified {@link Random}.
+     * </p>
+     * 
+     * @param random {@link Random} to be used
+     * @return a source using the specified {@link Random}
+     */
+    public static RandomSource of(final Random random) {
+        return new RandomSource() {
+            @Override
+            public int nextInt(final int bound) {
+                return random.nextInt(bound);
+            }
+            
+            @Override
+            public long nextLong() {
+                return random.nextLong();
+            }
+            
+            @Override
+            public double nextDouble() {
+                return random.nextDouble();
+            }
+            
+            @Override
+            public void nextBytes(final byte[] bytes) {
+                random.nextBytes(bytes);
+            }
+        };
+    }
+    
+    /**
+     * Returns a source using the specified {@link SplittableRandom}.
+     * 
+     * <p>
+     * The returned source is not thread-safe (just like {@link SplittableRandom}); use
+     * {@link SplittableRandom#split()} to create sources for other threads.
+     * </p>
+     * 
+     * @param random {@link SplittableRandom} to be used
+     * @return a source using the specified {@link SplittableRandom}
+     */
+    public static RandomSource of(final SplittableRandom random) {
+        return new RandomSource() {
+            @Override
+            public int nextInt(final int bound) {
+                return random.nextInt(bound);
+            }
+            
+            @Override
+            public long nextLong() {
+                return random.nextLong();
+            }
+            
+            @Override
+            public double nextDouble() {
+                return random.nextDouble();
+            }
+        };
+    }
+    
+    /**
+     * Returns a random <code>int</code> in the range of <code>0..bound-1</code>.
+     * 
+     * @param bound the upper bound (exclusive)
+     * @return a random <code>int</code> in the range of <code>0..bound-1</code>
+     * 
+     * @throws IllegalArgumentException if <code>bound</code> is not positive
+     */
+    public abstract int nextInt(int bound);
+    
+    /**
+     * Returns a random <code>long</code>.
+     * 
+     * @return a random <code>long</code>
+     */
+    public abstract long nextLong();
+    
+    /**
+     * Returns a random <code>double</code> in the range of <code>[0..1)</code>.
+     * 
+     * @return a random <code>double</code> in the range of <code>[0..1)</code>
+     */
+    public abstract double nextDouble();
+    
+    /**
+     * Fills the specified byte array with random bytes.
+     * 
+     * <p>
+     * This implementation uses 8 bytes of each {@link #nextLong()}.
+     * </p>
+     * 
+     * @param bytes byte array to be filled
+     */
+    public void nextBytes(final byte[] bytes) {
+        int i = 0;
+        for (final int end = bytes.length & ~7; i < end;)
+            for (long r = nextLong(), n = 8; n-- > 0; r >>>= 8)
+                bytes[i++] = (byte) r;
+        
+        if (i < bytes.length)
+            for (long r = nextLong(); i < bytes.length; r >>>= 8)
+                bytes[i++] = (byte) r;
+    }
+    
+}
@@ -75,9 +75,13 @@ public class Ref<T> implements Cloneable, Serializable {
         return Objects.equals(value, ((Ref<?>) o).value);
     }
     
+    /**
+     * Returns the same hash code as <code>Objects.hash(value)</code> would, but without allocating a varargs
+     * array.
+     */
     @Override
     public int hashCode() {
-        return Objects.hash(value);
+        return 31 + Objects.hashCode(value);
     }
     
     /**
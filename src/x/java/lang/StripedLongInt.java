@@ -0,0 +1,111 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe, striped <code>long</code> counter for high-contention increments.
+ * 
+ * <p>
+ * Updates from different threads are spread over multiple cells (backed by a {@link LongAdder}), so
+ * increments scale with the number of threads; the price is that reading the value has to sum the cells.
+ * Because of this, there are no <code>incAndGet()</code>-like methods which would return the new value,
+ * updates are write-only. Use {@link AtomicLongInt} if the new value is needed on each update.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see LongInt
+ * @see AtomicLongInt
+ */
+public class StripedLongInt implements Serializable {
+    
+    /** */
+    private static final long serialVersionUID = 1L;
+    
+    /** The striped cells. */
+    private final LongAdder adder = new LongAdder();
+    
+    /**
+     * Creates a new {@link StripedLongInt}.
+     */
+    public StripedLongInt() {
+    }
+    
+    /**
+     * Creates a new {@link StripedLongInt}.
+     * 
+     * @param value initial value
+     */
+    public StripedLongInt(final long value) {
+        adder.add(value);
+    }
+    
+    /**
+     * Returns the current value.
+     * 
+     * <p>
+     * The returned value is not an atomic snapshot if there are concurrent updates.
+     * </p>
+     * 
+     * @return the current value
+     */
+    public long get() {
+        return adder.sum();
+    }
+    
+    /**
+     * Increments the value by <code>1</code>.
+     */
+    public void inc() {
+        adder.increment();
+    }
+    
+    /**
+     * Adds the specified amount to the value.
+     * 
+     * @param amount to be added to the value
+     */
+    public void add(final long amount) {
+        adder.add(amount);
+    }
+    
+    /**
+     * Resets the value to zero.
+     * 
+     * <p>
+     * Only effective if there are no concurrent updates.
+     * </p>
+     */
+    public void reset() {
+        adder.reset();
+    }
+    
+    /**
+     * Returns the current value and resets it to zero.
+     * 
+     * <p>
+     * Updates concurrent with this call might be lost or counted after the reset.
+     * </p>
+     * 
+     * @return the value before the reset
+     */
+    public long getAndReset() {
+        return adder.sumThenReset();
+    }
+    
+    @Override
+    public String toString() {
+        return Long.toString(get());
+    }
+    
+}
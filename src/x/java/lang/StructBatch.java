@@ -0,0 +1,860 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoublePredicate;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+
+/**
+ * A columnar batch of key-value structures sharing a {@link StructShape}.
+ * 
+ * <p>
+ * The values of each path of the shape are stored in a column: a primitive array (<code>int[]</code>,
+ * <code>long[]</code>, <code>double[]</code>), dictionary-encoded strings (<code>int</code> codes and a
+ * dictionary), or an <code>Object[]</code> for other values. A validity bitmap per column tells which values
+ * are not <code>null</code>. The type of a column is inferred from its values at ingestion:
+ * </p>
+ * <ul>
+ * <li>{@link ColumnType#INT}: all values are {@link Integer}s, {@link Short}s or {@link Byte}s
+ * <li>{@link ColumnType#LONG}: all values are integral numbers, at least one {@link Long}
+ * <li>{@link ColumnType#DOUBLE}: all values are numbers, at least one {@link Float} or {@link Double}
+ * <li>{@link ColumnType#STRING}: all values are {@link String}s
+ * <li>{@link ColumnType#OBJECT}: anything else
+ * </ul>
+ * 
+ * <p>
+ * Scan, filter and aggregate methods work on the primitive arrays directly. The row streams returned by the
+ * filter methods can be turned {@link IntStream#parallel() parallel}, the batch is immutable after creation.
+ * Rows can also be accessed with a {@link Cursor} which provides {@link StructView}-like access.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see StructShape
+ */
+public class StructBatch implements Serializable {
+    
+    /** */
+    private static final long serialVersionUID = 1L;
+    
+    /**
+     * Column type.
+     * 
+     * @author Andras Belicza
+     */
+    public enum ColumnType {
+        
+        /** <code>int</code> values. */
+        INT,
+        
+        /** <code>long</code> values. */
+        LONG,
+        
+        /** <code>double</code> values. */
+        DOUBLE,
+        
+        /** Dictionary-encoded {@link String} values. */
+        STRING,
+        
+        /** Arbitrary object values. */
+        OBJECT;
+    
+    }
+    
+    /**
+     * A column of the batch. Only the array of the column type is used.
+     * 
+     * @author Andras Belicza
+     */
+    private static final class Column implements Serializable {
+        
+        /** */
+        private static final long serialVersionUID = 1L;
+        
+        /** Type of the column. */
+        final ColumnType type;
+        
+        /** Validity bitmap, bits of non-<code>null</code> values are set. */
+        final long[] valid;
+        
+        /** Values of an {@link ColumnType#INT} column, codes of a {@link ColumnType#STRING} column. */
+        int[] ints;
+        
+        /** Values of a {@link ColumnType#LONG} column. */
+        long[] longs;
+        
+        /** Values of a {@link ColumnType#DOUBLE} column. */
+        double[] doubles;
+        
+        /** Values of an {@link ColumnType#OBJECT} column. */
+        Object[] objects;
+        
+        /** Dictionary of a {@link ColumnType#STRING} column. */
+        String[] dictionary;
+        
+        /**
+         * Creates a new {@link StructBatch.Column}.
+         * 
+         * @param type type of the column
+         * @param size number of rows
+         */
+        Column(final ColumnType type, final int size) {
+            this.type = type;
+            valid = new long[(size + 63) >>> 6];
+        }
+    
+    }
+    
+    
+    /** Shape of the structures. */
+    private final StructShape shape;
+    
+    /** Number of rows. */
+    private final int size;
+    
+    /** The columns, indexed by slot. */
+    private final Column[] columns;
+    
+    /**
+     * Creates a new {@link StructBatch}.
+     * 
+     * @param shape shape of the structures, columns are the slots of the shape
+     * @param structs structures to ingest
+     */
+    public StructBatch(final StructShape shape, final List<? extends Map<String, Object>> structs) {
+        this.shape = shape;
+        size = structs.size();
+        
+        final Object[][] rows = new Object[size][];
+        for (int i = 0; i < size; i++)
+            rows[i] = shape.flatten(structs.get(i));
+        
+        columns = new Column[shape.size()];
+        for (int col = 0; col < columns.length; col++)
+            columns[col] = buildColumn(rows, col);
+    }
+    
+    /**
+     * Creates a new {@link StructBatch}.
+     * 
+     * @param structs structures to ingest
+     * @param paths dot separated paths of the columns, e.g. <code>"a.b.c"</code>
+     * @return the new batch
+     * 
+     * @see StructShape#of(String...)
+     */
+    public static StructBatch of(final List<? extends Map<String, Object>> structs, final String... paths) {
+        return new StructBatch(StructShape.of(paths), structs);
+    }
+    
+    /**
+     * Builds a column from the flattened rows.
+     * 
+     * @param rows flattened rows
+     * @param col index of the column to build
+     * @return the built column
+     */
+    private static Column buildColumn(final Object[][] rows, final int col) {
+        final Column c = new Column(inferType(rows, col), rows.length);
+        
+        switch (c.type) {
+        case INT:
+            c.ints = new int[rows.length];
+            break;
+        case LONG:
+            c.longs = new long[rows.length];
+            break;
+        case DOUBLE:
+            c.doubles = new double[rows.length];
+            break;
+        case STRING:
+            c.ints = new int[rows.length];
+            break;
+        default:
+            c.objects = new Object[rows.length];
+            break;
+        }
+        
+        final Map<String, Integer> codes = c.type == ColumnType.STRING ? new HashMap<>() : null;
+        for (int row = 0; row < rows.length; row++) {
+            final Object value = rows[row][col];
+            if (value == null)
+                continue;
+            
+            c.valid[row >>> 6] |= 1L << row;
+            switch (c.type) {
+            case INT:
+                c.ints[row] = ((Number) value).intValue();
+                break;
+            case LONG:
+                c.longs[row] = ((Number) value).longValue();
+                break;
+            case DOUBLE:
+                c.doubles[row] = ((Number) value).doubleValue();
+                break;
+            case STRING:
+                Integer code = codes.get(value);
+                if (code == null)
+                    codes.put((String) value, code = codes.size());
+                c.ints[row] = code;
+                break;
+            default:
+                c.objects[row] = value;
+                break;
+            }
+        }
+        
+        if (codes != null) {
+            c.dictionary = new String[codes.size()];
+            for (final Map.Entry<String, Integer> entry : codes.entrySet())
+                c.dictionary[entry.getValue()] = entry.getKey();
+        }
+        
+        return c;
+    }
+    
+    /**
+     * Infers the type of a column from its values.
+     * 
+     * @param rows flattened rows
+     * @param col index of the column
+     * @return the inferred type of the column
+     */
+    private static ColumnType inferType(final Object[][] rows, final int col) {
+        ColumnType type = null;
+        
+        for (final Object[] row : rows) {
+            final Object value = row[col];
+            final ColumnType t;
+            if (value == null)
+                continue;
+            else if (value instanceof Integer || value instanceof Short || value instanceof Byte)
+                t = ColumnType.INT;
+            else if (value instanceof Long)
+                t = ColumnType.LONG;
+            else if (value instanceof Double || value instanceof Float)
+                t = ColumnType.DOUBLE;
+            else if (value instanceof String)
+                t = ColumnType.STRING;
+            else
+                return ColumnType.OBJECT;
+            
+            if (type == null || type == t)
+                type = t;
+            else if (type == ColumnType.STRING || t == ColumnType.STRING)
+                return ColumnType.OBJECT;
+            else
+                // Numeric types: widen (INT < LONG < DOUBLE)
+                type = type.ordinal() > t.ordinal() ? type : t;
+        }
+        
+        // All values are null
+        return type == null ? ColumnType.OBJECT : type;
+    }
+    
+    /**
+     * Returns the shape of the structures.
+     * 
+     * @return the shape of the structures
+     */
+    public StructShape getShape() {
+        return shape;
+    }
+    
+    /**
+     * Returns the number of rows.
+     * 
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Returns the index of the column of the specified path.
+     * 
+     * @param path path of the column
+     * @return the index of the column of the specified path; or <code>-1</code> if the path is not part of
+     *         the shape
+     */
+    public int getColumn(final StructPath path) {
+        return shape.getSlot(path);
+    }
+    
+    /**
+     * Returns the type of the specified column.
+     * 
+     * @param col index of the column
+     * @return the type of the specified column
+     */
+    public ColumnType getType(final int col) {
+        return columns[col].type;
+    }
+    
+    /**
+     * Tells if the value of the specified column in the specified row is <code>null</code>.
+     * 
+     * @param col index of the column
+     * @param row index of the row
+     * @return true if the value is <code>null</code>; false otherwise
+     */
+    public boolean isNull(final int col, final int row) {
+        return (columns[col].valid[row >>> 6] & 1L << row) == 0;
+    }
+    
+    /**
+     * Returns the <code>int</code> value of an {@link ColumnType#INT} column.
+     * 
+     * @param col index of the column
+     * @param row index of the row
+     * @return the value; <code>0</code> if the value is <code>null</code>
+     * 
+     * @throws IllegalStateException if the column is not an {@link ColumnType#INT} column
+     */
+    public int getInt(final int col, final int row) throws IllegalStateException {
+        return checkedColumn(col, ColumnType.INT).ints[row];
+    }
+    
+    /**
+     * Returns the <code>long</code> value of an {@link ColumnType#INT} or {@link ColumnType#LONG} column.
+     * 
+     * @param col index of the column
+     * @param row index of the row
+     * @return the value; <code>0</code> if the value is <code>null</code>
+     * 
+     * @throws IllegalStateException if the column is not an integral column
+     */
+    public long getLong(final int col, final int row) throws IllegalStateException {
+        final Column c = columns[col];
+        switch (c.type) {
+        case INT:
+            return c.ints[row];
+        case LONG:
+            return c.longs[row];
+        default:
+            throw new IllegalStateException("Not an integral column: " + shape.getPath(col));
+        }
+    }
+    
+    /**
+     * Returns the <code>double</code> value of a numeric column.
+     * 
+     * @param col index of the column
+     * @param row index of the row
+     * @return the value; <code>0</code> if the value is <code>null</code>
+     * 
+     * @throws IllegalStateException if the column is not a numeric column
+     */
+    public double getDouble(final int col, final int row) throws IllegalStateException {
+        final Column c = columns[col];
+        switch (c.type) {
+        case INT:
+            return c.ints[row];
+        case LONG:
+            return c.longs[row];
+        case DOUBLE:
+            return c.doubles[row];
+        default:
+            throw new IllegalStateException("Not a numeric column: " + shape.getPath(col));
+        }
+    }
+    
+    /**
+     * Returns the value of a {@link ColumnType#STRING} column.
+     * 
+     * @param col index of the column
+     * @param row index of the row
+     * @return the value; may be <code>null</code>
+     * 
+     * @throws IllegalStateException if the column is not a {@link ColumnType#STRING} column
+     */
+    public String getString(final int col, final int row) throws IllegalStateException {
+        final Column c = checkedColumn(col, ColumnType.STRING);
+        return isNull(col, row) ? null : c.dictionary[c.ints[row]];
+    }
+    
+    /**
+     * Returns the dictionary code of the value of a {@link ColumnType#STRING} column.
+     * 
+     * @param col index of the column
+     * @param row index of the row
+     * @return the dictionary code of the value; <code>-1</code> if the value is <code>null</code>
+     * 
+     * @throws IllegalStateException if the column is not a {@link ColumnType#STRING} column
+     * 
+     * @see #getDictionary(int)
+     */
+    public int getStringCode(final int col, final int row) throws IllegalStateException {
+        final Column c = checkedColumn(col, ColumnType.STRING);
+        return isNull(col, row) ? -1 : c.ints[row];
+    }
+    
+    /**
+     * Returns the dictionary of a {@link ColumnType#STRING} column.
+     * 
+     * @param col index of the column
+     * @return the dictionary in a new array, indexed by the codes
+     * 
+     * @throws IllegalStateException if the column is not a {@link ColumnType#STRING} column
+     */
+    public String[] getDictionary(final int col) throws IllegalStateException {
+        return checkedColumn(col, ColumnType.STRING).dictionary.clone();
+    }
+    
+    /**
+     * Returns the value of the specified column in the specified row, boxed if the column is primitive.
+     * 
+     * @param <T> (expected) type of the value
+     * @param col index of the column
+     * @param row index of the row
+     * @return the value; may be <code>null</code>
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(final int col, final int row) {
+        if (isNull(col, row))
+            return null;
+        
+        final Column c = columns[col];
+        switch (c.type) {
+        case INT:
+            return (T) Integer.valueOf(c.ints[row]);
+        case LONG:
+            return (T) Long.valueOf(c.longs[row]);
+        case DOUBLE:
+            return (T) Double.valueOf(c.doubles[row]);
+        case STRING:
+            return (T) c.dictionary[c.ints[row]];
+        default:
+            return (T) c.objects[row];
+        }
+    }
+    
+    /**
+     * Returns the specified column, checking its type.
+     * 
+     * @param col index of the column
+     * @param type expected type of the column
+     * @return the specified column
+     * 
+     * @throws IllegalStateException if the column is not of the expected type
+     */
+    private Column checkedColumn(final int col, final ColumnType type) throws IllegalStateException {
+        final Column c = columns[col];
+        if (c.type != type)
+            throw new IllegalStateException("Not " + type + " column: " + shape.getPath(col));
+        return c;
+    }
+    
+    /**
+     * Returns the number of non-<code>null</code> values in the specified column.
+     * 
+     * @param col index of the column
+     * @return the number of non-<code>null</code> values in the specified column
+     */
+    public int count(final int col) {
+        int count = 0;
+        for (final long bits : columns[col].valid)
+            count += Long.bitCount(bits);
+        return count;
+    }
+    
+    /**
+     * Returns the sum of the non-<code>null</code> values of a numeric column.
+     * 
+     * @param col index of the column
+     * @return the sum of the non-<code>null</code> values of the specified column
+     * 
+     * @throws IllegalStateException if the column is not a numeric column
+     */
+    public double sum(final int col) throws IllegalStateException {
+        // Null values are stored as 0, no need to check validity
+        final Column c = columns[col];
+        switch (c.type) {
+        case INT: {
+            long sum = 0;
+            for (final int v : c.ints)
+                sum += v;
+            return sum;
+        }
+        case LONG: {
+            long sum = 0;
+            for (final long v : c.longs)
+                sum += v;
+            return sum;
+        }
+        case DOUBLE: {
+            double sum = 0;
+            for (final double v : c.doubles)
+                sum += v;
+            return sum;
+        }
+        default:
+            throw new IllegalStateException("Not a numeric column: " + shape.getPath(col));
+        }
+    }
+    
+    /**
+     * Returns a stream of the non-<code>null</code> values of a numeric column.
+     * 
+     * <p>
+     * The stream can be turned {@link DoubleStream#parallel() parallel}; use e.g.
+     * {@link DoubleStream#summaryStatistics()} for min, max and average.
+     * </p>
+     * 
+     * @param col index of the column
+     * @return a stream of the non-<code>null</code> values of the specified column
+     * 
+     * @throws IllegalStateException if the column is not a numeric column
+     */
+    public DoubleStream doubles(final int col) throws IllegalStateException {
+        final Column c = columns[col];
+        switch (c.type) {
+        case INT:
+            return validRows(col).mapToDouble(row -> c.ints[row]);
+        case LONG:
+            return validRows(col).mapToDouble(row -> c.longs[row]);
+        case DOUBLE:
+            return validRows(col).mapToDouble(row -> c.doubles[row]);
+        default:
+            throw new IllegalStateException("Not a numeric column: " + shape.getPath(col));
+        }
+    }
+    
+    /**
+     * Returns a sequential stream of all row indices.
+     * 
+     * @return a sequential stream of all row indices
+     */
+    public IntStream rows() {
+        return IntStream.range(0, size);
+    }
+    
+    /**
+     * Returns a sequential stream of the indices of the rows where the specified column is not
+     * <code>null</code>.
+     * 
+     * @param col index of the column
+     * @return a sequential stream of the row indices where the specified column is not <code>null</code>
+     */
+    public IntStream validRows(final int col) {
+        final long[] valid = columns[col].valid;
+        return rows().filter(row -> (valid[row >>> 6] & 1L << row) != 0);
+    }
+    
+    /**
+     * Returns a sequential stream of the indices of the rows where the <code>int</code> value of the
+     * specified column is not <code>null</code> and matches the specified predicate.
+     * 
+     * @param col index of the column
+     * @param predicate predicate to test the values
+     * @return a sequential stream of the indices of the matching rows
+     * 
+     * @throws IllegalStateException if the column is not an {@link ColumnType#INT} column
+     */
+    public IntStream filterInt(final int col, final IntPredicate predicate) throws IllegalStateException {
+        final int[] ints = checkedColumn(col, ColumnType.INT).ints;
+        return validRows(col).filter(row -> predicate.test(ints[row]));
+    }
+    
+    /**
+     * Returns a sequential stream of the indices of the rows where the <code>long</code> value of the
+     * specified column is not <code>null</code> and matches the specified predicate.
+     * 
+     * @param col index of the column
+     * @param predicate predicate to test the values
+     * @return a sequential stream of the indices of the matching rows
+     * 
+     * @throws IllegalStateException if the column is not an integral column
+     */
+    public IntStream filterLong(final int col, final LongPredicate predicate) throws IllegalStateException {
+        final Column c = columns[col];
+        switch (c.type) {
+        case INT:
+            return validRows(col).filter(row -> predicate.test(c.ints[row]));
+        case LONG:
+            return validRows(col).filter(row -> predicate.test(c.longs[row]));
+        default:
+            throw new IllegalStateException("Not an integral column: " + shape.getPath(col));
+        }
+    }
+    
+    /**
+     * Returns a sequential stream of the indices of the rows where the <code>double</code> value of the
+     * specified column is not <code>null</code> and matches the specified predicate.
+     * 
+     * @param col index of the column
+     * @param predicate predicate to test the values
+     * @return a sequential stream of the indices of the matching rows
+     * 
+     * @throws IllegalStateException if the column is not a numeric column
+     */
+    public IntStream filterDouble(final int col, final DoublePredicate predicate)
+            throws IllegalStateException {
+        final Column c = columns[col];
+        switch (c.type) {
+        case INT:
+            return validRows(col).filter(row -> predicate.test(c.ints[row]));
+        case LONG:
+            return validRows(col).filter(row -> predicate.test(c.longs[row]));
+        case DOUBLE:
+            return validRows(col).filter(row -> predicate.test(c.doubles[row]));
+        default:
+            throw new IllegalStateException("Not a numeric column: " + shape.getPath(col));
+        }
+    }
+    
+    /**
+     * Returns a sequential stream of the indices of the rows where the value of the specified
+     * {@link ColumnType#STRING} column is not <code>null</code> and matches the specified predicate.
+     * 
+     * <p>
+     * The predicate is only evaluated once for each distinct value (dictionary entry), rows are matched by
+     * their codes.
+     * </p>
+     * 
+     * @param col index of the column
+     * @param predicate predicate to test the values
+     * @return a sequential stream of the indices of the matching rows
+     * 
+     * @throws IllegalStateException if the column is not a {@link ColumnType#STRING} column
+     */
+    public IntStream filterString(final int col, final Predicate<? super String> predicate)
+            throws IllegalStateException {
+        final Column c = checkedColumn(col, ColumnType.STRING);
+        
+        final boolean[] matches = new boolean[c.dictionary.length];
+        for (int i = 0; i < matches.length; i++)
+            matches[i] = predicate.test(c.dictionary[i]);
+        
+        final int[] codes = c.ints;
+        return validRows(col).filter(row -> matches[codes[row]]);
+    }
+    
+    /**
+     * Returns a new cursor positioned before the first row.
+     * 
+     * @return a new cursor positioned before the first row
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+    
+    /**
+     * Materializes the specified row as a {@link StructView} of nested maps.
+     * 
+     * <p>
+     * Only the paths of the shape are included, <code>null</code> values are omitted.
+     * </p>
+     * 
+     * @param row index of the row
+     * @return the row as a {@link StructView}
+     */
+    @SuppressWarnings("unchecked")
+    public StructView toStructView(final int row) {
+        final Map<String, Object> struct = new HashMap<>();
+        
+        for (int col = 0; col < columns.length; col++) {
+            final Object value = get(col, row);
+            if (value == null)
+                continue;
+            
+            final StructPath path = shape.getPath(col);
+            Map<String, Object> m = struct;
+            for (int i = 0; i < path.length() - 1; i++) {
+                Object child = m.get(path.getName(i));
+                if (!(child instanceof Map))
+                    m.put(path.getName(i), child = new HashMap<>());
+                m = (Map<String, Object>) child;
+            }
+            // Don't overwrite a map created for longer paths
+            m.putIfAbsent(path.getName(path.length() - 1), value);
+        }
+        
+        return new StructView(struct);
+    }
+    
+    
+    /**
+     * A cursor over the rows of the batch.
+     * 
+     * <p>
+     * Provides {@link StructView}-like access to the current row without materializing it. A cursor is not
+     * thread-safe, use a separate cursor in each thread.
+     * </p>
+     * 
+     * @author Andras Belicza
+     */
+    public final class Cursor {
+        
+        /** Index of the current row. */
+        private int row = -1;
+        
+        /**
+         * Creates a new {@link StructBatch.Cursor}.
+         */
+        Cursor() {
+        }
+        
+        /**
+         * Moves the cursor to the next row.
+         * 
+         * @return true if the cursor moved to the next row; false if there are no more rows
+         */
+        public boolean next() {
+            if (row + 1 >= size)
+                return false;
+            row++;
+            return true;
+        }
+        
+        /**
+         * Moves the cursor to the specified row.
+         * 
+         * @param row index of the row to move to
+         * 
+         * @throws IndexOutOfBoundsException if row is out of range
+         */
+        public void moveTo(final int row) throws IndexOutOfBoundsException {
+            if (row < 0 || row >= size)
+                throw new IndexOutOfBoundsException("Invalid row: " + row);
+            this.row = row;
+        }
+        
+        /**
+         * Returns the index of the current row.
+         * 
+         * @return the index of the current row
+         */
+        public int getRow() {
+            return row;
+        }
+        
+        /**
+         * Returns the value of the specified column in the current row.
+         * 
+         * @param <T> (expected) type of the value
+         * @param col index of the column
+         * @return the value of the specified column in the current row
+         */
+        public <T> T get(final int col) {
+            return StructBatch.this.get(col, row);
+        }
+        
+        /**
+         * Returns the value of the field specified by its path in the current row.
+         * 
+         * @param <T> (expected) type of the value
+         * @param path path of the field
+         * @return the value of the field specified by its path in the current row
+         * 
+         * @throws IllegalArgumentException if the path is not part of the shape
+         */
+        public <T> T get(final StructPath path) throws IllegalArgumentException {
+            final int col = shape.getSlot(path);
+            if (col < 0)
+                throw new IllegalArgumentException("Path is not part of the shape: " + path);
+            return get(col);
+        }
+        
+        /**
+         * Returns the value of the field specified by its path in the current row.
+         * 
+         * @param <T> (expected) type of the value
+         * @param path path of the field
+         * @return the value of the field specified by its path in the current row
+         * 
+         * @throws IllegalArgumentException if the path is not part of the shape
+         * 
+         * @see StructView#get(String...)
+         */
+        public <T> T get(final String... path) throws IllegalArgumentException {
+            return get(new StructPath(path));
+        }
+        
+        /**
+         * Tells if the value of the specified column in the current row is <code>null</code>.
+         * 
+         * @param col index of the column
+         * @return true if the value is <code>null</code>; false otherwise
+         */
+        public boolean isNull(final int col) {
+            return StructBatch.this.isNull(col, row);
+        }
+        
+        /**
+         * Returns the <code>int</code> value of the specified column in the current row.
+         * 
+         * @param col index of the column
+         * @return the <code>int</code> value of the specified column in the current row
+         * 
+         * @see StructBatch#getInt(int, int)
+         */
+        public int getInt(final int col) {
+            return StructBatch.this.getInt(col, row);
+        }
+        
+        /**
+         * Returns the <code>long</code> value of the specified column in the current row.
+         * 
+         * @param col index of the column
+         * @return the <code>long</code> value of the specified column in the current row
+         * 
+         * @see StructBatch#getLong(int, int)
+         */
+        public long getLong(final int col) {
+            return StructBatch.this.getLong(col, row);
+        }
+        
+        /**
+         * Returns the <code>double</code> value of the specified column in the current row.
+         * 
+         * @param col index of the column
+         * @return the <code>double</code> value of the specified column in the current row
+         * 
+         * @see StructBatch#getDouble(int, int)
+         */
+        public double getDouble(final int col) {
+            return StructBatch.this.getDouble(col, row);
+        }
+        
+        /**
+         * Returns the {@link String} value of the specified column in the current row.
+         * 
+         * @param col index of the column
+         * @return the {@link String} value of the specified column in the current row
+         * 
+         * @see StructBatch#getString(int, int)
+         */
+        public String getString(final int col) {
+            return StructBatch.this.getString(col, row);
+        }
+        
+        /**
+         * Materializes the current row as a {@link StructView}.
+         * 
+         * @return the current row as a {@link StructView}
+         * 
+         * @see StructBatch#toStructView(int)
+         */
+        public StructView toStructView() {
+            return StructBatch.this.toStructView(row);
+        }
+    
+    }
+    
+}
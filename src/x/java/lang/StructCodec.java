@@ -0,0 +1,612 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import x.java.io.IOUtils;
+
+/**
+ * A compact binary codec of key-value structures, whose decoded form is decoded lazily.
+ * 
+ * <p>
+ * The decoded structure ({@link #decode(byte[])}) is an unmodifiable {@link Map} backed by the encoded bytes
+ * (no copy is made): only the values of the fields actually looked up are decoded (and cached), nested
+ * structures are decoded lazily too. So a {@link StructView} over it ({@link #view(byte[])}) decodes only the
+ * fields on the requested paths.
+ * </p>
+ * 
+ * <p>
+ * Supported values are: <code>null</code>, {@link Boolean}, {@link Integer}, {@link Long}, {@link Double},
+ * {@link String}, <code>byte[]</code>, {@link Map}s with {@link String} keys (nested structures),
+ * {@link List}s of supported values, and any other {@link Serializable} value (stored with standard Java
+ * serialization).
+ * </p>
+ * 
+ * <p>
+ * Format: a structure is a field count followed by the fields, a field is a key followed by a value, a value
+ * is a tag byte followed by the value data. Counts and lengths are stored as unsigned variable-length
+ * integers, strings as UTF-8, numbers as big-endian. Variable-length values are length-prefixed so they can
+ * be skipped without decoding.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see StructView
+ */
+public final class StructCodec {
+    
+    /** Tag of <code>null</code>. */
+    private static final byte TAG_NULL = 0;
+    
+    /** Tag of {@link Boolean#TRUE}. */
+    private static final byte TAG_TRUE = 1;
+    
+    /** Tag of {@link Boolean#FALSE}. */
+    private static final byte TAG_FALSE = 2;
+    
+    /** Tag of an {@link Integer}. */
+    private static final byte TAG_INT = 3;
+    
+    /** Tag of a {@link Long}. */
+    private static final byte TAG_LONG = 4;
+    
+    /** Tag of a {@link Double}. */
+    private static final byte TAG_DOUBLE = 5;
+    
+    /** Tag of a {@link String}. */
+    private static final byte TAG_STRING = 6;
+    
+    /** Tag of a nested structure. */
+    private static final byte TAG_STRUCT = 7;
+    
+    /** Tag of a <code>byte[]</code>. */
+    private static final byte TAG_BYTES = 8;
+    
+    /** Tag of a {@link List}. */
+    private static final byte TAG_LIST = 9;
+    
+    /** Tag of a value stored with Java serialization. */
+    private static final byte TAG_SERIALIZED = 10;
+    
+    /**
+     * No instantiation.
+     */
+    private StructCodec() {
+    }
+    
+    /**
+     * Encodes the specified structure.
+     * 
+     * @param struct structure to be encoded
+     * @return the encoded bytes
+     * 
+     * @throws IllegalArgumentException if the structure contains a value which is not supported
+     */
+    public static byte[] encode(final Map<String, ?> struct) throws IllegalArgumentException {
+        final Writer w = new Writer();
+        w.writeStruct(struct);
+        return Arrays.copyOf(w.buf, w.size);
+    }
+    
+    /**
+     * Returns a lazily decoded, unmodifiable structure backed by the specified encoded bytes.
+     * 
+     * <p>
+     * The array is not copied, it must not be modified afterwards.
+     * </p>
+     * 
+     * @param data encoded bytes of a structure
+     * @return a lazily decoded structure
+     * 
+     * @see #encode(Map)
+     */
+    public static Map<String, Object> decode(final byte[] data) {
+        return new LazyStruct(data, 0, data.length);
+    }
+    
+    /**
+     * Returns a {@link StructView} over a lazily decoded structure backed by the specified encoded bytes.
+     * 
+     * @param data encoded bytes of a structure
+     * @return a {@link StructView} over a lazily decoded structure
+     * 
+     * @see #decode(byte[])
+     */
+    public static StructView view(final byte[] data) {
+        return new StructView(decode(data));
+    }
+    
+    
+    /**
+     * Growable byte buffer which encodes values.
+     * 
+     * @author Andras Belicza
+     */
+    private static final class Writer {
+        
+        /** The buffer. */
+        byte[] buf = new byte[256];
+        
+        /** Number of bytes written. */
+        int size;
+        
+        /**
+         * Ensures the specified number of bytes can be written.
+         * 
+         * @param count number of bytes to be written
+         */
+        void ensure(final int count) {
+            if (size + count > buf.length)
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + count));
+        }
+        
+        /**
+         * Writes a byte.
+         * 
+         * @param b byte to be written
+         */
+        void write(final int b) {
+            ensure(1);
+            buf[size++] = (byte) b;
+        }
+        
+        /**
+         * Writes bytes.
+         * 
+         * @param bytes bytes to be written
+         */
+        void write(final byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, size, bytes.length);
+            size += bytes.length;
+        }
+        
+        /**
+         * Writes an unsigned variable-length integer.
+         * 
+         * @param v value to be written
+         */
+        void writeVarint(int v) {
+            while ((v & ~0x7f) != 0) {
+                write(v & 0x7f | 0x80);
+                v >>>= 7;
+            }
+            write(v);
+        }
+        
+        /**
+         * Writes a big-endian <code>long</code>.
+         * 
+         * @param v value to be written
+         * @param bytes number of low-order bytes to write
+         */
+        void writeFixed(final long v, final int bytes) {
+            ensure(bytes);
+            for (int shift = (bytes - 1) * 8; shift >= 0; shift -= 8)
+                buf[size++] = (byte) (v >>> shift);
+        }
+        
+        /**
+         * Writes length-prefixed bytes.
+         * 
+         * @param bytes bytes to be written
+         */
+        void writeBytes(final byte[] bytes) {
+            writeVarint(bytes.length);
+            write(bytes);
+        }
+        
+        /**
+         * Writes a structure (without a tag).
+         * 
+         * @param struct structure to be written
+         */
+        void writeStruct(final Map<?, ?> struct) {
+            writeVarint(struct.size());
+            for (final Map.Entry<?, ?> entry : struct.entrySet()) {
+                if (!(entry.getKey() instanceof String))
+                    throw new IllegalArgumentException("Keys must be non-null strings: " + entry.getKey());
+                writeBytes(((String) entry.getKey()).getBytes(StandardCharsets.UTF_8));
+                writeValue(entry.getValue());
+            }
+        }
+        
+        /**
+         * Writes a tagged value.
+         * 
+         * @param value value to be written
+         */
+        void writeValue(final Object value) {
+            if (value == null)
+                write(TAG_NULL);
+            else if (value instanceof Boolean)
+                write((Boolean) value ? TAG_TRUE : TAG_FALSE);
+            else if (value instanceof Integer) {
+                write(TAG_INT);
+                writeFixed((Integer) value, 4);
+            } else if (value instanceof Long) {
+                write(TAG_LONG);
+                writeFixed((Long) value, 8);
+            } else if (value instanceof Double) {
+                write(TAG_DOUBLE);
+                writeFixed(Double.doubleToRawLongBits((Double) value), 8);
+            } else if (value instanceof String) {
+                write(TAG_STRING);
+                writeBytes(((String) value).getBytes(StandardCharsets.UTF_8));
+            } else if (value instanceof byte[]) {
+                write(TAG_BYTES);
+                writeBytes((byte[]) value);
+            } else if (value instanceof Map) {
+                write(TAG_STRUCT);
+                writeLengthPrefixed(() -> writeStruct((Map<?, ?>) value));
+            } else if (value instanceof List) {
+                write(TAG_LIST);
+                writeLengthPrefixed(() -> {
+                    final List<?> list = (List<?>) value;
+                    writeVarint(list.size());
+                    for (final Object element : list)
+                        writeValue(element);
+                });
+            } else if (value instanceof Serializable) {
+                final byte[] bytes = IOUtils.serialize((Serializable) value);
+                if (bytes == null)
+                    throw new IllegalArgumentException("Value is not serializable: " + value.getClass());
+                write(TAG_SERIALIZED);
+                writeBytes(bytes);
+            } else
+                throw new IllegalArgumentException("Unsupported value: " + value.getClass());
+        }
+        
+        /**
+         * Writes a length-prefixed section: encodes the section into a separate writer to know its length.
+         * 
+         * @param section writes the section
+         */
+        void writeLengthPrefixed(final Runnable section) {
+            final byte[] outerBuf = buf;
+            final int outerSize = size;
+            
+            buf = new byte[64];
+            size = 0;
+            section.run();
+            final byte[] sectionBuf = buf;
+            final int sectionSize = size;
+            
+            buf = outerBuf;
+            size = outerSize;
+            writeVarint(sectionSize);
+            ensure(sectionSize);
+            System.arraycopy(sectionBuf, 0, buf, size, sectionSize);
+            size += sectionSize;
+        }
+    
+    }
+    
+    
+    /**
+     * Reader of encoded values.
+     * 
+     * @author Andras Belicza
+     */
+    private static final class Reader {
+        
+        /** The encoded data. */
+        final byte[] data;
+        
+        /** Current position. */
+        int pos;
+        
+        /**
+         * Creates a new {@link StructCodec.Reader}.
+         * 
+         * @param data the encoded data
+         * @param pos start position
+         */
+        Reader(final byte[] data, final int pos) {
+            this.data = data;
+            this.pos = pos;
+        }
+        
+        /**
+         * Reads an unsigned variable-length integer.
+         * 
+         * @return the value read
+         */
+        int readVarint() {
+            int v = 0;
+            for (int shift = 0;; shift += 7) {
+                final byte b = data[pos++];
+                v |= (b & 0x7f) << shift;
+                if (b >= 0)
+                    return v;
+            }
+        }
+        
+        /**
+         * Reads a big-endian value.
+         * 
+         * @param bytes number of bytes to read
+         * @return the value read
+         */
+        long readFixed(final int bytes) {
+            long v = 0;
+            for (int i = 0; i < bytes; i++)
+                v = v << 8 | data[pos++] & 0xff;
+            return v;
+        }
+        
+        /**
+         * Skips a tagged value.
+         */
+        void skipValue() {
+            switch (data[pos++]) {
+            case TAG_NULL:
+            case TAG_TRUE:
+            case TAG_FALSE:
+                break;
+            case TAG_INT:
+                pos += 4;
+                break;
+            case TAG_LONG:
+            case TAG_DOUBLE:
+                pos += 8;
+                break;
+            default:
+                // Length-prefixed
+                final int len = readVarint();
+                pos += len;
+                break;
+            }
+        }
+        
+        /**
+         * Reads a tagged value.
+         * 
+         * @return the value read
+         */
+        Object readValue() {
+            final byte tag = data[pos++];
+            switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_TRUE:
+                return Boolean.TRUE;
+            case TAG_FALSE:
+                return Boolean.FALSE;
+            case TAG_INT:
+                return (int) readFixed(4);
+            case TAG_LONG:
+                return readFixed(8);
+            case TAG_DOUBLE:
+                return Double.longBitsToDouble(readFixed(8));
+            default:
+                break;
+            }
+            
+            final int len = readVarint();
+            final int start = pos;
+            pos += len;
+            
+            switch (tag) {
+            case TAG_STRING:
+                return new String(data, start, len, StandardCharsets.UTF_8);
+            case TAG_BYTES:
+                return Arrays.copyOfRange(data, start, start + len);
+            case TAG_STRUCT:
+                return new LazyStruct(data, start, len);
+            case TAG_LIST: {
+                final Reader r = new Reader(data, start);
+                final int count = r.readVarint();
+                final List<Object> list = new ArrayList<>(count);
+                for (int i = 0; i < count; i++)
+                    list.add(r.readValue());
+                return Collections.unmodifiableList(list);
+            }
+            case TAG_SERIALIZED:
+                return IOUtils.deserialize(Arrays.copyOfRange(data, start, start + len));
+            default:
+                throw new IllegalStateException("Invalid tag: " + tag);
+            }
+        }
+        
+        /**
+         * Tells if the length-prefixed key at the current position equals to the specified UTF-8 encoded key,
+         * and moves after the key.
+         * 
+         * @param key UTF-8 encoded key to compare to
+         * @return true if the key at the current position equals to the specified key; false otherwise
+         */
+        boolean readKeyEquals(final byte[] key) {
+            final int len = readVarint();
+            final int start = pos;
+            pos += len;
+            
+            if (len != key.length)
+                return false;
+            for (int i = 0; i < len; i++)
+                if (data[start + i] != key[i])
+                    return false;
+            return true;
+        }
+        
+        /**
+         * Reads a length-prefixed key.
+         * 
+         * @return the key read
+         */
+        String readKey() {
+            final int len = readVarint();
+            final String key = new String(data, pos, len, StandardCharsets.UTF_8);
+            pos += len;
+            return key;
+        }
+    
+    }
+    
+    
+    /**
+     * Lazily decoded structure backed by encoded bytes.
+     * 
+     * <p>
+     * Decoded field values are cached. The implementation is thread-safe.
+     * </p>
+     * 
+     * @author Andras Belicza
+     */
+    private static final class LazyStruct extends AbstractMap<String, Object> implements Serializable {
+        
+        /** */
+        private static final long serialVersionUID = 1L;
+        
+        /** Marks a cached <code>null</code> value. */
+        private static final Object NULL = new Object();
+        
+        /** The encoded data. */
+        private final byte[] data;
+        
+        /** Start position of the structure. */
+        private final int off;
+        
+        /** Length of the structure. */
+        private final int len;
+        
+        /** Cache of the decoded fields. */
+        private transient Map<String, Object> cache;
+        
+        /** Fully decoded structure, <code>null</code> until all fields are needed. */
+        private transient Map<String, Object> decoded;
+        
+        /**
+         * Creates a new {@link StructCodec.LazyStruct}.
+         * 
+         * @param data the encoded data
+         * @param off start position of the structure
+         * @param len length of the structure
+         */
+        LazyStruct(final byte[] data, final int off, final int len) {
+            this.data = data;
+            this.off = off;
+            this.len = len;
+        }
+        
+        @Override
+        public synchronized Object get(final Object key) {
+            if (decoded != null)
+                return decoded.get(key);
+            if (!(key instanceof String))
+                return null;
+            
+            if (cache == null)
+                cache = new HashMap<>();
+            Object value = cache.get(key);
+            if (value == null) {
+                value = find((String) key);
+                cache.put((String) key, value);
+            }
+            
+            return value == NULL ? null : value;
+        }
+        
+        @Override
+        public boolean containsKey(final Object key) {
+            return get(key) != null || key instanceof String && containsNullValue((String) key);
+        }
+        
+        /**
+         * Tells if the specified key is present with a <code>null</code> value.
+         * 
+         * @param key key to check
+         * @return true if the specified key is present with a <code>null</code> value
+         */
+        private boolean containsNullValue(final String key) {
+            final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            final Reader r = new Reader(data, off);
+            for (int count = r.readVarint(); count > 0; count--) {
+                if (r.readKeyEquals(keyBytes))
+                    return true;
+                r.skipValue();
+            }
+            return false;
+        }
+        
+        /**
+         * Finds and decodes the value of the specified key.
+         * 
+         * @param key key whose value to find
+         * @return the decoded value; {@link #NULL} if not found or the value is <code>null</code>
+         */
+        private Object find(final String key) {
+            final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            
+            final Reader r = new Reader(data, off);
+            for (int count = r.readVarint(); count > 0; count--) {
+                if (r.readKeyEquals(keyBytes)) {
+                    final Object value = r.readValue();
+                    return value == null ? NULL : value;
+                }
+                r.skipValue();
+            }
+            
+            return NULL;
+        }
+        
+        @Override
+        public int size() {
+            return new Reader(data, off).readVarint();
+        }
+        
+        @Override
+        public synchronized Set<Map.Entry<String, Object>> entrySet() {
+            if (decoded == null) {
+                final Reader r = new Reader(data, off);
+                final int count = r.readVarint();
+                final Map<String, Object> m = new LinkedHashMap<>(count / 3 * 4 + 2);
+                for (int i = 0; i < count; i++) {
+                    final String key = r.readKey();
+                    // Reuse already decoded values
+                    final Object cached = cache == null ? null : cache.get(key);
+                    if (cached == null)
+                        m.put(key, r.readValue());
+                    else {
+                        m.put(key, cached == NULL ? null : cached);
+                        r.skipValue();
+                    }
+                }
+                decoded = Collections.unmodifiableMap(m);
+                cache = null;
+            }
+            
+            return decoded.entrySet();
+        }
+        
+        /**
+         * Only serializes the bytes of this structure.
+         * 
+         * @return a structure holding a copy of the bytes of this structure
+         */
+        private Object writeReplace() {
+            return off == 0 && len == data.length ? this : new LazyStruct(Arrays.copyOfRange(data, off, off
+                    + len), 0, len);
+        }
+    
+    }
+    
+}
@@ -0,0 +1,158 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A compiled, reusable path to a field of a nested key-value structure.
+ * 
+ * <p>
+ * The path elements are copied and validated once at creation; lookups walk the maps the same way as
+ * {@link StructView#get(String...)} does, but without allocating a varargs array for each call. For
+ * index-based access to many fields of records of the same layout use {@link StructShape}. Instances are
+ * immutable and can be shared between threads; they are intended to be created once (e.g. in a static
+ * field).
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see StructView#compile(String...)
+ * @see StructShape
+ */
+public final class StructPath implements Serializable {
+    
+    /** */
+    private static final long serialVersionUID = 1L;
+    
+    /** Names of the path elements. */
+    private final String[] names;
+    
+    /** Cached hash code. */
+    private final transient int hash;
+    
+    /**
+     * Creates a new {@link StructPath}.
+     * 
+     * @param path names of the path elements
+     * 
+     * @throws IllegalArgumentException if path is empty or any of the names is <code>null</code>
+     */
+    StructPath(final String... path) throws IllegalArgumentException {
+        if (path.length == 0)
+            throw new IllegalArgumentException("Path cannot be empty!");
+        
+        names = path.clone();
+        for (final String name : names)
+            if (name == null)
+                throw new IllegalArgumentException("Path element cannot be null!");
+        
+        hash = Arrays.hashCode(names);
+    }
+    
+    /**
+     * Returns the value of the field specified by this path in the specified structure.
+     * 
+     * <p>
+     * Intermediate values must be of type {@link Map}. If any of the intermediate values is
+     * <code>null</code>, then <code>null</code> is returned.
+     * </p>
+     * 
+     * @param <T> (expected) type of the value
+     * @param struct structure to get the value from
+     * @return the value of the field specified by this path
+     * 
+     * @see StructView#get(String...)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(final Map<String, Object> struct) {
+        // Local reference for performance
+        final String[] names = this.names;
+        final int lastNameIdx = names.length - 1;
+        
+        Map<String, Object> struct2 = struct;
+        for (int i = 0; i < lastNameIdx; i++)
+            if ((struct2 = (Map<String, Object>) struct2.get(names[i])) == null)
+                return null;
+        
+        return (T) struct2.get(names[lastNameIdx]);
+    }
+    
+    /**
+     * Returns the value of the field specified by this path in the specified struct view.
+     * 
+     * @param <T> (expected) type of the value
+     * @param view struct view to get the value from
+     * @return the value of the field specified by this path
+     * 
+     * @see #get(Map)
+     */
+    public <T> T get(final StructView view) {
+        return get(view.struct);
+    }
+    
+    /**
+     * Returns the number of path elements.
+     * 
+     * @return the number of path elements
+     */
+    public int length() {
+        return names.length;
+    }
+    
+    /**
+     * Returns the name of the path element at the specified index.
+     * 
+     * @param index index of the path element
+     * @return the name of the path element at the specified index
+     * 
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    public String getName(final int index) throws IndexOutOfBoundsException {
+        return names[index];
+    }
+    
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == this)
+            return true;
+        
+        if (!(obj instanceof StructPath))
+            return false;
+        
+        final StructPath p = (StructPath) obj;
+        return hash == p.hash && Arrays.equals(names, p.names);
+    }
+    
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+    
+    /**
+     * Returns the path elements joined by dots.
+     */
+    @Override
+    public String toString() {
+        return String.join(".", names);
+    }
+    
+    /**
+     * Recreates the path so the cached hash code is restored.
+     * 
+     * @return a new instance with the same path elements
+     */
+    private Object readResolve() {
+        return new StructPath(names);
+    }
+    
+}
@@ -0,0 +1,365 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The shape (schema) of key-value structures: a fixed, ordered list of field paths, each assigned a slot
+ * index.
+ * 
+ * <p>
+ * Structures sharing the shape can be flattened into slot arrays with {@link #flatten(Map)}, so repeated
+ * field access becomes an array index instead of chained hash lookups. Flattening itself looks up each
+ * distinct path prefix only once, even if it is shared by multiple paths.
+ * </p>
+ * 
+ * <p>
+ * Slots should be resolved once with {@link #getSlot(StructPath)} and then used with
+ * {@link Row#get(int)} in hot loops.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see StructPath
+ * @see StructView
+ */
+public class StructShape implements Serializable {
+    
+    /** */
+    private static final long serialVersionUID = 1L;
+    
+    /**
+     * A node in the prefix tree of the paths.
+     * 
+     * @author Andras Belicza
+     */
+    private static final class Node implements Serializable {
+        
+        /** */
+        private static final long serialVersionUID = 1L;
+        
+        /** Name of the path element of the node. */
+        final String name;
+        
+        /** Slot of the path ending at this node; <code>-1</code> if no path ends here. */
+        int slot = -1;
+        
+        /** Child nodes. */
+        Node[] children = new Node[0];
+        
+        /**
+         * Creates a new {@link StructShape.Node}.
+         * 
+         * @param name name of the path element of the node
+         */
+        Node(final String name) {
+            this.name = name;
+        }
+        
+        /**
+         * Returns the child node with the specified name, creates it first if it doesn't exist.
+         * 
+         * @param name name of the child node
+         * @return the child node with the specified name
+         */
+        Node child(final String name) {
+            for (final Node child : children)
+                if (child.name.equals(name))
+                    return child;
+            
+            final Node child = new Node(name);
+            children = Arrays.copyOf(children, children.length + 1);
+            children[children.length - 1] = child;
+            return child;
+        }
+    
+    }
+    
+    
+    /** Paths of the slots. */
+    private final StructPath[] paths;
+    
+    /** Slots mapped from their paths. */
+    private final Map<StructPath, Integer> slotMap;
+    
+    /** Root of the prefix tree of the paths. */
+    private final Node root = new Node(null);
+    
+    /**
+     * Creates a new {@link StructShape}.
+     * 
+     * @param paths paths of the slots, slot indices are the indices in this array
+     * 
+     * @throws IllegalArgumentException if any of the paths is <code>null</code> or a path is specified more
+     *             than once
+     */
+    public StructShape(final StructPath... paths) throws IllegalArgumentException {
+        this.paths = paths.clone();
+        
+        // Calculate initial capacity based on the default load factor
+        // which is 0.75 = 3/4
+        slotMap = new HashMap<>(paths.length / 3 * 4 + 2);
+        
+        for (int slot = 0; slot < paths.length; slot++) {
+            final StructPath path = paths[slot];
+            if (path == null)
+                throw new IllegalArgumentException("Path cannot be null!");
+            if (slotMap.put(path, slot) != null)
+                throw new IllegalArgumentException("Duplicate path: " + path);
+            
+            Node node = root;
+            for (int i = 0; i < path.length(); i++)
+                node = node.child(path.getName(i));
+            node.slot = slot;
+        }
+    }
+    
+    /**
+     * Creates a new {@link StructShape} from dot separated paths.
+     * 
+     * @param paths dot separated paths of the slots, e.g. <code>"a.b.c"</code>
+     * @return the new shape
+     * 
+     * @throws IllegalArgumentException if a path is specified more than once
+     */
+    public static StructShape of(final String... paths) throws IllegalArgumentException {
+        final StructPath[] compiled = new StructPath[paths.length];
+        for (int i = 0; i < paths.length; i++)
+            compiled[i] = new StructPath(paths[i].split("\\.", -1));
+        
+        return new StructShape(compiled);
+    }
+    
+    /**
+     * Returns the number of slots.
+     * 
+     * @return the number of slots
+     */
+    public int size() {
+        return paths.length;
+    }
+    
+    /**
+     * Returns the path of the specified slot.
+     * 
+     * @param slot slot whose path to return
+     * @return the path of the specified slot
+     * 
+     * @throws IndexOutOfBoundsException if slot is out of range
+     */
+    public StructPath getPath(final int slot) throws IndexOutOfBoundsException {
+        return paths[slot];
+    }
+    
+    /**
+     * Returns the slot of the specified path.
+     * 
+     * @param path path whose slot to return
+     * @return the slot of the specified path; or <code>-1</code> if the path is not part of the shape
+     */
+    public int getSlot(final StructPath path) {
+        final Integer slot = slotMap.get(path);
+        return slot == null ? -1 : slot;
+    }
+    
+    /**
+     * Returns the slot of the specified path.
+     * 
+     * @param path names of the path elements
+     * @return the slot of the specified path; or <code>-1</code> if the path is not part of the shape
+     */
+    public int getSlot(final String... path) {
+        return getSlot(new StructPath(path));
+    }
+    
+    /**
+     * Flattens the specified structure into a slot array.
+     * 
+     * <p>
+     * Values of paths missing from the structure are <code>null</code>. Intermediate values must be of type
+     * {@link Map}.
+     * </p>
+     * 
+     * @param struct structure to be flattened
+     * @return the slot array holding the values of the paths
+     */
+    public Object[] flatten(final Map<String, Object> struct) {
+        final Object[] slots = new Object[paths.length];
+        fill(struct, root, slots);
+        return slots;
+    }
+    
+    /**
+     * Flattens the specified structure into a {@link Row}.
+     * 
+     * @param struct structure to be flattened
+     * @return the row holding the values of the paths
+     * 
+     * @see #flatten(Map)
+     */
+    public Row toRow(final Map<String, Object> struct) {
+        return new Row(this, flatten(struct));
+    }
+    
+    /**
+     * Flattens the specified structures into {@link Row}s.
+     * 
+     * @param structs structures to be flattened
+     * @return the list of rows holding the values of the paths
+     */
+    public List<Row> toRows(final Iterable<? extends Map<String, Object>> structs) {
+        final List<Row> rows = new ArrayList<>();
+        for (final Map<String, Object> struct : structs)
+            rows.add(toRow(struct));
+        return rows;
+    }
+    
+    /**
+     * Checks if the specified object is equal to this shape.
+     * 
+     * <p>
+     * Will return <code>true</code> if the specified object is a {@link StructShape} with the same paths in
+     * the same order.
+     * </p>
+     * 
+     * @param obj object to be checked for equality
+     * 
+     * @return <code>true</code> if the specified object is equal, <code>false</code> otherwise
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == this)
+            return true;
+        
+        if (!(obj instanceof StructShape))
+            return false;
+        
+        return Arrays.equals(paths, ((StructShape) obj).paths);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(paths);
+    }
+    
+    /**
+     * Fills the slots of the subtree of the specified node from the specified structure.
+     * 
+     * @param struct structure belonging to the node
+     * @param node node whose subtree to fill
+     * @param slots slot array to fill
+     */
+    @SuppressWarnings("unchecked")
+    private static void fill(final Map<String, Object> struct, final Node node, final Object[] slots) {
+        for (final Node child : node.children) {
+            final Object value = struct.get(child.name);
+            if (value == null)
+                continue;
+            
+            if (child.slot >= 0)
+                slots[child.slot] = value;
+            if (child.children.length > 0)
+                fill((Map<String, Object>) value, child, slots);
+        }
+    }
+    
+    
+    /**
+     * A row flattened by a {@link StructShape}.
+     * 
+     * @author Andras Belicza
+     */
+    public static final class Row implements Serializable {
+        
+        /** */
+        private static final long serialVersionUID = 1L;
+        
+        /** Shape of the row. */
+        private final StructShape shape;
+        
+        /** Values of the slots. */
+        private final Object[] slots;
+        
+        /**
+         * Creates a new {@link StructShape.Row}.
+         * 
+         * @param shape shape of the row
+         * @param slots values of the slots
+         */
+        Row(final StructShape shape, final Object[] slots) {
+            this.shape = shape;
+            this.slots = slots;
+        }
+        
+        /**
+         * Returns the shape of the row.
+         * 
+         * @return the shape of the row
+         */
+        public StructShape getShape() {
+            return shape;
+        }
+        
+        /**
+         * Returns the value of the specified slot.
+         * 
+         * @param <T> (expected) type of the value
+         * @param slot slot whose value to return
+         * @return the value of the specified slot
+         * 
+         * @throws IndexOutOfBoundsException if slot is out of range
+         */
+        public <T> T get(final int slot) throws IndexOutOfBoundsException {
+            @SuppressWarnings("unchecked")
+            final T value = (T) slots[slot];
+            return value;
+        }
+        
+        /**
+         * Returns the value of the field specified by its path.
+         * 
+         * <p>
+         * Involves a slot lookup, {@link #get(int)} should be preferred in hot loops.
+         * </p>
+         * 
+         * @param <T> (expected) type of the value
+         * @param path path of the field
+         * @return the value of the field specified by its path
+         * 
+         * @throws IllegalArgumentException if the path is not part of the shape
+         */
+        public <T> T get(final StructPath path) throws IllegalArgumentException {
+            final int slot = shape.getSlot(path);
+            if (slot < 0)
+                throw new IllegalArgumentException("Path is not part of the shape: " + path);
+            
+            return get(slot);
+        }
+        
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("{");
+            for (int i = 0; i < slots.length; i++) {
+                if (i > 0)
+                    sb.append(", ");
+                sb.append(shape.paths[i]).append('=').append(slots[i]);
+            }
+            return sb.append('}').toString();
+        }
+    
+    }
+    
+}
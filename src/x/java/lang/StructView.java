@@ -81,6 +81,39 @@ public class StructView implements Serializable {
         return struct2 == null ? null : (T) struct2.get(path[lastNameIdx]);
     }
     
+    /**
+     * Returns the value for the field specified by a compiled path.
+     * 
+     * @param <T> (expected) type of the value
+     * @param path compiled path to the field
+     * @return the value of the field specified by its path
+     * 
+     * @see #get(String...)
+     * @see #compile(String...)
+     */
+    public <T> T get(final StructPath path) {
+        return path.get(struct);
+    }
+    
+    /**
+     * Compiles the specified path into a reusable accessor.
+     * 
+     * <p>
+     * A compiled path is validated once and does not allocate a varargs array for each lookup, so prefer it
+     * over {@link #get(String...)} when the same path is used repeatedly.
+     * </p>
+     * 
+     * @param path path to the field
+     * @return the compiled path
+     * 
+     * @throws IllegalArgumentException if path is empty or any of the names is <code>null</code>
+     * 
+     * @see StructShape
+     */
+    public static StructPath compile(final String... path) throws IllegalArgumentException {
+        return new StructPath(path);
+    }
+    
     /**
      * Returns the source structure.
      * 
@@ -0,0 +1,109 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+/**
+ * A lightweight handle of a string interned in a {@link SymbolTable}.
+ * 
+ * <p>
+ * Symbols are interned by construction (the data is stored once in the symbol table), so a {@link Symbol}
+ * is always reported as interned: {@link InternPool}s return them as-is. Equality and hash code are based on
+ * the symbol id only; the string data is not touched.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see SymbolTable
+ */
+public final class Symbol implements Internable {
+    
+    /** Symbol table the symbol belongs to. */
+    private final SymbolTable table;
+    
+    /** Id of the symbol. */
+    private final int id;
+    
+    /**
+     * Creates a new {@link Symbol}.
+     * 
+     * @param table symbol table the symbol belongs to
+     * @param id id of the symbol
+     */
+    Symbol(final SymbolTable table, final int id) {
+        this.table = table;
+        this.id = id;
+    }
+    
+    /**
+     * Returns the symbol table the symbol belongs to.
+     * 
+     * @return the symbol table the symbol belongs to
+     */
+    public SymbolTable getTable() {
+        return table;
+    }
+    
+    /**
+     * Returns the id of the symbol.
+     * 
+     * @return the id of the symbol
+     */
+    public int getId() {
+        return id;
+    }
+    
+    /**
+     * Returns the UTF-8 encoded bytes of the symbol.
+     * 
+     * @return the UTF-8 encoded bytes of the symbol
+     */
+    public byte[] getBytes() {
+        return table.getBytes(id);
+    }
+    
+    /**
+     * Returns <code>true</code>, symbols are always interned.
+     */
+    @Override
+    public boolean isInterned() {
+        return true;
+    }
+    
+    @Override
+    public void markInterned() {
+        // Symbols are always interned
+    }
+    
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == this)
+            return true;
+        
+        if (!(obj instanceof Symbol))
+            return false;
+        
+        final Symbol s = (Symbol) obj;
+        return id == s.id && table == s.table;
+    }
+    
+    @Override
+    public int hashCode() {
+        return id;
+    }
+    
+    /**
+     * Returns the string of the symbol.
+     */
+    @Override
+    public String toString() {
+        return table.getString(id);
+    }
+    
+}
@@ -0,0 +1,443 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A compact interner of strings which stores the UTF-8 encoded bytes of the symbols in large
+ * <code>byte</code> array slabs and identifies them by compact <code>int</code> ids.
+ * 
+ * <p>
+ * Compared to interning many short strings wrapped in objects, the memory overhead per symbol is just an
+ * index entry (a <code>long</code>) and a hash table slot (an <code>int</code>). Ids are assigned
+ * sequentially from <code>0</code>, equal strings always get the same id, so symbols can be compared and
+ * hashed by their ids.
+ * </p>
+ * 
+ * <p>
+ * The implementation is thread-safe. Getting the data of a symbol by its id ({@link #getString(int)},
+ * {@link #getBytes(int)}, {@link #getLength(int)}) and looking up already interned symbols are lock-free;
+ * only adding new symbols is performed under a lock.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see Symbol
+ * @see InternPool
+ */
+public class SymbolTable {
+    
+    /** Size of a slab. */
+    private static final int SLAB_SIZE = 64 * 1024;
+    
+    /** Bits of the index within an index chunk. */
+    private static final int INDEX_CHUNK_BITS = 12;
+    
+    /** Size of an index chunk. */
+    private static final int INDEX_CHUNK_SIZE = 1 << INDEX_CHUNK_BITS;
+    
+    
+    /**
+     * Slabs storing the bytes of the symbols. Symbols not fitting into a slab get a dedicated slab. Only the
+     * array is replaced when it grows, the slabs are kept.
+     */
+    private volatile byte[][] slabs = new byte[1][];
+    
+    /**
+     * Index chunks, entries describe the data of the symbols: the high 32 bits are the slab index (16 bits)
+     * and offset (16 bits), the low 32 bits are the length.
+     */
+    private volatile long[][] indexChunks = new long[1][];
+    
+    /** Open-addressing hash table holding <code>id+1</code> of the symbols (<code>0</code> marks empty). */
+    private volatile int[] table;
+    
+    /**
+     * Number of symbols. Written after the data and index of a new symbol, reading it makes the data of all
+     * symbols with smaller ids visible.
+     */
+    private volatile int size;
+    
+    /** Number of slabs (writer-only). */
+    private int slabCount = 1;
+    
+    /** Index of the current slab (writer-only). */
+    private int slabIdx;
+    
+    /** Position in the current slab (writer-only). */
+    private int slabPos;
+    
+    /**
+     * Creates a new {@link SymbolTable} with a default size hint.
+     */
+    public SymbolTable() {
+        this(1024);
+    }
+    
+    /**
+     * Creates a new {@link SymbolTable}.
+     * 
+     * @param sizeHint size hint for the number of different symbols
+     */
+    public SymbolTable(final int sizeHint) {
+        // Keep load factor at most 0.5
+        table = new int[Integer.highestOneBit(Math.max(sizeHint, 8) * 2 - 1) * 2];
+        
+        slabs[0] = new byte[SLAB_SIZE];
+        indexChunks[0] = new long[INDEX_CHUNK_SIZE];
+    }
+    
+    /**
+     * Returns the id of the specified string, interns it first if not yet interned.
+     * 
+     * @param s string to be interned
+     * @return the id of the specified string
+     */
+    public int intern(final String s) {
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        return intern(bytes, 0, bytes.length);
+    }
+    
+    /**
+     * Returns the id of the symbol specified by its UTF-8 encoded bytes, interns it first if not yet
+     * interned.
+     * 
+     * @param bytes array holding the UTF-8 encoded bytes of the symbol
+     * @param off offset of the symbol bytes
+     * @param len length of the symbol bytes
+     * @return the id of the specified symbol
+     */
+    public int intern(final byte[] bytes, final int off, final int len) {
+        final int hash = hash(bytes, off, len);
+        
+        // Lock-free lookup first
+        int id = find(bytes, off, len, hash);
+        if (id >= 0)
+            return id;
+        
+        synchronized (this) {
+            // Check again, might have been added since
+            id = find(bytes, off, len, hash);
+            return id >= 0 ? id : add(bytes, off, len, hash);
+        }
+    }
+    
+    /**
+     * Returns the symbol of the specified string, interns it first if not yet interned.
+     * 
+     * @param s string to be interned
+     * @return the symbol of the specified string
+     */
+    public Symbol symbol(final String s) {
+        return new Symbol(this, intern(s));
+    }
+    
+    /**
+     * Returns the id of the specified string if it is interned.
+     * 
+     * @param s string whose id to return
+     * @return the id of the specified string; or <code>-1</code> if it is not interned
+     */
+    public int getId(final String s) {
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        final int hash = hash(bytes, 0, bytes.length);
+        
+        final int id = find(bytes, 0, bytes.length, hash);
+        if (id >= 0)
+            return id;
+        
+        // Not found by the lock-free lookup, but it might have been added concurrently
+        synchronized (this) {
+            return find(bytes, 0, bytes.length, hash);
+        }
+    }
+    
+    /**
+     * Returns the number of interned symbols.
+     * 
+     * @return the number of interned symbols
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Returns the string of the symbol specified by its id.
+     * 
+     * @param id id of the symbol
+     * @return the string of the symbol specified by its id
+     * 
+     * @throws IndexOutOfBoundsException if there is no symbol with the specified id
+     */
+    public String getString(final int id) throws IndexOutOfBoundsException {
+        final long entry = entry(id);
+        return new String(slabs[slab(entry)], offset(entry), length(entry), StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Returns the UTF-8 encoded bytes of the symbol specified by its id.
+     * 
+     * @param id id of the symbol
+     * @return the UTF-8 encoded bytes of the symbol specified by its id
+     * 
+     * @throws IndexOutOfBoundsException if there is no symbol with the specified id
+     */
+    public byte[] getBytes(final int id) throws IndexOutOfBoundsException {
+        final long entry = entry(id);
+        final int off = offset(entry);
+        return Arrays.copyOfRange(slabs[slab(entry)], off, off + length(entry));
+    }
+    
+    /**
+     * Returns the length of the UTF-8 encoded bytes of the symbol specified by its id.
+     * 
+     * @param id id of the symbol
+     * @return the length of the UTF-8 encoded bytes of the symbol specified by its id
+     * 
+     * @throws IndexOutOfBoundsException if there is no symbol with the specified id
+     */
+    public int getLength(final int id) throws IndexOutOfBoundsException {
+        return length(entry(id));
+    }
+    
+    /**
+     * Returns the index entry of the symbol specified by its id.
+     * 
+     * @param id id of the symbol
+     * @return the index entry of the symbol specified by its id
+     * 
+     * @throws IndexOutOfBoundsException if there is no symbol with the specified id
+     */
+    private long entry(final int id) throws IndexOutOfBoundsException {
+        // Volatile read of size makes data of all smaller ids visible
+        if (id < 0 || id >= size)
+            throw new IndexOutOfBoundsException("Invalid symbol id: " + id);
+        
+        return indexChunks[id >>> INDEX_CHUNK_BITS][id & (INDEX_CHUNK_SIZE - 1)];
+    }
+    
+    /**
+     * Returns the slab index of the specified index entry.
+     * 
+     * @param entry index entry
+     * @return the slab index of the specified index entry
+     */
+    private static int slab(final long entry) {
+        return (int) (entry >>> 48);
+    }
+    
+    /**
+     * Returns the offset of the specified index entry.
+     * 
+     * @param entry index entry
+     * @return the offset of the specified index entry
+     */
+    private static int offset(final long entry) {
+        return (int) (entry >>> 32) & 0xffff;
+    }
+    
+    /**
+     * Returns the length of the specified index entry.
+     * 
+     * @param entry index entry
+     * @return the length of the specified index entry
+     */
+    private static int length(final long entry) {
+        return (int) entry;
+    }
+    
+    /**
+     * Calculates the hash of the specified bytes.
+     * 
+     * @param bytes array holding the bytes
+     * @param off offset of the bytes
+     * @param len length of the bytes
+     * @return the hash of the specified bytes
+     */
+    private static int hash(final byte[] bytes, final int off, final int len) {
+        int h = len;
+        for (int i = off + len - 1; i >= off; i--)
+            h = 31 * h + bytes[i];
+        
+        // Spread higher bits
+        return h ^ (h >>> 16);
+    }
+    
+    /**
+     * Finds the id of the specified symbol without locking.
+     * 
+     * <p>
+     * Might not find symbols being added concurrently, so a negative result has to be rechecked while owning
+     * the lock.
+     * </p>
+     * 
+     * @param bytes array holding the UTF-8 encoded bytes of the symbol
+     * @param off offset of the symbol bytes
+     * @param len length of the symbol bytes
+     * @param hash hash of the symbol bytes
+     * @return the id of the specified symbol; or <code>-1</code> if not found
+     */
+    private int find(final byte[] bytes, final int off, final int len, final int hash) {
+        // Local copy for performance and consistency
+        final int[] table = this.table;
+        final int mask = table.length - 1;
+        
+        for (int i = hash & mask;; i = (i + 1) & mask) {
+            final int id = table[i] - 1;
+            if (id < 0)
+                return -1;
+            
+            // Volatile read of size makes the data of the symbol visible if it is published
+            if (id >= size)
+                return -1;
+            
+            final long entry = indexChunks[id >>> INDEX_CHUNK_BITS][id & (INDEX_CHUNK_SIZE - 1)];
+            if (length(entry) == len && rangeEquals(slabs[slab(entry)], offset(entry), bytes, off, len))
+                return id;
+        }
+    }
+    
+    /**
+     * Tests if the specified byte ranges are equal.
+     * 
+     * @param a first array
+     * @param aOff offset in the first array
+     * @param b second array
+     * @param bOff offset in the second array
+     * @param len length of the ranges
+     * @return true if the specified byte ranges are equal; false otherwise
+     */
+    private static boolean rangeEquals(final byte[] a, final int aOff, final byte[] b, final int bOff,
+            final int len) {
+        for (int i = len - 1; i >= 0; i--)
+            if (a[aOff + i] != b[bOff + i])
+                return false;
+        return true;
+    }
+    
+    /**
+     * Adds a new symbol. Must be called while owning the lock.
+     * 
+     * @param bytes array holding the UTF-8 encoded bytes of the symbol
+     * @param off offset of the symbol bytes
+     * @param len length of the symbol bytes
+     * @param hash hash of the symbol bytes
+     * @return the id of the new symbol
+     */
+    private int add(final byte[] bytes, final int off, final int len, final int hash) {
+        final int id = size;
+        
+        // Copy data
+        final int dataSlab, dataOff;
+        if (len > SLAB_SIZE) {
+            // Dedicated slab
+            dataSlab = newSlab(Arrays.copyOfRange(bytes, off, off + len));
+            dataOff = 0;
+        } else {
+            // Also roll a full slab for an empty symbol: the offset must fit into 16 bits
+            if (slabPos + len > SLAB_SIZE || slabPos == SLAB_SIZE) {
+                slabIdx = newSlab(new byte[SLAB_SIZE]);
+                slabPos = 0;
+            }
+            System.arraycopy(bytes, off, slabs[slabIdx], slabPos, len);
+            dataSlab = slabIdx;
+            dataOff = slabPos;
+            slabPos += len;
+        }
+        
+        // Index entry
+        long[][] indexChunks = this.indexChunks;
+        final int chunkIdx = id >>> INDEX_CHUNK_BITS;
+        if (chunkIdx == indexChunks.length) {
+            indexChunks = Arrays.copyOf(indexChunks, chunkIdx * 2);
+            indexChunks[chunkIdx] = new long[INDEX_CHUNK_SIZE];
+            this.indexChunks = indexChunks;
+        } else if (indexChunks[chunkIdx] == null) {
+            indexChunks[chunkIdx] = new long[INDEX_CHUNK_SIZE];
+            // Republish to make the new chunk visible
+            this.indexChunks = indexChunks;
+        }
+        indexChunks[chunkIdx][id & (INDEX_CHUNK_SIZE - 1)] = (long) dataSlab << 48 | (long) dataOff << 32 | len;
+        
+        // Publish the data and the index entry
+        size = id + 1;
+        
+        // Hash table slot
+        int[] table = this.table;
+        if ((id + 1) * 2 > table.length)
+            this.table = table = rehash(table.length * 2, id + 1);
+        else
+            insert(table, hash, id);
+        
+        return id;
+    }
+    
+    /**
+     * Adds a new slab. Must be called while owning the lock.
+     * 
+     * @param slab the new slab
+     * @return the index of the new slab
+     */
+    private int newSlab(final byte[] slab) {
+        final int idx = slabCount;
+        // Slab index is stored on 16 bits
+        if (idx > 0xffff)
+            throw new IllegalStateException("Symbol table is full!");
+        
+        byte[][] slabs = this.slabs;
+        if (idx == slabs.length)
+            slabs = Arrays.copyOf(slabs, Math.min(idx * 2, 0x10000));
+        slabs[idx] = slab;
+        slabCount++;
+        // (Re)publish
+        this.slabs = slabs;
+        
+        return idx;
+    }
+    
+    /**
+     * Creates a new hash table holding the specified number of symbols.
+     * 
+     * @param capacity capacity of the new table (power of 2)
+     * @param count number of symbols to insert
+     * @return the new table
+     */
+    private int[] rehash(final int capacity, final int count) {
+        final int[] table = new int[capacity];
+        
+        final byte[][] slabs = this.slabs;
+        for (int id = 0; id < count; id++) {
+            final long entry = indexChunks[id >>> INDEX_CHUNK_BITS][id & (INDEX_CHUNK_SIZE - 1)];
+            insert(table, hash(slabs[slab(entry)], offset(entry), length(entry)), id);
+        }
+        
+        return table;
+    }
+    
+    /**
+     * Inserts a symbol id into the specified hash table.
+     * 
+     * @param table hash table to insert into
+     * @param hash hash of the symbol
+     * @param id id of the symbol
+     */
+    private static void insert(final int[] table, final int hash, final int id) {
+        final int mask = table.length - 1;
+        
+        int i = hash & mask;
+        while (table[i] != 0)
+            i = (i + 1) & mask;
+        
+        table[i] = id + 1;
+    }
+    
+}
@@ -0,0 +1,362 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * An optional registry of the live {@link NormalThread}s (including {@link CtrlThread}s), providing their
+ * statistics: controlled state, CPU time, allocated bytes, execution, paused and blocked times.
+ * 
+ * <p>
+ * The registry is disabled by default. When enabled by {@link #setEnabled(boolean)}, threads started
+ * afterwards are registered, and the registry is also exposed through JMX under the name
+ * {@value #OBJECT_NAME} (see {@link ThreadRegistryMXBean}). Threads are deregistered when they terminate
+ * (terminated threads not deregistered, e.g. ones overriding {@link NormalThread#run()}, are dropped when
+ * statistics are queried or when they become unreachable).
+ * </p>
+ * 
+ * <p>
+ * CPU time and allocated bytes are provided by the {@link ThreadMXBean} of the JVM, and are <code>-1</code>
+ * if not supported.
+ * </p>
+ * 
+ * <p>
+ * The implementation is thread-safe.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see NormalThread
+ * @see CtrlThread
+ */
+public final class ThreadRegistry {
+    
+    /** {@link Logger} used for logging. */
+    private static final Logger LOGGER = Logger.getLogger(ThreadRegistry.class.getName());
+    
+    /** JMX object name of the registry. */
+    public static final String OBJECT_NAME = "x.java.lang:type=ThreadRegistry";
+    
+    
+    /**
+     * Statistics of a registered thread.
+     * 
+     * @author Andras Belicza
+     */
+    public static final class ThreadStats {
+        
+        /** Id of the thread. */
+        private final long id;
+        
+        /** Name of the thread. */
+        private final String name;
+        
+        /** State of the thread. */
+        private final Thread.State state;
+        
+        /** Controlled state of the thread, <code>null</code> if not a {@link CtrlThread}. */
+        private final CtrlState ctrlState;
+        
+        /** CPU time of the thread in ms. */
+        private final long cpuTimeMs;
+        
+        /** Bytes allocated by the thread. */
+        private final long allocatedBytes;
+        
+        /** Execution time in ms, <code>-1</code> if not a {@link CtrlThread}. */
+        private final long execTimeMs;
+        
+        /** Time spent in paused state in ms, <code>-1</code> if not a {@link CtrlThread}. */
+        private final long pausedTimeMs;
+        
+        /** Time spent blocked waiting for permits in ms, <code>-1</code> if not a {@link CtrlThread}. */
+        private final long blockedTimeMs;
+        
+        /**
+         * Creates a new {@link ThreadStats}.
+         * 
+         * @param thread thread to create the statistics of
+         */
+        private ThreadStats(final NormalThread thread) {
+            id = thread.getId();
+            name = thread.getName();
+            state = thread.getState();
+            
+            cpuTimeMs = THREAD_MX_BEAN.isThreadCpuTimeSupported() ? toMs(THREAD_MX_BEAN.getThreadCpuTime(id))
+                    : -1;
+            allocatedBytes = ALLOC_MX_BEAN == null ? -1 : ALLOC_MX_BEAN.getThreadAllocatedBytes(id);
+            
+            if (thread instanceof CtrlThread) {
+                final CtrlThread ctrlThread = (CtrlThread) thread;
+                ctrlState = ctrlThread.getCtrlState();
+                execTimeMs = ctrlThread.getExecTimeMs();
+                pausedTimeMs = ctrlThread.getPausedTimeMs();
+                blockedTimeMs = ctrlThread.getBlockedTimeMs();
+            } else {
+                ctrlState = null;
+                execTimeMs = pausedTimeMs = blockedTimeMs = -1;
+            }
+        }
+        
+        /**
+         * Converts the specified nanoseconds to ms, leaving <code>-1</code> (unsupported) intact.
+         * 
+         * @param nanos nanoseconds to be converted
+         * @return the nanoseconds in ms
+         */
+        private static long toMs(final long nanos) {
+            return nanos < 0 ? -1 : nanos / 1_000_000;
+        }
+        
+        /**
+         * Returns the id of the thread.
+         * 
+         * @return the id of the thread
+         */
+        public long getId() {
+            return id;
+        }
+        
+        /**
+         * Returns the name of the thread.
+         * 
+         * @return the name of the thread
+         */
+        public String getName() {
+            return name;
+        }
+        
+        /**
+         * Returns the state of the thread.
+         * 
+         * @return the state of the thread
+         */
+        public Thread.State getState() {
+            return state;
+        }
+        
+        /**
+         * Returns the controlled state of the thread.
+         * 
+         * @return the controlled state of the thread; <code>null</code> if not a {@link CtrlThread}
+         */
+        public CtrlState getCtrlState() {
+            return ctrlState;
+        }
+        
+        /**
+         * Returns the CPU time of the thread in ms.
+         * 
+         * @return the CPU time of the thread in ms; <code>-1</code> if not supported
+         */
+        public long getCpuTimeMs() {
+            return cpuTimeMs;
+        }
+        
+        /**
+         * Returns the number of bytes allocated by the thread.
+         * 
+         * @return the number of bytes allocated by the thread; <code>-1</code> if not supported
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+        
+        /**
+         * Returns the execution time in ms.
+         * 
+         * @return the execution time in ms; <code>-1</code> if not a {@link CtrlThread}
+         * 
+         * @see CtrlThread#getExecTimeMs()
+         */
+        public long getExecTimeMs() {
+            return execTimeMs;
+        }
+        
+        /**
+         * Returns the time spent in paused state in ms.
+         * 
+         * @return the time spent in paused state in ms; <code>-1</code> if not a {@link CtrlThread}
+         * 
+         * @see CtrlThread#getPausedTimeMs()
+         */
+        public long getPausedTimeMs() {
+            return pausedTimeMs;
+        }
+        
+        /**
+         * Returns the time spent blocked waiting for permits in ms.
+         * 
+         * @return the time spent blocked waiting for permits in ms; <code>-1</code> if not a
+         *         {@link CtrlThread}
+         * 
+         * @see CtrlThread#getBlockedTimeMs()
+         */
+        public long getBlockedTimeMs() {
+            return blockedTimeMs;
+        }
+        
+        @Override
+        public String toString() {
+            return name + " (id: " + id + ", state: " + (ctrlState == null ? state : ctrlState) + ", CPU: "
+                    + cpuTimeMs + " ms, allocated: " + allocatedBytes + " bytes, exec: " + execTimeMs
+                    + " ms, paused: " + pausedTimeMs + " ms, blocked: " + blockedTimeMs + " ms)";
+        }
+    
+    }
+    
+    
+    /** Thread management bean of the JVM. */
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    
+    /** Thread management bean of the JVM providing allocated bytes, <code>null</code> if not supported. */
+    private static final com.sun.management.ThreadMXBean ALLOC_MX_BEAN;
+    static {
+        com.sun.management.ThreadMXBean bean = null;
+        if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+            bean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+            if (!bean.isThreadAllocatedMemorySupported() || !bean.isThreadAllocatedMemoryEnabled())
+                bean = null;
+        }
+        ALLOC_MX_BEAN = bean;
+    }
+    
+    /** Set of the registered threads, weakly referenced so threads not deregistered do not leak. */
+    private static final Set<NormalThread> THREAD_SET = Collections
+            .synchronizedSet(Collections.newSetFromMap(new WeakHashMap<NormalThread, Boolean>()));
+    
+    /** Tells if the registry is enabled. */
+    private static volatile boolean enabled;
+    
+    /** Management bean of the registry. */
+    private static final ThreadRegistryMXBean MX_BEAN = new ThreadRegistryMXBean() {
+        @Override
+        public int getThreadCount() {
+            return snapshot().size();
+        }
+        
+        @Override
+        public List<ThreadStats> getThreads() {
+            return snapshot();
+        }
+    };
+    
+    /**
+     * Creates a new {@link ThreadRegistry}.
+     */
+    private ThreadRegistry() {
+    }
+    
+    /**
+     * Enables or disables the registry.
+     * 
+     * <p>
+     * Enabling registers the management bean of the registry, disabling unregisters it and drops all
+     * registered threads.
+     * </p>
+     * 
+     * @param enabled tells if the registry is to be enabled
+     */
+    public static synchronized void setEnabled(final boolean enabled) {
+        if (ThreadRegistry.enabled == enabled)
+            return;
+        
+        ThreadRegistry.enabled = enabled;
+        
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            final ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (enabled)
+                server.registerMBean(MX_BEAN, objectName);
+            else
+                server.unregisterMBean(objectName);
+        } catch (final JMException je) {
+            LOGGER.log(Level.WARNING, "Failed to " + (enabled ? "register" : "unregister") + " MBean: "
+                    + OBJECT_NAME, je);
+        }
+        
+        if (!enabled)
+            THREAD_SET.clear();
+    }
+    
+    /**
+     * Tells if the registry is enabled.
+     * 
+     * @return true if the registry is enabled; false otherwise
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Registers the specified thread if the registry is enabled, called when the thread is started.
+     * 
+     * @param thread thread to be registered
+     */
+    static void register(final NormalThread thread) {
+        if (enabled)
+            THREAD_SET.add(thread);
+    }
+    
+    /**
+     * Deregisters the specified thread, called when the thread terminates.
+     * 
+     * @param thread thread to be deregistered
+     */
+    static void deregister(final NormalThread thread) {
+        THREAD_SET.remove(thread);
+    }
+    
+    /**
+     * Tells if the specified thread is registered.
+     * 
+     * @param thread thread to be checked
+     * @return true if the specified thread is registered; false otherwise
+     */
+    static boolean isRegistered(final NormalThread thread) {
+        return THREAD_SET.contains(thread);
+    }
+    
+    /**
+     * Returns the statistics of the live registered threads, in decreasing order of CPU time.
+     * 
+     * @return the statistics of the live registered threads
+     */
+    public static List<ThreadStats> snapshot() {
+        // Copy under the lock of the set, statistics are collected without holding it
+        final NormalThread[] threads = THREAD_SET.toArray(new NormalThread[0]);
+        final List<ThreadStats> statsList = new ArrayList<>(threads.length);
+        
+        for (final NormalThread thread : threads) {
+            if (thread.isAlive())
+                statsList.add(new ThreadStats(thread));
+            else
+                THREAD_SET.remove(thread); // Not deregistered, e.g. run() is overridden
+        }
+        
+        statsList.sort((s1, s2) -> Long.compare(s2.cpuTimeMs, s1.cpuTimeMs));
+        
+        return statsList;
+    }
+    
+}
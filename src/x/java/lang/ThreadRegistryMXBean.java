@@ -0,0 +1,42 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.util.List;
+
+import x.java.lang.ThreadRegistry.ThreadStats;
+
+/**
+ * Management interface of the {@link ThreadRegistry}, registered under the name
+ * {@value ThreadRegistry#OBJECT_NAME} while the registry is enabled.
+ * 
+ * @author Andras Belicza
+ * 
+ * @see ThreadRegistry
+ */
+public interface ThreadRegistryMXBean {
+    
+    /**
+     * Returns the number of live registered threads.
+     * 
+     * @return the number of live registered threads
+     */
+    int getThreadCount();
+    
+    /**
+     * Returns the statistics of the live registered threads, in decreasing order of CPU time.
+     * 
+     * @return the statistics of the live registered threads
+     * 
+     * @see ThreadRegistry#snapshot()
+     */
+    List<ThreadStats> getThreads();
+    
+}
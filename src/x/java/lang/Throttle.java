@@ -0,0 +1,160 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A source of permits to limit the load put on a (downstream) resource, e.g. a service called by
+ * <code>HttpPost</code>.
+ * 
+ * <p>
+ * Controlled jobs acquire permits by {@link CtrlThread#acquire(Throttle)} and
+ * {@link CtrlTask#acquire(Throttle)} which respect pause and cancel requests while waiting, and count the
+ * time waited as blocked time instead of execution time. Other threads may use {@link #acquire()} and
+ * {@link #tryAcquire()}.
+ * </p>
+ * 
+ * <p>
+ * Permits should be released by {@link #release()} when the work they were acquired for is done:
+ * 
+ * <pre>
+ * <blockquote style='border:1px solid black'>
+ * public void customRun() {
+ *     while (acquire(throttle)) {
+ *         try {
+ *             doSomeWork();
+ *         } finally {
+ *             throttle.release();
+ *         }
+ *     }
+ * }
+ * </blockquote>
+ * </pre>
+ * 
+ * </p>
+ * 
+ * <p>
+ * Limits of the implementations can be adjusted at runtime, waiting threads are woken up to re-check.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see TokenBucket
+ * @see ConcurrencyLimit
+ */
+public abstract class Throttle {
+    
+    /** Wake-up callbacks of the waiting threads. */
+    private final Set<Runnable> waiterSet = ConcurrentHashMap.newKeySet();
+    
+    /** Lock object whose monitor non-controlled threads wait on in {@link #acquire()}. */
+    private final Object waitLock = new Object();
+    
+    /**
+     * Creates a new {@link Throttle}.
+     */
+    Throttle() {
+    }
+    
+    /**
+     * Tries to acquire a permit without blocking.
+     * 
+     * @return <code>0</code> if a permit was acquired; else the time in nanoseconds after which a permit
+     *         might become available ({@link Long#MAX_VALUE} if only after a release or limit change)
+     */
+    abstract long tryAcquireNanos();
+    
+    /**
+     * Releases a permit acquired earlier.
+     */
+    public abstract void release();
+    
+    /**
+     * Tries to acquire a permit without blocking.
+     * 
+     * @return true if a permit was acquired; false otherwise
+     */
+    public boolean tryAcquire() {
+        return tryAcquireNanos() == 0;
+    }
+    
+    /**
+     * Acquires a permit, waiting while no permit is available.
+     * 
+     * <p>
+     * Controlled jobs should use {@link CtrlThread#acquire(Throttle)} or {@link CtrlTask#acquire(Throttle)}
+     * instead.
+     * </p>
+     * 
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        // Each waiting thread needs its own registered waker (the waiter set is a set)
+        final Runnable waitLockWaker = new Runnable() {
+            @Override
+            public void run() {
+                synchronized (waitLock) {
+                    waitLock.notifyAll();
+                }
+            }
+        };
+        
+        addWaiter(waitLockWaker);
+        try {
+            synchronized (waitLock) {
+                long delay;
+                while ((delay = tryAcquireNanos()) != 0)
+                    TimeUnit.NANOSECONDS.timedWait(waitLock, delay);
+            }
+        } finally {
+            removeWaiter(waitLockWaker);
+        }
+    }
+    
+    /**
+     * Registers a wake-up callback of a waiting thread.
+     * 
+     * <p>
+     * The callback must acquire the lock the waiting thread waits on, and the waiting thread must call
+     * {@link #tryAcquireNanos()} holding that lock, so wake-ups cannot be lost.
+     * </p>
+     * 
+     * @param waker wake-up callback to be registered
+     */
+    void addWaiter(final Runnable waker) {
+        waiterSet.add(waker);
+    }
+    
+    /**
+     * Unregisters a wake-up callback.
+     * 
+     * @param waker wake-up callback to be unregistered
+     */
+    void removeWaiter(final Runnable waker) {
+        waiterSet.remove(waker);
+    }
+    
+    /**
+     * Wakes up the waiting threads to re-check the availability of permits.
+     * 
+     * <p>
+     * Must not be called while holding the lock of the throttle, as wake-up callbacks acquire the locks of
+     * waiting threads.
+     * </p>
+     */
+    void wakeWaiters() {
+        for (final Runnable waker : waiterSet)
+            waker.run();
+    }
+    
+}
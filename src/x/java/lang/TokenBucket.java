@@ -0,0 +1,202 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * A token bucket rate limiter: permits are generated at a given rate and up to a given burst capacity are
+ * accumulated while unused.
+ * 
+ * <p>
+ * Permits of a token bucket are consumed, {@link #release()} is a no-op.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see ConcurrencyLimit
+ */
+public class TokenBucket extends Throttle {
+    
+    /** Clock providing the time in nanoseconds. */
+    private final LongSupplier clock;
+    
+    /** Number of permits generated per second. */
+    private double rate;
+    
+    /** Maximum number of permits accumulated. */
+    private double capacity;
+    
+    /** Number of available permits as of {@link #lastRefillNs}. */
+    private double tokens;
+    
+    /** Time of the last refill in nanoseconds. */
+    private long lastRefillNs;
+    
+    /**
+     * Creates a new {@link TokenBucket}, initially full.
+     * 
+     * @param rate number of permits generated per second
+     * @param capacity maximum number of permits accumulated (burst size)
+     * 
+     * @throws IllegalArgumentException if <code>rate</code> is not positive or <code>capacity</code> is less
+     *             than <code>1</code>
+     */
+    public TokenBucket(final double rate, final double capacity) {
+        this(rate, capacity, System::nanoTime);
+    }
+    
+    /**
+     * Creates a new {@link TokenBucket} using the specified clock, initially full.
+     * 
+     * @param rate number of permits generated per second
+     * @param capacity maximum number of permits accumulated (burst size)
+     * @param clock clock providing the time in nanoseconds
+     * 
+     * @throws IllegalArgumentException if <code>rate</code> is not positive or <code>capacity</code> is less
+     *             than <code>1</code>
+     */
+    TokenBucket(final double rate, final double capacity, final LongSupplier clock) {
+        checkRate(rate);
+        checkCapacity(capacity);
+        
+        this.clock = clock;
+        this.rate = rate;
+        this.capacity = capacity;
+        tokens = capacity;
+        lastRefillNs = clock.getAsLong();
+    }
+    
+    /**
+     * Checks the specified rate.
+     * 
+     * @param rate rate to be checked
+     * 
+     * @throws IllegalArgumentException if <code>rate</code> is not positive
+     */
+    private static void checkRate(final double rate) {
+        if (!(rate > 0) || Double.isInfinite(rate))
+            throw new IllegalArgumentException("rate must be positive: " + rate);
+    }
+    
+    /**
+     * Checks the specified capacity.
+     * 
+     * @param capacity capacity to be checked
+     * 
+     * @throws IllegalArgumentException if <code>capacity</code> is less than <code>1</code>
+     */
+    private static void checkCapacity(final double capacity) {
+        if (!(capacity >= 1) || Double.isInfinite(capacity))
+            throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+    }
+    
+    /**
+     * Adds the tokens generated since the last refill.
+     */
+    private void refill() {
+        final long now = clock.getAsLong();
+        
+        tokens = Math.min(capacity, tokens + (now - lastRefillNs) * rate / TimeUnit.SECONDS.toNanos(1));
+        lastRefillNs = now;
+    }
+    
+    @Override
+    synchronized long tryAcquireNanos() {
+        refill();
+        
+        if (tokens >= 1) {
+            tokens--;
+            return 0;
+        }
+        
+        return Math.max(1, (long) Math.ceil((1 - tokens) / rate * TimeUnit.SECONDS.toNanos(1)));
+    }
+    
+    /**
+     * Does nothing, permits of a token bucket are consumed.
+     */
+    @Override
+    public void release() {
+    }
+    
+    /**
+     * Returns the number of permits generated per second.
+     * 
+     * @return the number of permits generated per second
+     */
+    public synchronized double getRate() {
+        return rate;
+    }
+    
+    /**
+     * Sets the number of permits generated per second.
+     * 
+     * @param rate number of permits generated per second to be set
+     * 
+     * @throws IllegalArgumentException if <code>rate</code> is not positive
+     */
+    public void setRate(final double rate) {
+        checkRate(rate);
+        
+        synchronized (this) {
+            refill(); // Tokens generated so far are due at the old rate
+            this.rate = rate;
+        }
+        
+        wakeWaiters();
+    }
+    
+    /**
+     * Returns the maximum number of permits accumulated.
+     * 
+     * @return the maximum number of permits accumulated
+     */
+    public synchronized double getCapacity() {
+        return capacity;
+    }
+    
+    /**
+     * Sets the maximum number of permits accumulated.
+     * 
+     * @param capacity maximum number of permits accumulated to be set
+     * 
+     * @throws IllegalArgumentException if <code>capacity</code> is less than <code>1</code>
+     */
+    public void setCapacity(final double capacity) {
+        checkCapacity(capacity);
+        
+        synchronized (this) {
+            refill();
+            this.capacity = capacity;
+            tokens = Math.min(tokens, capacity);
+        }
+        
+        wakeWaiters();
+    }
+    
+    /**
+     * Returns the number of currently available permits.
+     * 
+     * @return the number of currently available permits
+     */
+    public synchronized double getAvailable() {
+        refill();
+        
+        return tokens;
+    }
+    
+    @Override
+    public String toString() {
+        return "TokenBucket(rate: " + getRate() + "/s, capacity: " + getCapacity() + ")";
+    }
+    
+}
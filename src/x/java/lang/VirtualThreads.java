@@ -0,0 +1,264 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Virtual thread utilities: factories of virtual-thread equivalents of {@link NormalThread}s and
+ * {@link CtrlThread}s.
+ * 
+ * <p>
+ * Virtual threads are available from Java 21. The library targets older Java versions, so the virtual
+ * thread API is accessed via reflection; if not available, the factories degrade gracefully and create
+ * {@link NormalThread}s (platform threads) instead. Use {@link #isSupported()} to check which one is used.
+ * </p>
+ * 
+ * <p>
+ * Created threads are named and log uncaught exceptions with {@link NormalThread#UNCAUGHT_EXCEPTION_HANDLER},
+ * just like {@link NormalThread}s. Since virtual threads cannot be subclassed, {@link #waitToFinish(Thread)}
+ * and {@link #checkedSleep(long)} substitute the methods of {@link NormalThread}, and the virtual-thread
+ * equivalent of {@link CtrlThread}s are {@link CtrlTask}s executed by {@link #newCtrlExecutor(String)}.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see NormalThread
+ * @see CtrlExecutor
+ */
+public class VirtualThreads {
+    
+    /** {@link Logger} used for logging. */
+    private static final Logger LOGGER = Logger.getLogger(VirtualThreads.class.getName());
+    
+    /** <code>Thread.ofVirtual()</code>, <code>null</code> if virtual threads are not supported. */
+    private static final Method OF_VIRTUAL;
+    
+    /** <code>Thread.Builder.name(String)</code>. */
+    private static final Method BUILDER_NAME;
+    
+    /** <code>Thread.Builder.name(String, long)</code>. */
+    private static final Method BUILDER_NAME_COUNTER;
+    
+    /** <code>Thread.Builder.uncaughtExceptionHandler(UncaughtExceptionHandler)</code>. */
+    private static final Method BUILDER_UNCAUGHT_EXCEPTION_HANDLER;
+    
+    /** <code>Thread.Builder.unstarted(Runnable)</code>. */
+    private static final Method BUILDER_UNSTARTED;
+    
+    /** <code>Thread.Builder.factory()</code>. */
+    private static final Method BUILDER_FACTORY;
+    
+    /** <code>Thread.isVirtual()</code>. */
+    private static final Method IS_VIRTUAL;
+    
+    /** <code>Executors.newThreadPerTaskExecutor(ThreadFactory)</code>. */
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+    
+    static {
+        Method ofVirtual = null, name = null, nameCounter = null, ueh = null, unstarted = null;
+        Method factory = null, isVirtual = null, newExecutor = null;
+        try {
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builderClass.getMethod("name", String.class);
+            nameCounter = builderClass.getMethod("name", String.class, long.class);
+            ueh = builderClass.getMethod("uncaughtExceptionHandler", UncaughtExceptionHandler.class);
+            unstarted = builderClass.getMethod("unstarted", Runnable.class);
+            factory = builderClass.getMethod("factory");
+            isVirtual = Thread.class.getMethod("isVirtual");
+            newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            
+            // Virtual threads might be a disabled preview feature (Java 19-20)
+            ofVirtual.invoke(null);
+        } catch (final ReflectiveOperationException | RuntimeException | LinkageError e) {
+            LOGGER.log(Level.FINE, "Virtual threads are not supported, platform threads will be used.", e);
+            ofVirtual = null;
+        }
+        
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = name;
+        BUILDER_NAME_COUNTER = nameCounter;
+        BUILDER_UNCAUGHT_EXCEPTION_HANDLER = ueh;
+        BUILDER_UNSTARTED = unstarted;
+        BUILDER_FACTORY = factory;
+        IS_VIRTUAL = isVirtual;
+        NEW_THREAD_PER_TASK_EXECUTOR = newExecutor;
+    }
+    
+    /**
+     * Tells if virtual threads are supported by the running JVM.
+     * 
+     * @return true if virtual threads are supported; false otherwise
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+    
+    /**
+     * Tells if the specified thread is a virtual thread.
+     * 
+     * @param thread thread to be tested
+     * @return true if the specified thread is a virtual thread; false otherwise
+     */
+    public static boolean isVirtual(final Thread thread) {
+        return OF_VIRTUAL != null && (Boolean) invoke(IS_VIRTUAL, thread);
+    }
+    
+    /**
+     * Creates a new, unstarted virtual thread (or a {@link NormalThread} if virtual threads are not
+     * supported) which runs the specified target.
+     * 
+     * @param target the object whose <code>run()</code> method is invoked when the thread is started
+     * @param name name of the thread
+     * @return the new, unstarted thread
+     */
+    public static Thread newThread(final Runnable target, final String name) {
+        if (OF_VIRTUAL == null)
+            return new NormalThread(target, name);
+        
+        final Object builder = invoke(BUILDER_NAME, invoke(OF_VIRTUAL, null), name);
+        invoke(BUILDER_UNCAUGHT_EXCEPTION_HANDLER, builder, NormalThread.UNCAUGHT_EXCEPTION_HANDLER);
+        return (Thread) invoke(BUILDER_UNSTARTED, builder, target);
+    }
+    
+    /**
+     * Creates and starts a new virtual thread (or a {@link NormalThread} if virtual threads are not
+     * supported) which runs the specified target.
+     * 
+     * @param target the object whose <code>run()</code> method is invoked when the thread is started
+     * @param name name of the thread
+     * @return the started thread
+     */
+    public static Thread start(final Runnable target, final String name) {
+        final Thread thread = newThread(target, name);
+        thread.start();
+        return thread;
+    }
+    
+    /**
+     * Returns a thread-safe factory of virtual threads (or {@link NormalThread}s if virtual threads are not
+     * supported).
+     * 
+     * @param namePrefix prefix of the thread names; the threads are named <code>namePrefix-N</code> where
+     *            <code>N</code> is a counter starting from <code>1</code>
+     * @return a thread factory
+     */
+    public static ThreadFactory newFactory(final String namePrefix) {
+        if (OF_VIRTUAL == null) {
+            final AtomicLong counter = new AtomicLong();
+            return r -> new NormalThread(r, namePrefix + "-" + counter.incrementAndGet());
+        }
+        
+        final Object builder = invoke(BUILDER_NAME_COUNTER, invoke(OF_VIRTUAL, null), namePrefix + "-", 1L);
+        invoke(BUILDER_UNCAUGHT_EXCEPTION_HANDLER, builder, NormalThread.UNCAUGHT_EXCEPTION_HANDLER);
+        return (ThreadFactory) invoke(BUILDER_FACTORY, builder);
+    }
+    
+    /**
+     * Returns an executor service which starts a new virtual thread for each task (or a cached thread pool of
+     * {@link NormalThread}s if virtual threads are not supported).
+     * 
+     * @param namePrefix prefix of the thread names
+     * @return an executor service which starts a new virtual thread for each task
+     */
+    public static ExecutorService newExecutor(final String namePrefix) {
+        final ThreadFactory factory = newFactory(namePrefix);
+        
+        if (OF_VIRTUAL == null)
+            return Executors.newCachedThreadPool(factory);
+        
+        return (ExecutorService) invoke(NEW_THREAD_PER_TASK_EXECUTOR, null, factory);
+    }
+    
+    /**
+     * Returns a {@link CtrlExecutor} which executes each task in a new virtual thread (or in a cached thread
+     * pool of {@link NormalThread}s if virtual threads are not supported).
+     * 
+     * <p>
+     * This is the virtual-thread equivalent of {@link CtrlThread}s: the tasks have the same pause/cancel
+     * behavior without occupying a platform thread each.
+     * </p>
+     * 
+     * @param namePrefix prefix of the thread names
+     * @return a {@link CtrlExecutor} which executes each task in a new virtual thread
+     */
+    public static CtrlExecutor newCtrlExecutor(final String namePrefix) {
+        return new CtrlExecutor(newExecutor(namePrefix));
+    }
+    
+    /**
+     * Waits for the specified thread to finish.
+     * 
+     * @param thread thread to wait for
+     * @return true if thread finished properly; false otherwise (interrupted)
+     * 
+     * @see NormalThread#waitToFinish()
+     */
+    public static boolean waitToFinish(final Thread thread) {
+        try {
+            thread.join();
+            return true;
+        } catch (final InterruptedException ie) {
+            LOGGER.log(Level.WARNING, "Thread interrupted: " + Thread.currentThread().getName(), ie);
+            return false;
+        }
+    }
+    
+    /**
+     * Sleeps the current thread for the specified amount of milliseconds.
+     * 
+     * @param ms milliseconds to sleep
+     * @return the exception that was thrown if sleep was interrupted; <code>null</code> otherwise
+     * 
+     * @see NormalThread#checkedSleep(long)
+     */
+    public static InterruptedException checkedSleep(final long ms) {
+        try {
+            Thread.sleep(ms);
+            return null;
+        } catch (final InterruptedException ie) {
+            LOGGER.log(Level.WARNING, "Thread interrupted: " + Thread.currentThread().getName(), ie);
+            return ie;
+        }
+    }
+    
+    /**
+     * Invokes the specified method, rethrowing exceptions unchecked.
+     * 
+     * @param method method to be invoked
+     * @param obj object to invoke the method on; <code>null</code> for static methods
+     * @param args arguments of the method
+     * @return the return value of the method
+     */
+    private static Object invoke(final Method method, final Object obj, final Object... args) {
+        try {
+            return method.invoke(obj, args);
+        } catch (final InvocationTargetException ite) {
+            final Throwable cause = ite.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IllegalStateException(cause);
+        } catch (final IllegalAccessException iae) {
+            throw new IllegalStateException(iae);
+        }
+    }
+    
+}
@@ -0,0 +1,373 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.lang;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * A weighted random sampler: samples indices of a fixed number of outcomes according to their weights.
+ * 
+ * <p>
+ * Unlike {@link MathUtils#randomValue(Object[], int[], Random)} which processes the weights on each call
+ * (O(N)), a sampler preprocesses the weights once, so drawing many samples from the same distribution is
+ * cheap:
+ * </p>
+ * <ul>
+ * <li>{@link #of(double...)} returns an immutable sampler built with Vose's alias method: O(N) to build and
+ * O(1) per sample
+ * <li>{@link DynamicWeightedSampler} uses a cumulative weight array and binary search: O(log N) per sample,
+ * and weights can be changed after creation
+ * </ul>
+ * 
+ * <p>
+ * Samplers work with both {@link Random} and {@link SplittableRandom}; bulk sampling with
+ * {@link #parallelSample(int, int[], SplittableRandom)} splits the random generator to sample in parallel
+ * with reproducible results.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see DynamicWeightedSampler
+ * @see MathUtils#randomValue(Object[], int[], Random)
+ */
+public abstract class WeightedSampler {
+    
+    /** Number of samples generated by a task in {@link #parallelSample(int, int[], SplittableRandom)}. */
+    private static final int PARALLEL_CHUNK = 1 << 16;
+    
+    
+    /**
+     * Returns an immutable sampler of the specified weights using the alias method.
+     * 
+     * @param weights weights of the outcomes; the array is not referenced by the returned sampler
+     * @return an immutable sampler of the specified weights
+     * 
+     * @throws IllegalArgumentException if <code>weights</code> is empty, contains negative or non-finite
+     *             values, or if the sum of the weights is not positive
+     */
+    public static WeightedSampler of(final double... weights) {
+        return new AliasSampler(weights);
+    }
+    
+    /**
+     * Returns an immutable sampler of the specified weights using the alias method.
+     * 
+     * @param weights weights of the outcomes
+     * @return an immutable sampler of the specified weights
+     * 
+     * @throws IllegalArgumentException if <code>weights</code> is empty, contains negative values, or if the
+     *             sum of the weights is <code>0</code>
+     */
+    public static WeightedSampler of(final int... weights) {
+        final double[] dweights = new double[weights.length];
+        for (int i = 0; i < weights.length; i++)
+            dweights[i] = weights[i];
+        return new AliasSampler(dweights);
+    }
+    
+    /**
+     * Checks the specified weight.
+     * 
+     * @param weight weight to be checked
+     * 
+     * @throws IllegalArgumentException if <code>weight</code> is negative or not finite
+     */
+    static void checkWeight(final double weight) {
+        if (!(weight >= 0) || weight == Double.POSITIVE_INFINITY)
+            throw new IllegalArgumentException("Weights must be non-negative and finite: " + weight);
+    }
+    
+    /**
+     * Checks the specified weights and returns their sum.
+     * 
+     * @param weights weights to be checked
+     * @return the sum of the weights
+     * 
+     * @throws IllegalArgumentException if <code>weights</code> is empty, contains negative or non-finite
+     *             values, or if the sum of the weights is not positive
+     */
+    static double checkWeights(final double[] weights) {
+        if (weights.length == 0)
+            throw new IllegalArgumentException("weights cannot be empty!");
+        
+        double sum = 0;
+        for (final double weight : weights) {
+            checkWeight(weight);
+            sum += weight;
+        }
+        if (!(sum > 0) || sum == Double.POSITIVE_INFINITY)
+            throw new IllegalArgumentException("Sum of weights must be positive and finite: " + sum);
+        
+        return sum;
+    }
+    
+    /**
+     * Returns the number of outcomes.
+     * 
+     * @return the number of outcomes
+     */
+    public abstract int size();
+    
+    /**
+     * Returns the probability of the specified outcome.
+     * 
+     * @param index index of the outcome
+     * @return the probability of the specified outcome
+     */
+    public abstract double getProbability(int index);
+    
+    /**
+     * Returns the outcome selected by the specified uniformly distributed value.
+     * 
+     * <p>
+     * If <code>u</code> is uniformly distributed in the range of <code>[0..1)</code>, the returned indices
+     * follow the distribution of the weights.
+     * </p>
+     * 
+     * @param u a value in the range of <code>[0..1)</code>
+     * @return the index of the selected outcome
+     */
+    public abstract int select(double u);
+    
+    /**
+     * Prepares the sampler for (concurrent) sampling.
+     * 
+     * <p>
+     * Called before bulk sampling. This implementation does nothing.
+     * </p>
+     */
+    void prepare() {
+    }
+    
+    /**
+     * Returns the index of a random outcome.
+     * 
+     * @param random {@link Random} to be used for random number generation
+     * @return the index of a random outcome
+     */
+    public int sample(final Random random) {
+        return select(random.nextDouble());
+    }
+    
+    /**
+     * Returns the index of a random outcome.
+     * 
+     * @param source source of random data
+     * @return the index of a random outcome
+     */
+    public int sample(final RandomSource source) {
+        return select(source.nextDouble());
+    }
+    
+    /**
+     * Returns the index of a random outcome.
+     * 
+     * @param random {@link SplittableRandom} to be used for random number generation
+     * @return the index of a random outcome
+     */
+    public int sample(final SplittableRandom random) {
+        return select(random.nextDouble());
+    }
+    
+    /**
+     * Samples the specified number of random outcomes.
+     * 
+     * @param count number of samples to generate
+     * @param out array to store the indices of the sampled outcomes in, starting at index <code>0</code>
+     * @param random {@link SplittableRandom} to be used for random number generation
+     * 
+     * @throws IllegalArgumentException if <code>count</code> is negative or greater than
+     *             <code>out.length</code>
+     */
+    public void sample(final int count, final int[] out, final SplittableRandom random) {
+        checkCount(count, out);
+        
+        prepare();
+        sample(out, 0, count, random);
+    }
+    
+    /**
+     * Samples the specified number of random outcomes in parallel, using the common fork-join pool.
+     * 
+     * <p>
+     * The random generator is split for each chunk of samples before sampling starts, so the result is
+     * reproducible (it only depends on the state of <code>random</code>), but it differs from the result of
+     * {@link #sample(int, int[], SplittableRandom)}.
+     * </p>
+     * 
+     * <p>
+     * The sampler must not be modified during this call.
+     * </p>
+     * 
+     * @param count number of samples to generate
+     * @param out array to store the indices of the sampled outcomes in, starting at index <code>0</code>
+     * @param random {@link SplittableRandom} to be split for random number generation
+     * 
+     * @throws IllegalArgumentException if <code>count</code> is negative or greater than
+     *             <code>out.length</code>
+     */
+    public void parallelSample(final int count, final int[] out, final SplittableRandom random) {
+        checkCount(count, out);
+        
+        prepare();
+        final int chunks = (count + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK;
+        final SplittableRandom[] randoms = new SplittableRandom[chunks];
+        for (int i = 0; i < chunks; i++)
+            randoms[i] = random.split();
+        
+        IntStream.range(0, chunks).parallel().forEach(
+                i -> sample(out, i * PARALLEL_CHUNK, Math.min(count, (i + 1) * PARALLEL_CHUNK), randoms[i]));
+    }
+    
+    /**
+     * Checks the count of a bulk sampling.
+     * 
+     * @param count number of samples to generate
+     * @param out array to store the indices of the sampled outcomes in
+     * 
+     * @throws IllegalArgumentException if <code>count</code> is negative or greater than
+     *             <code>out.length</code>
+     */
+    private static void checkCount(final int count, final int[] out) {
+        if (count < 0 || count > out.length)
+            throw new IllegalArgumentException(
+                    "count must be in the range of 0.." + out.length + ": " + count);
+    }
+    
+    /**
+     * Samples random outcomes into the specified range of the output array.
+     * 
+     * @param out array to store the indices of the sampled outcomes in
+     * @param from index of the first sample (inclusive)
+     * @param to index of the last sample (exclusive)
+     * @param random {@link SplittableRandom} to be used for random number generation
+     */
+    void sample(final int[] out, final int from, final int to, final SplittableRandom random) {
+        for (int i = from; i < to; i++)
+            out[i] = select(random.nextDouble());
+    }
+    
+    
+    /**
+     * Immutable sampler using Vose's alias method.
+     * 
+     * <p>
+     * The outcomes are distributed into <code>N</code> equal-probability columns, each column holding the
+     * probability of its own outcome and an alias outcome taking the rest of the column. A sample chooses a
+     * column and then one of its 2 outcomes.
+     * </p>
+     * 
+     * @author Andras Belicza
+     */
+    private static final class AliasSampler extends WeightedSampler {
+        
+        /** Probabilities of the outcomes. */
+        private final double[] probabilities;
+        
+        /** Probability of choosing the own outcome of the columns. */
+        private final double[] prob;
+        
+        /** Alias outcomes of the columns. */
+        private final int[] alias;
+        
+        /**
+         * Creates a new {@link AliasSampler}.
+         * 
+         * @param weights weights of the outcomes
+         * 
+         * @throws IllegalArgumentException if <code>weights</code> is empty, contains negative or non-finite
+         *             values, or if the sum of the weights is not positive
+         */
+        AliasSampler(final double[] weights) {
+            final double sum = checkWeights(weights);
+            
+            final int n = weights.length;
+            probabilities = new double[n];
+            prob = new double[n];
+            alias = new int[n];
+            
+            // Scaled probabilities, average is 1; small and large ones are collected in 2 stacks
+            final double[] scaled = new double[n];
+            final int[] small = new int[n];
+            final int[] large = new int[n];
+            int smallSize = 0, largeSize = 0;
+            for (int i = 0; i < n; i++) {
+                probabilities[i] = weights[i] / sum;
+                scaled[i] = probabilities[i] * n;
+                if (scaled[i] < 1)
+                    small[smallSize++] = i;
+                else
+                    large[largeSize++] = i;
+            }
+            
+            // Fill small columns with the excess of large ones
+            while (smallSize > 0 && largeSize > 0) {
+                final int s = small[--smallSize];
+                final int l = large[--largeSize];
+                prob[s] = scaled[s];
+                alias[s] = l;
+                scaled[l] = scaled[l] + scaled[s] - 1;
+                if (scaled[l] < 1)
+                    small[smallSize++] = l;
+                else
+                    large[largeSize++] = l;
+            }
+            // Remaining columns are full (only off from 1 due to rounding errors)
+            while (largeSize > 0) {
+                final int l = large[--largeSize];
+                prob[l] = 1;
+                alias[l] = l;
+            }
+            while (smallSize > 0) {
+                final int s = small[--smallSize];
+                prob[s] = 1;
+                alias[s] = s;
+            }
+        }
+        
+        @Override
+        public int size() {
+            return prob.length;
+        }
+        
+        @Override
+        public double getProbability(final int index) {
+            return probabilities[index];
+        }
+        
+        @Override
+        public int select(final double u) {
+            final int n = prob.length;
+            final double x = u * n;
+            int column = (int) x;
+            if (column >= n) // Might happen due to rounding if u is very close to 1
+                column = n - 1;
+            
+            return x - column < prob[column] ? column : alias[column];
+        }
+        
+        @Override
+        void sample(final int[] out, final int from, final int to, final SplittableRandom random) {
+            // Local references for performance
+            final double[] prob = this.prob;
+            final int[] alias = this.alias;
+            final int n = prob.length;
+            
+            for (int i = from; i < to; i++) {
+                final int column = random.nextInt(n);
+                out[i] = random.nextDouble() < prob[column] ? column : alias[column];
+            }
+        }
+    
+    }
+    
+}
@@ -10,6 +10,7 @@
 package x.java.net.httppost;
 
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -28,6 +29,8 @@ import java.util.Map.Entry;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import x.java.io.IOUtils;
+import x.java.lang.CancelRegistry;
 import x.java.net.URLBuilder;
 
 /**
@@ -126,9 +129,24 @@ import x.java.net.URLBuilder;
  * </blockquote>
  * </pre>
  * 
+ * <p>
+ * If connected from a controlled job ({@link x.java.lang.CtrlThread CtrlThread} or
+ * {@link x.java.lang.CtrlTask CtrlTask}) in interrupt-on-cancel mode, the connection is disconnected when the
+ * job is cancelled: blocking calls return promptly and fail (without logging severe errors) just like they
+ * do on I/O errors.
+ * </p>
+ * 
+ * <p>
+ * By default {@link #close()} disconnects the underlying connection. In keep-alive mode (see
+ * {@link #setKeepAlive(boolean)}) the connection is released instead, so subsequent posts to the same
+ * server may reuse it. {@link HttpPostClient} creates posts in keep-alive mode.
+ * </p>
+ * 
  * @author Andras Belicza
  * 
  * @see URLBuilder
+ * @see CancelRegistry
+ * @see HttpPostClient
  */
 public class HttpPost implements AutoCloseable {
     
@@ -139,6 +157,9 @@ public class HttpPost implements AutoCloseable {
     /** Default charset to be used. */
     public static final String DEFAULT_CHARSET = "UTF-8";
     
+    /** Maximum number of unread response bytes drained when releasing a connection in keep-alive mode. */
+    private static final int MAX_DRAIN_BYTES = 64 * 1024;
+    
     
     /** Internal state of the connection/communication. */
     private State state = State.NOT_CONNECTED;
@@ -158,8 +179,29 @@ public class HttpPost implements AutoCloseable {
     /** Optional additional request properties. */
     private Map<String, String> requestPropertyMap;
     
+    /** Connect timeout in ms, <code>0</code> means infinite. */
+    private int connectTimeoutMs;
+    
+    /** Read timeout in ms, <code>0</code> means infinite. */
+    private int readTimeoutMs;
+    
+    /** Tells if the connection is to be released for reuse instead of being disconnected when closed. */
+    private boolean keepAlive;
+    
+    /** Tells if the response header has been read (so releasing the connection does not wait for it). */
+    private boolean responseHeaderRead;
+    
     /** HttpUrlConnection to perform the POST. */
-    private HttpURLConnection httpUrlConnection;
+    private volatile HttpURLConnection httpUrlConnection;
+    
+    /** Cancel registry of the controlled job which connected, may be <code>null</code>. */
+    private CancelRegistry cancelRegistry;
+    
+    /** Tells if the post has been aborted by {@link #abort()}. */
+    private volatile boolean aborted;
+    
+    /** Disconnects the connection, registered in the cancel registry. */
+    private final Closeable disconnector = this::disconnectAsync;
     
     
     /**
@@ -265,6 +307,108 @@ public class HttpPost implements AutoCloseable {
         requestPropertyMap.put(key, value);
     }
     
+    /**
+     * Sets the connect timeout.
+     * 
+     * <p>
+     * It must be called before {@link #connect()}. The default is <code>0</code> (infinite).
+     * </p>
+     * 
+     * @param connectTimeoutMs connect timeout in ms to be set, <code>0</code> means infinite
+     * 
+     * @throws IllegalArgumentException if <code>connectTimeoutMs</code> is negative
+     * @throws IllegalStateException if internal state checking is enabled and the internal state is not
+     *             {@link State#NOT_CONNECTED}
+     * 
+     * @see HttpURLConnection#setConnectTimeout(int)
+     */
+    public void setConnectTimeout(final int connectTimeoutMs) {
+        if (connectTimeoutMs < 0)
+            throw new IllegalArgumentException("connectTimeoutMs cannot be negative!");
+        if (internalStateCheckingEnabled && state != State.NOT_CONNECTED)
+            throw new IllegalStateException("setConnectTimeout() can only be called in NOT_CONNECTED state!");
+        
+        this.connectTimeoutMs = connectTimeoutMs;
+    }
+    
+    /**
+     * Returns the connect timeout.
+     * 
+     * @return the connect timeout in ms, <code>0</code> means infinite
+     */
+    public int getConnectTimeout() {
+        return connectTimeoutMs;
+    }
+    
+    /**
+     * Sets the read timeout, the maximum time to wait for data (including the response) from the server.
+     * 
+     * <p>
+     * It must be called before {@link #connect()}. The default is <code>0</code> (infinite).
+     * </p>
+     * 
+     * @param readTimeoutMs read timeout in ms to be set, <code>0</code> means infinite
+     * 
+     * @throws IllegalArgumentException if <code>readTimeoutMs</code> is negative
+     * @throws IllegalStateException if internal state checking is enabled and the internal state is not
+     *             {@link State#NOT_CONNECTED}
+     * 
+     * @see HttpURLConnection#setReadTimeout(int)
+     */
+    public void setReadTimeout(final int readTimeoutMs) {
+        if (readTimeoutMs < 0)
+            throw new IllegalArgumentException("readTimeoutMs cannot be negative!");
+        if (internalStateCheckingEnabled && state != State.NOT_CONNECTED)
+            throw new IllegalStateException("setReadTimeout() can only be called in NOT_CONNECTED state!");
+        
+        this.readTimeoutMs = readTimeoutMs;
+    }
+    
+    /**
+     * Returns the read timeout.
+     * 
+     * @return the read timeout in ms, <code>0</code> means infinite
+     */
+    public int getReadTimeout() {
+        return readTimeoutMs;
+    }
+    
+    /**
+     * Sets the keep-alive mode.
+     * 
+     * <p>
+     * In keep-alive mode {@link #close()} does not disconnect the underlying connection but reads the
+     * remaining of the response (up to a limit) and releases the connection to the keep-alive cache of the
+     * JVM, so subsequent requests to the same server may reuse it without a new TCP (and TLS) handshake.
+     * </p>
+     * 
+     * <p>
+     * It must be called before {@link #connect()}. Keep-alive mode is disabled by default.
+     * </p>
+     * 
+     * @param keepAlive tells if keep-alive mode is to be enabled
+     * 
+     * @throws IllegalStateException if internal state checking is enabled and the internal state is not
+     *             {@link State#NOT_CONNECTED}
+     * 
+     * @see HttpPostClient
+     */
+    public void setKeepAlive(final boolean keepAlive) {
+        if (internalStateCheckingEnabled && state != State.NOT_CONNECTED)
+            throw new IllegalStateException("setKeepAlive() can only be called in NOT_CONNECTED state!");
+        
+        this.keepAlive = keepAlive;
+    }
+    
+    /**
+     * Tells if keep-alive mode is enabled.
+     * 
+     * @return true if keep-alive mode is enabled; false otherwise
+     */
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+    
     /**
      * Returns the underlying {@link HttpURLConnection}.
      * 
@@ -317,10 +461,28 @@ public class HttpPost implements AutoCloseable {
         if (internalStateCheckingEnabled && state != State.NOT_CONNECTED)
             throw new IllegalStateException("connect() can only be called in NOT_CONNECTED state!");
         
+        cancelRegistry = CancelRegistry.current();
+        if (cancelRegistry != null && !cancelRegistry.register(disconnector)) {
+            state = State.CONNECT_FAILED;
+            LOGGER.fine("Connect cancelled: " + url);
+            return false;
+        }
+        if (aborted) {
+            state = State.CONNECT_FAILED;
+            return false;
+        }
+        
         try {
             httpUrlConnection = (HttpURLConnection) url.openConnection();
+            // abort() might have missed the connection, and its disconnect does not prevent a later connect
+            if (aborted) {
+                failAborted();
+                return false;
+            }
             
             httpUrlConnection.setDoOutput(true);
+            httpUrlConnection.setConnectTimeout(connectTimeoutMs);
+            httpUrlConnection.setReadTimeout(readTimeoutMs);
             
             if (requestPropertyMap != null)
                 for (final Entry<String, String> entry : requestPropertyMap.entrySet())
@@ -336,7 +498,11 @@ public class HttpPost implements AutoCloseable {
             httpUrlConnection.connect();
         } catch (final IOException ie) {
             state = State.CONNECT_FAILED;
-            LOGGER.log(Level.SEVERE, "Failed to connect to: " + url, ie);
+            logFailure("Failed to connect to: " + url, ie);
+            return false;
+        }
+        if (aborted) {
+            failAborted();
             return false;
         }
         
@@ -344,6 +510,15 @@ public class HttpPost implements AutoCloseable {
         return true;
     }
     
+    /**
+     * Fails the connect due to {@link #abort()}: disconnects the connection.
+     */
+    private void failAborted() {
+        httpUrlConnection.disconnect();
+        state = State.CONNECT_FAILED;
+        LOGGER.fine("Connect aborted: " + url);
+    }
+    
     /**
      * Posts the parameters to the server.
      * 
@@ -380,7 +555,7 @@ public class HttpPost implements AutoCloseable {
             state = State.REQUEST_SENT;
         } catch (final IOException ie) {
             state = State.SENDING_REQUEST_FAILED;
-            LOGGER.log(Level.SEVERE, "Failed to post parameters to: " + url, ie);
+            logFailure("Failed to post parameters to: " + url, ie);
             return false;
         }
         
@@ -409,9 +584,11 @@ public class HttpPost implements AutoCloseable {
                     "isServerResponseOk() can only be called after doPost() and before close()!");
         
         try {
-            return httpUrlConnection.getResponseCode() == HttpURLConnection.HTTP_OK;
+            final boolean ok = httpUrlConnection.getResponseCode() == HttpURLConnection.HTTP_OK;
+            responseHeaderRead = true;
+            return ok;
         } catch (final IOException ie) {
-            LOGGER.log(Level.SEVERE, "Failed to get server response code from: " + url, ie);
+            logFailure("Failed to get server response code from: " + url, ie);
             return false;
         }
     }
@@ -438,9 +615,11 @@ public class HttpPost implements AutoCloseable {
                     "getServerResponseCode() can only be called after doPost() and before close()!");
         
         try {
-            return httpUrlConnection.getResponseCode();
+            final int code = httpUrlConnection.getResponseCode();
+            responseHeaderRead = true;
+            return code;
         } catch (final IOException ie) {
-            LOGGER.log(Level.SEVERE, "Failed to get server response code from: " + url, ie);
+            logFailure("Failed to get server response code from: " + url, ie);
             return -1;
         }
     }
@@ -467,9 +646,11 @@ public class HttpPost implements AutoCloseable {
                     "getServerResponseMessage() can only be called after doPost() and before close()!");
         
         try {
-            return httpUrlConnection.getResponseMessage();
+            final String message = httpUrlConnection.getResponseMessage();
+            responseHeaderRead = true;
+            return message;
         } catch (final IOException ie) {
-            LOGGER.log(Level.SEVERE, "Failed to get server response message from: " + url, ie);
+            logFailure("Failed to get server response message from: " + url, ie);
             
             return null;
         }
@@ -537,20 +718,23 @@ public class HttpPost implements AutoCloseable {
     private Object readResponse(final boolean asLineList) {
         final boolean ok = isServerResponseOk();
         
-        String responseCharset = DEFAULT_CHARSET;
-        final String contentType = httpUrlConnection.getHeaderField("Content-Type");
-        if (contentType != null) {
-            for (final String token : contentType.replace(" ", "").split(";")) {
-                if (token.startsWith("charset=")) {
-                    responseCharset = token.split("=", 2)[1];
-                    break;
-                }
-            }
+        final String responseCharset = getCharset(httpUrlConnection.getHeaderField("Content-Type"));
+        
+        final InputStream input;
+        try {
+            input = ok ? httpUrlConnection.getInputStream() : httpUrlConnection.getErrorStream();
+        } catch (final IOException ie) {
+            logFailure("Failed to read response from server: " + url, ie);
+            state = State.PROCESSING_RESPONSE_FAILED;
+            return null;
+        }
+        if (input == null) { // No error stream if the response code could not be read
+            state = State.PROCESSING_RESPONSE_FAILED;
+            return null;
         }
         
         try (final BufferedReader reader = new BufferedReader(
-                new InputStreamReader(ok ? httpUrlConnection.getInputStream()
-                        : httpUrlConnection.getErrorStream(), responseCharset))) {
+                new InputStreamReader(input, responseCharset))) {
             
             if (asLineList) {
                 String line;
@@ -571,7 +755,70 @@ public class HttpPost implements AutoCloseable {
                 return responseBuilder.toString();
             }
         } catch (final IOException ie) {
-            LOGGER.log(Level.SEVERE, "Failed to read response from server: " + url, ie);
+            logFailure("Failed to read response from server: " + url, ie);
+        }
+        
+        state = State.PROCESSING_RESPONSE_FAILED;
+        return null;
+    }
+    
+    /**
+     * Returns the charset specified by a <code>"Content-Type"</code> header field value.
+     * 
+     * @param contentType value of the <code>"Content-Type"</code> header field, may be <code>null</code>
+     * @return the charset specified by the content type; {@link #DEFAULT_CHARSET} if not specified
+     */
+    static String getCharset(final String contentType) {
+        if (contentType != null)
+            for (final String token : contentType.replace(" ", "").split(";"))
+                if (token.startsWith("charset="))
+                    return token.split("=", 2)[1];
+        
+        return DEFAULT_CHARSET;
+    }
+    
+    /**
+     * Gets the full response from the server: response code and message, header fields and body.
+     * 
+     * <p>
+     * Can only be called after {@link #doPost()}.
+     * </p>
+     * 
+     * <p>
+     * If the server returned an error, the body will be the error page provided by the server.
+     * </p>
+     * 
+     * @return the full response, or <code>null</code> if error occurred
+     * 
+     * @throws IllegalStateException if internal state checking is enabled and the internal state is not
+     *             {@link State#REQUEST_SENT}
+     * 
+     * @see #getResponse()
+     */
+    public Response getFullResponse() {
+        if (internalStateCheckingEnabled && state != State.REQUEST_SENT)
+            throw new IllegalStateException("getFullResponse() can only be called in REQUEST_SENT state!");
+        
+        try {
+            final int code = httpUrlConnection.getResponseCode();
+            final InputStream input = code < HttpURLConnection.HTTP_BAD_REQUEST ? httpUrlConnection
+                    .getInputStream() : httpUrlConnection.getErrorStream();
+            
+            final byte[] body;
+            if (input == null)
+                body = new byte[0];
+            else
+                try {
+                    body = IOUtils.readAllBytes(input);
+                } finally {
+                    input.close();
+                }
+            
+            state = State.RESPONSE_PROCESSED;
+            return new Response(code, httpUrlConnection.getResponseMessage(),
+                    httpUrlConnection.getHeaderFields(), body);
+        } catch (final IOException ie) {
+            logFailure("Failed to read response from server: " + url, ie);
         }
         
         state = State.PROCESSING_RESPONSE_FAILED;
@@ -629,22 +876,106 @@ public class HttpPost implements AutoCloseable {
                 return true;
             }
         } catch (final IOException ie) {
-            LOGGER.log(Level.SEVERE,
-                    "Failed to save attachment" + (file == null ? "!" : " to file: " + file), ie);
+            logFailure("Failed to save attachment" + (file == null ? "!" : " to file: " + file), ie);
         }
         
         state = State.PROCESSING_RESPONSE_FAILED;
         return false;
     }
     
+    /**
+     * Logs a failure: as a severe error, or only as a fine message if the failure is the result of the
+     * cancel of the controlled job which connected or of {@link #abort()}.
+     * 
+     * @param message message to be logged
+     * @param ie exception causing the failure
+     */
+    private void logFailure(final String message, final IOException ie) {
+        if (aborted || cancelRegistry != null && cancelRegistry.isCancelled())
+            LOGGER.log(Level.FINE, "Cancelled: " + message, ie);
+        else
+            LOGGER.log(Level.SEVERE, message, ie);
+    }
+    
     /**
      * Closes this {@link HttpPost}, releases all allocated resources.
+     * 
+     * <p>
+     * In keep-alive mode the underlying connection is released for reuse if the request was sent
+     * successfully and the response header has been read (e.g. by {@link #getServerResponseCode()}), else it
+     * is disconnected. Releasing the connection reads the unread response body, so this method may block up
+     * to the read timeout (see {@link #setReadTimeout(int)}) if the server is slow sending the body.
+     * </p>
+     * 
+     * @see #setKeepAlive(boolean)
      */
     public void close() {
-        if (httpUrlConnection != null)
-            httpUrlConnection.disconnect();
+        if (state == State.CLOSED)
+            return;
+        
+        if (cancelRegistry != null)
+            cancelRegistry.unregister(disconnector);
+        
+        if (httpUrlConnection != null) {
+            if (!keepAlive || aborted || cancelRegistry != null && cancelRegistry.isCancelled())
+                httpUrlConnection.disconnect();
+            else if (state == State.REQUEST_SENT && responseHeaderRead)
+                releaseConnection(); // Waiting for an unrequested response could block for long
+            else if (state != State.RESPONSE_PROCESSED) // A processed response is fully read and closed
+                httpUrlConnection.disconnect();
+        }
         
         state = State.CLOSED;
     }
     
+    /**
+     * Aborts the post from another thread: disconnects the connection so blocking calls return promptly and
+     * fail (without logging severe errors), and makes a subsequent {@link #connect()} fail.
+     * 
+     * <p>
+     * {@link #close()} still has to be called by the thread using the post.
+     * </p>
+     */
+    void abort() {
+        aborted = true;
+        disconnectAsync();
+    }
+    
+    /**
+     * Disconnects the connection if it has been opened; may be called from any thread.
+     */
+    private void disconnectAsync() {
+        final HttpURLConnection httpUrlConnection = this.httpUrlConnection;
+        if (httpUrlConnection != null)
+            httpUrlConnection.disconnect();
+    }
+    
+    /**
+     * Releases the connection to the keep-alive cache: reads the unread response and closes the response
+     * stream. The connection is disconnected if the response cannot be read or is too long.
+     */
+    private void releaseConnection() {
+        try {
+            final InputStream input = httpUrlConnection.getResponseCode() < HttpURLConnection.HTTP_BAD_REQUEST
+                    ? httpUrlConnection.getInputStream() : httpUrlConnection.getErrorStream();
+            if (input == null)
+                return;
+            
+            try {
+                final byte[] buffer = new byte[4 * 1024];
+                long drained = 0;
+                int bytesRead;
+                while ((bytesRead = input.read(buffer)) > 0)
+                    if ((drained += bytesRead) > MAX_DRAIN_BYTES) {
+                        httpUrlConnection.disconnect();
+                        return;
+                    }
+            } finally {
+                input.close();
+            }
+        } catch (final IOException ie) {
+            httpUrlConnection.disconnect();
+        }
+    }
+    
 }
@@ -0,0 +1,515 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.net.httppost;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import x.java.lang.ConcurrencyLimit;
+import x.java.lang.NormalThread;
+import x.java.lang.VirtualThreads;
+
+/**
+ * A reusable HTTP POST client creating {@link HttpPost}s in keep-alive mode, so consecutive posts to the same
+ * server reuse pooled connections instead of opening a new one (with a new TCP and TLS handshake) for each
+ * request.
+ * 
+ * <p>
+ * The client holds the defaults (timeouts, request charset and request properties) applied to the posts it
+ * creates. Posts returned by {@link #newPost(URL, Map)} have the usual {@link State} machine; the
+ * {@link #post(URL, Map)} and {@link #saveAttachmentToFile(URL, Map, FileProvider)} conveniences perform a
+ * whole post and close it.
+ * </p>
+ * 
+ * <p>
+ * Connections are pooled by the keep-alive cache of the JVM. The number of idle connections kept per server
+ * is controlled by the <code>"http.maxConnections"</code> system property (defaults to 5), and keep-alive
+ * can be disabled altogether by the <code>"http.keepAlive"</code> system property.
+ * </p>
+ * 
+ * <p>
+ * Posts can also be performed asynchronously by {@link #postAsync(URL, Map, long)}, returning a
+ * {@link CompletableFuture} of the {@link Response}. The number of posts in flight is bounded (see
+ * {@link #setMaxInFlight(int)}), further posts are queued without occupying a thread. Posts in flight are
+ * executed in virtual threads if supported by the runtime (see {@link VirtualThreads}), so blocking I/O does
+ * not hold platform threads; else in pooled daemon threads. Posts can be cancelled and may have a timeout,
+ * the connection of a cancelled or timed out post is disconnected.
+ * </p>
+ * 
+ * <p>
+ * Example fan-out with at most 50 posts in flight:
+ * 
+ * <pre>
+ * <blockquote style='border:1px solid black'>
+ * HttpPostClient client = new HttpPostClient();
+ * client.setMaxInFlight(50);
+ * List&lt;CompletableFuture&lt;Response&gt;&gt; futureList = new ArrayList&lt;&gt;();
+ * for (URL url : urlList)
+ *     futureList.add(client.postAsync(url, paramsMap, 5000));
+ * for (CompletableFuture&lt;Response&gt; future : futureList)
+ *     future.thenAccept(response -&gt; System.out.println(response.getCode()));
+ * </blockquote>
+ * </pre>
+ * 
+ * </p>
+ * 
+ * <p>
+ * The implementation is thread-safe, a client may be shared.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see HttpPost
+ */
+public class HttpPostClient {
+    
+    /** Default maximum number of asynchronous posts in flight. */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 32;
+    
+    
+    /**
+     * Holder of the lazily created shared executors of the asynchronous posts.
+     * 
+     * @author Andras Belicza
+     */
+    private static class AsyncSupport {
+        
+        /** Default executor of the asynchronous posts. */
+        static final Executor EXECUTOR;
+        static {
+            if (VirtualThreads.isSupported())
+                EXECUTOR = VirtualThreads.newExecutor("HttpPostClient");
+            else {
+                final ThreadFactory factory = VirtualThreads.newFactory("HttpPostClient");
+                EXECUTOR = Executors.newCachedThreadPool(r -> {
+                    final Thread t = factory.newThread(r);
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+        }
+        
+        
+        /** Scheduler of the timeouts of the asynchronous posts. */
+        static final ScheduledThreadPoolExecutor TIMEOUT_SCHEDULER = new ScheduledThreadPoolExecutor(1, r -> {
+            final NormalThread t = new NormalThread(r, "HttpPostClient timeout");
+            t.setDaemon(true);
+            return t;
+        });
+        static {
+            TIMEOUT_SCHEDULER.setRemoveOnCancelPolicy(true);
+        }
+    
+    }
+    
+    /**
+     * An asynchronous post.
+     * 
+     * @author Andras Belicza
+     */
+    private class AsyncPost implements Runnable {
+        
+        /** {@link URL} to post to. */
+        final URL url;
+        
+        /** The post to perform. */
+        final HttpPost httpPost;
+        
+        /** Future of the response. */
+        final CompletableFuture<Response> future = new CompletableFuture<>();
+        
+        /**
+         * Creates a new {@link AsyncPost}.
+         * 
+         * @param url {@link URL} to post to
+         * @param httpPost the post to perform
+         */
+        AsyncPost(final URL url, final HttpPost httpPost) {
+            this.url = url;
+            this.httpPost = httpPost;
+        }
+        
+        @Override
+        public void run() {
+            try {
+                if (!future.isDone()) {
+                    final Response response = httpPost.connect() && httpPost.doPost() ? httpPost
+                            .getFullResponse() : null;
+                    if (response == null)
+                        future.completeExceptionally(new IOException("Post failed (" + httpPost.getState()
+                                + "): " + url));
+                    else
+                        future.complete(response);
+                }
+            } catch (final RuntimeException re) {
+                future.completeExceptionally(re);
+            } finally {
+                httpPost.close();
+                inFlightLimit.release();
+                dispatch();
+            }
+        }
+    
+    }
+    
+    
+    /** Executor of the asynchronous posts. */
+    private final Executor executor;
+    
+    /** Limit of the asynchronous posts in flight. */
+    private final ConcurrencyLimit inFlightLimit = new ConcurrencyLimit(DEFAULT_MAX_IN_FLIGHT);
+    
+    /** Queue of the asynchronous posts waiting to be executed. */
+    private final Queue<AsyncPost> pendingQueue = new ConcurrentLinkedQueue<>();
+    
+    /** Default timeout of the asynchronous posts in ms, <code>0</code> means no timeout. */
+    private volatile long timeoutMs;
+    
+    /** Connect timeout in ms, <code>0</code> means infinite. */
+    private volatile int connectTimeoutMs;
+    
+    /** Read timeout in ms, <code>0</code> means infinite. */
+    private volatile int readTimeoutMs;
+    
+    /** Charset to use to send the requests. */
+    private volatile String requestCharset = HttpPost.DEFAULT_CHARSET;
+    
+    /** Additional request properties. */
+    private final Map<String, String> requestPropertyMap = new ConcurrentHashMap<>();
+    
+    /**
+     * Creates a new {@link HttpPostClient}, asynchronous posts are executed by a shared default executor.
+     */
+    public HttpPostClient() {
+        this(null);
+    }
+    
+    /**
+     * Creates a new {@link HttpPostClient}.
+     * 
+     * @param executor executor of the asynchronous posts; <code>null</code> to use the shared default
+     *            executor
+     */
+    public HttpPostClient(final Executor executor) {
+        this.executor = executor;
+    }
+    
+    /**
+     * Sets the connect timeout of the posts.
+     * 
+     * @param connectTimeoutMs connect timeout in ms to be set, <code>0</code> means infinite
+     * 
+     * @throws IllegalArgumentException if <code>connectTimeoutMs</code> is negative
+     * 
+     * @see HttpPost#setConnectTimeout(int)
+     */
+    public void setConnectTimeout(final int connectTimeoutMs) {
+        if (connectTimeoutMs < 0)
+            throw new IllegalArgumentException("connectTimeoutMs cannot be negative!");
+        
+        this.connectTimeoutMs = connectTimeoutMs;
+    }
+    
+    /**
+     * Returns the connect timeout of the posts.
+     * 
+     * @return the connect timeout in ms, <code>0</code> means infinite
+     */
+    public int getConnectTimeout() {
+        return connectTimeoutMs;
+    }
+    
+    /**
+     * Sets the read timeout of the posts.
+     * 
+     * @param readTimeoutMs read timeout in ms to be set, <code>0</code> means infinite
+     * 
+     * @throws IllegalArgumentException if <code>readTimeoutMs</code> is negative
+     * 
+     * @see HttpPost#setReadTimeout(int)
+     */
+    public void setReadTimeout(final int readTimeoutMs) {
+        if (readTimeoutMs < 0)
+            throw new IllegalArgumentException("readTimeoutMs cannot be negative!");
+        
+        this.readTimeoutMs = readTimeoutMs;
+    }
+    
+    /**
+     * Returns the read timeout of the posts.
+     * 
+     * @return the read timeout in ms, <code>0</code> means infinite
+     */
+    public int getReadTimeout() {
+        return readTimeoutMs;
+    }
+    
+    /**
+     * Sets the charset of the requests.
+     * 
+     * @param requestCharset charset of the requests to be set
+     * 
+     * @throws IllegalArgumentException if <code>requestCharset</code> is <code>null</code>
+     * 
+     * @see HttpPost#setRequestCharset(String)
+     */
+    public void setRequestCharset(final String requestCharset) {
+        if (requestCharset == null)
+            throw new IllegalArgumentException("requestCharset cannot be null!");
+        
+        this.requestCharset = requestCharset;
+    }
+    
+    /**
+     * Returns the charset of the requests. The default charset is {@link HttpPost#DEFAULT_CHARSET}.
+     * 
+     * @return the charset of the requests
+     */
+    public String getRequestCharset() {
+        return requestCharset;
+    }
+    
+    /**
+     * Sets a request property of the posts.
+     * 
+     * @param key the property key
+     * @param value the property value; <code>null</code> removes the property
+     * 
+     * @see HttpPost#setRequestProperty(String, String)
+     */
+    public void setRequestProperty(final String key, final String value) {
+        if (value == null)
+            requestPropertyMap.remove(key);
+        else
+            requestPropertyMap.put(key, value);
+    }
+    
+    /**
+     * Sets the default timeout of the asynchronous posts.
+     * 
+     * @param timeoutMs default timeout in ms to be set, <code>0</code> means no timeout
+     * 
+     * @throws IllegalArgumentException if <code>timeoutMs</code> is negative
+     * 
+     * @see #postAsync(URL, Map, long)
+     */
+    public void setTimeout(final long timeoutMs) {
+        if (timeoutMs < 0)
+            throw new IllegalArgumentException("timeoutMs cannot be negative!");
+        
+        this.timeoutMs = timeoutMs;
+    }
+    
+    /**
+     * Returns the default timeout of the asynchronous posts.
+     * 
+     * @return the default timeout in ms, <code>0</code> means no timeout
+     */
+    public long getTimeout() {
+        return timeoutMs;
+    }
+    
+    /**
+     * Sets the maximum number of asynchronous posts in flight. The default is {@link #DEFAULT_MAX_IN_FLIGHT}.
+     * 
+     * <p>
+     * Lowering the limit does not affect the posts already in flight.
+     * </p>
+     * 
+     * @param maxInFlight maximum number of asynchronous posts in flight to be set
+     * 
+     * @throws IllegalArgumentException if <code>maxInFlight</code> is less than <code>1</code>
+     */
+    public void setMaxInFlight(final int maxInFlight) {
+        inFlightLimit.setLimit(maxInFlight);
+        
+        dispatch();
+    }
+    
+    /**
+     * Returns the maximum number of asynchronous posts in flight.
+     * 
+     * @return the maximum number of asynchronous posts in flight
+     */
+    public int getMaxInFlight() {
+        return inFlightLimit.getLimit();
+    }
+    
+    /**
+     * Returns the number of asynchronous posts in flight.
+     * 
+     * @return the number of asynchronous posts in flight
+     */
+    public int getInFlight() {
+        return inFlightLimit.getInUse();
+    }
+    
+    /**
+     * Creates a new {@link HttpPost} in keep-alive mode, configured with the defaults of this client.
+     * 
+     * <p>
+     * The returned post has to be closed to release its connection for reuse.
+     * </p>
+     * 
+     * @param url {@link URL} to post to
+     * @param paramsMap map of parameters to be sent
+     * @return a new {@link HttpPost} in keep-alive mode
+     */
+    public HttpPost newPost(final URL url, final Map<String, String> paramsMap) {
+        final HttpPost httpPost = new HttpPost(url, paramsMap);
+        
+        httpPost.setKeepAlive(true);
+        httpPost.setConnectTimeout(connectTimeoutMs);
+        httpPost.setReadTimeout(readTimeoutMs);
+        httpPost.setRequestCharset(requestCharset);
+        for (final Entry<String, String> entry : requestPropertyMap.entrySet())
+            httpPost.setRequestProperty(entry.getKey(), entry.getValue());
+        
+        return httpPost;
+    }
+    
+    /**
+     * Performs a post and returns the response from the server.
+     * 
+     * <p>
+     * If the server returned an error, this will return the error page provided by the server.
+     * </p>
+     * 
+     * @param url {@link URL} to post to
+     * @param paramsMap map of parameters to be sent
+     * @return the server response, or <code>null</code> if error occurred
+     * 
+     * @see HttpPost#getResponse()
+     */
+    public String post(final URL url, final Map<String, String> paramsMap) {
+        try (final HttpPost httpPost = newPost(url, paramsMap)) {
+            return httpPost.connect() && httpPost.doPost() ? httpPost.getResponse() : null;
+        }
+    }
+    
+    /**
+     * Performs a post and saves the attachment of the response.
+     * 
+     * @param url {@link URL} to post to
+     * @param paramsMap map of parameters to be sent
+     * @param fileProvider file provider to specify a file to save to
+     * @return true if the attachment was saved successfully; false otherwise
+     * 
+     * @see HttpPost#saveAttachmentToFile(FileProvider, byte[][])
+     */
+    public boolean saveAttachmentToFile(final URL url, final Map<String, String> paramsMap,
+            final FileProvider fileProvider) {
+        try (final HttpPost httpPost = newPost(url, paramsMap)) {
+            return httpPost.connect() && httpPost.doPost() && httpPost.saveAttachmentToFile(fileProvider);
+        }
+    }
+    
+    /**
+     * Performs a post asynchronously with the default timeout.
+     * 
+     * @param url {@link URL} to post to
+     * @param paramsMap map of parameters to be sent
+     * @return future of the full response
+     * 
+     * @see #postAsync(URL, Map, long)
+     * @see #setTimeout(long)
+     */
+    public CompletableFuture<Response> postAsync(final URL url, final Map<String, String> paramsMap) {
+        return postAsync(url, paramsMap, timeoutMs);
+    }
+    
+    /**
+     * Performs a post asynchronously.
+     * 
+     * <p>
+     * The post is queued if the maximum number of posts are in flight. The returned future completes with the
+     * full response (including error responses, see {@link Response#getCode()}), or exceptionally with:
+     * </p>
+     * <ul>
+     * <li>an {@link IOException} if the post fails,
+     * <li>a {@link TimeoutException} if the post does not complete within <code>timeoutMs</code> (measured
+     * from the call of this method, including the time spent in the queue),
+     * <li>a {@link java.util.concurrent.CancellationException} if the future is cancelled.
+     * </ul>
+     * <p>
+     * The connection of a timed out or cancelled post is disconnected, a queued one is never executed.
+     * </p>
+     * 
+     * @param url {@link URL} to post to
+     * @param paramsMap map of parameters to be sent
+     * @param timeoutMs timeout of the post in ms, <code>0</code> means no timeout
+     * @return future of the full response
+     * 
+     * @throws IllegalArgumentException if <code>timeoutMs</code> is negative
+     * 
+     * @see HttpPost#getFullResponse()
+     */
+    public CompletableFuture<Response> postAsync(final URL url, final Map<String, String> paramsMap,
+            final long timeoutMs) {
+        if (timeoutMs < 0)
+            throw new IllegalArgumentException("timeoutMs cannot be negative!");
+        
+        final AsyncPost asyncPost = new AsyncPost(url, newPost(url, paramsMap));
+        final CompletableFuture<Response> future = asyncPost.future;
+        
+        if (timeoutMs > 0) {
+            final ScheduledFuture<?> timeout = AsyncSupport.TIMEOUT_SCHEDULER.schedule(() -> future
+                    .completeExceptionally(new TimeoutException("Post timed out after " + timeoutMs + " ms: "
+                            + url)), timeoutMs, TimeUnit.MILLISECONDS);
+            future.whenComplete((response, throwable) -> timeout.cancel(false));
+        }
+        // Abort if completed by timeout or cancel (no-op if the post itself failed)
+        future.whenComplete((response, throwable) -> {
+            if (throwable != null)
+                asyncPost.httpPost.abort();
+        });
+        
+        pendingQueue.add(asyncPost);
+        dispatch();
+        
+        return future;
+    }
+    
+    /**
+     * Starts the execution of queued asynchronous posts while the in-flight limit allows.
+     */
+    private void dispatch() {
+        while (!pendingQueue.isEmpty() && inFlightLimit.tryAcquire()) {
+            final AsyncPost asyncPost = pendingQueue.poll();
+            // Queue might have been drained concurrently; timed out and cancelled posts are skipped
+            if (asyncPost == null || asyncPost.future.isDone()) {
+                inFlightLimit.release();
+                continue;
+            }
+            
+            try {
+                (executor == null ? AsyncSupport.EXECUTOR : executor).execute(asyncPost);
+            } catch (final RejectedExecutionException ree) {
+                inFlightLimit.release();
+                asyncPost.future.completeExceptionally(ree);
+            }
+        }
+    }
+    
+}
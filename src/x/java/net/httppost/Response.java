@@ -0,0 +1,143 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.net.httppost;
+
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+/**
+ * An immutable, fully read HTTP response: response code and message, header fields and body.
+ * 
+ * <p>
+ * Header field names are case-insensitive.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see HttpPost#getFullResponse()
+ * @see HttpPostClient#postAsync(java.net.URL, Map)
+ */
+public class Response {
+    
+    /** HTTP response code. */
+    private final int code;
+    
+    /** HTTP response message, may be <code>null</code>. */
+    private final String message;
+    
+    /** Header fields, mapped from case-insensitive field name to values. */
+    private final Map<String, List<String>> headerMap;
+    
+    /** Body of the response. */
+    private final byte[] body;
+    
+    /**
+     * Creates a new {@link Response}.
+     * 
+     * @param code HTTP response code
+     * @param message HTTP response message, may be <code>null</code>
+     * @param headerFields header fields as returned by {@link HttpURLConnection#getHeaderFields()}; the entry
+     *            with <code>null</code> key (the status line) is ignored
+     * @param body body of the response; it is copied
+     */
+    public Response(final int code, final String message, final Map<String, List<String>> headerFields,
+            final byte[] body) {
+        this.code = code;
+        this.message = message;
+        this.body = body.clone();
+        
+        final Map<String, List<String>> headerMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (final Entry<String, List<String>> entry : headerFields.entrySet())
+            if (entry.getKey() != null)
+                headerMap.put(entry.getKey(), entry.getValue());
+        this.headerMap = Collections.unmodifiableMap(headerMap);
+    }
+    
+    /**
+     * Returns the HTTP response code.
+     * 
+     * @return the HTTP response code
+     */
+    public int getCode() {
+        return code;
+    }
+    
+    /**
+     * Tells if the HTTP response code is OK (HTTP 200).
+     * 
+     * @return true if the HTTP response code is OK; false otherwise
+     */
+    public boolean isOk() {
+        return code == HttpURLConnection.HTTP_OK;
+    }
+    
+    /**
+     * Returns the HTTP response message.
+     * 
+     * @return the HTTP response message; may be <code>null</code>
+     */
+    public String getMessage() {
+        return message;
+    }
+    
+    /**
+     * Returns the header fields.
+     * 
+     * @return an unmodifiable map of the header fields, mapped from case-insensitive field name to values
+     */
+    public Map<String, List<String>> getHeaders() {
+        return headerMap;
+    }
+    
+    /**
+     * Returns the value of the specified header field. If the header field has multiple values, the first
+     * one listed by {@link #getHeaders()} is returned.
+     * 
+     * @param name case-insensitive name of the header field
+     * @return the value of the specified header field; <code>null</code> if the header field is not present
+     */
+    public String getHeader(final String name) {
+        final List<String> values = headerMap.get(name);
+        
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+    
+    /**
+     * Returns the body of the response.
+     * 
+     * @return a copy of the body of the response
+     */
+    public byte[] getBody() {
+        return body.clone();
+    }
+    
+    /**
+     * Returns the body of the response as a string, decoded with the charset specified by the
+     * <code>"Content-Type"</code> header field (or {@link HttpPost#DEFAULT_CHARSET} if not specified).
+     * 
+     * @return the body of the response as a string
+     * 
+     * @throws UnsupportedEncodingException if the charset of the response is not supported
+     */
+    public String getBodyAsString() throws UnsupportedEncodingException {
+        return new String(body, HttpPost.getCharset(getHeader("Content-Type")));
+    }
+    
+    @Override
+    public String toString() {
+        return "Response(" + code + " " + message + ", " + body.length + " bytes)";
+    }
+    
+}
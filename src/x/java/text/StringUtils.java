@@ -12,6 +12,8 @@ package x.java.text;
 import java.security.SecureRandom;
 import java.util.Random;
 
+import x.java.lang.RandomSource;
+
 /**
  * String utilities.
  * 
@@ -167,21 +169,8 @@ public class StringUtils {
     private static final char[] BASE64URL_CHARS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz-_"
             .toCharArray();
     
-    /** {@link SecureRandom} is expensive to instantiate, so cache it. */
-    private static SecureRandom SECURE_RANDOM;
-    
-    /**
-     * Returns the lazily initialized, cached {@link SecureRandom}.
-     * 
-     * @return the lazily initialized, cached {@link SecureRandom}
-     */
-    private static SecureRandom getSecureRandom() {
-        if (SECURE_RANDOM == null) {
-            SECURE_RANDOM = new SecureRandom();
-        }
-        
-        return SECURE_RANDOM;
-    }
+    /** Max size of the random byte buffer used to generate multiple random strings. */
+    private static final int RANDOM_BUFFER_SIZE = 64 * 1024;
     
     /**
      * Generates a random {@link String} with the specified length using the character set of Standard
@@ -192,7 +181,8 @@ public class StringUtils {
      * </p>
      * 
      * <p>
-     * A {@link SecureRandom} is used as the source of random data.
+     * A {@link SecureRandom} is used as the source of random data (one per thread, so concurrent calls do not
+     * contend), see {@link RandomSource#secure()}.
      * </p>
      * 
      * @param length length of the {@link String} to be generated
@@ -200,7 +190,7 @@ public class StringUtils {
      * @return a random {@link String} with the specified length
      */
     public static String randomString(final int length) {
-        return randomString(length, getSecureRandom());
+        return randomString(length, RandomSource.secure());
     }
     
     /**
@@ -228,9 +218,107 @@ public class StringUtils {
         
         random.nextBytes(bytes);
         
+        return toBase64UrlChars(bytes, 0, new char[length]);
+    }
+    
+    /**
+     * Generates a random {@link String} with the specified length using the character set of Standard
+     * 'base64url' with URL and Filename. Each character holds 6 bits of information.
+     * 
+     * <p>
+     * The generated random {@link String} is URL-, cookie value- and filename safe.
+     * </p>
+     * 
+     * @param length length of the {@link String} to be generated
+     * @param source source of random data
+     * 
+     * @return a random {@link String} with the specified length
+     */
+    public static String randomString(final int length, final RandomSource source) {
+        final byte[] bytes = new byte[length];
+        
+        source.nextBytes(bytes);
+        
+        return toBase64UrlChars(bytes, 0, new char[length]);
+    }
+    
+    /**
+     * Generates the specified number of random {@link String}s with the specified length using the character
+     * set of Standard 'base64url' with URL and Filename. Each character holds 6 bits of information.
+     * 
+     * <p>
+     * A {@link SecureRandom} is used as the source of random data (one per thread), see
+     * {@link RandomSource#secure()}.
+     * </p>
+     * 
+     * @param count number of {@link String}s to be generated
+     * @param length length of the {@link String}s to be generated
+     * 
+     * @return an array of random {@link String}s with the specified length
+     * 
+     * @see #randomStrings(int, int, RandomSource)
+     */
+    public static String[] randomStrings(final int count, final int length) {
+        return randomStrings(count, length, RandomSource.secure());
+    }
+    
+    /**
+     * Generates the specified number of random {@link String}s with the specified length using the character
+     * set of Standard 'base64url' with URL and Filename. Each character holds 6 bits of information.
+     * 
+     * <p>
+     * This is much faster than calling {@link #randomString(int, RandomSource)} multiple times: random data
+     * is generated in large buffers (up to 64 KB) which are sliced into the {@link String}s.
+     * </p>
+     * 
+     * @param count number of {@link String}s to be generated
+     * @param length length of the {@link String}s to be generated
+     * @param source source of random data
+     * 
+     * @return an array of random {@link String}s with the specified length
+     * 
+     * @throws IllegalArgumentException if <code>count</code> or <code>length</code> is negative
+     */
+    public static String[] randomStrings(final int count, final int length, final RandomSource source) {
+        if (count < 0 || length < 0)
+            throw new IllegalArgumentException("count and length cannot be negative!");
+        
+        final String[] strings = new String[count];
+        if (count == 0)
+            return strings;
+        
+        // Buffer holds a whole number of strings (at least 1)
+        final int perBuffer = Math.max(1, Math.min(count, RANDOM_BUFFER_SIZE / Math.max(1, length)));
+        byte[] bytes = new byte[perBuffer * length];
         final char[] chars = new char[length];
-        for (int i = bytes.length - 1; i >= 0; i--)
-            chars[i] = BASE64URL_CHARS[bytes[i] & 0x3f];
+        
+        for (int i = 0; i < count; i++) {
+            final int slot = i % perBuffer;
+            if (slot == 0) {
+                // Last, partial buffer: don't generate unused random data
+                if (count - i < perBuffer)
+                    bytes = new byte[(count - i) * length];
+                source.nextBytes(bytes);
+            }
+            strings[i] = toBase64UrlChars(bytes, slot * length, chars);
+        }
+        
+        return strings;
+    }
+    
+    /**
+     * Converts the specified bytes to a {@link String} of 'base64url' characters, using the lowest 6 bits of
+     * each byte.
+     * 
+     * @param bytes bytes to be converted
+     * @param offset offset of the first byte to be converted
+     * @param chars char buffer to use, its length is the number of bytes to convert
+     * 
+     * @return the {@link String} of 'base64url' characters
+     */
+    private static String toBase64UrlChars(final byte[] bytes, final int offset, final char[] chars) {
+        for (int i = chars.length - 1; i >= 0; i--)
+            chars[i] = BASE64URL_CHARS[bytes[offset + i] & 0x3f];
         
         return new String(chars);
     }
@@ -9,17 +9,27 @@
  */
 package x.java.util;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.AbstractCollection;
 import java.util.AbstractSet;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.Spliterator;
 import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * A {@link Map} implementation which stores the entries in a simple array, no key hashing (like in
@@ -44,6 +54,12 @@ import java.util.TreeMap;
  * the adding order.
  * </p>
  * 
+ * <p>
+ * The serialized form only contains the size and the key-value sequence (no unused capacity and no
+ * per-entry objects), and a deserialized map has a capacity trimmed to its size. Maps serialized in the
+ * former form (which contained the entry array) can still be deserialized.
+ * </p>
+ * 
  * @param <K> type of the keys
  * @param <V> type of the values
  * 
@@ -113,9 +129,13 @@ public class ArrayMap<K, V> implements Map<K, V>, Cloneable, Serializable {
             return false;
         }
         
+        /**
+         * Returns the hash code as defined by {@link java.util.Map.Entry#hashCode()}, so the hash code of the
+         * map is consistent with other {@link Map} implementations.
+         */
         @Override
         public int hashCode() {
-            return Objects.hash(key, value);
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
         }
         
         @Override
@@ -132,12 +152,140 @@ public class ArrayMap<K, V> implements Map<K, V>, Cloneable, Serializable {
         
     }
     
-    /** Array of the table entries. */
-    private ArrEntry<K, V>[] entries;
+    /**
+     * {@link Spliterator} implementation over the entry array used by the collection views.
+     * 
+     * <p>
+     * The spliterator is late-binding: the entry array and the size are acquired at first use. Splits are
+     * always exact, so reported characteristics include {@link Spliterator#SIZED},
+     * {@link Spliterator#SUBSIZED} and {@link Spliterator#ORDERED}.
+     * </p>
+     * 
+     * @param <K> type of the keys
+     * @param <V> type of the values
+     * @param <T> type of the elements (key, value or entry)
+     * 
+     * @author Andras Belicza
+     */
+    private static class ArrSpliterator<K, V, T> implements Spliterator<T> {
+        
+        /** Map to spliterate. */
+        private final ArrayMap<K, V> map;
+        
+        /** Function to map an entry to an element. */
+        private final Function<? super ArrEntry<K, V>, ? extends T> mapper;
+        
+        /** Additional characteristics. */
+        private final int extraCharacteristics;
+        
+        /** Entry array, acquired at first use. */
+        private ArrEntry<K, V>[] entries;
+        
+        /** Current index, modified on advance / split. */
+        private int idx;
+        
+        /** One past last index; <code>-1</code> until first use. */
+        private int fence;
+        
+        /**
+         * Creates a new {@link ArrayMap.ArrSpliterator}.
+         * 
+         * @param map map to spliterate
+         * @param mapper function to map an entry to an element
+         * @param extraCharacteristics additional characteristics
+         * @param entries entry array bound by the parent spliterator; <code>null</code> to bind at first use
+         * @param idx start index
+         * @param fence one past last index; <code>-1</code> to bind at first use
+         */
+        public ArrSpliterator(final ArrayMap<K, V> map,
+                final Function<? super ArrEntry<K, V>, ? extends T> mapper, final int extraCharacteristics,
+                final ArrEntry<K, V>[] entries, final int idx, final int fence) {
+            this.map = map;
+            this.mapper = mapper;
+            this.extraCharacteristics = extraCharacteristics;
+            this.entries = entries;
+            this.idx = idx;
+            this.fence = fence;
+        }
+        
+        /**
+         * Returns the fence, initializes it (and the entry array) at first use.
+         * 
+         * @return the fence
+         */
+        private int getFence() {
+            if (fence < 0) {
+                entries = map.entries;
+                fence = map.size;
+            }
+            return fence;
+        }
+        
+        @Override
+        public boolean tryAdvance(final Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            
+            if (idx >= getFence())
+                return false;
+            
+            action.accept(mapper.apply(entries[idx++]));
+            return true;
+        }
+        
+        @Override
+        public void forEachRemaining(final Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            
+            // Local copies for performance
+            final int fence = getFence();
+            final ArrEntry<K, V>[] entries = this.entries;
+            
+            for (int i = idx; i < fence; i++)
+                action.accept(mapper.apply(entries[i]));
+            
+            idx = fence;
+        }
+        
+        @Override
+        public Spliterator<T> trySplit() {
+            final int lo = idx, mid = (lo + getFence()) >>> 1;
+            if (lo >= mid)
+                return null;
+            
+            idx = mid;
+            return new ArrSpliterator<>(map, mapper, extraCharacteristics, entries, lo, mid);
+        }
+        
+        @Override
+        public long estimateSize() {
+            return getFence() - idx;
+        }
+        
+        @Override
+        public int characteristics() {
+            return Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED | extraCharacteristics;
+        }
+    
+    }
+    
+    /**
+     * Minimum number of mappings to be merged by {@link #putAll(Map)} in order to use a hash index of the
+     * keys instead of sequential searches.
+     */
+    private static final int BULK_INDEX_THRESHOLD = 16;
+    
+    /** Array of the table entries. Not serialized, see {@link #writeObject(ObjectOutputStream)}. */
+    private transient ArrEntry<K, V>[] entries;
     
     /** Size of the map, the number of entries. */
     private int size;
     
+    /**
+     * Number of structural modifications (entries added or removed), used to detect modifications made by the
+     * functions passed to the compute methods.
+     */
+    private transient int modCount;
+    
     /**
      * Creates a new {@link ArrayMap} with an initial capacity of 10.
      */
@@ -186,12 +334,12 @@ public class ArrayMap<K, V> implements Map<K, V>, Cloneable, Serializable {
     }
     
     /**
-     * Returns the entry for the specified key.
+     * Returns the index of the entry for the specified key.
      * 
-     * @param key key whose entry to be returned
-     * @return the entry for the specified key; or <code>null</code> if the key is not in this map
+     * @param key key whose entry index to be returned
+     * @return the index of the entry for the specified key; or <code>-1</code> if the key is not in this map
      */
-    private ArrEntry<K, V> getEntry(final Object key) {
+    private int indexOf(final Object key) {
         // Local reference for performance
         final ArrEntry<K, V>[] entries = this.entries;
         
@@ -199,17 +347,28 @@ public class ArrayMap<K, V> implements Map<K, V>, Cloneable, Serializable {
         // This also handles if the searched key is the null value.
         for (int i = size - 1; i >= 0; i--)
             if (entries[i].key == key)
-                return entries[i];
+                return i;
         
         // If key is the null value and was not found by the reference search, it's not in this map
         if (key == null)
-            return null;
+            return -1;
         
         for (int i = size - 1; i >= 0; i--)
             if (key.equals(entries[i].key)) // Key is certainly not null at this point
-                return entries[i];
+                return i;
         
-        return null;
+        return -1;
+    }
+    
+    /**
+     * Returns the entry for the specified key.
+     * 
+     * @param key key whose entry to be returned
+     * @return the entry for the specified key; or <code>null</code> if the key is not in this map
+     */
+    private ArrEntry<K, V> getEntry(final Object key) {
+        final int idx = indexOf(key);
+        return idx < 0 ? null : entries[idx];
     }
     
     @Override
@@ -294,10 +453,7 @@ public class ArrayMap<K, V> implements Map<K, V>, Cloneable, Serializable {
         final ArrEntry<K, V> entry = getEntry(key);
         
         if (entry == null) {
-            if (entries.length == size)
-                ensureCapacity(entries.length < 2 ? 2 : entries.length * 2); // Double the size
-                
-            entries[size++] = new ArrEntry<>(key, value);
+            append(key, value);
             return null;
         } else
             return entry.setValue(value);
@@ -305,32 +461,229 @@ public class ArrayMap<K, V> implements Map<K, V>, Cloneable, Serializable {
     
     @Override
     public V remove(final Object key) {
-        final ArrEntry<K, V> entry = getEntry(key);
-        if (entry == null)
-            return null;
+        final int idx = indexOf(key);
+        return idx < 0 ? null : removeAt(idx).value;
+    }
+    
+    /**
+     * Removes the entry at the specified index.
+     * 
+     * @param idx index of the entry to be removed
+     * @return the removed entry
+     */
+    private ArrEntry<K, V> removeAt(final int idx) {
+        final ArrEntry<K, V> entry = entries[idx];
         
         // Copy last entry to the entry's place, and clear it's reference, and decrease size
         // Note: entrySet().iterator() counts on the fact that entries having less index than the removed
         // entry are not changed.
+        modCount++;
         size--;
-        for (int i = size; i >= 0; i--)
-            if (entries[i] == entry) {
-                entries[i] = entries[size];
-                entries[size] = null;
-                break;
-            }
+        entries[idx] = entries[size];
+        entries[size] = null;
+        
+        return entry;
+    }
+    
+    /**
+     * Appends a new entry, the key must not be in this map.
+     * 
+     * @param key key of the new entry
+     * @param value value of the new entry
+     */
+    private void append(final K key, final V value) {
+        if (entries.length == size)
+            ensureCapacity(entries.length < 2 ? 2 : entries.length * 2); // Double the size
         
-        return entry.value;
+        modCount++;
+        entries[size++] = new ArrEntry<>(key, value);
     }
     
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>
+     * Bulk merging is optimized: the capacity is ensured up front, and if the specified map has at least
+     * {@value #BULK_INDEX_THRESHOLD} mappings, a temporary hash index of the keys is used to find existing
+     * entries instead of a sequential search for each key, so merging is <code>O(n+m)</code> instead of
+     * <code>O(n*m)</code>.
+     * </p>
+     */
     @Override
     public void putAll(final Map<? extends K, ? extends V> m) {
+        final int msize = m.size();
+        if (msize == 0)
+            return;
+        
         // New capacity of size+m.size() is not necessarily required as keys might be in both maps
         // but this is the fastest estimation.
-        ensureCapacity(size + m.size());
+        ensureCapacity(size + msize);
         
-        for (final Entry<? extends K, ? extends V> entry : m.entrySet())
-            put(entry.getKey(), entry.getValue());
+        if (msize < BULK_INDEX_THRESHOLD) {
+            for (final Entry<? extends K, ? extends V> entry : m.entrySet())
+                put(entry.getKey(), entry.getValue());
+            return;
+        }
+        
+        // Local reference for performance (capacity is already ensured, array will not be replaced)
+        final ArrEntry<K, V>[] entries = this.entries;
+        modCount++;
+        
+        // Index of the keys, initial capacity calculated based on the default load factor which is 0.75 = 3/4
+        final Map<Object, ArrEntry<K, V>> index = new HashMap<>((size + msize) / 3 * 4 + 2);
+        for (int i = size - 1; i >= 0; i--)
+            index.put(entries[i].key, entries[i]);
+        
+        for (final Entry<? extends K, ? extends V> entry : m.entrySet()) {
+            final ArrEntry<K, V> e = index.get(entry.getKey());
+            if (e == null) {
+                final ArrEntry<K, V> newEntry = new ArrEntry<>(entry.getKey(), entry.getValue());
+                entries[size++] = newEntry;
+                index.put(newEntry.key, newEntry);
+            } else
+                e.value = entry.getValue();
+        }
+    }
+    
+    @Override
+    public V getOrDefault(final Object key, final V defaultValue) {
+        final ArrEntry<K, V> entry = getEntry(key);
+        return entry == null ? defaultValue : entry.value;
+    }
+    
+    @Override
+    public V putIfAbsent(final K key, final V value) {
+        final ArrEntry<K, V> entry = getEntry(key);
+        
+        if (entry == null) {
+            append(key, value);
+            return null;
+        }
+        
+        final V oldValue = entry.value;
+        if (oldValue == null)
+            entry.value = value;
+        return oldValue;
+    }
+    
+    @Override
+    public void forEach(final BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        
+        // Local reference for performance
+        final ArrEntry<K, V>[] entries = this.entries;
+        
+        // Going upward to preserve the adding order
+        for (int i = 0; i < size; i++)
+            action.accept(entries[i].key, entries[i].value);
+    }
+    
+    @Override
+    public void replaceAll(final BiFunction<? super K, ? super V, ? extends V> function) {
+        Objects.requireNonNull(function);
+        
+        // Local reference for performance
+        final ArrEntry<K, V>[] entries = this.entries;
+        
+        // Going upward to preserve the adding order
+        for (int i = 0; i < size; i++)
+            entries[i].value = function.apply(entries[i].key, entries[i].value);
+    }
+    
+    @Override
+    public V computeIfAbsent(final K key, final Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        
+        final ArrEntry<K, V> entry = getEntry(key);
+        if (entry != null && entry.value != null)
+            return entry.value;
+        
+        final int expectedModCount = modCount;
+        final V value = mappingFunction.apply(key);
+        if (modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+        if (value != null) {
+            if (entry == null)
+                append(key, value);
+            else
+                entry.value = value;
+        }
+        
+        return value;
+    }
+    
+    @Override
+    public V computeIfPresent(final K key,
+            final BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        
+        final int idx = indexOf(key);
+        if (idx < 0 || entries[idx].value == null)
+            return null;
+        
+        final int expectedModCount = modCount;
+        final V newValue = remappingFunction.apply(key, entries[idx].value);
+        if (modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+        
+        return remap(idx, key, newValue);
+    }
+    
+    @Override
+    public V compute(final K key, final BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        
+        final int idx = indexOf(key);
+        
+        final int expectedModCount = modCount;
+        final V newValue = remappingFunction.apply(key, idx < 0 ? null : entries[idx].value);
+        if (modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+        
+        return remap(idx, key, newValue);
+    }
+    
+    @Override
+    public V merge(final K key, final V value,
+            final BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        Objects.requireNonNull(value);
+        
+        final int idx = indexOf(key);
+        final V oldValue = idx < 0 ? null : entries[idx].value;
+        if (oldValue == null)
+            return remap(idx, key, value);
+        
+        final int expectedModCount = modCount;
+        final V newValue = remappingFunction.apply(oldValue, value);
+        if (modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+        
+        return remap(idx, key, newValue);
+    }
+    
+    /**
+     * Stores the result of a remapping function for the entry at the specified index.
+     * 
+     * <p>
+     * A <code>null</code> new value removes the entry (if any).
+     * </p>
+     * 
+     * @param idx index of the entry of the key; <code>-1</code> if the key is not in this map
+     * @param key key of the entry
+     * @param newValue new value computed by the remapping function
+     * @return the new value
+     */
+    private V remap(final int idx, final K key, final V newValue) {
+        if (newValue == null) {
+            if (idx >= 0)
+                removeAt(idx);
+        } else if (idx < 0)
+            append(key, newValue);
+        else
+            entries[idx].value = newValue;
+        
+        return newValue;
     }
     
     @Override
@@ -340,6 +693,7 @@ public class ArrayMap<K, V> implements Map<K, V>, Cloneable, Serializable {
         for (int i = size - 1; i >= 0; i--)
             entries[i] = null;
         
+        modCount++;
         size = 0;
     }
     
@@ -378,6 +732,12 @@ public class ArrayMap<K, V> implements Map<K, V>, Cloneable, Serializable {
                 return size;
             }
             
+            @Override
+            public Spliterator<K> spliterator() {
+                return new ArrSpliterator<K, V, K>(ArrayMap.this, e -> e.key, Spliterator.DISTINCT, null, 0,
+                        -1);
+            }
+            
             @Override
             public boolean contains(final Object o) {
                 return ArrayMap.this.containsKey(o);
@@ -425,6 +785,11 @@ public class ArrayMap<K, V> implements Map<K, V>, Cloneable, Serializable {
                 return size;
             }
             
+            @Override
+            public Spliterator<V> spliterator() {
+                return new ArrSpliterator<K, V, V>(ArrayMap.this, e -> e.value, 0, null, 0, -1);
+            }
+            
             @Override
             public boolean contains(final Object o) {
                 return ArrayMap.this.containsValue(o);
@@ -467,6 +832,12 @@ public class ArrayMap<K, V> implements Map<K, V>, Cloneable, Serializable {
                 };
             }
             
+            @Override
+            public Spliterator<Entry<K, V>> spliterator() {
+                return new ArrSpliterator<K, V, Entry<K, V>>(ArrayMap.this, e -> e, Spliterator.DISTINCT,
+                        null, 0, -1);
+            }
+            
             @Override
             public int size() {
                 return size;
@@ -552,4 +923,77 @@ public class ArrayMap<K, V> implements Map<K, V>, Cloneable, Serializable {
         return m;
     }
     
+    /**
+     * Writes this map to the specified stream.
+     * 
+     * <p>
+     * Serial data: the size of the map (by the default serialization), followed by the key and value of each
+     * entry in iteration order.
+     * </p>
+     * 
+     * @param out stream to write to
+     * @throws IOException if writing to the stream fails
+     */
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        
+        // Local reference for performance
+        final ArrEntry<K, V>[] entries = this.entries;
+        
+        for (int i = 0; i < size; i++) {
+            out.writeObject(entries[i].key);
+            out.writeObject(entries[i].value);
+        }
+    }
+    
+    /**
+     * Reads a map written by {@link #writeObject(ObjectOutputStream)} from the specified stream.
+     * 
+     * <p>
+     * Also reads maps serialized in the former form, in which the entry array was a serialized field (and was
+     * not followed by the key-value sequence). The capacity of the entry array will be trimmed to the size of
+     * the map.
+     * </p>
+     * 
+     * @param in stream to read from
+     * @throws IOException if reading from the stream fails
+     * @throws ClassNotFoundException if the class of a serialized key or value cannot be found
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        final ObjectInputStream.GetField fields = in.readFields();
+        
+        final int size = fields.get("size", 0);
+        if (size < 0)
+            throw new InvalidObjectException("Invalid size: " + size);
+        
+        @SuppressWarnings("unchecked")
+        final ArrEntry<K, V>[] entries = (ArrEntry<K, V>[]) new ArrEntry<?, ?>[size];
+        
+        if (fields.getObjectStreamClass().getField("entries") != null) {
+            // Former serialized form: the entry array is a field
+            final Object oldEntries = fields.get("entries", null);
+            if (!(oldEntries instanceof ArrEntry<?, ?>[]) || ((ArrEntry<?, ?>[]) oldEntries).length < size)
+                throw new InvalidObjectException("Invalid entries!");
+            
+            for (int i = 0; i < size; i++) {
+                @SuppressWarnings("unchecked")
+                final ArrEntry<K, V> entry = (ArrEntry<K, V>) ((ArrEntry<?, ?>[]) oldEntries)[i];
+                if (entry == null)
+                    throw new InvalidObjectException("Invalid entries!");
+                entries[i] = entry;
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                @SuppressWarnings("unchecked")
+                final K key = (K) in.readObject();
+                @SuppressWarnings("unchecked")
+                final V value = (V) in.readObject();
+                entries[i] = new ArrEntry<>(key, value);
+            }
+        }
+        
+        this.size = size;
+        this.entries = entries;
+    }
+    
 }
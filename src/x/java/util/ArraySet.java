@@ -0,0 +1,189 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * An unmodifiable {@link Set} implementation which stores the elements in a simple array, no hashing table
+ * (like in {@link HashSet}) is used.
+ * 
+ * <p>
+ * The hash codes of the elements are cached in a parallel <code>int</code> array, so searches are sequential
+ * but {@link Object#equals(Object)} is only called if the hash codes match. This implementation is not
+ * suitable for many elements, but is faster and uses a lot less memory for small sets compared to
+ * {@link HashSet}. Recommended if element count is not more than {@value #MAX_RECOMMENDED_SIZE}.
+ * </p>
+ * 
+ * <p>
+ * Duplicate elements passed at creation are dropped, the iteration order is the order of the first
+ * occurrences.
+ * </p>
+ * 
+ * @param <E> type of the elements
+ * 
+ * @author Andras Belicza
+ * 
+ * @see CollUtils#smallSet(Object...)
+ */
+public class ArraySet<E> extends BaseSmallSet<E> {
+    
+    /** */
+    private static final long serialVersionUID = 1L;
+    
+    /** Max recommended number of elements for an {@link ArraySet}. */
+    public static final int MAX_RECOMMENDED_SIZE = 16;
+    
+    
+    /**
+     * Drops the duplicate elements by compacting the specified arrays, and calculates the hash codes of the
+     * elements.
+     * 
+     * @param elements elements to process, will be compacted
+     * @param hashes array to store the hash codes of the distinct elements in, at least as long as
+     *            <code>elements</code>
+     * @return the number of distinct elements (stored at the beginning of the arrays)
+     * 
+     * @throws IllegalArgumentException if any of the elements is <code>null</code>
+     */
+    static int distinct(final Object[] elements, final int[] hashes) throws IllegalArgumentException {
+        int count = 0;
+        
+        outer: for (final Object e : elements) {
+            final int h = checkedHash(e);
+            for (int i = 0; i < count; i++)
+                if (eq(elements[i], hashes[i], e, h))
+                    continue outer;
+            
+            elements[count] = e;
+            hashes[count++] = h;
+        }
+        
+        return count;
+    }
+    
+    
+    /** Array of the elements. */
+    private final Object[] elements;
+    
+    /** Cached hash codes of the elements. */
+    private final transient int[] hashes;
+    
+    /**
+     * Creates a new {@link ArraySet}.
+     * 
+     * @param elements elements of the set
+     * 
+     * @throws IllegalArgumentException if any of the elements is <code>null</code>
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs") // The elements are copied into an Object[]
+    public ArraySet(final E... elements) throws IllegalArgumentException {
+        this(elements.clone(), new int[elements.length]);
+    }
+    
+    /**
+     * Creates a new {@link ArraySet}.
+     * 
+     * @param c collection whose elements to be placed into this set
+     * 
+     * @throws IllegalArgumentException if any of the elements is <code>null</code>
+     */
+    public ArraySet(final Collection<? extends E> c) throws IllegalArgumentException {
+        this(c.toArray(), new int[c.size()]);
+    }
+    
+    /**
+     * Creates a new {@link ArraySet}.
+     * 
+     * @param elements elements of the set, will be compacted, must not be shared
+     * @param hashes array to store the hash codes of the elements in
+     * 
+     * @throws IllegalArgumentException if any of the elements is <code>null</code>
+     */
+    private ArraySet(final Object[] elements, final int[] hashes) throws IllegalArgumentException {
+        this(elements, hashes, distinct(elements, hashes));
+    }
+    
+    /**
+     * Creates a new {@link ArraySet} from distinct elements.
+     * 
+     * @param elements distinct elements of the set, must not be shared
+     * @param hashes hash codes of the elements
+     * @param size number of elements to use from the beginning of the arrays
+     */
+    ArraySet(final Object[] elements, final int[] hashes, final int size) {
+        super(sum(hashes, size));
+        
+        this.elements = elements.length == size ? elements : Arrays.copyOf(elements, size);
+        this.hashes = hashes.length == size ? hashes : Arrays.copyOf(hashes, size);
+    }
+    
+    /**
+     * Returns the sum of the specified hash codes.
+     * 
+     * @param hashes hash codes to sum
+     * @param size number of hash codes to use from the beginning of the array
+     * @return the sum of the specified hash codes
+     */
+    private static int sum(final int[] hashes, final int size) {
+        int sum = 0;
+        for (int i = 0; i < size; i++)
+            sum += hashes[i];
+        return sum;
+    }
+    
+    @Override
+    public int size() {
+        return elements.length;
+    }
+    
+    @Override
+    public boolean contains(final Object o) {
+        if (o == null)
+            return false;
+        
+        // Local references for performance
+        final Object[] elements = this.elements;
+        final int[] hashes = this.hashes;
+        
+        final int h = o.hashCode();
+        for (int i = elements.length - 1; i >= 0; i--)
+            if (eq(elements[i], hashes[i], o, h))
+                return true;
+        
+        return false;
+    }
+    
+    @Override
+    protected E get(final int index) {
+        @SuppressWarnings("unchecked")
+        final E e = (E) elements[index];
+        return e;
+    }
+    
+    @Override
+    public Object[] toArray() {
+        return elements.clone();
+    }
+    
+    /**
+     * Recreates the set so cached hash codes are recalculated (they might differ in another JVM).
+     * 
+     * @return a new instance with the same elements
+     */
+    private Object readResolve() {
+        return new ArraySet<>(elements, new int[elements.length]);
+    }
+    
+}
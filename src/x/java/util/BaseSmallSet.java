@@ -0,0 +1,279 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.util;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Base of the unmodifiable, small {@link Set} implementations which store their elements without hashing
+ * tables.
+ * 
+ * <p>
+ * Elements are accessed by index, the iteration order is the order of the elements passed at creation.
+ * <code>null</code> elements are not permitted. The hash code of the set is computed once when the set is
+ * created.
+ * </p>
+ * 
+ * <p>
+ * Thread safe as instances are unmodifiable.
+ * </p>
+ * 
+ * @param <E> type of the elements
+ * 
+ * @author Andras Belicza
+ * 
+ * @see OneValueSet
+ * @see TwoValueSet
+ * @see ThreeValueSet
+ * @see FourValueSet
+ * @see ArraySet
+ * @see CollUtils#smallSet(Object...)
+ */
+public abstract class BaseSmallSet<E> implements Set<E>, Serializable {
+    
+    /** */
+    private static final long serialVersionUID = 1L;
+    
+    /**
+     * Checks if the specified element is valid (not <code>null</code>).
+     * 
+     * @param e element to be checked
+     * @return the hash code of the element
+     * 
+     * @throws IllegalArgumentException if <code>e</code> is <code>null</code>
+     */
+    static int checkedHash(final Object e) throws IllegalArgumentException {
+        if (e == null)
+            throw new IllegalArgumentException("Elements cannot be null!");
+        
+        return e.hashCode();
+    }
+    
+    /**
+     * Tests if 2 elements are equal.
+     * 
+     * @param e an element of the set
+     * @param hash cached hash code of <code>e</code>
+     * @param o object to be tested, must not be <code>null</code>
+     * @param oHash hash code of <code>o</code>
+     * @return true if the 2 elements are equal; false otherwise
+     */
+    static boolean eq(final Object e, final int hash, final Object o, final int oHash) {
+        // Reference check first, then the cached hash to avoid most of the equals() calls
+        return e == o || hash == oHash && o.equals(e);
+    }
+    
+    
+    /** Cached hash code of the set (sum of the hash codes of the elements as required by {@link Set}). */
+    private final transient int hash;
+    
+    /**
+     * Creates a new {@link BaseSmallSet}.
+     * 
+     * @param hash hash code of the set (sum of the hash codes of the elements)
+     */
+    protected BaseSmallSet(final int hash) {
+        this.hash = hash;
+    }
+    
+    /**
+     * Returns the element at the specified index.
+     * 
+     * @param index index of the element to return
+     * @return the element at the specified index
+     */
+    protected abstract E get(int index);
+    
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+    
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int idx = 0;
+            
+            @Override
+            public boolean hasNext() {
+                return idx < size();
+            }
+            
+            @Override
+            public E next() {
+                if (idx < size())
+                    return get(idx++);
+                throw new NoSuchElementException();
+            }
+            
+            /**
+             * Throws {@link UnsupportedOperationException}.
+             */
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+    
+    @Override
+    public Object[] toArray() {
+        final int size = size();
+        
+        final Object[] result = new Object[size];
+        for (int i = 0; i < size; i++)
+            result[i] = get(i);
+        
+        return result;
+    }
+    
+    @Override
+    public <T> T[] toArray(final T[] a) {
+        final int size = size();
+        
+        @SuppressWarnings("unchecked")
+        final T[] result = a.length >= size ? a : (T[]) java.lang.reflect.Array.newInstance(a.getClass()
+                .getComponentType(), size);
+        
+        for (int i = 0; i < size; i++) {
+            @SuppressWarnings("unchecked")
+            final T typedValue = (T) get(i);
+            result[i] = typedValue;
+        }
+        
+        // Quoting from javadoc of Set.toArray(T[]):
+        // If this set fits in the specified array with room to spare (i.e., the array has more elements than
+        // this set), the element in the array immediately following the end of the set is set to null.
+        if (result.length > size)
+            result[size] = null;
+        
+        return result;
+    }
+    
+    /**
+     * Throws {@link UnsupportedOperationException}.
+     */
+    @Override
+    public boolean add(final E e) {
+        throw new UnsupportedOperationException();
+    }
+    
+    /**
+     * Throws {@link UnsupportedOperationException}.
+     */
+    @Override
+    public boolean remove(final Object o) {
+        throw new UnsupportedOperationException();
+    }
+    
+    @Override
+    public boolean containsAll(final Collection<?> c) {
+        for (final Object o : c)
+            if (!contains(o))
+                return false;
+        return true;
+    }
+    
+    /**
+     * Throws {@link UnsupportedOperationException}.
+     */
+    @Override
+    public boolean addAll(final Collection<? extends E> c) {
+        throw new UnsupportedOperationException();
+    }
+    
+    /**
+     * Throws {@link UnsupportedOperationException}.
+     */
+    @Override
+    public boolean retainAll(final Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+    
+    /**
+     * Throws {@link UnsupportedOperationException}.
+     */
+    @Override
+    public boolean removeAll(final Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+    
+    /**
+     * Throws {@link UnsupportedOperationException}.
+     */
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+    
+    /**
+     * Checks if the specified object is equal to this set.
+     * 
+     * <p>
+     * Will return <code>true</code> if the specified object:
+     * </p>
+     * 
+     * <ul>
+     * <li>is a {@link Set}
+     * <li>has the same size
+     * <li>and contains all our elements
+     * </ul>
+     * 
+     * @param obj object to be checked for equality
+     * 
+     * @return <code>true</code> the specified object is equal, <code>false</code> otherwise
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == this)
+            return true;
+        
+        if (!(obj instanceof Set))
+            return false;
+        
+        final Set<?> set = (Set<?>) obj;
+        final int size = size();
+        if (set.size() != size)
+            return false;
+        
+        // Cached hash codes are cheap to compare
+        if (set instanceof BaseSmallSet && ((BaseSmallSet<?>) set).hash != hash)
+            return false;
+        
+        for (int i = 0; i < size; i++)
+            if (!set.contains(get(i)))
+                return false;
+        
+        return true;
+    }
+    
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+    
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder().append('[');
+        
+        for (int i = 0; i < size(); i++) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append(get(i));
+        }
+        
+        return sb.append(']').toString();
+    }
+    
+}
@@ -9,7 +9,11 @@
  */
 package x.java.util;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 import x.java.lang.NullAwareComparable;
 
@@ -56,4 +60,102 @@ public class CollUtils {
         };
     }
     
+    /**
+     * Creates an unmodifiable, memory efficient {@link Set} holding the specified elements.
+     * 
+     * <p>
+     * The implementation is chosen based on the number of distinct elements:
+     * </p>
+     * <ul>
+     * <li>0: {@link Collections#emptySet()}
+     * <li>1: {@link OneValueSet}
+     * <li>2: {@link TwoValueSet}
+     * <li>3: {@link ThreeValueSet}
+     * <li>4: {@link FourValueSet}
+     * <li>up to {@value ArraySet#MAX_RECOMMENDED_SIZE}: {@link ArraySet}
+     * <li>more: an unmodifiable view of a {@link LinkedHashSet}
+     * </ul>
+     * 
+     * <p>
+     * Duplicate elements are dropped, the iteration order is the order of the first occurrences.
+     * </p>
+     * 
+     * @param <E> type of the elements
+     * @param elements elements of the set
+     * 
+     * @return an unmodifiable {@link Set} holding the specified elements
+     * 
+     * @throws IllegalArgumentException if any of the elements is <code>null</code>
+     * 
+     * @see #toSmallSet(Collection)
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs") // The elements are copied into an Object[]
+    public static <E> Set<E> smallSet(final E... elements) throws IllegalArgumentException {
+        return smallSetOf(elements.clone());
+    }
+    
+    /**
+     * Creates an unmodifiable, memory efficient {@link Set} holding the elements of the specified collection.
+     * 
+     * <p>
+     * See {@link #smallSet(Object...)} for details.
+     * </p>
+     * 
+     * @param <E> type of the elements
+     * @param c collection whose elements to be placed into the set
+     * 
+     * @return an unmodifiable {@link Set} holding the elements of the specified collection
+     * 
+     * @throws IllegalArgumentException if any of the elements is <code>null</code>
+     * 
+     * @see #smallSet(Object...)
+     */
+    public static <E> Set<E> toSmallSet(final Collection<? extends E> c) throws IllegalArgumentException {
+        return smallSetOf(c.toArray());
+    }
+    
+    /**
+     * Creates an unmodifiable, memory efficient {@link Set} holding the specified elements.
+     * 
+     * @param <E> type of the elements
+     * @param elements elements of the set, will be modified, must not be shared
+     * 
+     * @return an unmodifiable {@link Set} holding the specified elements
+     * 
+     * @throws IllegalArgumentException if any of the elements is <code>null</code>
+     */
+    @SuppressWarnings("unchecked")
+    private static <E> Set<E> smallSetOf(final Object[] elements) throws IllegalArgumentException {
+        if (elements.length > ArraySet.MAX_RECOMMENDED_SIZE) {
+            final Set<E> set = new LinkedHashSet<>(elements.length / 3 * 4 + 2);
+            for (final Object e : elements) {
+                if (e == null)
+                    throw new IllegalArgumentException("Elements cannot be null!");
+                set.add((E) e);
+            }
+            
+            if (set.size() > ArraySet.MAX_RECOMMENDED_SIZE)
+                return Collections.unmodifiableSet(set);
+        }
+        
+        final int[] hashes = new int[elements.length];
+        final int size = ArraySet.distinct(elements, hashes);
+        
+        switch (size) {
+        case 0:
+            return Collections.emptySet();
+        case 1:
+            return new OneValueSet<>((E) elements[0]);
+        case 2:
+            return new TwoValueSet<>((E) elements[0], (E) elements[1]);
+        case 3:
+            return new ThreeValueSet<>((E) elements[0], (E) elements[1], (E) elements[2]);
+        case 4:
+            return new FourValueSet<>((E) elements[0], (E) elements[1], (E) elements[2], (E) elements[3]);
+        default:
+            return new ArraySet<>(elements, hashes, size);
+        }
+    }
+    
 }
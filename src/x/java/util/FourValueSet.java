@@ -0,0 +1,148 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.util;
+
+import java.util.Set;
+
+/**
+ * A super-fast, unmodifiable {@link Set} implementation holding exactly 4 distinct values.
+ * 
+ * <p>
+ * Values are stored in fields along with their cached hash codes, so {@link #contains(Object)} only calls
+ * {@link Object#equals(Object)} if the hash codes match.
+ * </p>
+ * 
+ * @param <E> type of the elements
+ * 
+ * @author Andras Belicza
+ * 
+ * @see CollUtils#smallSet(Object...)
+ */
+public class FourValueSet<E> extends BaseSmallSet<E> {
+    
+    /** */
+    private static final long serialVersionUID = 1L;
+    
+    /** The first element. */
+    private final E value1;
+    
+    /** The second element. */
+    private final E value2;
+    
+    /** The third element. */
+    private final E value3;
+    
+    /** The fourth element. */
+    private final E value4;
+    
+    /** Cached hash code of the first element. */
+    private final transient int hash1;
+    
+    /** Cached hash code of the second element. */
+    private final transient int hash2;
+    
+    /** Cached hash code of the third element. */
+    private final transient int hash3;
+    
+    /** Cached hash code of the fourth element. */
+    private final transient int hash4;
+    
+    /**
+     * Creates a new {@link FourValueSet}.
+     * 
+     * @param value1 the first element
+     * @param value2 the second element
+     * @param value3 the third element
+     * @param value4 the fourth element
+     * 
+     * @throws IllegalArgumentException if any of the values is <code>null</code> or the values are not
+     *             distinct
+     */
+    public FourValueSet(final E value1, final E value2, final E value3, final E value4)
+            throws IllegalArgumentException {
+        this(value1, value2, value3, value4, checkedHash(value1), checkedHash(value2), checkedHash(value3),
+                checkedHash(value4));
+    }
+    
+    /**
+     * Creates a new {@link FourValueSet}.
+     * 
+     * @param value1 the first element
+     * @param value2 the second element
+     * @param value3 the third element
+     * @param value4 the fourth element
+     * @param hash1 hash code of the first element
+     * @param hash2 hash code of the second element
+     * @param hash3 hash code of the third element
+     * @param hash4 hash code of the fourth element
+     * 
+     * @throws IllegalArgumentException if the values are not distinct
+     */
+    private FourValueSet(final E value1, final E value2, final E value3, final E value4,
+            final int hash1, final int hash2, final int hash3, final int hash4)
+            throws IllegalArgumentException {
+        super(hash1 + hash2 + hash3 + hash4);
+        
+        if (eq(value1, hash1, value2, hash2) || eq(value1, hash1, value3, hash3)
+                || eq(value1, hash1, value4, hash4) || eq(value2, hash2, value3, hash3)
+                || eq(value2, hash2, value4, hash4) || eq(value3, hash3, value4, hash4))
+            throw new IllegalArgumentException("Values must be distinct!");
+        
+        this.value1 = value1;
+        this.hash1 = hash1;
+        this.value2 = value2;
+        this.hash2 = hash2;
+        this.value3 = value3;
+        this.hash3 = hash3;
+        this.value4 = value4;
+        this.hash4 = hash4;
+    }
+    
+    @Override
+    public int size() {
+        return 4;
+    }
+    
+    @Override
+    public boolean contains(final Object o) {
+        if (o == null)
+            return false;
+        
+        final int h = o.hashCode();
+        return eq(value1, hash1, o, h) || eq(value2, hash2, o, h) || eq(value3, hash3, o, h)
+                || eq(value4, hash4, o, h);
+    }
+    
+    @Override
+    protected E get(final int index) {
+        switch (index) {
+        case 0:
+            return value1;
+        case 1:
+            return value2;
+        case 2:
+            return value3;
+        case 3:
+            return value4;
+        default:
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: 4");
+        }
+    }
+    
+    /**
+     * Recreates the set so cached hash codes are recalculated (they might differ in another JVM).
+     * 
+     * @return a new instance with the same values
+     */
+    private Object readResolve() {
+        return new FourValueSet<>(value1, value2, value3, value4);
+    }
+    
+}
@@ -0,0 +1,200 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.util;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * An unmodifiable set of primitive <code>int</code> values stored in a simple, sorted array.
+ * 
+ * <p>
+ * No boxing is performed, and memory overhead is a single <code>int</code> array (compared to a
+ * {@link HashSet} of {@link Integer}s which requires a table, an entry and a boxed value per element).
+ * {@link #contains(int)} performs a sequential search for small sets and a binary search for bigger ones.
+ * </p>
+ * 
+ * <p>
+ * Duplicate values passed at creation are dropped. Iteration order is ascending.
+ * </p>
+ * 
+ * <p>
+ * {@link #hashCode()} is compatible with the hash code of a {@link Set} of {@link Integer}s holding the
+ * same values, but an {@link IntArraySet} is only equal to another {@link IntArraySet}.
+ * </p>
+ * 
+ * @author Andras Belicza
+ * 
+ * @see ArraySet
+ */
+public class IntArraySet implements Serializable {
+    
+    /** */
+    private static final long serialVersionUID = 1L;
+    
+    /** Size limit up to which sequential search is used instead of binary search. */
+    private static final int SEQUENTIAL_SEARCH_LIMIT = 8;
+    
+    
+    /** Sorted, distinct values. */
+    private final int[] values;
+    
+    /** Cached hash code (sum of the values). */
+    private final transient int hash;
+    
+    /**
+     * Creates a new {@link IntArraySet}.
+     * 
+     * @param values values of the set
+     */
+    public IntArraySet(final int... values) {
+        final int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        
+        // Drop duplicates
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++)
+            if (i == 0 || sorted[i] != sorted[count - 1])
+                sorted[count++] = sorted[i];
+        
+        this.values = count == sorted.length ? sorted : Arrays.copyOf(sorted, count);
+        
+        int hash = 0;
+        for (final int v : this.values)
+            hash += v;
+        this.hash = hash;
+    }
+    
+    /**
+     * Returns the number of values in the set.
+     * 
+     * @return the number of values in the set
+     */
+    public int size() {
+        return values.length;
+    }
+    
+    /**
+     * Tells if the set is empty.
+     * 
+     * @return true if the set is empty; false otherwise
+     */
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+    
+    /**
+     * Tells if the specified value is in the set.
+     * 
+     * @param value value to be checked
+     * @return true if the specified value is in the set; false otherwise
+     */
+    public boolean contains(final int value) {
+        // Local reference for performance
+        final int[] values = this.values;
+        
+        if (values.length > SEQUENTIAL_SEARCH_LIMIT)
+            return Arrays.binarySearch(values, value) >= 0;
+        
+        for (final int v : values)
+            if (v >= value)
+                return v == value;
+        
+        return false;
+    }
+    
+    /**
+     * Returns the value at the specified index (in ascending order).
+     * 
+     * @param index index of the value to return
+     * @return the value at the specified index
+     * 
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    public int get(final int index) throws IndexOutOfBoundsException {
+        return values[index];
+    }
+    
+    /**
+     * Returns the values of the set in a new array, in ascending order.
+     * 
+     * @return the values of the set in a new array
+     */
+    public int[] toArray() {
+        return values.clone();
+    }
+    
+    /**
+     * Performs the given action for each value in ascending order.
+     * 
+     * @param action action to be performed for each value
+     */
+    public void forEach(final IntConsumer action) {
+        for (final int v : values)
+            action.accept(v);
+    }
+    
+    /**
+     * Returns a sequential {@link IntStream} of the values in ascending order.
+     * 
+     * @return a sequential {@link IntStream} of the values
+     */
+    public IntStream stream() {
+        return Arrays.stream(values);
+    }
+    
+    /**
+     * Checks if the specified object is equal to this set.
+     * 
+     * <p>
+     * Will return <code>true</code> if the specified object is an {@link IntArraySet} holding the same
+     * values.
+     * </p>
+     * 
+     * @param obj object to be checked for equality
+     * 
+     * @return <code>true</code> the specified object is equal, <code>false</code> otherwise
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == this)
+            return true;
+        
+        if (!(obj instanceof IntArraySet))
+            return false;
+        
+        final IntArraySet set = (IntArraySet) obj;
+        return hash == set.hash && Arrays.equals(values, set.values);
+    }
+    
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+    
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+    
+    /**
+     * Recreates the set so the cached hash code is restored.
+     * 
+     * @return a new instance with the same values
+     */
+    private Object readResolve() {
+        return new IntArraySet(values);
+    }
+    
+}
@@ -24,6 +24,8 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import x.java.io.IOUtils;
+import x.java.lang.StructCodec;
+import x.java.lang.StructView;
 
 /**
  * A file-persisted map-like utility.
@@ -384,6 +386,50 @@ public class PersistentMap implements AutoCloseable {
         return IOUtils.deserialize(value);
     }
     
+    /**
+     * Puts a new entry into the persistent map.
+     * 
+     * <p>
+     * This method will encode the <code>struct</code> structure using {@link StructCodec} and puts the
+     * resulting <code>byte</code> array into the map. Unlike {@link #putObj(String, Serializable)}, such
+     * values can be queried without full deserialization, see {@link #getStruct(String)}.
+     * </p>
+     * 
+     * @param key key of the new entry
+     * @param struct structure to store for the new entry
+     * 
+     * @throws IllegalArgumentException if <code>key</code> is <code>null</code>, or <code>struct</code>
+     *             contains a value which is not supported by {@link StructCodec}
+     * 
+     * @see #put(String, byte[])
+     */
+    public void putStruct(final String key, final Map<String, ?> struct) throws IllegalArgumentException {
+        put(key, StructCodec.encode(struct));
+    }
+    
+    /**
+     * Reads a structure from the persistent map.
+     * 
+     * <p>
+     * The returned view is backed by the encoded value, only the fields on the requested paths are decoded.
+     * </p>
+     * 
+     * @param key key whose associated structure to be read
+     * 
+     * @return a lazily decoded view of the structure associated with the specified key; or <code>null</code>
+     *         if there is no value associated with the specified key
+     * 
+     * @throws IllegalArgumentException if the <code>key</code> is <code>null</code>
+     * 
+     * @see #putStruct(String, Map)
+     * @see StructCodec#view(byte[])
+     */
+    public StructView getStruct(final String key) throws IllegalArgumentException {
+        final byte[] value = get(key);
+        
+        return value == null ? null : StructCodec.view(value);
+    }
+    
     /**
      * Tells if the specified key is part of the persistent map without reading and returning its value.
      * 
@@ -0,0 +1,116 @@
+/*
+ * Project XJava
+ * 
+ * Copyright (c) 2014 Andras Belicza <iczaaa@gmail.com>
+ * 
+ * This software is the property of Andras Belicza.
+ * Copying, modifying, distributing, refactoring without the author's permission
+ * is prohibited and protected by Law.
+ */
+package x.java.util;
+
+import java.util.Set;
+
+/**
+ * A super-fast, unmodifiable {@link Set} implementation holding exactly 2 distinct values.
+ * 
+ * <p>
+ * Values are stored in fields along with their cached hash codes, so {@link #contains(Object)} only calls
+ * {@link Object#equals(Object)} if the hash codes match.
+ * </p>
+ * 
+ * @param <E> type of the elements
+ * 
+ * @author Andras Belicza
+ * 
+ * @see CollUtils#smallSet(Object...)
+ */
+public class TwoValueSet<E> extends BaseSmallSet<E> {
+    
+    /** */
+    private static final long serialVersionUID = 1L;
+    
+    /** The first element. */
+    private final E value1;
+    
+    /** The second element. */
+    private final E value2;
+    
+    /** Cached hash code of the first element. */
+    private final transient int hash1;
+    
+    /** Cached hash code of the second element. */
+    private final transient int hash2;
+    
+    /**
+     * Creates a new {@link TwoValueSet}.
+     * 
+     * @param value1 the first element
+     * @param value2 the second element
+     * 
+     * @throws IllegalArgumentException if any of the values is <code>null</code> or the values are not
+     *             distinct
+     */
+    public TwoValueSet(final E value1, final E value2) throws IllegalArgumentException {
+        this(value1, value2, checkedHash(value1), checkedHash(value2));
+    }
+    
+    /**
+     * Creates a new {@link TwoValueSet}.
+     * 
+     * @param value1 the first element
+     * @param value2 the second element
+     * @param hash1 hash code of the first element
+     * @param hash2 hash code of the second element
+     * 
+     * @throws IllegalArgumentException if the values are not distinct
+     */
+    private TwoValueSet(final E value1, final E value2, final int hash1, final int hash2)
+            throws IllegalArgumentException {
+        super(hash1 + hash2);
+        
+        if (eq(value1, hash1, value2, hash2))
+            throw new IllegalArgumentException("Values must be distinct!");
+        
+        this.value1 = value1;
+        this.hash1 = hash1;
+        this.value2 = value2;
+        this.hash2 = hash2;
+    }
+    
+    @Override
+    public int size() {
+        return 2;
+    }
+    
+    @Override
+    public boolean contains(final Object o) {
+        if (o == null)
+            return false;
+        
+        final int h = o.hashCode();
+        return eq(value1, hash1, o, h) || eq(value2, hash2, o, h);
+    }
+    
+    @Override
+    protected E get(final int index) {
+        switch (index) {
+        case 0:
+            return value1;
+        case 1:
+            return value2;
+        default:
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: 2");
+        }
+    }
+    
+    /**
+     * Recreates the set so cached hash codes are recalculated (they might differ in another JVM).
+     * 
+     * @return a new instance with the same values
+     */
+    private Object readResolve() {
+        return new TwoValueSet<>(value1, value2);
+    }
+    
+}